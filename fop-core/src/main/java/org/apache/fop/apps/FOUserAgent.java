@@ -57,6 +57,8 @@ import org.apache.fop.fo.ElementMappingRegistry;
 import org.apache.fop.fo.FOEventHandler;
 import org.apache.fop.fonts.FontManager;
 import org.apache.fop.layoutmgr.LayoutManagerMaker;
+import org.apache.fop.layoutmgr.LayoutProfileListener;
+import org.apache.fop.layoutmgr.inline.LineBreakCache;
 import org.apache.fop.render.ImageHandlerRegistry;
 import org.apache.fop.render.Renderer;
 import org.apache.fop.render.RendererConfig;
@@ -67,6 +69,7 @@ import org.apache.fop.render.XMLHandlerRegistry;
 import org.apache.fop.render.intermediate.IFDocumentHandler;
 import org.apache.fop.util.ColorSpaceCache;
 import org.apache.fop.util.ContentHandlerFactoryRegistry;
+import org.apache.fop.util.EncodedStreamCache;
 
 /**
  * This is the user agent for FOP.
@@ -104,6 +107,11 @@ public class FOUserAgent {
     private FOEventHandler foEventHandlerOverride;
     private boolean locatorEnabled = true; // true by default (for error messages).
     private boolean conserveMemoryPolicy;
+    private int layoutThreads = 1;
+    private int pageBreakingWindow;
+    private int lineBreakCacheSize = LineBreakCache.DEFAULT_SIZE;
+    private boolean linearColumnBalancing;
+    private LayoutProfileListener layoutProfileListener;
     private EventBroadcaster eventBroadcaster = new FOPEventBroadcaster();
     private StructureTreeEventHandler structureTreeEventHandler
             = DummyStructureTreeEventHandler.INSTANCE;
@@ -615,7 +623,8 @@ public class FOUserAgent {
         }
 
         /** {@inheritDoc} */
-        public void broadcastEvent(Event event) {
+        public synchronized void broadcastEvent(Event event) {
+            //Page-sequences laid out on worker threads report events concurrently
             rootListener.processEvent(event);
         }
 
@@ -639,6 +648,139 @@ public class FOUserAgent {
         this.conserveMemoryPolicy = conserveMemoryPolicy;
     }
 
+    /**
+     * Returns the number of threads on which page-sequences are laid out.
+     *
+     * @return the number of layout threads, 1 if page-sequences are laid out in turn while the
+     * document is parsed
+     */
+    public int getLayoutThreads() {
+        return this.layoutThreads;
+    }
+
+    /**
+     * Sets the number of threads on which page-sequences are laid out. With more than one
+     * thread, a page-sequence whose initial-page-number is an explicit number is laid out on
+     * a worker thread as soon as it has been parsed, while parsing continues. The finished
+     * page-sequences are handed to the area tree in document order. A page-number-citation of
+     * an earlier page-sequence is then laid out like one of a later page-sequence, with the
+     * room reserved for a page number that is not known yet. With accessibility enabled,
+     * page-sequences are always laid out in turn.
+     *
+     * @param layoutThreads the number of layout threads, at least 1
+     */
+    public void setLayoutThreads(int layoutThreads) {
+        if (layoutThreads < 1) {
+            throw new IllegalArgumentException("The number of layout threads must be at least 1");
+        }
+        this.layoutThreads = layoutThreads;
+    }
+
+    /**
+     * Returns the number of pages the page breaker looks ahead in incremental mode.
+     *
+     * @return the number of pages of lookahead, 0 if the page breaks are optimized over whole
+     * flows
+     */
+    public int getPageBreakingWindow() {
+        return this.pageBreakingWindow;
+    }
+
+    /**
+     * Sets the number of pages the page breaker looks ahead in incremental mode. By default
+     * (0), the page breaks of a flow are optimized over the whole flow, or up to its next
+     * forced break, before any of its pages is added to the area tree. With a window of n
+     * pages, the breaks are decided as soon as the content of 2n pages has been considered: the
+     * breaks of the first n pages are fixed, their areas added to the area tree, and page
+     * breaking goes on from there. The pages then reach the renderer early, and the set of
+     * breaks considered at once stays bounded. Breaks may differ from the optimal ones when a
+     * better choice would have required more than n pages of lookahead.
+     * <p>
+     * This does not bound the memory used by layout: the element list of a flow, up to its
+     * next forced break, is still created in full before its page breaks are looked for. A
+     * table of many thousand rows therefore needs as much memory as in optimal mode.
+     *
+     * @param pageBreakingWindow the number of pages of lookahead, or 0 for optimal page breaking
+     */
+    public void setPageBreakingWindow(int pageBreakingWindow) {
+        if (pageBreakingWindow < 0) {
+            throw new IllegalArgumentException("The page breaking window must not be negative");
+        }
+        this.pageBreakingWindow = pageBreakingWindow;
+    }
+
+    /**
+     * Returns the maximum number of paragraphs whose line breaks are cached.
+     *
+     * @return the size of the line break cache, 0 if it is disabled
+     */
+    public int getLineBreakCacheSize() {
+        return this.lineBreakCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of paragraphs whose line breaks are cached and reused for
+     * identical paragraphs, for instance in a static-content repeated on every page. The
+     * default is {@link LineBreakCache#DEFAULT_SIZE}. The cache can be disabled with 0, to rule
+     * it out when looking into a line breaking problem.
+     *
+     * @param lineBreakCacheSize the size of the line break cache, or 0 to disable it
+     * @see LineBreakCache
+     */
+    public void setLineBreakCacheSize(int lineBreakCacheSize) {
+        if (lineBreakCacheSize < 0) {
+            throw new IllegalArgumentException("The line break cache size must not be negative");
+        }
+        this.lineBreakCacheSize = lineBreakCacheSize;
+    }
+
+    /**
+     * Indicates whether columns are balanced with the linear-time strategy.
+     *
+     * @return true if {@link org.apache.fop.layoutmgr.LinearBalancingColumnBreakingAlgorithm}
+     * is used to balance columns
+     */
+    public boolean isLinearColumnBalancing() {
+        return this.linearColumnBalancing;
+    }
+
+    /**
+     * Selects the strategy used to balance the columns preceding a span="all" block. By default
+     * (false), the column breaks are found by repeatedly redistributing the content until the
+     * breaks settle. The linear-time strategy instead finds the smallest column height at which
+     * the content fits into the available columns, with a binary search over prefix sums of the
+     * element lengths, and fills the columns up to that height. Both strategies may choose
+     * different breaks for the same content.
+     *
+     * @param linearColumnBalancing true to balance columns with the linear-time strategy
+     * @see org.apache.fop.layoutmgr.LinearBalancingColumnBreakingAlgorithm
+     */
+    public void setLinearColumnBalancing(boolean linearColumnBalancing) {
+        this.linearColumnBalancing = linearColumnBalancing;
+    }
+
+    /**
+     * Returns the listener notified of the work of the layout managers.
+     *
+     * @return the listener, or null if layout is not profiled
+     */
+    public LayoutProfileListener getLayoutProfileListener() {
+        return this.layoutProfileListener;
+    }
+
+    /**
+     * Sets a listener to be notified of the work of the layout managers: the creation of
+     * element lists and areas, line and page breaking, and the restarts of layout caused by a
+     * change of inline-progression-dimension. Layout is not instrumented when no listener is
+     * set, which is the default.
+     *
+     * @param listener the listener, or null to stop profiling layout
+     * @see org.apache.fop.layoutmgr.LayoutProfiler
+     */
+    public void setLayoutProfileListener(LayoutProfileListener listener) {
+        this.layoutProfileListener = listener;
+    }
+
     /**
      * Check whether complex script features are enabled.
      *
@@ -801,6 +943,11 @@ public class FOUserAgent {
         return factory.getColorSpaceCache();
     }
 
+    /** @return the encoded stream cache */
+    public EncodedStreamCache getEncodedStreamCache() {
+        return factory.getEncodedStreamCache();
+    }
+
     /** @see FopFactory#getHyphenationPatternNames() */
     public Map<String, String> getHyphenationPatternNames() {
         return factory.getHyphenationPatternNames();
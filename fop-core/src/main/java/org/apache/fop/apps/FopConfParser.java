@@ -56,6 +56,8 @@ public class FopConfParser {
 
     private static final String PREFER_RENDERER = "prefer-renderer";
 
+    private static final String ENCODED_STREAM_CACHE_SIZE = "encoded-stream-cache-size";
+
     private final Log log = LogFactory.getLog(FopConfParser.class);
 
     private final FopFactoryBuilder fopFactoryBuilder;
@@ -262,6 +264,18 @@ public class FopConfParser {
             }
         }
 
+        // share encoded stream payloads between documents
+        if (cfg.getChild(ENCODED_STREAM_CACHE_SIZE, false) != null) {
+            try {
+                fopFactoryBuilder.setEncodedStreamCacheSize(
+                        cfg.getChild(ENCODED_STREAM_CACHE_SIZE).getValueAsLong());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, strict);
+            } catch (IllegalArgumentException e) {
+                LogUtil.handleException(log, e, strict);
+            }
+        }
+
         // configure font manager
         new FontManagerConfigurator(cfg, baseURI, fopFactoryBuilder.getBaseURI(), resourceResolver)
                 .configure(fopFactoryBuilder.getFontManager(), strict);
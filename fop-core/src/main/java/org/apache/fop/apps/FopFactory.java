@@ -52,6 +52,7 @@ import org.apache.fop.render.RendererFactory;
 import org.apache.fop.render.XMLHandlerRegistry;
 import org.apache.fop.util.ColorSpaceCache;
 import org.apache.fop.util.ContentHandlerFactoryRegistry;
+import org.apache.fop.util.EncodedStreamCache;
 
 /**
  * Factory class which instantiates new Fop and FOUserAgent instances. This
@@ -82,6 +83,8 @@ public final class FopFactory implements ImageContext {
 
     private final ColorSpaceCache colorSpaceCache;
 
+    private final EncodedStreamCache encodedStreamCache;
+
     private final FopFactoryConfig config;
 
     private final InternalResourceResolver resolver;
@@ -94,6 +97,7 @@ public final class FopFactory implements ImageContext {
                 config.getResourceResolver());
         this.elementMappingRegistry = new ElementMappingRegistry(this);
         this.colorSpaceCache = new ColorSpaceCache(resolver);
+        this.encodedStreamCache = new EncodedStreamCache(config.getEncodedStreamCacheSize());
         this.rendererFactory = new RendererFactory(config.preferRenderer());
         this.xmlHandlers = new XMLHandlerRegistry();
         this.imageHandlers = new ImageHandlerRegistry();
@@ -436,4 +440,14 @@ public final class FopFactory implements ImageContext {
     public ColorSpaceCache getColorSpaceCache() {
         return this.colorSpaceCache;
     }
+
+    /**
+     * Returns the cache of encoded stream payloads shared by the documents of this instance.
+     * <p>
+     * Note: this method should not be considered as part of FOP's external API.
+     * @return the encoded stream cache
+     */
+    public EncodedStreamCache getEncodedStreamCache() {
+        return this.encodedStreamCache;
+    }
 }
@@ -318,6 +318,24 @@ public final class FopFactoryBuilder {
         return this;
     }
 
+    /**
+     * Sets the maximum size of the encoded image, ICC profile and font subset stream payloads
+     * shared by the documents produced by the factory. Images and fonts are identified by their
+     * URI; for file URIs, the last modification time and the length of the file are checked
+     * too, but the content of any other URI is assumed not to change while the factory is in
+     * use. Disabled by default.
+     *
+     * @param size the maximum size in bytes, 0 to disable the cache
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setEncodedStreamCacheSize(long size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("The encoded stream cache size must not be negative: " + size);
+        }
+        fopFactoryConfigBuilder.setEncodedStreamCacheSize(size);
+        return this;
+    }
+
     public FopFactoryBuilder setHyphPatNames(Map<String, String> hyphPatNames) {
         fopFactoryConfigBuilder.setHyphPatNames(hyphPatNames);
         return this;
@@ -360,6 +378,8 @@ public final class FopFactoryBuilder {
 
         private boolean isComplexScript = true;
 
+        private long encodedStreamCacheSize = FopFactoryConfig.DEFAULT_ENCODED_STREAM_CACHE_SIZE;
+
         private Map<String, String> hyphPatNames;
 
         private static final class ImageContextImpl implements ImageContext {
@@ -474,6 +494,11 @@ public final class FopFactoryBuilder {
             return isComplexScript;
         }
 
+        /** {@inheritDoc} */
+        public long getEncodedStreamCacheSize() {
+            return encodedStreamCacheSize;
+        }
+
         public Map<String, String> getHyphenationPatternNames() {
             return hyphPatNames;
         }
@@ -517,6 +542,8 @@ public final class FopFactoryBuilder {
 
         void setComplexScriptFeaturesEnabled(boolean csf);
 
+        void setEncodedStreamCacheSize(long size);
+
         void setHyphPatNames(Map<String, String> hyphPatNames);
     }
 
@@ -595,6 +622,10 @@ public final class FopFactoryBuilder {
             throwIllegalStateException();
         }
 
+        public void setEncodedStreamCacheSize(long size) {
+            throwIllegalStateException();
+        }
+
         public void setHyphPatNames(Map<String, String> hyphPatNames) {
             throwIllegalStateException();
         }
@@ -676,6 +707,10 @@ public final class FopFactoryBuilder {
             config.isComplexScript = csf;
         }
 
+        public void setEncodedStreamCacheSize(long size) {
+            config.encodedStreamCacheSize = size;
+        }
+
         public void setHyphPatNames(Map<String, String> hyphPatNames) {
             config.hyphPatNames = hyphPatNames;
         }
@@ -62,6 +62,9 @@ public interface FopFactoryConfig {
     /** Defines the default target resolution (72dpi) for FOP */
     float DEFAULT_TARGET_RESOLUTION = 72.0f; //dpi
 
+    /** Defines the default size of the encoded stream cache: disabled */
+    long DEFAULT_ENCODED_STREAM_CACHE_SIZE = 0;
+
     /**
      * Whether accessibility features are switched on.
      *
@@ -163,6 +166,14 @@ public interface FopFactoryConfig {
 
     boolean isComplexScriptFeaturesEnabled();
 
+    /**
+     * Returns the maximum size of the encoded stream payloads shared by the documents of the
+     * factory, 0 if they are not shared.
+     * @return the maximum size in bytes
+     * @see org.apache.fop.util.EncodedStreamCache
+     */
+    long getEncodedStreamCacheSize();
+
     /** @return the hyphenation pattern names */
     Map<String, String> getHyphenationPatternNames();
 
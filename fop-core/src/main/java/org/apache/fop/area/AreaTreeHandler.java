@@ -41,11 +41,13 @@ import org.apache.fop.fo.pagination.AbstractPageSequence;
 import org.apache.fop.fo.pagination.PageSequence;
 import org.apache.fop.fo.pagination.Root;
 import org.apache.fop.fo.pagination.bookmarks.BookmarkTree;
+import org.apache.fop.fonts.ShapingCache;
 import org.apache.fop.layoutmgr.ExternalDocumentLayoutManager;
 import org.apache.fop.layoutmgr.LayoutManagerMaker;
 import org.apache.fop.layoutmgr.LayoutManagerMapping;
 import org.apache.fop.layoutmgr.PageSequenceLayoutManager;
 import org.apache.fop.layoutmgr.TopLevelLayoutManager;
+import org.apache.fop.layoutmgr.inline.LineBreakCache;
 
 /**
  * Area tree handler for formatting objects.
@@ -89,6 +91,15 @@ public class AreaTreeHandler extends FOEventHandler {
 
     private int idGen;
 
+    // Lays out page-sequences on worker threads, null if layout is single-threaded
+    private PageSequenceLayoutScheduler layoutScheduler;
+
+    // The line breaks of the paragraphs of the document
+    private final LineBreakCache lineBreakCache;
+
+    // The shaping of the words of the document in fonts with glyph substitution or positioning
+    private final ShapingCache shapingCache;
+
     /**
      * Constructor.
      *
@@ -111,13 +122,37 @@ public class AreaTreeHandler extends FOEventHandler {
 
         this.idTracker = new IDTracker();
 
+        this.lineBreakCache = new LineBreakCache(userAgent.getLineBreakCacheSize());
+
+        this.shapingCache = new ShapingCache();
+
         this.useComplexScriptFeatures = userAgent.isComplexScriptFeaturesEnabled();
 
+        // The structure tree is built from the FO events of the markers bound during layout
+        if (userAgent.getLayoutThreads() > 1 && !userAgent.isAccessibilityEnabled()) {
+            this.layoutScheduler = new PageSequenceLayoutScheduler(this, userAgent.getLayoutThreads());
+        }
+
         if (log.isDebugEnabled()) {
             statistics = new Statistics();
         }
     }
 
+    /**
+     * Constructor for handlers laying out a part of the document of another handler. The
+     * subclass has to set up the area tree model and the ID tracker.
+     *
+     * @param parent the handler of the document
+     */
+    AreaTreeHandler(AreaTreeHandler parent) {
+        this.foUserAgent = parent.foUserAgent;
+        this.fontInfo = parent.fontInfo;
+        this.lmMaker = parent.lmMaker;
+        this.useComplexScriptFeatures = parent.useComplexScriptFeatures;
+        this.lineBreakCache = parent.lineBreakCache;
+        this.shapingCache = parent.shapingCache;
+    }
+
     /**
      * Sets up the AreaTreeModel instance for use by the AreaTreeHandler.
      *
@@ -164,6 +199,26 @@ public class AreaTreeHandler extends FOEventHandler {
         return this.idTracker;
     }
 
+    /**
+     * Get the cache of the line breaks found for the paragraphs of the document, which also
+     * reports its hit rate and the time it saved.
+     *
+     * @return the line break cache
+     */
+    public LineBreakCache getLineBreakCache() {
+        return this.lineBreakCache;
+    }
+
+    /**
+     * Get the cache of the shaping of the words of the document, which also reports its hit
+     * rate.
+     *
+     * @return the shaping cache
+     */
+    public ShapingCache getShapingCache() {
+        return this.shapingCache;
+    }
+
     /**
      * Get information about the rendered output, like number of pages created.
      *
@@ -226,7 +281,8 @@ public class AreaTreeHandler extends FOEventHandler {
         rootFObj = pageSequence.getRoot();
 
         //Before the first page-sequence...
-        if (this.prevPageSeqLM == null) {
+        if (this.prevPageSeqLM == null
+                && (layoutScheduler == null || !layoutScheduler.hasScheduled())) {
             // extension attachments from fo:root
             wrapAndAddExtensionAttachments(rootFObj.getExtensionAttachments());
             // extension attachments from fo:declarations
@@ -236,6 +292,9 @@ public class AreaTreeHandler extends FOEventHandler {
             }
         }
 
+        if (layoutScheduler != null) {
+            layoutScheduler.startPageSequence(pageSequence);
+        }
         finishPrevPageSequence(pageSequence.getInitialPageNumber());
         pageSequence.initPageNumber();
     }
@@ -260,7 +319,8 @@ public class AreaTreeHandler extends FOEventHandler {
         }
 
         // If no main flow, nothing to layout!
-        if (pageSequence.getMainFlow() != null) {
+        if (pageSequence.getMainFlow() != null
+                && (layoutScheduler == null || !layoutScheduler.submit(pageSequence))) {
             PageSequenceLayoutManager pageSLM;
             pageSLM = getLayoutManagerMaker().makePageSequenceLayoutManager(
                     this, pageSequence);
@@ -284,6 +344,9 @@ public class AreaTreeHandler extends FOEventHandler {
             statistics.end();
         }
 
+        if (layoutScheduler != null) {
+            layoutScheduler.finishAll();
+        }
         ExternalDocumentLayoutManager edLM;
         edLM = getLayoutManagerMaker().makeExternalDocumentLayoutManager(this, document);
         edLM.activateLayout();
@@ -316,6 +379,9 @@ public class AreaTreeHandler extends FOEventHandler {
     @Override
     public void endDocument() throws SAXException {
 
+        if (layoutScheduler != null) {
+            layoutScheduler.close();
+        }
         finishPrevPageSequence(null);
         // process fox:destination elements
         if (rootFObj != null) {
@@ -387,6 +453,29 @@ public class AreaTreeHandler extends FOEventHandler {
         return "P" + this.idGen;
     }
 
+    /**
+     * Returns the page-sequence for which a page with page-position="last" has been laid out
+     * most recently, provided that no other page has been laid out since, except the first
+     * page of a page-sequence.
+     *
+     * @return the page-sequence, or null
+     */
+    public PageSequence getLastSeq() {
+        return rootFObj == null ? null : rootFObj.getLastSeq();
+    }
+
+    /**
+     * Records the page-sequence for which a page with page-position="last" has just been laid
+     * out, or null if a page has been laid out which is not the first or last page.
+     *
+     * @param seq the page-sequence, or null
+     */
+    public void setLastSeq(PageSequence seq) {
+        if (rootFObj != null) {
+            rootFObj.setLastSeq(seq);
+        }
+    }
+
     /**
      * Tie a PageViewport with an ID found on a child area of the PV. Note that
      * an area with a given ID may be on more than one PV, hence an ID may have
@@ -526,6 +615,13 @@ public class AreaTreeHandler extends FOEventHandler {
                         / (double) timeUsed) : -1);
                 log.debug("Avg render time: " + perPage + "ms/page (" + ppm + "pages/min)");
             }
+            log.debug("Line break cache: " + lineBreakCache.getHitCount() + " hits, "
+                    + lineBreakCache.getMissCount() + " misses ("
+                    + Math.round(100 * lineBreakCache.getHitRate()) + "% hit rate), "
+                    + (lineBreakCache.getSavedTime() / 1000000L) + "ms saved");
+            log.debug("Shaping cache: " + shapingCache.getHitCount() + " hits, "
+                    + shapingCache.getMissCount() + " misses ("
+                    + Math.round(100 * shapingCache.getHitRate()) + "% hit rate)");
         }
     }
 }
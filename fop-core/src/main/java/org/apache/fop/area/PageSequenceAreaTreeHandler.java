@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.fop.fo.pagination.AbstractPageSequence;
+import org.apache.fop.fo.pagination.PageSequence;
+
+/**
+ * Area tree handler which lays out a single page-sequence apart from the rest of the document,
+ * so that the layout can run on a worker thread of a {@link PageSequenceLayoutScheduler}.
+ * The page viewports and the ID information produced by the layout are recorded in the order
+ * in which they arrive and are replayed onto the area tree model and the {@link IDTracker} of
+ * the document's handler once all preceding page-sequences have been replayed.
+ * <p>
+ * During layout, IDs are resolved against the pages of the page-sequence, as they would be
+ * when the whole document is laid out in turn. References to other page-sequences and to the
+ * ID of fo:root, which is on every page of the document, remain unresolved until the
+ * page-sequence is replayed.
+ */
+class PageSequenceAreaTreeHandler extends AreaTreeHandler {
+
+    private final AreaTreeHandler parent;
+
+    private final List<Replay> replayLog = new ArrayList<Replay>();
+
+    private final IDTracker idTracker;
+
+    private final String keyPrefix;
+
+    private final String rootID;
+
+    private PageSequence lastSeq;
+
+    private int idGen;
+
+    /**
+     * Creates a handler for a page-sequence of the document of the given handler.
+     * @param parent the handler of the document
+     * @param sequenceNumber the number of the page-sequence among the page-sequences laid out
+     * by the scheduler, used to make the page viewport keys unique within the document
+     * @param rootID the ID of fo:root, may be null
+     */
+    PageSequenceAreaTreeHandler(AreaTreeHandler parent, int sequenceNumber, String rootID) {
+        super(parent);
+        this.parent = parent;
+        this.model = new RecordingAreaTreeModel();
+        this.idTracker = new RecordingIDTracker();
+        this.keyPrefix = "P" + sequenceNumber + "-";
+        this.rootID = rootID;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public IDTracker getIDTracker() {
+        return idTracker;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String generatePageViewportKey() {
+        this.idGen++;
+        return keyPrefix + this.idGen;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void notifyPageSequenceFinished(AbstractPageSequence pageSequence, int pageCount) {
+        parent.notifyPageSequenceFinished(pageSequence, pageCount);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public PageSequence getLastSeq() {
+        return lastSeq;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setLastSeq(PageSequence seq) {
+        this.lastSeq = seq;
+    }
+
+    /**
+     * Hands the recorded page viewports and ID information to the area tree model and the ID
+     * tracker of the document's handler, in the order in which they were recorded.
+     */
+    void replay() {
+        for (Replay replay : replayLog) {
+            replay.replay(parent.getAreaTreeModel(), parent.getIDTracker());
+        }
+        replayLog.clear();
+    }
+
+    private boolean isRootID(String id) {
+        return rootID != null && rootID.equals(id);
+    }
+
+    /** A call on the area tree model or the ID tracker to be repeated on the document's. */
+    private interface Replay {
+        void replay(AreaTreeModel model, IDTracker idTracker);
+    }
+
+    /**
+     * Keeps the pages of the page-sequence so that markers can be retrieved from preceding
+     * pages, and records them for the document's area tree model.
+     */
+    private class RecordingAreaTreeModel extends AreaTreeModel {
+
+        private final List<PageViewport> pages = new ArrayList<PageViewport>();
+
+        @Override
+        public void startPageSequence(final org.apache.fop.area.PageSequence pageSequence) {
+            this.currentPageSequence = pageSequence;
+            replayLog.add(new Replay() {
+                public void replay(AreaTreeModel model, IDTracker idTracker) {
+                    model.startPageSequence(pageSequence);
+                }
+            });
+        }
+
+        @Override
+        public void addPage(final PageViewport page) {
+            pages.add(page);
+            replayLog.add(new Replay() {
+                public void replay(AreaTreeModel model, IDTracker idTracker) {
+                    model.addPage(page);
+                }
+            });
+        }
+
+        @Override
+        public int getPageSequenceCount() {
+            return 1;
+        }
+
+        @Override
+        public int getPageCount(int seq) {
+            return pages.size();
+        }
+
+        @Override
+        public PageViewport getPage(int seq, int count) {
+            return pages.get(count);
+        }
+    }
+
+    /** Tracks the IDs of the page-sequence and records them for the document's ID tracker. */
+    private class RecordingIDTracker extends IDTracker {
+
+        @Override
+        public void associateIDWithPageViewport(final String id, final PageViewport pv) {
+            if (!isRootID(id)) {
+                super.associateIDWithPageViewport(id, pv);
+            }
+            replayLog.add(new Replay() {
+                public void replay(AreaTreeModel model, IDTracker idTracker) {
+                    idTracker.associateIDWithPageViewport(id, pv);
+                }
+            });
+        }
+
+        @Override
+        public void signalPendingID(final String id) {
+            super.signalPendingID(id);
+            replayLog.add(new Replay() {
+                public void replay(AreaTreeModel model, IDTracker idTracker) {
+                    idTracker.signalPendingID(id);
+                }
+            });
+        }
+
+        @Override
+        public void signalIDProcessed(final String id) {
+            super.signalIDProcessed(id);
+            replayLog.add(new Replay() {
+                public void replay(AreaTreeModel model, IDTracker idTracker) {
+                    idTracker.signalIDProcessed(id);
+                }
+            });
+        }
+
+        @Override
+        public void tryIDResolution(final PageViewport pv) {
+            super.tryIDResolution(pv);
+            replayLog.add(new Replay() {
+                public void replay(AreaTreeModel model, IDTracker idTracker) {
+                    idTracker.tryIDResolution(pv);
+                }
+            });
+        }
+
+        @Override
+        public void addUnresolvedIDRef(final String idref, final Resolvable res) {
+            super.addUnresolvedIDRef(idref, res);
+            replayLog.add(new Replay() {
+                public void replay(AreaTreeModel model, IDTracker idTracker) {
+                    //Only references which could not be resolved within the page-sequence
+                    String[] ids = res.getIDRefs();
+                    if (ids != null && Arrays.asList(ids).contains(idref)) {
+                        idTracker.addUnresolvedIDRef(idref, res);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void replacePageViewPort(final PageViewport oldPageViewPort,
+                final PageViewport newPageViewPort) {
+            super.replacePageViewPort(oldPageViewPort, newPageViewPort);
+            replayLog.add(new Replay() {
+                public void replay(AreaTreeModel model, IDTracker idTracker) {
+                    idTracker.replacePageViewPort(oldPageViewPort, newPageViewPort);
+                }
+            });
+        }
+    }
+}
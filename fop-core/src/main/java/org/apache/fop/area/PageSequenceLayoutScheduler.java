@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.datatypes.Numeric;
+import org.apache.fop.fo.Constants;
+import org.apache.fop.fo.FONode;
+import org.apache.fop.fo.flow.AbstractRetrieveMarker;
+import org.apache.fop.fo.flow.RetrieveMarker;
+import org.apache.fop.fo.pagination.AbstractPageSequence;
+import org.apache.fop.fo.pagination.PageSequence;
+import org.apache.fop.layoutmgr.PageSequenceLayoutManager;
+
+/**
+ * Lays out page-sequences on a pool of worker threads while the FO tree is being built. A
+ * page-sequence is handed to the pool as soon as it has been parsed, with its own
+ * {@link PageSequenceAreaTreeHandler}, and the finished page-sequences are replayed onto the
+ * document's area tree model in document order.
+ * <p>
+ * The page numbers of a page-sequence have to be known when its layout starts. When a
+ * page-sequence whose initial-page-number is not an explicit number starts, the page-sequences
+ * before it are therefore finished first, so that its starting page number is computed as
+ * usual. Page-sequences with an explicit initial-page-number, as produced by mail merges, are
+ * laid out at the same time. A page-sequence with a retrieve-marker whose boundary is the
+ * document needs the pages of all page-sequences before it and is left to the document's
+ * handler. As the markers are bound to the retrieve-markers during layout, the retrieve-markers
+ * of the page-sequences laid out on the worker threads get builder contexts of their own.
+ */
+class PageSequenceLayoutScheduler {
+
+    private final AreaTreeHandler handler;
+
+    private final int threads;
+
+    private final LinkedList<Task> pending = new LinkedList<Task>();
+
+    private ExecutorService executor;
+
+    private int sequenceCount;
+
+    /**
+     * Creates a scheduler for the page-sequences of the document of the given handler.
+     * @param handler the handler of the document
+     * @param threads the number of worker threads
+     */
+    PageSequenceLayoutScheduler(AreaTreeHandler handler, int threads) {
+        this.handler = handler;
+        this.threads = threads;
+    }
+
+    /**
+     * Notifies the scheduler that a page-sequence or external document starts.
+     * @param pageSequence the page-sequence
+     */
+    void startPageSequence(AbstractPageSequence pageSequence) {
+        if (!pending.isEmpty()) {
+            pending.getLast().setNextInitialPageNumber(pageSequence.getInitialPageNumber());
+        }
+        if (pageSequence.getInitialPageNumber().getEnum() != 0) {
+            //auto, auto-odd or auto-even: depends on the page count of the previous sequences
+            finishAll();
+        }
+    }
+
+    /**
+     * Hands a page-sequence which has just been parsed to the worker threads, if it can be laid
+     * out apart from the page-sequences before it. Otherwise all pending page-sequences are
+     * finished, and the caller has to lay out the page-sequence.
+     * @param pageSequence the page-sequence
+     * @return true if the page-sequence has been scheduled, false if the caller has to lay it out
+     */
+    boolean submit(PageSequence pageSequence) {
+        if (!prepareRetrieveMarkers(pageSequence)) {
+            finishAll();
+            return false;
+        }
+        try {
+            pageSequence.usePrivatePageSequenceMaster();
+        } catch (FOPException e) {
+            finishAll();
+            return false;
+        }
+        PageSequenceAreaTreeHandler sequenceHandler = new PageSequenceAreaTreeHandler(
+                handler, ++sequenceCount, pageSequence.getRoot().getId());
+        PageSequenceLayoutManager pageSLM = handler.getLayoutManagerMaker()
+                .makePageSequenceLayoutManager(sequenceHandler, pageSequence);
+        Task task = new Task(sequenceHandler, pageSLM);
+        task.future = getExecutor().submit(task);
+        pending.add(task);
+        //Don't keep too many page-sequences in memory if parsing is faster than layout
+        while (pending.size() > 2 * threads) {
+            finish(pending.removeFirst());
+        }
+        return true;
+    }
+
+    /**
+     * Indicates whether a page-sequence has been handed to the worker threads.
+     * @return true if a page-sequence has been scheduled
+     */
+    boolean hasScheduled() {
+        return sequenceCount > 0;
+    }
+
+    /**
+     * Waits for all pending page-sequences and replays them onto the document's area tree.
+     */
+    void finishAll() {
+        while (!pending.isEmpty()) {
+            finish(pending.removeFirst());
+        }
+    }
+
+    /**
+     * Finishes all pending page-sequences and releases the worker threads.
+     */
+    void close() {
+        finishAll();
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private void finish(Task task) {
+        try {
+            task.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the layout of a page-sequence");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new RuntimeException(cause);
+            }
+        }
+        task.pageSLM.doForcePageCount(task.nextInitialPageNumber);
+        task.pageSLM.finishPageSequence();
+        task.sequenceHandler.replay();
+    }
+
+    private ExecutorService getExecutor() {
+        if (executor == null) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                    10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "FOP page-sequence layout");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            //Don't keep threads around if the document is never finished
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+        return executor;
+    }
+
+    /**
+     * Gives the retrieve-markers of a page-sequence their own builder context, as their markers
+     * are bound during layout.
+     * @return false if the page-sequence retrieves markers from preceding page-sequences
+     */
+    private static boolean prepareRetrieveMarkers(PageSequence pageSequence) {
+        boolean apart = true;
+        for (FONode flow : pageSequence.getFlowMap().values()) {
+            apart &= prepareRetrieveMarkers(flow);
+        }
+        return apart;
+    }
+
+    private static boolean prepareRetrieveMarkers(FONode node) {
+        boolean apart = true;
+        if (node instanceof AbstractRetrieveMarker) {
+            ((AbstractRetrieveMarker) node).useOwnBuilderContext();
+            apart = !(node instanceof RetrieveMarker
+                    && ((RetrieveMarker) node).getRetrieveBoundary() == Constants.EN_DOCUMENT);
+        }
+        for (FONode.FONodeIterator it = node.getChildNodes(); it != null && it.hasNext();) {
+            apart &= prepareRetrieveMarkers(it.next());
+        }
+        return apart;
+    }
+
+    /** The layout of a page-sequence. */
+    private static class Task implements Callable<Void> {
+
+        private final PageSequenceAreaTreeHandler sequenceHandler;
+
+        private final PageSequenceLayoutManager pageSLM;
+
+        private Future<Void> future;
+
+        private boolean hasNext;
+
+        private Numeric nextInitialPageNumber;
+
+        Task(PageSequenceAreaTreeHandler sequenceHandler, PageSequenceLayoutManager pageSLM) {
+            this.sequenceHandler = sequenceHandler;
+            this.pageSLM = pageSLM;
+        }
+
+        void setNextInitialPageNumber(Numeric initialPageNumber) {
+            //force-page-count refers to the page-sequence directly following
+            if (!hasNext) {
+                this.nextInitialPageNumber = initialPageNumber;
+                this.hasNext = true;
+            }
+        }
+
+        public Void call() {
+            pageSLM.activateLayout();
+            return null;
+        }
+    }
+}
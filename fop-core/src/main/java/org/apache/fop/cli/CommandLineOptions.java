@@ -22,8 +22,11 @@ package org.apache.fop.cli;
 // java
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintStream;
+import java.io.Writer;
 import java.net.URI;
 import java.util.Locale;
 import java.util.Map;
@@ -45,6 +48,9 @@ import org.apache.fop.apps.FopFactory;
 import org.apache.fop.apps.FopFactoryBuilder;
 import org.apache.fop.apps.FopFactoryConfig;
 import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.fonts.truetype.ParsedFontStore;
+import org.apache.fop.layoutmgr.LayoutProfiler;
+import org.apache.fop.layoutmgr.inline.LineBreakCache;
 import org.apache.fop.pdf.PDFAMode;
 import org.apache.fop.pdf.PDFEncryptionManager;
 import org.apache.fop.pdf.PDFEncryptionParams;
@@ -122,6 +128,15 @@ public class CommandLineOptions {
     private boolean strictValidation = true;
     /* control memory-conservation policy */
     private boolean conserveMemoryPolicy;
+    /* number of threads laying out page-sequences */
+    private int layoutThreads = 1;
+    /* maximum number of paragraphs whose line breaks are cached, 0 to disable the cache */
+    private int lineBreakCacheSize = LineBreakCache.DEFAULT_SIZE;
+    /* true if columns are balanced with the linear-time strategy */
+    private boolean linearColumnBalancing;
+    /* file to which the layout profile is written, null if layout is not profiled */
+    private File layoutProfileFile;
+    private LayoutProfiler layoutProfiler;
     /* true if a complex script features are enabled */
     private boolean useComplexScriptFeatures = true;
     /* set to true if -dpi used in command line */
@@ -144,6 +159,8 @@ public class CommandLineOptions {
 
     private String cacheName;
 
+    private String fontStoreName;
+
     /**
      * Construct a command line option object.
      */
@@ -180,6 +197,13 @@ public class CommandLineOptions {
                 addXSLTParameter("fop-output-format", getOutputFormat());
                 addXSLTParameter("fop-version", Version.getVersion());
                 foUserAgent.setConserveMemoryPolicy(conserveMemoryPolicy);
+                foUserAgent.setLayoutThreads(layoutThreads);
+                foUserAgent.setLineBreakCacheSize(lineBreakCacheSize);
+                foUserAgent.setLinearColumnBalancing(linearColumnBalancing);
+                if (layoutProfileFile != null) {
+                    layoutProfiler = new LayoutProfiler();
+                    foUserAgent.setLayoutProfileListener(layoutProfiler);
+                }
                 // TODO: Handle this!!
                 //if (!useComplexScriptFeatures) {
                 //    foUserAgent.setComplexScriptFeaturesEnabled(false);
@@ -287,10 +311,20 @@ public class CommandLineOptions {
                 strictValidation = false;
             } else if (args[i].equals("-conserve")) {
                 conserveMemoryPolicy = true;
+            } else if (args[i].equals("-layoutthreads")) {
+                i = i + parseLayoutThreads(args, i);
+            } else if (args[i].equals("-layoutcache")) {
+                i = i + parseLineBreakCacheSize(args, i);
+            } else if (args[i].equals("-linearbalancing")) {
+                linearColumnBalancing = true;
+            } else if (args[i].equals("-layoutprofile")) {
+                i = i + parseLayoutProfileOption(args, i);
             } else if (args[i].equals("-flush")) {
                 flushCache = true;
             } else if (args[i].equals("-cache")) {
                 i = i + parseCacheOption(args, i);
+            } else if (args[i].equals("-fontstore")) {
+                i = i + parseFontStoreOption(args, i);
             } else if (args[i].equals("-dpi")) {
                 i = i + parseResolution(args, i);
             } else if (args[i].equals("-q") || args[i].equals("--quiet")) {
@@ -417,6 +451,17 @@ public class CommandLineOptions {
         }
     }
 
+    private int parseFontStoreOption(String[] args, int i) throws FOPException {
+        if ((i + 1 == args.length)
+                || (isOption(args[i + 1]))) {
+            throw new FOPException("if you use '-fontstore', you must specify "
+              + "the directory of the parsed font store");
+        } else {
+            fontStoreName = args[i + 1];
+            return 1;
+        }
+    }
+
     private int parseConfigurationOption(String[] args, int i) throws FOPException {
         if ((i + 1 == args.length)
                 || (isOption(args[i + 1]))) {
@@ -450,6 +495,53 @@ public class CommandLineOptions {
         }
     }
 
+    private int parseLayoutThreads(String[] args, int i) throws FOPException {
+        if ((i + 1 == args.length)
+                || (isOption(args[i + 1]))) {
+            throw new FOPException(
+                    "if you use '-layoutthreads', you must specify the number of threads");
+        } else {
+            try {
+                this.layoutThreads = Integer.parseInt(args[i + 1]);
+            } catch (NumberFormatException e) {
+                throw new FOPException("Invalid number of layout threads: " + args[i + 1]);
+            }
+            if (layoutThreads < 1) {
+                throw new FOPException("Invalid number of layout threads: " + args[i + 1]);
+            }
+            return 1;
+        }
+    }
+
+    private int parseLineBreakCacheSize(String[] args, int i) throws FOPException {
+        if ((i + 1 == args.length)
+                || (isOption(args[i + 1]))) {
+            throw new FOPException(
+                    "if you use '-layoutcache', you must specify the number of paragraphs");
+        } else {
+            try {
+                this.lineBreakCacheSize = Integer.parseInt(args[i + 1]);
+            } catch (NumberFormatException e) {
+                throw new FOPException("Invalid line break cache size: " + args[i + 1]);
+            }
+            if (lineBreakCacheSize < 0) {
+                throw new FOPException("Invalid line break cache size: " + args[i + 1]);
+            }
+            return 1;
+        }
+    }
+
+    private int parseLayoutProfileOption(String[] args, int i) throws FOPException {
+        if ((i + 1 == args.length)
+                || (isOption(args[i + 1]))) {
+            throw new FOPException(
+                    "if you use '-layoutprofile', you must specify the name of the report file");
+        } else {
+            layoutProfileFile = new File(args[i + 1]);
+            return 1;
+        }
+    }
+
     private int parseFOInputOption(String[] args, int i) throws FOPException {
         setInputFormat(FO_INPUT);
         if ((i + 1 == args.length)
@@ -1041,6 +1133,9 @@ public class CommandLineOptions {
         if (cacheName != null) {
             factory.getFontManager().setCacheFile(URI.create(cacheName));
         }
+        if (fontStoreName != null) {
+            factory.getFontManager().setParsedFontStore(new ParsedFontStore(new File(fontStoreName)));
+        }
      }
 
     /**
@@ -1147,6 +1242,24 @@ public class CommandLineOptions {
         return this.useStdIn;
     }
 
+    /**
+     * Writes the layout profile as a JSON report, if one was requested with
+     * the -layoutprofile option.
+     * @throws IOException if the report cannot be written
+     */
+    public void writeLayoutProfile() throws IOException {
+        if (layoutProfiler == null) {
+            return;
+        }
+        Writer writer = new OutputStreamWriter(
+                new FileOutputStream(layoutProfileFile), "UTF-8");
+        try {
+            layoutProfiler.writeJSON(writer);
+        } finally {
+            writer.close();
+        }
+    }
+
     /**
      * Indicates whether output is sent to standard output (stdout).
      * @return true if output is sent to standard output (stdout)
@@ -1215,11 +1328,21 @@ public class CommandLineOptions {
             + "  -conserve         enable memory-conservation policy (trades memory-consumption"
             + " for disk I/O)\n"
             + "                    (Note: currently only influences whether the area tree is"
-            + " serialized.)\n\n"
+            + " serialized.)\n"
+            + "  -layoutthreads n  lays out page-sequences with an explicit initial-page-number"
+            + " on n threads\n"
+            + "                    (default 1, i.e. all page-sequences are laid out in turn)\n"
+            + "  -layoutcache n    caches the line breaks of up to n paragraphs for identical paragraphs\n"
+            + "                    (default " + LineBreakCache.DEFAULT_SIZE + ", 0 disables the cache)\n"
+            + "  -linearbalancing  balances columns before span=\"all\" blocks with the linear-time strategy\n"
+            + "  -layoutprofile f  writes the time spent by the layout managers, per class and FO, to the\n"
+            + "                    JSON file f\n\n"
 
             + "  -cache            specifies a file/directory path location"
             + " for the font cache file\n"
-            + "  -flush            flushes the current font cache file\n\n"
+            + "  -flush            flushes the current font cache file\n"
+            + "  -fontstore dir    keeps the metrics of parsed TrueType fonts in the directory dir, which\n"
+            + "                    can be shared by several processes\n\n"
 
             + " [INPUT]  \n"
             + "  infile            xsl:fo input file (the same as the next) \n"
@@ -190,6 +190,7 @@ public final class Main {
             } finally {
                 IOUtils.closeQuietly(out);
             }
+            options.writeLayoutProfile();
 
             // System.exit(0) called to close AWT/SVG-created threads, if any.
             // AWTRenderer closes with window shutdown, so exit() should not
@@ -403,7 +403,8 @@ public class IndicScriptProcessor extends DefaultScriptProcessor {
             return d;
         }
         private static Map<String, Syllabizer> syllabizers = new HashMap<String, Syllabizer>();
-        static Syllabizer getSyllabizer(String script, String language, Class<? extends Syllabizer> syllabizerClass) {
+        static synchronized Syllabizer getSyllabizer(String script, String language,
+                Class<? extends Syllabizer> syllabizerClass) {
             String sid = makeSyllabizerId(script, language);
             Syllabizer s = syllabizers.get(sid);
             if (s == null) {
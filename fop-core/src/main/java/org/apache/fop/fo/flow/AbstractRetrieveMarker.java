@@ -27,6 +27,7 @@ import org.apache.fop.accessibility.StructureTreeElement;
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.fo.FONode;
 import org.apache.fop.fo.FOText;
+import org.apache.fop.fo.FOTreeBuilderContext;
 import org.apache.fop.fo.FObj;
 import org.apache.fop.fo.FObjMixed;
 import org.apache.fop.fo.PropertyList;
@@ -54,6 +55,8 @@ public abstract class AbstractRetrieveMarker extends FObjMixed {
 
     private StructureTreeElement structureTreeElement;
 
+    private FOTreeBuilderContext builderContext;
+
     /**
      * Create a new AbstractRetrieveMarker instance that
      * is a child of the given {@link FONode}
@@ -99,6 +102,24 @@ public abstract class AbstractRetrieveMarker extends FObjMixed {
         return structureTreeElement;
     }
 
+    /**
+     * Gives this retrieve-marker a builder context of its own, so that markers can be bound to
+     * it on another thread while the FO tree builder carries on with the rest of the document.
+     * The nodes cloned from a marker then use a white-space handler and a property list maker
+     * that are not shared with the FO tree builder.
+     */
+    public void useOwnBuilderContext() {
+        FOTreeBuilderContext context = new FOTreeBuilderContext();
+        context.setPropertyListMaker(getBuilderContext().getPropertyListMaker());
+        this.builderContext = context;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public FOTreeBuilderContext getBuilderContext() {
+        return builderContext != null ? builderContext : super.getBuilderContext();
+    }
+
     private PropertyList createPropertyListFor(FObj fo, PropertyList parent) {
         return getBuilderContext().getPropertyListMaker().make(fo, parent);
     }
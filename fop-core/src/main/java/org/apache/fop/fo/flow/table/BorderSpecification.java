@@ -22,6 +22,7 @@ package org.apache.fop.fo.flow.table;
 import org.apache.fop.fo.Constants;
 import org.apache.fop.fo.properties.CommonBorderPaddingBackground;
 import org.apache.fop.fo.properties.CommonBorderPaddingBackground.BorderInfo;
+import org.apache.fop.fo.properties.PropertyCache;
 
 /**
  * A border's informations, along with the FO element which declared it. Used for border
@@ -29,6 +30,10 @@ import org.apache.fop.fo.properties.CommonBorderPaddingBackground.BorderInfo;
  */
 public/*TODO*/ class BorderSpecification {
 
+    /** Cache holding the canonical instances, shared by all the grid units of all tables. */
+    private static final PropertyCache<BorderSpecification> CACHE
+            = new PropertyCache<BorderSpecification>();
+
     private static BorderSpecification defaultBorder;
 
     private BorderInfo borderInfo;
@@ -46,10 +51,22 @@ public/*TODO*/ class BorderSpecification {
         this.holder = holder;
     }
 
+    /**
+     * Returns the canonical border specification for the given border informations and
+     * holder.
+     *
+     * @param borderInfo the border's informations
+     * @param holder the FO element declaring this border
+     * @return a cached border specification
+     */
+    public static BorderSpecification getInstance(BorderInfo borderInfo, int holder) {
+        return CACHE.fetch(new BorderSpecification(borderInfo, holder));
+    }
+
     static synchronized BorderSpecification getDefaultBorder() {
         if (defaultBorder == null) {
-            defaultBorder = new BorderSpecification(CommonBorderPaddingBackground
-                    .getDefaultBorderInfo(), Constants.FO_TABLE_CELL);
+            defaultBorder = getInstance(CommonBorderPaddingBackground.getDefaultBorderInfo(),
+                    Constants.FO_TABLE_CELL);
         }
         return defaultBorder;
     }
@@ -75,6 +92,23 @@ public/*TODO*/ class BorderSpecification {
         return holder;
     }
 
+    /** {@inheritDoc} */
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof BorderSpecification)) {
+            return false;
+        }
+        BorderSpecification other = (BorderSpecification) obj;
+        return holder == other.holder && borderInfo.equals(other.borderInfo);
+    }
+
+    /** {@inheritDoc} */
+    public int hashCode() {
+        return 31 * borderInfo.hashCode() + holder;
+    }
+
     /** {@inheritDoc} */
     public String toString() {
         String holderName = "";
@@ -41,6 +41,9 @@ class CollapsingBorderResolver implements BorderResolver {
      */
     private List<GridUnit> previousRow;
 
+    /** True if {@link #previousRow} belongs to a table-body. */
+    private boolean previousRowInBody;
+
     private boolean firstInTable;
 
     private List<GridUnit> footerFirstRow;
@@ -60,6 +63,12 @@ class CollapsingBorderResolver implements BorderResolver {
 
     private List<ConditionalBorder> trailingBorders;
 
+    /**
+     * True if the resolution of the body rows whose borders are specified as those of the
+     * rows around them is skipped, which is done for tables with a fixed layout.
+     */
+    private boolean reuseRowBorders;
+
     /* TODO Temporary hack for resolved borders in header */
     /* Currently the normal border is always used. */
     private List<GridUnit> headerLastRow;
@@ -350,7 +359,65 @@ class CollapsingBorderResolver implements BorderResolver {
 
         private boolean firstInBody = true;
 
+        /** The element containing {@link #previousRow}. */
+        private TableCellContainer previousContainer;
+
+        /**
+         * Number of consecutive rows of the current part, ending with previousRow, whose
+         * borders are specified as those of the row before them. 0 if such rows are not
+         * looked for.
+         */
+        private int sameBordersRowCount;
+
+        /**
+         * The borders of a row of such a sequence once resolved against the row before it,
+         * and not yet against the row after it; null if not known yet.
+         */
+        private RowBorders openRowBorders;
+
+        /**
+         * The final borders of a row of such a sequence that is followed by another one;
+         * null if not known yet.
+         */
+        private RowBorders resolvedRowBorders;
+
+        /** True if the borders of previousRow have not been set yet. */
+        private boolean previousRowPending;
+
+        void startPart(TablePart part) {
+            super.startPart(part);
+            // the borders of the part are integrated to the borders of the rows
+            sameBordersRowCount = 0;
+            openRowBorders = null;
+            resolvedRowBorders = null;
+        }
+
         void endRow(List<GridUnit> row, TableCellContainer container) {
+            if (reuseRowBorders) {
+                if (sameBordersRowCount > 0
+                        && hasSameBorders(previousRow, previousContainer, row, container)) {
+                    sameBordersRowCount++;
+                } else {
+                    setPreviousRowBorders();
+                    sameBordersRowCount = 1;
+                    openRowBorders = null;
+                    resolvedRowBorders = null;
+                }
+            }
+            /*
+             * The borders of a row that is not the first of its part only depend on the
+             * borders specified for it and for the rows before and after it. If all three
+             * are specified alike, the previous row gets the borders of the previous such
+             * row, and the borders of this row are only set once the next row is known.
+             */
+            if (sameBordersRowCount >= 3 && resolvedRowBorders != null) {
+                resolvedRowBorders.setTo(previousRow, false);
+                previousRow = row;
+                previousContainer = container;
+                previousRowPending = true;
+                return;
+            }
+            setPreviousRowBorders();
             super.endRow(row, container);
             if (firstInTable) {
                 resolveBordersFirstRowInTable(row, true, true, true);
@@ -361,7 +428,16 @@ class CollapsingBorderResolver implements BorderResolver {
                 integrateLeadingBorders(row);
             }
             integrateTrailingBorders(row);
+            if (previousRowInBody) {
+                // The borders of the previous row will no longer change
+                internBorders(previousRow);
+                if (sameBordersRowCount >= 3 && resolvedRowBorders == null) {
+                    resolvedRowBorders = new RowBorders(previousRow, false);
+                }
+            }
             previousRow = row;
+            previousRowInBody = true;
+            previousContainer = container;
             if (firstInBody) {
                 firstInBody = false;
                 for (Object aRow : row) {
@@ -369,6 +445,25 @@ class CollapsingBorderResolver implements BorderResolver {
                     gu.borderBefore.leadingTrailing = gu.borderBefore.normal;
                 }
             }
+            if (sameBordersRowCount >= 2 && openRowBorders == null) {
+                openRowBorders = new RowBorders(row, true);
+            }
+        }
+
+        /**
+         * Gives previousRow the borders it was not given yet, as resolved against the row
+         * before it.
+         */
+        private void setPreviousRowBorders() {
+            if (previousRowPending) {
+                openRowBorders.setTo(previousRow, true);
+                previousRowPending = false;
+            }
+        }
+
+        void endPart() {
+            setPreviousRowBorders();
+            super.endPart();
         }
 
         void endTable() {
@@ -385,9 +480,129 @@ class CollapsingBorderResolver implements BorderResolver {
         }
     }
 
+    /**
+     * The borders of the grid units of a row.
+     */
+    private static final class RowBorders {
+
+        private final ConditionalBorder[] before;
+
+        private final ConditionalBorder[] after;
+
+        private final BorderSpecification[] start;
+
+        private final BorderSpecification[] end;
+
+        /**
+         * Takes the current borders of the given row.
+         *
+         * @param row a row
+         * @param copy true if the borders of the row may still be modified, in which case
+         * copies of them are kept
+         */
+        RowBorders(List<GridUnit> row, boolean copy) {
+            int size = row.size();
+            before = new ConditionalBorder[size];
+            after = new ConditionalBorder[size];
+            start = new BorderSpecification[size];
+            end = new BorderSpecification[size];
+            for (int i = 0; i < size; i++) {
+                GridUnit gu = row.get(i);
+                before[i] = copy ? gu.borderBefore.copy() : gu.borderBefore;
+                after[i] = copy ? gu.borderAfter.copy() : gu.borderAfter;
+                start[i] = gu.borderStart;
+                end[i] = gu.borderEnd;
+            }
+        }
+
+        /**
+         * Gives these borders to the grid units of the given row.
+         *
+         * @param row a row with as many grid units as the row these borders were taken from
+         * @param copy true if the borders of the row may still be modified, in which case
+         * they are given copies
+         */
+        void setTo(List<GridUnit> row, boolean copy) {
+            for (int i = 0; i < before.length; i++) {
+                GridUnit gu = row.get(i);
+                gu.borderBefore = copy ? before[i].copy() : before[i];
+                gu.borderAfter = copy ? after[i].copy() : after[i];
+                gu.borderStart = start[i];
+                gu.borderEnd = end[i];
+            }
+        }
+    }
+
+    /**
+     * Indicates whether the borders of two consecutive rows of a part are specified alike,
+     * so that they are resolved alike when surrounded by rows specified alike. This is the
+     * case if the rows have no row spans, their grid units have the same column spans and
+     * their cells and table-row elements have the same borders.
+     *
+     * @param row1 a row
+     * @param container1 the element containing row1
+     * @param row2 the row following row1 in the same part
+     * @param container2 the element containing row2
+     * @return true if the borders of the rows are specified alike
+     */
+    private static boolean hasSameBorders(List<GridUnit> row1, TableCellContainer container1,
+            List<GridUnit> row2, TableCellContainer container2) {
+        if (container1 != container2) {
+            if (!(container1 instanceof TableRow && container2 instanceof TableRow)) {
+                return false;
+            }
+            TableRow tableRow1 = (TableRow) container1;
+            TableRow tableRow2 = (TableRow) container2;
+            if (!tableRow1.borderBefore.equals(tableRow2.borderBefore)
+                    || !tableRow1.borderAfter.equals(tableRow2.borderAfter)
+                    || !tableRow1.borderStart.equals(tableRow2.borderStart)
+                    || !tableRow1.borderEnd.equals(tableRow2.borderEnd)) {
+                return false;
+            }
+        }
+        for (int i = 0; i < row2.size(); i++) {
+            GridUnit gu1 = row1.get(i);
+            GridUnit gu2 = row2.get(i);
+            if (gu1.isEmpty() || gu2.isEmpty()) {
+                if (gu1.isEmpty() != gu2.isEmpty()) {
+                    return false;
+                }
+                continue;
+            }
+            if (gu1.getRowSpanIndex() > 0 || !gu1.isLastGridUnitRowSpan()
+                    || gu2.getRowSpanIndex() > 0 || !gu2.isLastGridUnitRowSpan()
+                    || gu1.getColSpanIndex() != gu2.getColSpanIndex()
+                    || gu1.isLastGridUnitColSpan() != gu2.isLastGridUnitColSpan()) {
+                return false;
+            }
+            TableCell cell1 = gu1.getCell();
+            TableCell cell2 = gu2.getCell();
+            if (!cell1.borderBefore.equals(cell2.borderBefore)
+                    || !cell1.borderAfter.equals(cell2.borderAfter)
+                    || !cell1.borderStart.equals(cell2.borderStart)
+                    || !cell1.borderEnd.equals(cell2.borderEnd)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Makes the grid units of the given row share the instances of their resolved borders
+     * with the other grid units of the document, instead of keeping their own copies.
+     *
+     * @param row a row whose borders are fully resolved
+     */
+    private static void internBorders(List<GridUnit> row) {
+        for (GridUnit gu : row) {
+            gu.internBorders();
+        }
+    }
+
     CollapsingBorderResolver(Table table) {
         this.table = table;
         collapsingBorderModel = CollapsingBorderModel.getBorderModelFor(table.getBorderCollapse());
+        reuseRowBorders = !table.isAutoLayout();
         firstInTable = true;
         // Resolve before and after borders between the table and each table-column
         int index = 0;
@@ -454,6 +669,9 @@ class CollapsingBorderResolver implements BorderResolver {
     public void endTable() {
         delegate.endTable();
         delegate = null;
+        if (previousRowInBody) {
+            internBorders(previousRow);
+        }
         /* TODO Temporary hack for resolved borders in header */
         if (headerLastRow != null) {
             for (Object aHeaderLastRow : headerLastRow) {
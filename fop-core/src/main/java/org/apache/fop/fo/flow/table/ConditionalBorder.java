@@ -19,6 +19,7 @@
 
 package org.apache.fop.fo.flow.table;
 
+import org.apache.fop.fo.properties.PropertyCache;
 import org.apache.fop.layoutmgr.table.CollapsingBorderModel;
 
 /**
@@ -45,6 +46,10 @@ public class ConditionalBorder {
     /** all the rest */
     public static final int REST = 2;
 
+    /** Cache holding the canonical instances of the borders that have been resolved. */
+    private static final PropertyCache<ConditionalBorder> CACHE
+            = new PropertyCache<ConditionalBorder>();
+
     /** Normal case, no break. */
     BorderSpecification normal;
 
@@ -188,6 +193,40 @@ public class ConditionalBorder {
         return new ConditionalBorder(normal, leadingTrailing, rest, collapsingBorderModel);
     }
 
+    /**
+     * Returns the canonical instance of this border. Grid units with identical borders then
+     * share a single instance, so this must only be called once the border has been fully
+     * resolved: the returned instance must no longer be modified.
+     *
+     * @return a cached border equal to this one
+     */
+    ConditionalBorder intern() {
+        return CACHE.fetch(this);
+    }
+
+    /** {@inheritDoc} */
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ConditionalBorder)) {
+            return false;
+        }
+        ConditionalBorder other = (ConditionalBorder) obj;
+        return collapsingBorderModel == other.collapsingBorderModel
+                && normal.equals(other.normal)
+                && leadingTrailing.equals(other.leadingTrailing)
+                && rest.equals(other.rest);
+    }
+
+    /** {@inheritDoc} */
+    public int hashCode() {
+        int hash = normal.hashCode();
+        hash = 31 * hash + leadingTrailing.hashCode();
+        hash = 31 * hash + rest.hashCode();
+        return hash;
+    }
+
     /** {@inheritDoc} */
     public String toString() {
         return "{normal: " + normal + ", leading: " + leadingTrailing + ", rest: " + rest + "}";
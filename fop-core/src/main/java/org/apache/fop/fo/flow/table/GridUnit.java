@@ -288,6 +288,16 @@ public class GridUnit {
         return borderEnd.getBorderInfo();
     }
 
+    /**
+     * Replaces the before and after borders of this grid unit with canonical instances,
+     * shared with the other grid units having the same borders. Must only be called once the
+     * borders have been fully resolved.
+     */
+    void internBorders() {
+        borderBefore = borderBefore.intern();
+        borderAfter = borderAfter.intern();
+    }
+
     /**
      * Resolve collapsing borders for the given cell. Used in case of the collapsing
      * border model.
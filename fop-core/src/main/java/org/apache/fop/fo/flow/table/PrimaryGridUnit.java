@@ -94,6 +94,14 @@ public class PrimaryGridUnit extends GridUnit {
         return cellLM;
     }
 
+    /**
+     * Indicates whether this grid unit holds a layout manager for its cell.
+     * @return false if no layout manager has been created yet, or if it has been released
+     */
+    public boolean hasCellLM() {
+        return cellLM != null;
+    }
+
     /** {@inheritDoc} */
     @Override
     public PrimaryGridUnit getPrimary() {
@@ -339,6 +347,15 @@ public class PrimaryGridUnit extends GridUnit {
         cellLM = new TableCellLayoutManager(cell, this);
     }
 
+    /**
+     * Releases the cellLM and the Knuth elements of the cell, once all of its areas have
+     * been added. Both are created again if the cell is laid out anew.
+     */
+    public void releaseCellLM() {
+        cellLM = null;
+        elements = null;
+    }
+
     /**
      * Returns the strength of the keep constraint if the first child block (or its descendants)
      * of this cell has keep-with-previous.
@@ -95,6 +95,14 @@ public class TableCell extends TableFObj implements CommonAccessibilityHolder {
         width = pList.get(PR_WIDTH).getLength();
     }
 
+    /** {@inheritDoc} */
+    protected void setCollapsedBorders() {
+        super.setCollapsedBorders();
+        // The borders of a cell are only copied to its grid units, never resolved themselves
+        borderBefore = borderBefore.intern();
+        borderAfter = borderAfter.intern();
+    }
+
     /** {@inheritDoc} */
     public void startOfNode() throws FOPException {
         super.startOfNode();
@@ -298,6 +298,18 @@ public class PageSequence extends AbstractPageSequence implements WritingModeTra
             isFirstPage, isLastPage, isBlank, getMainFlow().getFlowName());
     }
 
+    /**
+     * Makes this page-sequence use its own copy of the page-sequence-master it refers to, if
+     * any, so that it can be laid out while other page-sequences referring to the same
+     * page-sequence-master are laid out.
+     * @throws FOPException if the page-sequence-master cannot be copied
+     */
+    public void usePrivatePageSequenceMaster() throws FOPException {
+        if (pageSequenceMaster != null) {
+            pageSequenceMaster = pageSequenceMaster.copy();
+        }
+    }
+
     /**
      * Used to set the "cursor position" for the page masters to the previous item.
      * @return true if there is a previous item, false if the current one was the first one.
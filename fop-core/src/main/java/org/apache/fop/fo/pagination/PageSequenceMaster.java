@@ -151,6 +151,25 @@ public class PageSequenceMaster extends FObj {
         }
     }
 
+    /**
+     * Returns a copy of this page-sequence-master which keeps track of its position in the
+     * subsequence specifiers independently of this instance, so that page-sequences laid out
+     * at the same time do not interfere. The copy is reset.
+     * @return the copy
+     * @throws FOPException if a subsequence specifier cannot be copied
+     */
+    public PageSequenceMaster copy() throws FOPException {
+        PageSequenceMaster copy = (PageSequenceMaster) clone(parent, false);
+        copy.subSequenceSpecifiers
+                = new java.util.ArrayList<SubSequenceSpecifier>(subSequenceSpecifiers.size());
+        for (SubSequenceSpecifier subSequenceSpecifier : subSequenceSpecifiers) {
+            copy.subSequenceSpecifiers.add(
+                    (SubSequenceSpecifier) ((FONode) subSequenceSpecifier).clone(copy, false));
+        }
+        copy.reset();
+        return copy;
+    }
+
     /**
      * Used to set the "cursor position" for the page masters to the previous item.
      * @return true if there is a previous item, false if the current one was the first one.
@@ -19,13 +19,16 @@
 
 package org.apache.fop.fonts;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.BitSet;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 import org.apache.fop.util.CharUtilities;
+import org.apache.fop.util.ConcurrentIntIntHashMap;
 
 /**
  * Provides methods to get font information.
@@ -35,29 +38,32 @@ import org.apache.fop.util.CharUtilities;
  * fonts, this is the same as the glyph index.
  * Unicode index: The Unicode codepoint of a character.
  * Glyph name: the Adobe glyph name (as found in Glyphs.java)
+ * <p>
+ * The subset is kept in primitive structures and may be used by several threads: mapping a
+ * glyph which is already in the subset takes no lock, only adding a glyph does.
  */
 public class CIDSubset implements CIDSet {
 
     /**
      * usedGlyphs contains orginal, new glyph index (glyph index -> char selector)
      */
-    private Map<Integer, Integer> usedGlyphs = new LinkedHashMap<Integer, Integer>();
+    private final ConcurrentIntIntHashMap usedGlyphs = new ConcurrentIntIntHashMap(256);
 
     /**
      * usedGlyphsIndex contains new glyph, original index (char selector -> glyph index)
      */
-    private Map<Integer, Integer> usedGlyphsIndex = new HashMap<Integer, Integer>();
-    private int usedGlyphsCount;
+    private volatile int[] usedGlyphsIndex = new int[256];
+    private volatile int usedGlyphsCount;
 
     /**
      * usedCharsIndex contains new glyph, original char (char selector -> Unicode)
      */
-    private Map<Integer, Integer> usedCharsIndex = new HashMap<Integer, Integer>();
+    private volatile int[] usedCharsIndex = new int[256];
 
     /**
      * A map between the original character and it's GID in the original font.
      */
-    private Map<Integer, Integer> charToGIDs = new HashMap<Integer, Integer>();
+    private final ConcurrentIntIntHashMap charToGIDs = new ConcurrentIntIntHashMap(256);
 
 
     private final MultiByteFont font;
@@ -65,16 +71,16 @@ public class CIDSubset implements CIDSet {
     public CIDSubset(MultiByteFont mbf) {
         font = mbf;
         // The zeroth value is reserved for .notdef
+        usedGlyphsIndex[0] = 0;
+        usedCharsIndex[0] = CharUtilities.NOT_A_CHARACTER;
+        usedGlyphsCount = 1;
         usedGlyphs.put(0, 0);
-        usedGlyphsIndex.put(0, 0);
-        usedGlyphsCount++;
     }
 
     /** {@inheritDoc} */
     public int getOriginalGlyphIndex(int index) {
-        Integer glyphIndex = usedGlyphsIndex.get(index);
-        if (glyphIndex != null) {
-            return glyphIndex;
+        if (index >= 0 && index < usedGlyphsCount) {
+            return usedGlyphsIndex[index];
         } else {
             return -1;
         }
@@ -82,9 +88,8 @@ public class CIDSubset implements CIDSet {
 
     /** {@inheritDoc} */
     public int getUnicode(int index) {
-        Integer mapValue = usedCharsIndex.get(index);
-        if (mapValue != null) {
-            return mapValue;
+        if (index >= 0 && index < usedGlyphsCount) {
+            return usedCharsIndex[index];
         } else {
             return CharUtilities.NOT_A_CHARACTER;
         }
@@ -99,23 +104,40 @@ public class CIDSubset implements CIDSet {
     public int mapCodePoint(int glyphIndex, int codePoint) {
         // Reencode to a new subset font or get the reencoded value
         // IOW, accumulate the accessed characters and build a character map for them
-        Integer subsetCharSelector = usedGlyphs.get(glyphIndex);
-        if (subsetCharSelector == null) {
-            int selector = usedGlyphsCount;
-            usedGlyphs.put(glyphIndex, selector);
-            usedGlyphsIndex.put(selector, glyphIndex);
-            usedCharsIndex.put(selector, codePoint);
-            charToGIDs.put(codePoint, glyphIndex);
-            usedGlyphsCount++;
-            return selector;
+        int subsetCharSelector = usedGlyphs.get(glyphIndex);
+        if (subsetCharSelector == ConcurrentIntIntHashMap.NO_VALUE) {
+            return addGlyph(glyphIndex, codePoint);
         } else {
             return subsetCharSelector;
         }
     }
 
+    private synchronized int addGlyph(int glyphIndex, int codePoint) {
+        int subsetCharSelector = usedGlyphs.get(glyphIndex);
+        if (subsetCharSelector != ConcurrentIntIntHashMap.NO_VALUE) {
+            return subsetCharSelector;
+        }
+        int selector = usedGlyphsCount;
+        if (selector == usedGlyphsIndex.length) {
+            int[] glyphsIndex = new int[selector * 2];
+            System.arraycopy(usedGlyphsIndex, 0, glyphsIndex, 0, selector);
+            int[] charsIndex = new int[selector * 2];
+            System.arraycopy(usedCharsIndex, 0, charsIndex, 0, selector);
+            usedGlyphsIndex = glyphsIndex;
+            usedCharsIndex = charsIndex;
+        }
+        usedGlyphsIndex[selector] = glyphIndex;
+        usedCharsIndex[selector] = codePoint;
+        usedGlyphsCount = selector + 1;
+        charToGIDs.put(codePoint, glyphIndex);
+        //Published last, so that a thread finding the selector also finds the indices above
+        usedGlyphs.put(glyphIndex, selector);
+        return selector;
+    }
+
     /** {@inheritDoc} */
     public Map<Integer, Integer> getGlyphs() {
-        return Collections.unmodifiableMap(this.usedGlyphs);
+        return new UsedGlyphs();
     }
 
     /** {@inheritDoc} */
@@ -125,19 +147,19 @@ public class CIDSubset implements CIDSet {
         // to int . BTW is a question if it should be changed to int as getUnicode
         // or left like this.
         int selector = usedGlyphs.get(glyphIndex);
-        return (char) usedCharsIndex.get(selector).intValue();
+        return (char) usedCharsIndex[selector];
     }
 
     /** {@inheritDoc} */
     public int getGIDFromChar(char ch) {
-        return charToGIDs.get((int) ch);
+        return charToGIDs.get(ch);
     }
 
     /** {@inheritDoc} */
     public char[] getChars() {
         StringBuilder buf = new StringBuilder();
 
-        for (int i = 0; i < usedGlyphsCount; i++) {
+        for (int i = 0, c = getNumberOfGlyphs(); i < c; i++) {
             buf.appendCodePoint(getUnicode(i));
         }
 
@@ -152,8 +174,8 @@ public class CIDSubset implements CIDSet {
     /** {@inheritDoc} */
     public BitSet getGlyphIndices() {
         BitSet bitset = new BitSet();
-        for (Integer cid : usedGlyphs.keySet()) {
-            bitset.set(cid);
+        for (int i = 0, c = getNumberOfGlyphs(); i < c; i++) {
+            bitset.set(getOriginalGlyphIndex(i));
         }
         return bitset;
     }
@@ -162,11 +184,74 @@ public class CIDSubset implements CIDSet {
     public int[] getWidths() {
         int[] widths = font.getWidths();
         int[] tmpWidth = new int[getNumberOfGlyphs()];
-        for (int i = 0, c = getNumberOfGlyphs(); i < c; i++) {
+        for (int i = 0, c = tmpWidth.length; i < c; i++) {
             int nwx = Math.max(0, getOriginalGlyphIndex(i));
             tmpWidth[i] = widths[nwx];
         }
         return tmpWidth;
     }
 
+    /**
+     * An unmodifiable view of the used glyphs, from glyph index to character selector, in the
+     * order of the selectors. Its iterators do not see the glyphs added after their creation.
+     */
+    private final class UsedGlyphs extends AbstractMap<Integer, Integer> {
+
+        @Override
+        public Integer get(Object key) {
+            if (key instanceof Integer) {
+                int selector = usedGlyphs.get((Integer) key);
+                return selector != ConcurrentIntIntHashMap.NO_VALUE ? selector : null;
+            }
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return getNumberOfGlyphs();
+        }
+
+        @Override
+        public Set<Map.Entry<Integer, Integer>> entrySet() {
+            return new AbstractSet<Map.Entry<Integer, Integer>>() {
+
+                @Override
+                public Iterator<Map.Entry<Integer, Integer>> iterator() {
+                    final int count = getNumberOfGlyphs();
+                    return new Iterator<Map.Entry<Integer, Integer>>() {
+
+                        private int selector;
+
+                        public boolean hasNext() {
+                            return selector < count;
+                        }
+
+                        public Map.Entry<Integer, Integer> next() {
+                            if (selector >= count) {
+                                throw new NoSuchElementException();
+                            }
+                            Map.Entry<Integer, Integer> entry = new SimpleImmutableEntry<Integer, Integer>(
+                                    getOriginalGlyphIndex(selector), selector);
+                            selector++;
+                            return entry;
+                        }
+
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return getNumberOfGlyphs();
+                }
+            };
+        }
+    }
 }
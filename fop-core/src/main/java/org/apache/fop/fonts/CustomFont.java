@@ -24,12 +24,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.fop.apps.io.InternalResourceResolver;
 
@@ -78,8 +80,11 @@ public abstract class CustomFont extends Typeface
     private Map<Integer, Map<Integer, Integer>> kerning;
 
     private boolean useKerning = true;
-    /** the character map, mapping Unicode ranges to glyph indices. */
-    protected List<CMapSegment> cmap = new ArrayList<CMapSegment>();
+    /**
+     * the character map, mapping Unicode ranges to glyph indices. It may be read while private
+     * use mappings are appended to it.
+     */
+    protected List<CMapSegment> cmap = new CopyOnWriteArrayList<CMapSegment>();
     private boolean useAdvanced = true;
     private boolean simulateStyle;
     protected List<SimpleSingleByteEncoding> additionalEncodings;
@@ -485,6 +490,7 @@ public abstract class CustomFont extends Typeface
      */
     public void setKerningEnabled(boolean enabled) {
         this.useKerning = enabled;
+        resetKerningTable();
     }
 
     /**
@@ -511,6 +517,7 @@ public abstract class CustomFont extends Typeface
             kerning = new HashMap<Integer, Map<Integer, Integer>>();
         }
         this.kerning.put(key, value);
+        resetKerningTable();
     }
 
     /**
@@ -524,6 +531,7 @@ public abstract class CustomFont extends Typeface
         } else {
             this.kerning = kerningMap;
         }
+        resetKerningTable();
     }
 
     /**
@@ -532,8 +540,9 @@ public abstract class CustomFont extends Typeface
      * @param cmap the character map
      */
     public void setCMap(CMapSegment[] cmap) {
+        //replace the segments in one copy rather than one copy per added segment
         this.cmap.clear();
-        Collections.addAll(this.cmap, cmap);
+        this.cmap.addAll(Arrays.asList(cmap));
     }
 
     /**
@@ -620,7 +629,7 @@ public abstract class CustomFont extends Typeface
      * @return the additional encoding
      * @throws IndexOutOfBoundsException if the index is out of bounds
      */
-    public SimpleSingleByteEncoding getAdditionalEncoding(int index)
+    public synchronized SimpleSingleByteEncoding getAdditionalEncoding(int index)
             throws IndexOutOfBoundsException {
         if (hasAdditionalEncodings()) {
             return this.additionalEncodings.get(index);
@@ -650,7 +659,7 @@ public abstract class CustomFont extends Typeface
      * Adds a character to additional encodings
      * @param ch character to map
      */
-    protected char mapUnencodedChar(char ch) {
+    protected synchronized char mapUnencodedChar(char ch) {
         if (this.unencodedCharacters != null) {
             SingleByteFont.UnencodedCharacter unencoded = this.unencodedCharacters.get(ch);
             if (unencoded != null) {
@@ -78,6 +78,7 @@ public class DefaultFontConfigurator implements FontConfigurator<EmbedFontInfo>
                 start = System.currentTimeMillis();
             }
             FontAdder fontAdder = new FontAdder(fontManager, resourceResolver, listener);
+            fontAdder.setThreadCount(fontManager.getFontDetectionThreadCount());
             // native o/s search (autodetect) configuration
             fontManager.autoDetectFonts(adobeFontInfoConfig.isAutoDetectFonts(), fontAdder, strict,
                     listener, fontInfoList);
@@ -204,14 +204,17 @@ public class Font implements Substitutable, Positionable {
             return 0;
         }
 
-        Map<Integer, Integer> kernPair = getKerning().get(ch1);
-        if (kernPair != null) {
-            Integer width = kernPair.get(ch2);
-            if (width != null) {
-                return width * getFontSize() / 1000;
-            }
-        }
-        return 0;
+        int width = metric.getKerningTable().getKerning(ch1, ch2);
+        return width == 0 ? 0 : width * getFontSize() / 1000;
+    }
+
+    /**
+     * Returns the font's kerning table, which holds the same kerning values as the map returned by
+     * {@link #getKerning()} but does not box the characters looked up.
+     * @return the kerning table, empty if the font has no kerning
+     */
+    public KerningTable getKerningTable() {
+        return metric.getKerningTable();
     }
 
     /**
@@ -443,12 +446,9 @@ public class Font implements Substitutable, Positionable {
         if (word == null) {
             return 0;
         }
-        int wordLength = word.length();
         int width = 0;
-        char[] characters = new char[wordLength];
-        word.getChars(0, wordLength, characters, 0);
-        for (int i = 0; i < wordLength; i++) {
-            width += getCharWidth(characters[i]);
+        for (int i = 0, wordLength = word.length(); i < wordLength; i++) {
+            width += getCharWidth(word.charAt(i));
         }
         return width;
     }
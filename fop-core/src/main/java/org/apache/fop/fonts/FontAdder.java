@@ -19,20 +19,30 @@
 
 package org.apache.fop.fonts;
 
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.fonts.autodetect.FontInfoFinder;
 
 /**
- * Adds a list of fonts to a given font info list
+ * Adds a list of fonts to a given font info list. The font files which are not in the font
+ * cache, or which have changed since they were cached, are parsed on several threads.
  */
 public class FontAdder {
     private final FontEventListener listener;
     private final InternalResourceResolver resourceResolver;
     private final FontManager manager;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
 
     /**
      * Main constructor
@@ -47,6 +57,15 @@ public class FontAdder {
         this.listener = listener;
     }
 
+    /**
+     * Sets the number of threads on which the font files are parsed. It defaults to the
+     * number of available processors.
+     * @param threadCount the number of threads, 1 to parse the font files in turn
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
     /**
      * Iterates over font url list adding to font info list
      * @param fontURLList font file list
@@ -55,19 +74,65 @@ public class FontAdder {
      */
     public void add(List<URL> fontURLList, List<EmbedFontInfo> fontInfoList)
             throws URISyntaxException {
-        FontCache cache = manager.getFontCache();
-        FontInfoFinder finder = new FontInfoFinder();
+        final FontCache cache = manager.getFontCache();
+        final FontInfoFinder finder = new FontInfoFinder();
         finder.setEventListener(listener);
 
+        List<URI> fontURIList = new ArrayList<URI>(fontURLList.size());
         for (URL fontURL : fontURLList) {
-            EmbedFontInfo[] embedFontInfos = finder.find(fontURL.toURI(), resourceResolver, cache);
-            if (embedFontInfos == null) {
-                continue;
+            fontURIList.add(fontURL.toURI());
+        }
+        int threads = Math.min(threadCount, fontURIList.size());
+        if (threads <= 1) {
+            for (URI fontURI : fontURIList) {
+                add(finder.find(fontURI, resourceResolver, cache), fontInfoList);
+            }
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "FOP font detection");
+                thread.setDaemon(true);
+                return thread;
             }
-            for (EmbedFontInfo fontInfo : embedFontInfos) {
-                if (fontInfo != null) {
-                    fontInfoList.add(fontInfo);
-                }
+        });
+        try {
+            List<Future<EmbedFontInfo[]>> futures = new ArrayList<Future<EmbedFontInfo[]>>(fontURIList.size());
+            for (final URI fontURI : fontURIList) {
+                futures.add(executor.submit(new Callable<EmbedFontInfo[]>() {
+                    public EmbedFontInfo[] call() {
+                        return finder.find(fontURI, resourceResolver, cache);
+                    }
+                }));
+            }
+            //The fonts are added in the order of the list, whichever thread parsed them
+            for (Future<EmbedFontInfo[]> future : futures) {
+                add(future.get(), fontInfoList);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the detection of fonts");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new RuntimeException(cause);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void add(EmbedFontInfo[] embedFontInfos, List<EmbedFontInfo> fontInfoList) {
+        if (embedFontInfos == null) {
+            return;
+        }
+        for (EmbedFontInfo fontInfo : embedFontInfos) {
+            if (fontInfo != null) {
+                fontInfoList.add(fontInfo);
             }
         }
     }
@@ -20,19 +20,21 @@
 package org.apache.fop.fonts;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.OutputStream;
-import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.io.FileUtils;
@@ -46,14 +48,13 @@ import org.apache.fop.util.LogUtil;
 
 /**
  * Fop cache (currently only used for font info caching)
+ * <p>
+ * The cache is written as a versioned binary index rather than as a serialized object: for
+ * each font file, its URI, modification time and length, and the font infos found in it. A
+ * font file is only parsed again once its modification time or its length change. Cache
+ * files in another format or version are discarded.
  */
-public final class FontCache implements Serializable {
-
-    /**
-     * Serialization Version UID. Change this value if you want to make sure the
-     * user's cache file is purged after an update.
-     */
-    private static final long serialVersionUID = 9129238336422194339L;
+public final class FontCache {
 
     /** logging instance */
     private static Log log = LogFactory.getLog(FontCache.class);
@@ -64,8 +65,17 @@ public final class FontCache implements Serializable {
     /** font cache file path */
     private static final String DEFAULT_CACHE_FILENAME = "fop-fonts.cache";
 
+    /** identifies the font cache files: "FOPC" */
+    private static final int MAGIC = 0x464F5043;
+
+    /**
+     * The version of the format of the font cache files. Change this value if you want to
+     * make sure the user's cache file is purged after an update.
+     */
+    private static final int FORMAT_VERSION = 1;
+
     /** has this cache been changed since it was last read? */
-    private transient boolean changed;
+    private boolean changed;
 
     /** change lock */
     private final boolean[] changeLock = new boolean[1];
@@ -73,21 +83,15 @@ public final class FontCache implements Serializable {
     /**
      * master mapping of font url -&gt; font info. This needs to be a list, since a
      * TTC file may contain more than 1 font.
-     * @serial
      */
     private Map<String, CachedFontFile> fontfileMap;
 
     /**
      * mapping of font url -&gt; file modified date (for all fonts that have failed
      * to load)
-     * @serial
      */
     private Map<String, Long> failedFontMap;
 
-    private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
-        ois.defaultReadObject();
-    }
-
     private static File getUserHome() {
         return toDirectory(System.getProperty("user.home"));
     }
@@ -159,18 +163,29 @@ public final class FontCache implements Serializable {
                     log.trace("Loading font cache from "
                             + cacheFile.getCanonicalPath());
                 }
-                InputStream in = new BufferedInputStream(new FileInputStream(cacheFile));
-                ObjectInputStream oin = new ObjectInputStream(in);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(
+                        new FileInputStream(cacheFile)));
                 try {
-                    return (FontCache) oin.readObject();
+                    if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                        // An older cache file, which is replaced when the cache is saved
+                        log.info("Discarding font cache file in an unsupported format: "
+                                + cacheFile.getAbsolutePath());
+                        return null;
+                    }
+                    FontCache fontCache = new FontCache();
+                    fontCache.read(in);
+                    return fontCache;
                 } finally {
-                    IOUtils.closeQuietly(oin);
+                    IOUtils.closeQuietly(in);
                 }
-            } catch (ClassNotFoundException e) {
+            } catch (URISyntaxException e) {
                 // We don't really care about the exception since it's just a
                 // cache file
                 log.warn("Could not read font cache. Discarding font cache file. Reason: "
                         + e.getMessage());
+            } catch (IllegalArgumentException e) {
+                log.warn("Could not read font cache. Discarding font cache file. Reason: "
+                        + e.getMessage());
             } catch (IOException ioe) {
                 // We don't really care about the exception since it's just a
                 // cache file
@@ -208,18 +223,32 @@ public final class FontCache implements Serializable {
     public void saveTo(File cacheFile) throws FOPException {
         synchronized (changeLock) {
             if (changed) {
+                File tempFile = null;
                 try {
                     log.trace("Writing font cache to " + cacheFile.getCanonicalPath());
-                    OutputStream out = new java.io.FileOutputStream(cacheFile);
-                    out = new java.io.BufferedOutputStream(out);
-                    ObjectOutputStream oout = new ObjectOutputStream(out);
+                    // Other processes using the cache file never see a partially written one
+                    tempFile = File.createTempFile(cacheFile.getName(), ".tmp",
+                            cacheFile.getAbsoluteFile().getParentFile());
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                            new FileOutputStream(tempFile)));
                     try {
-                        oout.writeObject(this);
+                        out.writeInt(MAGIC);
+                        out.writeInt(FORMAT_VERSION);
+                        write(out);
                     } finally {
-                        IOUtils.closeQuietly(oout);
+                        IOUtils.closeQuietly(out);
+                    }
+                    if (!tempFile.renameTo(cacheFile)
+                            && (!cacheFile.delete() || !tempFile.renameTo(cacheFile))) {
+                        throw new IOException("Cannot rename " + tempFile + " to " + cacheFile);
                     }
+                    tempFile = null;
                 } catch (IOException ioe) {
                     LogUtil.handleException(log, ioe, true);
+                } finally {
+                    if (tempFile != null) {
+                        tempFile.delete();
+                    }
                 }
                 changed = false;
                 log.trace("Cache file written.");
@@ -227,6 +256,127 @@ public final class FontCache implements Serializable {
         }
     }
 
+    private void write(DataOutputStream out) throws IOException {
+        List<Map.Entry<String, CachedFontFile>> fontFiles = new ArrayList<Map.Entry<String, CachedFontFile>>();
+        for (Map.Entry<String, CachedFontFile> entry : getFontFileMap().entrySet()) {
+            // Font files which have been removed are dropped from the cache
+            if (!isRemovedFile(entry.getKey())) {
+                fontFiles.add(entry);
+            }
+        }
+        out.writeInt(fontFiles.size());
+        for (Map.Entry<String, CachedFontFile> entry : fontFiles) {
+            CachedFontFile cachedFontFile = entry.getValue();
+            out.writeUTF(entry.getKey());
+            out.writeLong(cachedFontFile.lastModified());
+            out.writeLong(cachedFontFile.length());
+            EmbedFontInfo[] fontInfos = cachedFontFile.getEmbedFontInfos();
+            out.writeInt(fontInfos.length);
+            for (EmbedFontInfo fontInfo : fontInfos) {
+                writeFontInfo(out, fontInfo);
+            }
+        }
+        out.writeInt(getFailedFontMap().size());
+        for (Map.Entry<String, Long> entry : getFailedFontMap().entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    private void read(DataInputStream in) throws IOException, URISyntaxException {
+        for (int i = in.readInt(); i > 0; i--) {
+            String embedUrl = in.readUTF();
+            CachedFontFile cachedFontFile = new CachedFontFile(in.readLong(), in.readLong());
+            for (int j = in.readInt(); j > 0; j--) {
+                cachedFontFile.put(readFontInfo(in));
+            }
+            getFontFileMap().put(embedUrl, cachedFontFile);
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            getFailedFontMap().put(in.readUTF(), in.readLong());
+        }
+    }
+
+    private static boolean isRemovedFile(String embedUrl) {
+        if (embedUrl.startsWith("file:")) {
+            try {
+                return !new File(new URI(embedUrl)).exists();
+            } catch (URISyntaxException e) {
+                return false;
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static void writeFontInfo(DataOutputStream out, EmbedFontInfo fontInfo) throws IOException {
+        FontUris fontUris = fontInfo.getFontUris();
+        writeURI(out, fontUris.getEmbed());
+        writeURI(out, fontUris.getMetrics());
+        writeURI(out, fontUris.getAfm());
+        writeURI(out, fontUris.getPfm());
+        out.writeBoolean(fontInfo.getKerning());
+        out.writeBoolean(fontInfo.getAdvanced());
+        writeString(out, fontInfo.getEncodingMode() != null ? fontInfo.getEncodingMode().name() : null);
+        writeString(out, fontInfo.getEmbeddingMode() != null ? fontInfo.getEmbeddingMode().name() : null);
+        out.writeBoolean(fontInfo.getSimulateStyle());
+        out.writeBoolean(fontInfo.getEmbedAsType1());
+        writeString(out, fontInfo.getPostScriptName());
+        writeString(out, fontInfo.getSubFontName());
+        List<FontTriplet> triplets = fontInfo.getFontTriplets();
+        out.writeInt(triplets.size());
+        for (FontTriplet triplet : triplets) {
+            out.writeUTF(triplet.getName());
+            out.writeUTF(triplet.getStyle());
+            out.writeInt(triplet.getWeight());
+            out.writeInt(triplet.getPriority());
+        }
+    }
+
+    private static EmbedFontInfo readFontInfo(DataInputStream in) throws IOException, URISyntaxException {
+        FontUris fontUris = new FontUris(readURI(in), readURI(in), readURI(in), readURI(in));
+        boolean kerning = in.readBoolean();
+        boolean advanced = in.readBoolean();
+        String encodingMode = readString(in);
+        String embeddingMode = readString(in);
+        boolean simulateStyle = in.readBoolean();
+        boolean embedAsType1 = in.readBoolean();
+        String postScriptName = readString(in);
+        String subFontName = readString(in);
+        int tripletCount = in.readInt();
+        List<FontTriplet> triplets = new ArrayList<FontTriplet>(tripletCount);
+        for (int i = 0; i < tripletCount; i++) {
+            triplets.add(new FontTriplet(in.readUTF(), in.readUTF(), in.readInt(), in.readInt()));
+        }
+        EmbedFontInfo fontInfo = new EmbedFontInfo(fontUris, kerning, advanced, triplets, subFontName,
+                encodingMode != null ? EncodingMode.valueOf(encodingMode) : null,
+                embeddingMode != null ? EmbeddingMode.valueOf(embeddingMode) : null,
+                simulateStyle, embedAsType1);
+        fontInfo.setPostScriptName(postScriptName);
+        return fontInfo;
+    }
+
+    private static void writeURI(DataOutputStream out, URI uri) throws IOException {
+        writeString(out, uri != null ? uri.toString() : null);
+    }
+
+    private static URI readURI(DataInputStream in) throws IOException, URISyntaxException {
+        String uri = readString(in);
+        return uri != null ? new URI(uri) : null;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
     /**
      * creates a key given a font info for the font mapping
      *
@@ -260,7 +410,9 @@ public final class FontCache implements Serializable {
      * @return boolean
      */
     public boolean containsFont(String embedUrl) {
-        return (embedUrl != null && getFontFileMap().containsKey(embedUrl));
+        synchronized (changeLock) {
+            return (embedUrl != null && getFontFileMap().containsKey(embedUrl));
+        }
     }
 
     /**
@@ -271,8 +423,7 @@ public final class FontCache implements Serializable {
      * @return font
      */
     public boolean containsFont(EmbedFontInfo fontInfo) {
-        return (fontInfo != null && getFontFileMap().containsKey(
-                getCacheKey(fontInfo)));
+        return (fontInfo != null && containsFont(getCacheKey(fontInfo)));
     }
 
     /**
@@ -331,8 +482,7 @@ public final class FontCache implements Serializable {
             } else {
                 // try and determine modified date
                 URI fontUri = resourceResolver.resolveFromBase(fontInfo.getEmbedURI());
-                long lastModified = getLastModified(fontUri);
-                cachedFontFile = new CachedFontFile(lastModified);
+                cachedFontFile = new CachedFontFile(getLastModified(fontUri), getLength(fontUri));
                 if (log.isTraceEnabled()) {
                     log.trace("Font added to cache: " + cacheKey);
                 }
@@ -351,7 +501,9 @@ public final class FontCache implements Serializable {
      * @return CachedFontFile object
      */
     public CachedFontFile getFontFile(String embedUrl) {
-        return containsFont(embedUrl) ? getFontFileMap().get(embedUrl) : null;
+        synchronized (changeLock) {
+            return embedUrl != null ? getFontFileMap().get(embedUrl) : null;
+        }
     }
 
     /**
@@ -367,12 +519,35 @@ public final class FontCache implements Serializable {
      *         if it is outdated
      */
     public EmbedFontInfo[] getFontInfos(String embedUrl, long lastModified) {
-        CachedFontFile cff = getFontFile(embedUrl);
-        if (cff.lastModified() == lastModified) {
-            return cff.getEmbedFontInfos();
-        } else {
-            removeFont(embedUrl);
-            return null;
+        return getFontInfos(embedUrl, lastModified, -1);
+    }
+
+    /**
+     * Returns the EmbedFontInfo instances belonging to a font file. If the font
+     * file was modified or changed its length since it was cached the entry is
+     * removed and null is returned.
+     *
+     * @param embedUrl
+     *            the font URL
+     * @param lastModified
+     *            the last modified date/time of the font file
+     * @param length
+     *            the length of the font file, or -1 if it is unknown
+     * @return the EmbedFontInfo instances or null if there's no cached entry or
+     *         if it is outdated
+     */
+    public EmbedFontInfo[] getFontInfos(String embedUrl, long lastModified, long length) {
+        synchronized (changeLock) {
+            CachedFontFile cff = getFontFile(embedUrl);
+            if (cff == null) {
+                return null;
+            } else if (cff.lastModified() == lastModified
+                    && (length < 0 || cff.length() < 0 || cff.length() == length)) {
+                return cff.getEmbedFontInfos();
+            } else {
+                removeFont(embedUrl);
+                return null;
+            }
         }
     }
 
@@ -466,6 +641,11 @@ public final class FontCache implements Serializable {
      * @return the last modified date/time
      */
     public static long getLastModified(URI uri) {
+        File file = toFile(uri);
+        if (file != null) {
+            // Avoids opening the file, which is slow when thousands of fonts are checked
+            return file.lastModified();
+        }
         try {
             URL url = uri.toURL();
             URLConnection conn = url.openConnection();
@@ -483,16 +663,40 @@ public final class FontCache implements Serializable {
         }
     }
 
-    private static class CachedFontFile implements Serializable {
-        private static final long serialVersionUID = 4524237324330578883L;
+    /**
+     * Retrieve the length of a font file.
+     *
+     * @param uri the URI
+     * @return the length in bytes, or -1 if the URI does not refer to a file
+     */
+    public static long getLength(URI uri) {
+        File file = toFile(uri);
+        return file != null ? file.length() : -1;
+    }
 
+    private static File toFile(URI uri) {
+        if ("file".equals(uri.getScheme())) {
+            try {
+                return new File(uri);
+            } catch (IllegalArgumentException e) {
+                // e.g. a URI with an authority component
+            }
+        }
+        return null;
+    }
+
+    private static class CachedFontFile {
         /** file modify date (if available) */
         private long lastModified = -1;
 
+        /** file length (if available) */
+        private long length = -1;
+
         private Map<String, EmbedFontInfo> filefontsMap;
 
-        public CachedFontFile(long lastModified) {
+        public CachedFontFile(long lastModified, long length) {
             setLastModified(lastModified);
+            this.length = length;
         }
 
         private Map<String, EmbedFontInfo> getFileFontsMap() {
@@ -525,6 +729,15 @@ public final class FontCache implements Serializable {
             return this.lastModified;
         }
 
+        /**
+         * Gets the length of the font file (not always available)
+         *
+         * @return the length, or -1
+         */
+        public long length() {
+            return this.length;
+        }
+
         /**
          * Gets the modified timestamp for font file (used for the purposes of
          * font info caching)
@@ -540,7 +753,7 @@ public final class FontCache implements Serializable {
          * @return string representation of this object {@inheritDoc}
          */
         public String toString() {
-            return super.toString() + ", lastModified=" + lastModified;
+            return super.toString() + ", lastModified=" + lastModified + ", length=" + length;
         }
 
     }
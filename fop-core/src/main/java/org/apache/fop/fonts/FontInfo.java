@@ -24,8 +24,11 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -45,9 +48,16 @@ public class FontInfo {
     /** logging instance */
     protected static final Log log = LogFactory.getLog(FontInfo.class);
 
-    /** Map containing fonts that have been used */
+    /**
+     * Map containing fonts that have been used. Once the fonts are set up, they may be looked up
+     * and used by the page-sequences laid out in parallel.
+     */
     private Map<String, Typeface> usedFonts; //(String = font key)
 
+    /** Keys of the unknown fonts that have been used, which the concurrent map cannot hold */
+    private final Set<String> unknownUsedFonts
+            = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
     /** look up a font-triplet to find a font-name */
     private Map<FontTriplet, String> triplets; //(String = font key)
 
@@ -59,7 +69,8 @@ public class FontInfo {
     private Map<String, Typeface> fonts; //(String = font key)
 
     /** Cache for Font instances. */
-    private Map<FontTriplet, Map<Integer, Font>> fontInstanceCache;
+    private final ConcurrentMap<FontTriplet, ConcurrentMap<Integer, Font>> fontInstanceCache
+            = new ConcurrentHashMap<FontTriplet, ConcurrentMap<Integer, Font>>();
 
     /** Event listener for font events */
     private FontEventListener eventListener;
@@ -71,7 +82,7 @@ public class FontInfo {
         this.triplets = new HashMap<FontTriplet, String>();
         this.tripletPriorities = new HashMap<FontTriplet, Integer>();
         this.fonts = new HashMap<String, Typeface>();
-        this.usedFonts = new HashMap<String, Typeface>();
+        this.usedFonts = new ConcurrentHashMap<String, Typeface>();
     }
 
     /**
@@ -281,14 +292,12 @@ public class FontInfo {
      * @param internalName the internal font name (F1, F2 etc.)
      */
     public void useFont(String internalName) {
-        usedFonts.put(internalName, fonts.get(internalName));
-    }
-
-    private Map<FontTriplet, Map<Integer, Font>> getFontInstanceCache() {
-        if (fontInstanceCache == null) {
-            fontInstanceCache = new HashMap<FontTriplet, Map<Integer, Font>>();
+        Typeface font = fonts.get(internalName);
+        if (font == null) {
+            unknownUsedFonts.add(internalName);
+        } else if (!usedFonts.containsKey(internalName)) {
+            usedFonts.put(internalName, font);
         }
-        return fontInstanceCache;
     }
 
     /**
@@ -299,10 +308,13 @@ public class FontInfo {
      * @return the requested Font instance
      */
     public Font getFontInstance(FontTriplet triplet, int fontSize) {
-        Map<Integer, Font> sizes = getFontInstanceCache().get(triplet);
+        ConcurrentMap<Integer, Font> sizes = fontInstanceCache.get(triplet);
         if (sizes == null) {
-            sizes = new HashMap<Integer, Font>();
-            getFontInstanceCache().put(triplet, sizes);
+            sizes = new ConcurrentHashMap<Integer, Font>();
+            ConcurrentMap<Integer, Font> existing = fontInstanceCache.putIfAbsent(triplet, sizes);
+            if (existing != null) {
+                sizes = existing;
+            }
         }
         Integer size = fontSize;
         Font font = sizes.get(size);
@@ -311,7 +323,10 @@ public class FontInfo {
             useFont(fontKey);
             FontMetrics metrics = getMetricsFor(fontKey);
             font = new Font(fontKey, triplet, metrics, fontSize);
-            sizes.put(size, font);
+            Font existing = sizes.putIfAbsent(size, font);
+            if (existing != null) {
+                font = existing;
+            }
         }
         return font;
     }
@@ -558,10 +573,21 @@ public class FontInfo {
      * This is used by the renderers to retrieve all the
      * fonts used in the document.
      * This is for embedded font or creating a list of used fonts.
+     * A font key that was used without being registered is mapped to null.
      * @return a read-only Map with font key/FontMetrics pairs
      */
     public Map<String, Typeface> getUsedFonts() {
-        return this.usedFonts;
+        if (unknownUsedFonts.isEmpty()) {
+            return this.usedFonts;
+        }
+        //Unknown fonts are reported with a null value
+        Map<String, Typeface> used = new HashMap<String, Typeface>(this.usedFonts);
+        for (String internalName : unknownUsedFonts) {
+            if (!used.containsKey(internalName)) {
+                used.put(internalName, null);
+            }
+        }
+        return used;
     }
 
     /**
@@ -570,9 +596,8 @@ public class FontInfo {
      * @return font metrics
      */
     public FontMetrics getMetricsFor(String fontName) {
-        Typeface metrics = fonts.get(fontName);
-        usedFonts.put(fontName, metrics);
-        return metrics;
+        useFont(fontName);
+        return fonts.get(fontName);
     }
 
     /**
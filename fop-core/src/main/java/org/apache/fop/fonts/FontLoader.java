@@ -27,6 +27,7 @@ import org.apache.commons.logging.LogFactory;
 
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.fonts.truetype.OFFontLoader;
+import org.apache.fop.fonts.truetype.ParsedFontStore;
 import org.apache.fop.fonts.type1.Type1FontLoader;
 
 /**
@@ -94,6 +95,31 @@ public abstract class FontLoader {
             boolean embedded, EmbeddingMode embeddingMode, EncodingMode encodingMode,
             boolean useKerning, boolean useAdvanced, InternalResourceResolver resourceResolver,
             boolean simulateStyle, boolean embedAsType1) throws IOException {
+        return loadFont(fontUris, subFontName, embedded, embeddingMode, encodingMode, useKerning, useAdvanced,
+                resourceResolver, simulateStyle, embedAsType1, null);
+    }
+
+    /**
+     * Loads a custom font from a URI. In the case of Type 1 fonts, the PFB file must be specified.
+     * The metrics of TrueType fonts are read from the given parsed font store if it has them,
+     * and written to it otherwise.
+     * @param fontUris the URI to the font
+     * @param subFontName the sub-fontname of a font (for TrueType Collections, null otherwise)
+     * @param embedded indicates whether the font is embedded or referenced
+     * @param embeddingMode the embedding mode of the font
+     * @param encodingMode the requested encoding mode
+     * @param useKerning indicates whether kerning information should be loaded if available
+     * @param useAdvanced indicates whether advanced typographic information shall be loaded if
+     * available
+     * @param resourceResolver the font resolver to use when resolving URIs
+     * @param parsedFontStore the store of the metrics of parsed fonts (may be null)
+     * @return the newly loaded font
+     * @throws IOException In case of an I/O error
+     */
+    public static CustomFont loadFont(FontUris fontUris, String subFontName,
+            boolean embedded, EmbeddingMode embeddingMode, EncodingMode encodingMode,
+            boolean useKerning, boolean useAdvanced, InternalResourceResolver resourceResolver,
+            boolean simulateStyle, boolean embedAsType1, ParsedFontStore parsedFontStore) throws IOException {
         boolean type1 = isType1(fontUris);
         FontLoader loader;
         if (type1) {
@@ -104,8 +130,10 @@ public abstract class FontLoader {
             loader = new Type1FontLoader(fontUris, embedded, embeddingMode, useKerning,
                     resourceResolver);
         } else {
-            loader = new OFFontLoader(fontUris.getEmbed(), subFontName, embedded, embeddingMode,
+            OFFontLoader ofLoader = new OFFontLoader(fontUris.getEmbed(), subFontName, embedded, embeddingMode,
                     encodingMode, useKerning, useAdvanced, resourceResolver, simulateStyle, embedAsType1);
+            ofLoader.setParsedFontStore(parsedFontStore);
+            loader = ofLoader;
         }
         return loader.getFont();
     }
@@ -26,6 +26,7 @@ import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.fonts.FontTriplet.Matcher;
 import org.apache.fop.fonts.substitute.FontSubstitutions;
+import org.apache.fop.fonts.truetype.ParsedFontStore;
 
 // TODO: Refactor fonts package so major font activities (autodetection etc)
 // are all centrally managed and delegated from this class
@@ -49,9 +50,15 @@ public class FontManager {
     /** Allows enabling kerning on the base 14 fonts, default is false */
     private boolean enableBase14Kerning;
 
+    /** The number of threads on which the detected font files are parsed */
+    private int fontDetectionThreadCount = Runtime.getRuntime().availableProcessors();
+
     /** FontTriplet matcher for fonts that shall be referenced rather than embedded. */
     private FontTriplet.Matcher referencedFontsMatcher;
 
+    /** The store of the metrics of parsed fonts, null if fonts are always parsed */
+    private ParsedFontStore parsedFontStore;
+
     /**
      * Main constructor
      *
@@ -91,6 +98,20 @@ public class FontManager {
         this.enableBase14Kerning = value;
     }
 
+    /**
+     * Sets the number of threads on which the font files found by auto-detection or in the
+     * configured directories are parsed. It defaults to the number of available processors.
+     * @param threadCount the number of threads, 1 to parse the font files in turn
+     */
+    public void setFontDetectionThreadCount(int threadCount) {
+        this.fontDetectionThreadCount = Math.max(1, threadCount);
+    }
+
+    /** @return the number of threads on which the detected font files are parsed */
+    public int getFontDetectionThreadCount() {
+        return this.fontDetectionThreadCount;
+    }
+
     /**
      * Sets the font substitutions
      * @param substitutions font substitutions
@@ -150,6 +171,23 @@ public class FontManager {
         fontCacheManager.delete();
     }
 
+    /**
+     * Sets the store of the metrics of parsed fonts, so that TrueType fonts are parsed once
+     * rather than by every font manager and every JVM using the store.
+     * @param parsedFontStore the store, or null to always parse the fonts
+     */
+    public void setParsedFontStore(ParsedFontStore parsedFontStore) {
+        this.parsedFontStore = parsedFontStore;
+    }
+
+    /**
+     * Returns the store of the metrics of parsed fonts.
+     * @return the store, or null if the fonts are always parsed
+     */
+    public ParsedFontStore getParsedFontStore() {
+        return parsedFontStore;
+    }
+
     /**
      * Sets up the fonts on a given FontInfo object. The fonts to setup are defined by an
      * array of {@link FontCollection} objects.
@@ -162,6 +200,13 @@ public class FontManager {
         for (FontCollection fontCollection : fontCollections) {
             startNum = fontCollection.setup(startNum, fontInfo);
         }
+        if (parsedFontStore != null) {
+            for (Typeface font : fontInfo.getFonts().values()) {
+                if (font instanceof LazyFont) {
+                    ((LazyFont) font).setParsedFontStore(parsedFontStore);
+                }
+            }
+        }
         // Make any defined substitutions in the font info
         getFontSubstitutions().adjustFontInfo(fontInfo);
     }
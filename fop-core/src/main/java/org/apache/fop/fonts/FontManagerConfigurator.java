@@ -115,6 +115,14 @@ public class FontManagerConfigurator {
                 LogUtil.handleException(log, e, true);
             }
         }
+        if (cfg.getChild("font-detection-threads", false) != null) {
+            try {
+                fontManager.setFontDetectionThreadCount(
+                        cfg.getChild("font-detection-threads").getValueAsInteger());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, true);
+            }
+        }
 
         // global font configuration
         Configuration fontsCfg = cfg.getChild("fonts", false);
@@ -146,6 +146,13 @@ public interface FontMetrics {
      */
     Map<Integer, Map<Integer, Integer>> getKerningInfo();
 
+    /**
+     * Returns the kerning of the font as a table of character pairs, which is faster to look
+     * up than the kerning map.
+     * @return the kerning table, empty if the font has no kerning information
+     */
+    KerningTable getKerningTable();
+
     /**
      * Returns the distance from the baseline to the center of the underline (negative
      * value indicates below baseline).
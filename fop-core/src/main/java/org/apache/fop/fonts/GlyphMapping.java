@@ -87,11 +87,27 @@ public class GlyphMapping {
             Font font, MinOptMax letterSpaceIPD, MinOptMax[] letterSpaceAdjustArray,
             char precedingChar, char breakOpportunityChar, final boolean endsWithHyphen, int level,
             boolean dontOptimizeForIdentityMapping, boolean retainAssociations, boolean retainControls) {
+        return doGlyphMapping(text, startIndex, endIndex, font, letterSpaceIPD, letterSpaceAdjustArray,
+                precedingChar, breakOpportunityChar, endsWithHyphen, level, dontOptimizeForIdentityMapping,
+                retainAssociations, retainControls, null);
+    }
+
+    /**
+     * Maps a text fragment to glyphs. If the font performs glyph substitution or positioning,
+     * the shaping of the fragment is looked up in, or added to, the given cache, unless the
+     * character associations are to be retained.
+     * @param shapingCache the cache of the shaping of words, or null
+     */
+    public static GlyphMapping doGlyphMapping(TextFragment text, int startIndex, int endIndex,
+            Font font, MinOptMax letterSpaceIPD, MinOptMax[] letterSpaceAdjustArray,
+            char precedingChar, char breakOpportunityChar, final boolean endsWithHyphen, int level,
+            boolean dontOptimizeForIdentityMapping, boolean retainAssociations, boolean retainControls,
+            ShapingCache shapingCache) {
         GlyphMapping mapping;
         if (font.performsSubstitution() || font.performsPositioning()) {
             mapping = processWordMapping(text, startIndex, endIndex, font,
                     breakOpportunityChar, endsWithHyphen, level,
-                    dontOptimizeForIdentityMapping, retainAssociations, retainControls);
+                    dontOptimizeForIdentityMapping, retainAssociations, retainControls, shapingCache);
         } else {
             mapping = processWordNoMapping(text, startIndex, endIndex, font,
                     letterSpaceIPD, letterSpaceAdjustArray, precedingChar, breakOpportunityChar, endsWithHyphen, level);
@@ -102,7 +118,8 @@ public class GlyphMapping {
     private static GlyphMapping processWordMapping(TextFragment text, int startIndex,
             int endIndex, final Font font, final char breakOpportunityChar,
             final boolean endsWithHyphen, int level,
-            boolean dontOptimizeForIdentityMapping, boolean retainAssociations, boolean retainControls) {
+            boolean dontOptimizeForIdentityMapping, boolean retainAssociations, boolean retainControls,
+            ShapingCache shapingCache) {
         int nLS = 0; // # of letter spaces
         String script = text.getScript();
         String language = text.getLanguage();
@@ -138,6 +155,17 @@ public class GlyphMapping {
             script = "*";
         }
 
+        ShapingCache.Key key = null;
+        if (shapingCache != null && !retainAssociations) {
+            key = ShapingCache.createKey(font, script, language, retainControls, ics);
+            ShapingCache.Shaping shaping = key != null ? shapingCache.get(key) : null;
+            if (shaping != null) {
+                return createWordMapping(startIndex, endIndex, nLS, shaping.getIPD(), endsWithHyphen,
+                        breakOpportunityChar, font, level, shaping.getAdjustments(), ics,
+                        shaping.getMapping(), null, dontOptimizeForIdentityMapping);
+            }
+        }
+
         CharSequence mcs = font.performSubstitution(ics, script, language, associations, retainControls);
 
         // 4. compute glyph position adjustments on (substituted) characters.
@@ -176,6 +204,16 @@ public class GlyphMapping {
 
         // [TBD] - handle letter spacing
 
+        if (key != null) {
+            shapingCache.put(key, new ShapingCache.Shaping(mcs.toString(), gpa, ipd));
+        }
+        return createWordMapping(startIndex, endIndex, nLS, ipd, endsWithHyphen, breakOpportunityChar,
+                font, level, gpa, ics, mcs, associations, dontOptimizeForIdentityMapping);
+    }
+
+    private static GlyphMapping createWordMapping(int startIndex, int endIndex, int nLS, MinOptMax ipd,
+            boolean endsWithHyphen, char breakOpportunityChar, Font font, int level, int[][] gpa,
+            CharSequence ics, CharSequence mcs, List associations, boolean dontOptimizeForIdentityMapping) {
         return new GlyphMapping(startIndex, endIndex, 0, nLS, ipd, endsWithHyphen, false,
                 breakOpportunityChar != 0, font, level, gpa,
                 !dontOptimizeForIdentityMapping && CharUtilities.isSameSequence(mcs, ics) ? null : mcs.toString(),
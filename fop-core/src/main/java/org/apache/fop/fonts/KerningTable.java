@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * An immutable table of the kerning of character pairs. The pairs are held in an open-addressed
+ * hash table of primitive keys, each key combining the two characters of a pair, so that a
+ * lookup neither boxes the characters nor goes through a map per first character.
+ */
+public final class KerningTable {
+
+    /** Marks the free slots: no pair of non-negative characters has this key. */
+    private static final long NO_PAIR = -1L;
+
+    /** The table of a font without kerning. */
+    public static final KerningTable EMPTY = new KerningTable(new long[] {NO_PAIR}, new int[1], 0);
+
+    private final long[] pairs;
+
+    private final int[] values;
+
+    private final int mask;
+
+    private final int size;
+
+    private KerningTable(long[] pairs, int[] values, int size) {
+        this.pairs = pairs;
+        this.values = values;
+        this.mask = pairs.length - 1;
+        this.size = size;
+    }
+
+    /**
+     * Creates the kerning table of the given kerning map.
+     *
+     * @param kerning the kerning map: the first character of each pair is mapped to the second
+     * characters it is kerned with, each mapped to its kerning value; may be null
+     * @return the kerning table
+     */
+    public static KerningTable valueOf(Map<Integer, Map<Integer, Integer>> kerning) {
+        if (kerning == null) {
+            return EMPTY;
+        }
+        int count = 0;
+        for (Map<Integer, Integer> kernPairs : kerning.values()) {
+            count += kernPairs.size();
+        }
+        if (count == 0) {
+            return EMPTY;
+        }
+        //at most half of the slots are used
+        int capacity = Integer.highestOneBit(count) << 2;
+        long[] pairs = new long[capacity];
+        Arrays.fill(pairs, NO_PAIR);
+        int[] values = new int[capacity];
+        int size = 0;
+        for (Map.Entry<Integer, Map<Integer, Integer>> first : kerning.entrySet()) {
+            for (Map.Entry<Integer, Integer> second : first.getValue().entrySet()) {
+                long pair = pair(first.getKey(), second.getKey());
+                int slot = slot(pair, capacity - 1);
+                while (pairs[slot] != NO_PAIR && pairs[slot] != pair) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                if (pairs[slot] == NO_PAIR) {
+                    pairs[slot] = pair;
+                    size++;
+                }
+                values[slot] = second.getValue();
+            }
+        }
+        return new KerningTable(pairs, values, size);
+    }
+
+    private static long pair(int ch1, int ch2) {
+        return ((long) ch1 << 32) | (ch2 & 0xFFFFFFFFL);
+    }
+
+    private static int slot(long pair, int mask) {
+        long hash = pair * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Returns the kerning of the given pair of characters.
+     *
+     * @param ch1 the first character
+     * @param ch2 the second character
+     * @return the kerning value, in the units of the kerning map, 0 if the pair is not kerned
+     */
+    public int getKerning(int ch1, int ch2) {
+        if (size == 0) {
+            return 0;
+        }
+        long pair = pair(ch1, ch2);
+        if (pair == NO_PAIR) {
+            return 0;
+        }
+        int slot = slot(pair, mask);
+        long current;
+        while ((current = pairs[slot]) != NO_PAIR) {
+            if (current == pair) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the number of kerned pairs.
+     *
+     * @return the number of pairs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Indicates whether no pair is kerned.
+     *
+     * @return true if the table is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -33,6 +33,7 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.complexscripts.fonts.Positionable;
 import org.apache.fop.complexscripts.fonts.Substitutable;
+import org.apache.fop.fonts.truetype.ParsedFontStore;
 
 /**
  * This class is used to defer the loading of a font until it is really used.
@@ -52,8 +53,9 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
     private final String subFontName;
     private final boolean embedded;
     private final InternalResourceResolver resourceResolver;
+    private ParsedFontStore parsedFontStore;
 
-    private boolean isMetricsLoaded;
+    private volatile boolean isMetricsLoaded;
     private Typeface realFont;
     private FontDescriptor realFontDescriptor;
 
@@ -83,6 +85,15 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
         this.resourceResolver = resourceResolver;
     }
 
+    /**
+     * Sets the store of the metrics of parsed fonts, which is used if the font has not been
+     * loaded yet.
+     * @param parsedFontStore the store (may be null)
+     */
+    public synchronized void setParsedFontStore(ParsedFontStore parsedFontStore) {
+        this.parsedFontStore = parsedFontStore;
+    }
+
     /** {@inheritDoc} */
     public String toString() {
         StringBuffer sbuf = new StringBuffer(super.toString());
@@ -95,7 +106,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
         return sbuf.toString();
     }
 
-    private void load(boolean fail) {
+    private synchronized void load(boolean fail) {
         if (!isMetricsLoaded) {
             try {
                 if (fontUris.getMetrics() != null) {
@@ -117,7 +128,8 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
                         throw new RuntimeException("Cannot load font. No font URIs available.");
                     }
                     realFont = FontLoader.loadFont(fontUris, subFontName, embedded, embeddingMode,
-                                encodingMode, useKerning, useAdvanced, resourceResolver, simulateStyle, embedAsType1);
+                                encodingMode, useKerning, useAdvanced, resourceResolver, simulateStyle, embedAsType1,
+                                parsedFontStore);
                 }
                 if (realFont instanceof FontDescriptor) {
                     realFontDescriptor = (FontDescriptor) realFont;
@@ -319,6 +331,13 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
         return realFont.getKerningInfo();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public KerningTable getKerningTable() {
+        load(true);
+        return realFont.getKerningTable();
+    }
+
     /** {@inheritDoc} */
     public boolean hasFeature(int tableType, String script, String language, String feature) {
         load(true);
@@ -78,6 +78,11 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
     /** Contains the character bounding boxes for all characters in the font */
     protected Rectangle[] boundingBoxes;
 
+    /* glyph metrics and character map read in place, see setGlyphMetrics() */
+    private IntBuffer widthBuffer;
+    private IntBuffer boundingBoxBuffer;
+    private IntBuffer cmapBuffer;
+
     private boolean isOTFFile;
 
     // since for most users the most likely glyphs are in the first cmap segments we store their mapping.
@@ -193,21 +198,50 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
     public int getWidth(int i, int size) {
         if (isEmbeddable()) {
             int glyphIndex = cidSet.getOriginalGlyphIndex(i);
-            return size * width[glyphIndex];
+            return size * getGlyphWidth(glyphIndex);
         } else {
-            return size * width[i];
+            return size * getGlyphWidth(i);
         }
     }
 
+    private int getGlyphWidth(int glyphIndex) {
+        return widthBuffer != null ? widthBuffer.get(glyphIndex) : width[glyphIndex];
+    }
+
+    private int getGlyphCount() {
+        return widthBuffer != null ? widthBuffer.limit() : width.length;
+    }
+
     /** {@inheritDoc} */
     public int[] getWidths() {
-        int[] arr = new int[width.length];
-        System.arraycopy(width, 0, arr, 0, width.length);
+        int[] arr = new int[getGlyphCount()];
+        if (widthBuffer != null) {
+            widthBuffer.duplicate().get(arr);
+        } else {
+            System.arraycopy(width, 0, arr, 0, width.length);
+        }
         return arr;
     }
 
+    /**
+     * Returns the width array, which is copied from the width buffer the first time if the
+     * widths are read in place.
+     */
+    private synchronized int[] getWidthArray() {
+        if (width == null) {
+            width = getWidths();
+        }
+        return width;
+    }
+
     public Rectangle getBoundingBox(int glyphIndex, int size) {
         int index = isEmbeddable() ? cidSet.getOriginalGlyphIndex(glyphIndex) : glyphIndex;
+        if (boundingBoxBuffer != null) {
+            int offset = index * 4;
+            return new Rectangle(boundingBoxBuffer.get(offset) * size,
+                    boundingBoxBuffer.get(offset + 1) * size, boundingBoxBuffer.get(offset + 2) * size,
+                    boundingBoxBuffer.get(offset + 3) * size);
+        }
         Rectangle bbox = boundingBoxes[index];
         return new Rectangle(bbox.x * size, bbox.y * size, bbox.width * size, bbox.height * size);
     }
@@ -228,6 +262,20 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
         if (idx < NUM_MOST_LIKELY_GLYPHS && mostLikelyGlyphs[idx] != 0) {
             return mostLikelyGlyphs[idx];
         }
+        if (cmapBuffer != null) {
+            for (int offset = 0, n = cmapBuffer.limit(); offset < n; offset += 3) {
+                int unicodeStart = cmapBuffer.get(offset);
+                if (unicodeStart <= idx && cmapBuffer.get(offset + 1) >= idx) {
+                    retIdx = cmapBuffer.get(offset + 2) + idx - unicodeStart;
+                    if (idx < NUM_MOST_LIKELY_GLYPHS) {
+                        mostLikelyGlyphs[idx] = retIdx;
+                    }
+                    if (retIdx != 0) {
+                        return retIdx;
+                    }
+                }
+            }
+        }
         for (CMapSegment i : cmap) {
             if (retIdx == 0
                     && i.getUnicodeStart() <= idx
@@ -250,7 +298,7 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      * Add a private use mapping {PU,GI} to the existing character map.
      * N.B. Does not insert in order, merely appends to end of existing map.
      */
-    protected synchronized void addPrivateUseMapping(int pu, int gi) {
+    protected void addPrivateUseMapping(int pu, int gi) {
         assert findGlyphIndex(pu) == SingleByteEncoding.NOT_FOUND_CODE_POINT;
         cmap.add(new CMapSegment(pu, pu, gi));
     }
@@ -267,7 +315,7 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      * @param gi glyph index
      * @returns unicode scalar value
      */
-    private int createPrivateUseMapping(int gi) {
+    private synchronized int createPrivateUseMapping(int gi) {
         while ((nextPrivateUse < 0xF900)
                 && (findGlyphIndex(nextPrivateUse) != SingleByteEncoding.NOT_FOUND_CODE_POINT)) {
             nextPrivateUse++;
@@ -310,12 +358,27 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
     // [TBD] - needs optimization, i.e., change from linear search to binary search
     private int findCharacterFromGlyphIndex(int gi, boolean augment) {
         int cc = 0;
-        for (CMapSegment segment : cmap) {
-            int s = segment.getGlyphStartIndex();
-            int e = s + (segment.getUnicodeEnd() - segment.getUnicodeStart());
-            if ((gi >= s) && (gi <= e)) {
-                cc = segment.getUnicodeStart() + (gi - s);
-                break;
+        boolean found = false;
+        if (cmapBuffer != null) {
+            for (int offset = 0, n = cmapBuffer.limit(); offset < n; offset += 3) {
+                int s = cmapBuffer.get(offset + 2);
+                int unicodeStart = cmapBuffer.get(offset);
+                int e = s + (cmapBuffer.get(offset + 1) - unicodeStart);
+                if ((gi >= s) && (gi <= e)) {
+                    cc = unicodeStart + (gi - s);
+                    found = true;
+                    break;
+                }
+            }
+        }
+        if (!found) {
+            for (CMapSegment segment : cmap) {
+                int s = segment.getGlyphStartIndex();
+                int e = s + (segment.getUnicodeEnd() - segment.getUnicodeStart());
+                if ((gi >= s) && (gi <= e)) {
+                    cc = segment.getUnicodeStart() + (gi - s);
+                    break;
+                }
             }
         }
         if ((cc == 0) && augment) {
@@ -333,7 +396,7 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
         bitset.set(0);
         bitset.set(1);
         bitset.set(2);
-        for (CMapSegment i : cmap) {
+        for (CMapSegment i : getCMap()) {
             int start = i.getUnicodeStart();
             int end = i.getUnicodeEnd();
             int glyphIndex = i.getGlyphStartIndex();
@@ -346,8 +409,8 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
 
     protected char[] getChars() {
         // the width array is set when the font is built
-        char[] chars = new char[width.length];
-        for (CMapSegment i : cmap) {
+        char[] chars = new char[getGlyphCount()];
+        for (CMapSegment i : getCMap()) {
             int start = i.getUnicodeStart();
             int end = i.getUnicodeEnd();
             int glyphIndex = i.getGlyphStartIndex();
@@ -442,6 +505,7 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      */
     public void setWidthArray(int[] wds) {
         this.width = wds;
+        this.widthBuffer = null;
     }
 
     /**
@@ -450,6 +514,49 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      */
     public void setBBoxArray(Rectangle[] boundingBoxes) {
         this.boundingBoxes = boundingBoxes;
+        this.boundingBoxBuffer = null;
+    }
+
+    /**
+     * Sets the glyph widths, the glyph bounding boxes and the character map from buffers,
+     * which are read in place instead of being copied, such as views of a read-only mapping
+     * of a file. The buffers are only read with absolute gets, so several fonts may share
+     * them. The width array is only built if the font has a GPOS table, and private use
+     * mappings are added after the segments of the buffer.
+     * @param widths the width of each glyph
+     * @param boundingBoxes the x, y, width and height of the bounding box of each glyph
+     * @param cmap the Unicode start, the Unicode end and the start glyph index of each
+     * segment of the character map
+     */
+    public void setGlyphMetrics(IntBuffer widths, IntBuffer boundingBoxes, IntBuffer cmap) {
+        this.widthBuffer = widths;
+        this.width = null;
+        this.boundingBoxBuffer = boundingBoxes;
+        this.boundingBoxes = null;
+        this.cmapBuffer = cmap;
+        this.cmap.clear();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setCMap(CMapSegment[] cmap) {
+        super.setCMap(cmap);
+        this.cmapBuffer = null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CMapSegment[] getCMap() {
+        if (cmapBuffer == null) {
+            return super.getCMap();
+        }
+        List<CMapSegment> segments = new ArrayList<CMapSegment>(cmapBuffer.limit() / 3 + cmap.size());
+        for (int offset = 0, n = cmapBuffer.limit(); offset < n; offset += 3) {
+            segments.add(new CMapSegment(cmapBuffer.get(offset), cmapBuffer.get(offset + 1),
+                    cmapBuffer.get(offset + 2)));
+        }
+        segments.addAll(cmap);
+        return segments.toArray(new CMapSegment[segments.size()]);
     }
 
     /**
@@ -590,8 +697,8 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
     protected int[] getUnscaledWidths(GlyphSequence gs) {
         int[] widths = new int[gs.getGlyphCount()];
         for (int i = 0, n = widths.length; i < n; ++i) {
-            if (i < width.length) {
-                widths[i] = width[i];
+            if (i < getGlyphCount()) {
+                widths[i] = getGlyphWidth(i);
             }
         }
         return widths;
@@ -608,7 +715,7 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
         if (gpos != null) {
             GlyphSequence gs = mapCharsToGlyphs(cs, null);
             int[][] adjustments = new int [ gs.getGlyphCount() ] [ 4 ];
-            if (gpos.position(gs, script, language, fontSize, this.width, adjustments)) {
+            if (gpos.position(gs, script, language, fontSize, getWidthArray(), adjustments)) {
                 return scaleAdjustments(adjustments, fontSize);
             } else {
                 return null;
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.fop.traits.MinOptMax;
+
+/**
+ * Cache of the results of the shaping of words, shared by the text layout managers of a
+ * document. The shaping of a word in a font that performs glyph substitution or positioning
+ * (the GSUB and GPOS lookups, the reordering of combining marks by the script processor and
+ * the kerning) is much more costly than the mapping of its characters, and is the same for
+ * every occurrence of the word, which makes text in Arabic or Indic scripts several times
+ * slower to lay out than Latin text.
+ * <p>
+ * A word is identified by its characters together with the font metrics and size, the script,
+ * the language and the handling of control characters. The features applied to a word are
+ * those the font defines for its script and language, so they need not be part of the key.
+ * The cache holds the mapped characters, the glyph position adjustments and the
+ * inline-progression-dimension of the word.
+ * <p>
+ * The cache keeps the most recently used entries up to a fixed count, and ignores long words,
+ * which hardly ever repeat. It counts its hits and misses. This class is thread-safe.
+ */
+public final class ShapingCache {
+
+    /** Maximum number of entries. */
+    private static final int MAX_ENTRIES = 4096;
+
+    /** Maximum number of characters of a word whose shaping is cached. */
+    private static final int MAX_LENGTH = 64;
+
+    private final Map<Key, Shaping> entries = new LinkedHashMap<Key, Shaping>(256, 0.75f, true) {
+
+        private static final long serialVersionUID = 2516367958137306718L;
+
+        protected boolean removeEldestEntry(Map.Entry<Key, Shaping> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private long hits;
+
+    private long misses;
+
+    /**
+     * Creates the key of a word.
+     * @param font the font of the word
+     * @param script the script tag used for the shaping
+     * @param language the language tag used for the shaping
+     * @param retainControls whether control characters are retained
+     * @param text the characters of the word
+     * @return the key, or null if the shaping of the word is not to be cached
+     */
+    static Key createKey(Font font, String script, String language, boolean retainControls,
+            CharSequence text) {
+        if (text.length() > MAX_LENGTH) {
+            return null;
+        }
+        return new Key(font.getFontMetrics(), font.getFontSize(), script, language, retainControls,
+                text.toString());
+    }
+
+    /**
+     * Returns the shaping of a word with the given key.
+     * @param key the key of the word
+     * @return the shaping, or null if there is none in the cache
+     */
+    synchronized Shaping get(Key key) {
+        Shaping shaping = entries.get(key);
+        if (shaping == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return shaping;
+    }
+
+    /**
+     * Adds the shaping of a word.
+     * @param key the key of the word
+     * @param shaping the shaping
+     */
+    synchronized void put(Key key, Shaping shaping) {
+        entries.put(key, shaping);
+    }
+
+    /**
+     * Returns the number of words whose shaping was found in the cache.
+     * @return the number of hits
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of words that had to be shaped.
+     * @return the number of misses
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Returns the proportion of the words whose shaping was found in the cache.
+     * @return the hit rate, between 0 and 1
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Returns the number of words in the cache.
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** {@inheritDoc} */
+    public synchronized String toString() {
+        return "ShapingCache[hits=" + hits + ", misses=" + misses + ", size=" + entries.size() + "]";
+    }
+
+    /** The characters of a word and the settings of its shaping. */
+    static final class Key {
+
+        private final FontMetrics metrics;
+        private final int fontSize;
+        private final String script;
+        private final String language;
+        private final boolean retainControls;
+        private final String text;
+        private final int hash;
+
+        private Key(FontMetrics metrics, int fontSize, String script, String language,
+                boolean retainControls, String text) {
+            this.metrics = metrics;
+            this.fontSize = fontSize;
+            this.script = script;
+            this.language = language;
+            this.retainControls = retainControls;
+            this.text = text;
+            int h = System.identityHashCode(metrics);
+            h = 31 * h + fontSize;
+            h = 31 * h + script.hashCode();
+            h = 31 * h + language.hashCode();
+            h = 31 * h + (retainControls ? 1 : 0);
+            this.hash = 31 * h + text.hashCode();
+        }
+
+        /** {@inheritDoc} */
+        public int hashCode() {
+            return hash;
+        }
+
+        /** {@inheritDoc} */
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            //Fonts are compared by identity: private use mappings are specific to an instance
+            return hash == other.hash && metrics == other.metrics && fontSize == other.fontSize
+                    && retainControls == other.retainControls && text.equals(other.text)
+                    && script.equals(other.script) && language.equals(other.language);
+        }
+    }
+
+    /**
+     * The shaping of a word: its mapped characters, the glyph position adjustments of these
+     * characters and its inline-progression-dimension. The adjustments are copied on the way in
+     * and out, so an entry cannot be changed by its users.
+     */
+    static final class Shaping {
+
+        private final String mapping;
+        private final int[][] adjustments;
+        private final MinOptMax ipd;
+
+        Shaping(String mapping, int[][] adjustments, MinOptMax ipd) {
+            this.mapping = mapping;
+            this.adjustments = copy(adjustments);
+            this.ipd = ipd;
+        }
+
+        String getMapping() {
+            return mapping;
+        }
+
+        int[][] getAdjustments() {
+            return copy(adjustments);
+        }
+
+        MinOptMax getIPD() {
+            return ipd;
+        }
+
+        private static int[][] copy(int[][] adjustments) {
+            if (adjustments == null) {
+                return null;
+            }
+            int[][] copy = new int[adjustments.length][];
+            for (int i = 0; i < adjustments.length; i++) {
+                copy[i] = adjustments[i].clone();
+            }
+            return copy;
+        }
+    }
+}
@@ -26,6 +26,7 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -51,10 +52,11 @@ public class SingleByteFont extends CustomFont {
 
     private Rectangle[] boundingBoxes;
 
-    private Map<Character, Character> alternativeCodes;
+    private final Map<Character, Character> alternativeCodes = new ConcurrentHashMap<Character, Character>();
 
     private PostScriptVersion ttPostScriptVersion;
 
+    //The subset maps may be read while glyphs are added; usedGlyphs is updated last
     private int usedGlyphsCount;
     private LinkedHashMap<Integer, String> usedGlyphNames;
     private Map<Integer, Integer> usedGlyphs;
@@ -71,9 +73,9 @@ public class SingleByteFont extends CustomFont {
         setEmbeddingMode(embeddingMode);
         if (embeddingMode != EmbeddingMode.FULL) {
             usedGlyphNames = new LinkedHashMap<Integer, String>();
-            usedGlyphs = new HashMap<Integer, Integer>();
-            usedCharsIndex = new HashMap<Integer, Character>();
-            charGIDMappings = new HashMap<Character, Integer>();
+            usedGlyphs = new ConcurrentHashMap<Integer, Integer>();
+            usedCharsIndex = new ConcurrentHashMap<Integer, Character>();
+            charGIDMappings = new ConcurrentHashMap<Character, Integer>();
 
             // The zeroth value is reserved for .notdef
             usedGlyphs.put(0, 0);
@@ -157,13 +159,9 @@ public class SingleByteFont extends CustomFont {
      */
     private char findAlternative(char c) {
         char d;
-        if (alternativeCodes == null) {
-            alternativeCodes = new java.util.HashMap<Character, Character>();
-        } else {
-            Character alternative = alternativeCodes.get(c);
-            if (alternative != null) {
-                return alternative;
-            }
+        Character alternative = alternativeCodes.get(c);
+        if (alternative != null) {
+            return alternative;
         }
         String charName = Glyphs.charToGlyphName(c);
         String[] charNameAlternatives = Glyphs.getCharNameAlternativesFor(charName);
@@ -229,17 +227,25 @@ public class SingleByteFont extends CustomFont {
         // IOW, accumulate the accessed characters and build a character map for them
         Integer subsetCharSelector = usedGlyphs.get(glyphIndex);
         if (subsetCharSelector == null) {
-            int selector = usedGlyphsCount;
-            usedGlyphs.put(glyphIndex, selector);
-            usedCharsIndex.put(selector, unicode);
-            charGIDMappings.put(unicode, glyphIndex);
-            usedGlyphsCount++;
-            return selector;
+            return addGlyph(glyphIndex, unicode);
         } else {
             return subsetCharSelector;
         }
     }
 
+    private synchronized int addGlyph(int glyphIndex, char unicode) {
+        Integer subsetCharSelector = usedGlyphs.get(glyphIndex);
+        if (subsetCharSelector != null) {
+            return subsetCharSelector;
+        }
+        int selector = usedGlyphsCount;
+        usedCharsIndex.put(selector, unicode);
+        charGIDMappings.put(unicode, glyphIndex);
+        usedGlyphs.put(glyphIndex, selector);
+        usedGlyphsCount++;
+        return selector;
+    }
+
     private char getUnicode(int index) {
         Character mapValue = usedCharsIndex.get(index);
         if (mapValue != null) {
@@ -53,6 +53,9 @@ public abstract class Typeface implements FontMetrics {
 
     private Set<Character> warnedChars;
 
+    /** The kerning table, created from the kerning map on first use. */
+    private volatile KerningTable kerningTable;
+
     /**
      * Get the encoding of the font.
      * @return the encoding
@@ -112,6 +115,24 @@ public abstract class Typeface implements FontMetrics {
         return false;
     }
 
+    /** {@inheritDoc} */
+    public KerningTable getKerningTable() {
+        KerningTable table = this.kerningTable;
+        if (table == null) {
+            table = hasKerningInfo() ? KerningTable.valueOf(getKerningInfo()) : KerningTable.EMPTY;
+            this.kerningTable = table;
+        }
+        return table;
+    }
+
+    /**
+     * Discards the kerning table, to be created again from the kerning map. To be called when the
+     * kerning map changes.
+     */
+    protected void resetKerningTable() {
+        this.kerningTable = null;
+    }
+
     /**
      * Sets the font event listener that can be used to receive events about particular events
      * in this class.
@@ -127,7 +148,7 @@ public abstract class Typeface implements FontMetrics {
      * @param c
      *            the character which is missing.
      */
-    protected void warnMissingGlyph(char c) {
+    protected synchronized void warnMissingGlyph(char c) {
         // Give up, character is not available
         Character ch = c;
         if (warnedChars == null) {
@@ -21,18 +21,19 @@ package org.apache.fop.fonts.truetype;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import org.apache.commons.io.IOUtils;
 
 /**
- * Reads a TrueType font file into a byte array and
- * provides file like functions for array access.
+ * Reads a TrueType font file into a byte array, or from a buffer such as a mapping of the
+ * file, and provides file like functions for array access.
  */
 public class FontFileReader {
 
     private final int fsize; // file size
     private int current;    // current position in file
-    private final byte[] file;
+    private final ByteBuffer file;
 
     /**
      * Constructor
@@ -41,8 +42,18 @@ public class FontFileReader {
      * @throws IOException In case of an I/O problem
      */
     public FontFileReader(InputStream in) throws IOException {
-        this.file = IOUtils.toByteArray(in);
-        this.fsize = this.file.length;
+        this(ByteBuffer.wrap(IOUtils.toByteArray(in)));
+    }
+
+    /**
+     * Creates a reader of the content of a buffer, from its position to its limit. With a
+     * mapping of a font file, only the parts of the file which are read are loaded.
+     *
+     * @param buffer the buffer holding the font file
+     */
+    public FontFileReader(ByteBuffer buffer) {
+        this.file = buffer.slice();
+        this.fsize = this.file.limit();
         this.current = 0;
     }
 
@@ -100,7 +111,7 @@ public class FontFileReader {
             throw new java.io.EOFException("Reached EOF, file size=" + fsize);
         }
 
-        final byte ret = file[current++];
+        final byte ret = file.get(current++);
         return ret;
     }
 
@@ -167,8 +178,8 @@ public class FontFileReader {
         final byte b1 = (byte)((val >> 8) & 0xff);
         final byte b2 = (byte)(val & 0xff);
         final int fileIndex = (int) pos;
-        file[fileIndex] = b1;
-        file[fileIndex + 1] = b2;
+        file.put(fileIndex, b1);
+        file.put(fileIndex + 1, b2);
     }
 
     /**
@@ -239,7 +250,7 @@ public class FontFileReader {
      */
     public final String readTTFString() throws IOException {
         int i = current;
-        while (file[i++] != 0) {
+        while (file.get(i++) != 0) {
             if (i >= fsize) {
                 throw new java.io.EOFException("Reached EOF, file size="
                                                + fsize);
@@ -247,7 +258,7 @@ public class FontFileReader {
         }
 
         byte[] tmp = new byte[i - current - 1];
-        System.arraycopy(file, current, tmp, 0, i - current - 1);
+        copy(current, tmp);
         return new String(tmp, "ISO-8859-1");
     }
 
@@ -265,7 +276,7 @@ public class FontFileReader {
         }
 
         byte[] tmp = new byte[len];
-        System.arraycopy(file, current, tmp, 0, len);
+        copy(current, tmp);
         current += len;
         final String encoding;
         if ((tmp.length > 0) && (tmp[0] == 0)) {
@@ -290,7 +301,7 @@ public class FontFileReader {
         }
 
         byte[] tmp = new byte[len];
-        System.arraycopy(file, current, tmp, 0, len);
+        copy(current, tmp);
         current += len;
         final String encoding;
         encoding = "UTF-16BE"; //Use this for all known encoding IDs for now
@@ -312,14 +323,27 @@ public class FontFileReader {
         }
 
         byte[] ret = new byte[length];
-        System.arraycopy(file, offset, ret, 0, length);
+        copy(offset, ret);
         return ret;
     }
+
+    private void copy(int offset, byte[] dest) {
+        ByteBuffer src = file.duplicate();
+        src.position(offset);
+        src.get(dest);
+    }
+
     /**
-     * Returns the full byte array representation of the file.
+     * Returns the full byte array representation of the file. It is a copy if the reader was
+     * created from a buffer that is not backed by an array holding just the file.
      * @return byte array.
      */
     public byte[] getAllBytes() {
-        return file;
+        if (file.hasArray() && file.arrayOffset() == 0 && file.array().length == fsize) {
+            return file.array();
+        }
+        byte[] bytes = new byte[fsize];
+        copy(0, bytes);
+        return bytes;
     }
 }
@@ -20,9 +20,12 @@
 package org.apache.fop.fonts.truetype;
 
 import java.awt.Rectangle;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.net.URI;
+import java.nio.channels.FileChannel;
 import java.util.Map;
 import java.util.Set;
 
@@ -55,6 +58,7 @@ public class OFFontLoader extends FontLoader {
     private EmbeddingMode embeddingMode;
     private boolean simulateStyle;
     private boolean embedAsType1;
+    private ParsedFontStore parsedFontStore;
 
     /**
      * Default constructor
@@ -96,6 +100,15 @@ public class OFFontLoader extends FontLoader {
         }
     }
 
+    /**
+     * Sets the store from which the metrics of the font are read, and to which they are
+     * written once the font has been parsed.
+     * @param parsedFontStore the store, or null to always parse the font
+     */
+    public void setParsedFontStore(ParsedFontStore parsedFontStore) {
+        this.parsedFontStore = parsedFontStore;
+    }
+
     /** {@inheritDoc} */
     protected void read() throws IOException {
         read(this.subFontName);
@@ -108,6 +121,15 @@ public class OFFontLoader extends FontLoader {
      * @throws IOException if an I/O error occurs
      */
     private void read(String ttcFontName) throws IOException {
+        File storedFontFile = getStoredFontFile();
+        if (storedFontFile != null) {
+            ParsedFontStore.Record record = parsedFontStore.get(storedFontFile, ttcFontName, useKerning);
+            if (record != null) {
+                buildFont(record, ttcFontName, storedFontFile);
+                loaded = true;
+                return;
+            }
+        }
         InputStream in = resourceResolver.getResource(this.fontFileURI);
         try {
             FontFileReader reader = new FontFileReader(in);
@@ -119,12 +141,76 @@ public class OFFontLoader extends FontLoader {
                 throw new IOException("The font does not have a Unicode cmap table: " + fontFileURI);
             }
             buildFont(otf, ttcFontName, embedAsType1);
+            if (storedFontFile != null && otf instanceof TTFFile) {
+                parsedFontStore.put(storedFontFile, ttcFontName, useKerning, otf);
+            }
             loaded = true;
         } finally {
             IOUtils.closeQuietly(in);
         }
     }
 
+    /**
+     * Returns the font file if the metrics of the font may be kept in the parsed font store.
+     * Only the fonts which are loaded as TrueType CID fonts are stored.
+     */
+    private File getStoredFontFile() {
+        if (parsedFontStore == null || !embedded || encodingMode == EncodingMode.SINGLE_BYTE) {
+            return null;
+        }
+        URI uri = resourceResolver.resolveFromBase(fontFileURI);
+        if (!"file".equals(uri.getScheme())) {
+            return null;
+        }
+        try {
+            return new File(uri);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Builds a TrueType CID font from the metrics of a parsed font store. The advanced
+     * typographic tables are read from a mapping of the font file, so that only the table
+     * directory and these tables are loaded, for the first font built from the record; the
+     * next ones share them.
+     */
+    private void buildFont(ParsedFontStore.Record record, String ttcFontName, File fontFile)
+            throws IOException {
+        multiFont = new MultiByteFont(resourceResolver, embeddingMode);
+        multiFont.setIsOTFFile(false);
+        returnFont = multiFont;
+        multiFont.setTTCName(ttcFontName);
+        multiFont.setSimulateStyle(simulateStyle);
+        multiFont.setFontURI(fontFileURI);
+        record.applyTo(multiFont);
+        multiFont.setCIDType(CIDFontType.CIDTYPE2);
+        if (useAdvanced && record.hasAdvancedTables()) {
+            synchronized (record) {
+                if (!record.hasReadAdvancedTables()) {
+                    TTFFile ttf = readAdvancedTables(fontFile, ttcFontName);
+                    record.setAdvancedTables(ttf.getGDEF(), ttf.getGSUB(), ttf.getGPOS());
+                }
+                record.applyAdvancedTablesTo(multiFont);
+            }
+        }
+        setEmbedURI(record.isEmbeddable());
+    }
+
+    private static TTFFile readAdvancedTables(File fontFile, String ttcFontName) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(fontFile, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            FontFileReader reader = new FontFileReader(
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            TTFFile ttf = new TTFFile(false, true);
+            ttf.readAdvancedTables(reader, readHeader(reader), ttcFontName);
+            return ttf;
+        } finally {
+            raf.close();
+        }
+    }
+
     public static String readHeader(FontFileReader fontFile) throws IOException {
         if (fontFile != null) {
             fontFile.seekSet(0);
@@ -208,8 +294,12 @@ public class OFFontLoader extends FontLoader {
         if (useAdvanced) {
             copyAdvanced(otf);
         }
+        setEmbedURI(otf.isEmbeddable());
+    }
+
+    private void setEmbedURI(boolean embeddable) {
         if (this.embedded) {
-            if (otf.isEmbeddable()) {
+            if (embeddable) {
                 returnFont.setEmbedURI(this.fontFileURI);
             } else {
                 String msg = "The font " + this.fontFileURI + " is not embeddable due to a"
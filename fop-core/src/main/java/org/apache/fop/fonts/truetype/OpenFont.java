@@ -811,24 +811,7 @@ public abstract class OpenFont {
      * @throws IOException In case of an I/O problem
      */
     public boolean readFont(FontFileReader in, String header, String name) throws IOException {
-        initializeFont(in);
-        /*
-         * Check if TrueType collection, and that the name
-         * exists in the collection
-         */
-        if (!checkTTC(header, name)) {
-            if (name == null) {
-                throw new IllegalArgumentException(
-                    "For TrueType collection you must specify which font "
-                    + "to select (-ttcname)");
-            } else {
-                throw new IOException(
-                    "Name does not exist in the TrueType collection: " + name);
-            }
-        }
-
-        readDirTabs();
-        readFontHeader();
+        readFontDirectory(in, header, name);
         getNumGlyphs();
         if (log.isDebugEnabled()) {
             log.debug("Number of glyphs in font: " + numberOfGlyphs);
@@ -861,6 +844,42 @@ public abstract class OpenFont {
         return true;
     }
 
+    /**
+     * Reads the advanced typographic tables of a font only, which are then returned by
+     * {@link #getGDEF()}, {@link #getGSUB()} and {@link #getGPOS()}. The other tables are not
+     * parsed.
+     *
+     * @param in The FontFileReader to use
+     * @param header the first four bytes of the font file
+     * @param name The name of the font in a TrueType Collection
+     * @throws IOException In case of an I/O problem
+     */
+    public void readAdvancedTables(FontFileReader in, String header, String name) throws IOException {
+        readFontDirectory(in, header, name);
+        handleCharacterSpacing(in);
+    }
+
+    private void readFontDirectory(FontFileReader in, String header, String name) throws IOException {
+        initializeFont(in);
+        /*
+         * Check if TrueType collection, and that the name
+         * exists in the collection
+         */
+        if (!checkTTC(header, name)) {
+            if (name == null) {
+                throw new IllegalArgumentException(
+                    "For TrueType collection you must specify which font "
+                    + "to select (-ttcname)");
+            } else {
+                throw new IOException(
+                    "Name does not exist in the TrueType collection: " + name);
+            }
+        }
+
+        readDirTabs();
+        readFontHeader();
+    }
+
     /**
      * Reads a font.
      *
@@ -0,0 +1,560 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts.truetype;
+
+import java.awt.Rectangle;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.fop.complexscripts.fonts.GlyphDefinitionTable;
+import org.apache.fop.complexscripts.fonts.GlyphPositioningTable;
+import org.apache.fop.complexscripts.fonts.GlyphSubstitutionTable;
+import org.apache.fop.fonts.CMapSegment;
+import org.apache.fop.fonts.MultiByteFont;
+import org.apache.fop.util.HexEncoder;
+
+/**
+ * A persistent store of the metrics of parsed TrueType fonts, so that a font does not have to
+ * be parsed again by every {@link org.apache.fop.fonts.FontManager} and every JVM that uses it.
+ * <p>
+ * The metrics of each font are written to a binary file in the directory of the store, the
+ * name of which is derived from the font URI, the sub-font name and whether kerning is read.
+ * A record holds the font names and global metrics, the glyph widths and bounding boxes, the
+ * cmap segments and the kerning pairs, and the length and the modification time of the font
+ * file: it is ignored, and rewritten, once the font file changes. Records are written to a
+ * temporary file which is then renamed, so that other processes never read a partial record.
+ * <p>
+ * A record file is mapped read-only once per JVM. The record is kept by all the stores of
+ * the JVM, up to {@link #MAX_CACHED_RECORDS} records. The glyph widths, the glyph bounding
+ * boxes and the cmap segments are not decoded: the fonts built from the record read them
+ * in place from views of the mapping, so the JVMs that use the store share the pages
+ * holding them. The names, global metrics and kerning pairs are decoded once, and shared
+ * by the fonts built from the record.
+ * <p>
+ * The advanced typographic tables (GDEF, GSUB and GPOS) are not stored: the glyph tables are
+ * object graphs which are not serializable. A record only tells whether the font has them, in
+ * which case they are read from a mapping of the font file, without parsing the other tables,
+ * the first time a font is built from the record, and then shared by the fonts built from it.
+ * <p>
+ * Only TrueType fonts used as CID fonts and read from "file" URIs are stored. These fonts
+ * are always parsed, and never stored:
+ * <ul>
+ * <li>OpenType fonts with CFF outlines, whose CFF data is parsed with the font;</li>
+ * <li>fonts used with a single-byte encoding, which are loaded as
+ * {@link org.apache.fop.fonts.SingleByteFont}s;</li>
+ * <li>fonts which are not read from files, such as fonts in jars or on the network.</li>
+ * </ul>
+ * For the stored fonts, the GDEF, GSUB and GPOS tables are still parsed from the font file,
+ * once per record, as said above.
+ */
+public class ParsedFontStore {
+
+    private static Log log = LogFactory.getLog(ParsedFontStore.class);
+
+    private static final int MAGIC = 0x464F5046; //"FOPF"
+
+    private static final int VERSION = 1;
+
+    private static final String SUFFIX = ".fontmetrics";
+
+    /** The maximum number of decoded records kept in memory. */
+    public static final int MAX_CACHED_RECORDS = 64;
+
+    /** The decoded records, shared by all the stores of the JVM, least recently used first. */
+    private static final Map<File, Record> RECORDS = new LinkedHashMap<File, Record>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 4617240861502270583L;
+
+        protected boolean removeEldestEntry(Map.Entry<File, Record> eldest) {
+            return size() > MAX_CACHED_RECORDS;
+        }
+    };
+
+    private final File directory;
+
+    /**
+     * Creates a store in the given directory, which is created if necessary. Several stores,
+     * in this and in other JVMs, may share a directory.
+     *
+     * @param directory the directory of the store
+     */
+    public ParsedFontStore(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the directory of the store.
+     *
+     * @return the directory
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the record of a font if the store has an up-to-date one.
+     *
+     * @param fontFile the font file
+     * @param ttcName the name of the font in a TrueType Collection, or null
+     * @param useKerning whether the kerning pairs are read
+     * @return the record, or null
+     */
+    Record get(File fontFile, String ttcName, boolean useKerning) {
+        String key = getKey(fontFile, ttcName, useKerning);
+        File recordFile = getRecordFile(key);
+        synchronized (RECORDS) {
+            Record record = RECORDS.get(recordFile);
+            if (record != null) {
+                if (record.isUpToDate(fontFile)) {
+                    return record;
+                }
+                RECORDS.remove(recordFile);
+            }
+        }
+        if (!recordFile.isFile()) {
+            return null;
+        }
+        Record record;
+        try {
+            record = readRecord(map(recordFile), key, fontFile);
+        } catch (IOException e) {
+            log.warn("Cannot read the font metrics store file " + recordFile + ": " + e.getMessage());
+            return null;
+        }
+        if (record != null) {
+            synchronized (RECORDS) {
+                Record cached = RECORDS.get(recordFile);
+                if (cached != null && cached.isUpToDate(fontFile)) {
+                    //Read at the same time by another thread
+                    return cached;
+                }
+                RECORDS.put(recordFile, record);
+            }
+        }
+        return record;
+    }
+
+    /**
+     * Releases the decoded records kept in memory for the stores of the JVM. The fonts that
+     * were built from them keep their metrics; the next fonts read the record files again.
+     */
+    public static void clearCache() {
+        synchronized (RECORDS) {
+            RECORDS.clear();
+        }
+    }
+
+    /**
+     * Stores the metrics of a parsed font. Errors are logged, not thrown, as the font has
+     * been loaded anyway.
+     *
+     * @param fontFile the font file
+     * @param ttcName the name of the font in a TrueType Collection, or null
+     * @param useKerning whether the kerning pairs were read
+     * @param otf the parsed font
+     */
+    void put(File fontFile, String ttcName, boolean useKerning, OpenFont otf) {
+        String key = getKey(fontFile, ttcName, useKerning);
+        File recordFile = getRecordFile(key);
+        File tempFile = null;
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+                throw new IOException("Cannot create the directory " + directory);
+            }
+            tempFile = File.createTempFile(recordFile.getName(), ".tmp", directory);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(tempFile)));
+            try {
+                writeRecord(out, key, fontFile, useKerning, otf);
+            } finally {
+                out.close();
+            }
+            if (!tempFile.renameTo(recordFile)) {
+                //Renaming does not replace an existing file on every platform
+                if (!recordFile.delete() || !tempFile.renameTo(recordFile)) {
+                    throw new IOException("Cannot rename " + tempFile + " to " + recordFile);
+                }
+            }
+            tempFile = null;
+            synchronized (RECORDS) {
+                RECORDS.remove(recordFile);
+            }
+        } catch (IOException e) {
+            log.warn("Cannot write the font metrics store file " + recordFile + ": " + e.getMessage());
+        } finally {
+            if (tempFile != null && !tempFile.delete()) {
+                tempFile.deleteOnExit();
+            }
+        }
+    }
+
+    private static ByteBuffer map(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            //The mapping remains valid once the file is closed
+            FileChannel channel = raf.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static String getKey(File fontFile, String ttcName, boolean useKerning) {
+        return fontFile.getAbsolutePath() + '\n' + (ttcName != null ? ttcName : "") + '\n' + useKerning;
+    }
+
+    private File getRecordFile(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(key.getBytes("UTF-8"));
+            StringBuilder name = new StringBuilder(hash.length * 2 + SUFFIX.length());
+            for (byte b : hash) {
+                name.append(HexEncoder.encode(b & 0xFF, 2));
+            }
+            return new File(directory, name.append(SUFFIX).toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, String key, File fontFile, boolean useKerning,
+            OpenFont otf) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeString(out, key);
+        out.writeLong(fontFile.length());
+        out.writeLong(fontFile.lastModified());
+        out.writeBoolean(otf.isEmbeddable());
+        out.writeBoolean(otf.getDirectoryEntry(OFTableName.GDEF) != null
+                || otf.getDirectoryEntry(OFTableName.GSUB) != null
+                || otf.getDirectoryEntry(OFTableName.GPOS) != null);
+
+        writeString(out, otf.getEmbedFontName().equals("") ? otf.getPostScriptName() : otf.getEmbedFontName());
+        writeString(out, otf.getFullName());
+        Set<String> familyNames = otf.getFamilyNames();
+        out.writeInt(familyNames != null ? familyNames.size() : -1);
+        if (familyNames != null) {
+            for (String familyName : familyNames) {
+                writeString(out, familyName);
+            }
+        }
+        writeString(out, otf.getSubFamilyName());
+        out.writeInt(otf.getCapHeight());
+        out.writeInt(otf.getXHeight());
+        out.writeInt(otf.getLowerCaseAscent());
+        out.writeInt(otf.getLowerCaseDescent());
+        for (int value : otf.getFontBBox()) {
+            out.writeInt(value);
+        }
+        out.writeInt(otf.getUnderlinePosition() - otf.getUnderlineThickness() / 2);
+        out.writeInt(otf.getUnderlineThickness());
+        out.writeInt(otf.getStrikeoutPosition() - otf.getStrikeoutThickness() / 2);
+        out.writeInt(otf.getStrikeoutThickness());
+        out.writeInt(otf.getFlags());
+        out.writeInt(Integer.parseInt(otf.getStemV()));
+        out.writeInt(Integer.parseInt(otf.getItalicAngle()));
+        out.writeInt(otf.getWeightClass());
+
+        int[] widths = otf.getWidths();
+        Rectangle[] boundingBoxes = otf.getBoundingBoxes();
+        out.writeInt(widths.length);
+        for (int width : widths) {
+            out.writeInt(width);
+        }
+        for (Rectangle bbox : boundingBoxes) {
+            out.writeInt(bbox.x);
+            out.writeInt(bbox.y);
+            out.writeInt(bbox.width);
+            out.writeInt(bbox.height);
+        }
+        out.writeInt(otf.getCMaps().size());
+        for (CMapSegment segment : otf.getCMaps()) {
+            out.writeInt(segment.getUnicodeStart());
+            out.writeInt(segment.getUnicodeEnd());
+            out.writeInt(segment.getGlyphStartIndex());
+        }
+        Map<Integer, Map<Integer, Integer>> kerning = useKerning ? otf.getKerning() : null;
+        out.writeInt(kerning != null ? kerning.size() : 0);
+        if (kerning != null) {
+            for (Map.Entry<Integer, Map<Integer, Integer>> first : kerning.entrySet()) {
+                out.writeInt(first.getKey());
+                out.writeInt(first.getValue().size());
+                for (Map.Entry<Integer, Integer> pair : first.getValue().entrySet()) {
+                    out.writeInt(pair.getKey());
+                    out.writeInt(pair.getValue());
+                }
+            }
+        }
+    }
+
+    private static Record readRecord(ByteBuffer buffer, String key, File fontFile) {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || !key.equals(readString(buffer))) {
+                return null;
+            }
+            long fontLength = buffer.getLong();
+            long fontLastModified = buffer.getLong();
+            if (fontLength != fontFile.length() || fontLastModified != fontFile.lastModified()) {
+                return null;
+            }
+            return new Record(buffer, fontLength, fontLastModified);
+        } catch (RuntimeException e) {
+            //A truncated or corrupted record, which is then rewritten
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(s.length());
+            out.writeChars(s);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        char[] chars = new char[length];
+        buffer.asCharBuffer().get(chars);
+        buffer.position(buffer.position() + length * 2);
+        return new String(chars);
+    }
+
+    /**
+     * The stored metrics of a font, shared by the fonts built from them. The glyph metrics
+     * and the cmap segments are views of the mapping of the record file.
+     */
+    static final class Record {
+
+        private final long fontLength;
+        private final long fontLastModified;
+        private final boolean embeddable;
+        private final boolean hasAdvancedTables;
+
+        private final String fontName;
+        private final String fullName;
+        private final Set<String> familyNames;
+        private final String subFamilyName;
+        private final int capHeight;
+        private final int xHeight;
+        private final int ascender;
+        private final int descender;
+        private final int[] fontBBox;
+        private final int underlinePosition;
+        private final int underlineThickness;
+        private final int strikeoutPosition;
+        private final int strikeoutThickness;
+        private final int flags;
+        private final int stemV;
+        private final int italicAngle;
+        private final int weight;
+
+        private final IntBuffer widths;
+        private final IntBuffer boundingBoxes;
+        private final IntBuffer cmap;
+        private final Map<Integer, Map<Integer, Integer>> kerning;
+
+        private boolean advancedTablesRead;
+        private GlyphDefinitionTable gdef;
+        private GlyphSubstitutionTable gsub;
+        private GlyphPositioningTable gpos;
+
+        private Record(ByteBuffer in, long fontLength, long fontLastModified) {
+            this.fontLength = fontLength;
+            this.fontLastModified = fontLastModified;
+            embeddable = in.get() != 0;
+            hasAdvancedTables = in.get() != 0;
+            fontName = readString(in);
+            fullName = readString(in);
+            int familyNameCount = in.getInt();
+            if (familyNameCount >= 0) {
+                Set<String> names = new LinkedHashSet<String>();
+                for (int i = 0; i < familyNameCount; i++) {
+                    names.add(readString(in));
+                }
+                familyNames = Collections.unmodifiableSet(names);
+            } else {
+                familyNames = null;
+            }
+            subFamilyName = readString(in);
+            capHeight = in.getInt();
+            xHeight = in.getInt();
+            ascender = in.getInt();
+            descender = in.getInt();
+            fontBBox = new int[] {in.getInt(), in.getInt(), in.getInt(), in.getInt()};
+            underlinePosition = in.getInt();
+            underlineThickness = in.getInt();
+            strikeoutPosition = in.getInt();
+            strikeoutThickness = in.getInt();
+            flags = in.getInt();
+            stemV = in.getInt();
+            italicAngle = in.getInt();
+            weight = in.getInt();
+
+            int glyphCount = in.getInt();
+            widths = getIntBuffer(in, glyphCount);
+            boundingBoxes = getIntBuffer(in, glyphCount * 4);
+            cmap = getIntBuffer(in, in.getInt() * 3);
+            int kerningCount = in.getInt();
+            if (kerningCount > 0) {
+                Map<Integer, Map<Integer, Integer>> firsts
+                        = new HashMap<Integer, Map<Integer, Integer>>(kerningCount * 2);
+                for (int i = 0; i < kerningCount; i++) {
+                    int first = in.getInt();
+                    int pairCount = in.getInt();
+                    Map<Integer, Integer> pairs = new HashMap<Integer, Integer>(pairCount * 2);
+                    for (int j = 0; j < pairCount; j++) {
+                        pairs.put(in.getInt(), in.getInt());
+                    }
+                    firsts.put(first, Collections.unmodifiableMap(pairs));
+                }
+                kerning = Collections.unmodifiableMap(firsts);
+            } else {
+                kerning = null;
+            }
+        }
+
+        /**
+         * Returns a view of the given number of ints of a buffer, from its position, and
+         * moves the position after them.
+         */
+        private static IntBuffer getIntBuffer(ByteBuffer in, int length) {
+            IntBuffer view = in.asIntBuffer();
+            view.limit(length);
+            in.position(in.position() + length * 4);
+            return view;
+        }
+
+        /**
+         * Indicates whether the record is still valid for the given font file.
+         * @param fontFile the font file
+         * @return true if the font file has not changed since the record was written
+         */
+        boolean isUpToDate(File fontFile) {
+            return fontLength == fontFile.length() && fontLastModified == fontFile.lastModified();
+        }
+
+        /**
+         * Indicates if the font may be embedded.
+         * @return true if the font may be embedded
+         */
+        boolean isEmbeddable() {
+            return embeddable;
+        }
+
+        /**
+         * Indicates whether the font has advanced typographic tables.
+         * @return true if the font has a GDEF, GSUB or GPOS table
+         */
+        boolean hasAdvancedTables() {
+            return hasAdvancedTables;
+        }
+
+        /**
+         * Indicates whether the advanced typographic tables have been read for a font built
+         * from this record, in which case they are shared by the next ones.
+         * @return true if the tables have been read
+         */
+        synchronized boolean hasReadAdvancedTables() {
+            return advancedTablesRead;
+        }
+
+        /**
+         * Keeps the advanced typographic tables read for a font built from this record.
+         * @param gdef the GDEF table, or null
+         * @param gsub the GSUB table, or null
+         * @param gpos the GPOS table, or null
+         */
+        synchronized void setAdvancedTables(GlyphDefinitionTable gdef, GlyphSubstitutionTable gsub,
+                GlyphPositioningTable gpos) {
+            this.gdef = gdef;
+            this.gsub = gsub;
+            this.gpos = gpos;
+            this.advancedTablesRead = true;
+        }
+
+        /**
+         * Sets the advanced typographic tables kept by this record on a font.
+         * @param font the font
+         */
+        synchronized void applyAdvancedTablesTo(MultiByteFont font) {
+            font.setGDEF(gdef);
+            font.setGSUB(gsub);
+            font.setGPOS(gpos);
+        }
+
+        /**
+         * Sets the stored metrics on a font, as {@link OFFontLoader} does with those of a
+         * parsed font. The widths, bounding boxes, cmap segments and kerning pairs are not
+         * copied: all the fonts built from the record read them from the record.
+         * @param font the font
+         */
+        void applyTo(MultiByteFont font) {
+            font.setFontName(fontName);
+            font.setFullName(fullName);
+            if (familyNames != null) {
+                font.setFamilyNames(familyNames);
+            }
+            font.setFontSubFamilyName(subFamilyName);
+            font.setCapHeight(capHeight);
+            font.setXHeight(xHeight);
+            font.setAscender(ascender);
+            font.setDescender(descender);
+            font.setFontBBox(fontBBox.clone());
+            font.setUnderlinePosition(underlinePosition);
+            font.setUnderlineThickness(underlineThickness);
+            font.setStrikeoutPosition(strikeoutPosition);
+            font.setStrikeoutThickness(strikeoutThickness);
+            font.setFlags(flags);
+            font.setStemV(stemV);
+            font.setItalicAngle(italicAngle);
+            font.setMissingWidth(0);
+            font.setWeight(weight);
+            font.setGlyphMetrics(widths, boundingBoxes, cmap);
+            if (kerning != null) {
+                font.replaceKerningMap(kerning);
+            }
+        }
+    }
+}
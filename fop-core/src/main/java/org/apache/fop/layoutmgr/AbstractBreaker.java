@@ -115,6 +115,8 @@ public abstract class AbstractBreaker {
         int ignoreAtStart;
         /** Number of elements to ignore at the end of the list. */
         int ignoreAtEnd;
+        /** Index of the break preceding the first element not ignored, or -1. */
+        int breakAtStart = -1;
 
         /**
          * startOn represents where on the page/which page layout
@@ -245,6 +247,46 @@ public abstract class AbstractBreaker {
     /** @return top level layout manager */
     protected abstract LayoutManager getTopLevelLM();
 
+    /**
+     * Returns the store whose storage is reused by the breaking algorithms of this breaker.
+     * @return the node store of the page-sequence
+     */
+    protected KnuthNodeStore getNodeStore() {
+        return getTopLevelLM().getPSLM().getKnuthNodeStore();
+    }
+
+    /**
+     * Returns the listener to notify of the work of this breaker.
+     * @return the listener, or null if layout is not profiled
+     */
+    protected LayoutProfileListener getLayoutProfileListener() {
+        LayoutManager lm = getTopLevelLM();
+        return lm instanceof AbstractLayoutManager
+                ? ((AbstractLayoutManager) lm).getLayoutProfileListener() : null;
+    }
+
+    /**
+     * Looks for the page breaks of an element list, notifying the
+     * {@link LayoutProfileListener}, if any.
+     * @param alg the page breaking algorithm
+     * @param blockList the element list
+     * @param startIndex the index of the first element to consider
+     * @return the number of parts found
+     */
+    protected int findPageBreaks(PageBreakingAlgorithm alg, BlockSequence blockList, int startIndex) {
+        LayoutProfileListener profiler = getLayoutProfileListener();
+        if (profiler == null) {
+            return alg.findBreakingPoints(blockList, startIndex, 1, true, BreakingAlgorithm.ALL_BREAKS);
+        }
+        LayoutManager lm = getTopLevelLM();
+        profiler.started(LayoutProfileListener.Activity.PAGE_BREAKING, lm);
+        int partCount = alg.findBreakingPoints(blockList, startIndex, 1, true,
+                BreakingAlgorithm.ALL_BREAKS);
+        profiler.finished(LayoutProfileListener.Activity.PAGE_BREAKING, lm,
+                blockList.size() - startIndex);
+        return partCount;
+    }
+
     /** @return current child layout manager */
     protected abstract LayoutManager getCurrentChildLM();
 
@@ -405,14 +447,23 @@ public abstract class AbstractBreaker {
                 //*** Phase 2: Alignment and breaking ***
                 log.debug("PLM> start of algorithm (" + this.getClass().getName()
                         + "), flow BPD =" + flowBPD);
-                PageBreakingAlgorithm alg = new PageBreakingAlgorithm(getTopLevelLM(),
-                         getPageProvider(), createLayoutListener(),
-                         alignment, alignmentLast, footnoteSeparatorLength,
-                         isPartOverflowRecoveryActivated(), autoHeight, isSinglePartFavored());
-
-                alg.setConstantLineWidth(flowBPD);
-                int optimalPageCount = alg.findBreakingPoints(blockList, 1, true,
-                        BreakingAlgorithm.ALL_BREAKS);
+                PageBreakingAlgorithm alg = createPageBreakingAlgorithm(flowBPD, autoHeight);
+                alg.setSequenceIncomplete(hasRemainingKnuthElements());
+                int optimalPageCount = findPageBreaks(alg, blockList, 0);
+                if (alg.isEndOfIncompleteSequenceReached()
+                        || hasRemainingKnuthElements() && isRestartBeyondIncompleteList(alg, blockList)) {
+                    //*** The content laid out after a restart is needed up to its end ***
+                    nextSequenceStartsOn = completeBlockList(childLC, nextSequenceStartsOn);
+                    blockList = blockLists.get(blockListIndex);
+                    alg = createPageBreakingAlgorithm(flowBPD, autoHeight);
+                    optimalPageCount = findPageBreaks(alg, blockList, 0);
+                }
+                while (canCommitParts() && alg.getCommittedNode() != null) {
+                    //*** Incremental mode: add the areas of the decided parts and go on ***
+                    int startIndex = addCommittedAreas(alg, optimalPageCount, blockList);
+                    alg = createPageBreakingAlgorithm(flowBPD, autoHeight);
+                    optimalPageCount = findPageBreaks(alg, blockList, startIndex);
+                }
                 boolean ipdChangesOnNextPage = (alg.getIPDdifference() != 0);
                 boolean onLastPageAndIPDChanges = false;
                 if (!ipdChangesOnNextPage) {
@@ -446,6 +497,10 @@ public abstract class AbstractBreaker {
                     if (ipdChangesOnNextPage) {
                         addAreas(alg, optimalPageCount, blockList, blockList);
                     }
+                    LayoutProfileListener profiler = getLayoutProfileListener();
+                    if (profiler != null) {
+                        profiler.layoutRestarted(restartAtLM != null ? restartAtLM : getTopLevelLM());
+                    }
                     blockLists.clear();
                     blockListIndex = -1;
                     nextSequenceStartsOn = getNextBlockList(childLC, Constants.EN_COLUMN, positionAtBreak,
@@ -465,6 +520,80 @@ public abstract class AbstractBreaker {
         return true;
     }
 
+    private PageBreakingAlgorithm createPageBreakingAlgorithm(int flowBPD, boolean autoHeight) {
+        PageBreakingAlgorithm alg = new PageBreakingAlgorithm(getTopLevelLM(),
+                 getPageProvider(), createLayoutListener(),
+                 alignment, alignmentLast, footnoteSeparatorLength,
+                 isPartOverflowRecoveryActivated(), autoHeight, isSinglePartFavored());
+        alg.setNodeStore(getNodeStore(), false);
+        if (canCommitParts()) {
+            alg.setPageWindow(getPageWindow());
+        }
+        alg.setConstantLineWidth(flowBPD);
+        return alg;
+    }
+
+    /**
+     * Indicates whether the last element list obtained after a restart due to a change of IPD
+     * is only the beginning of the content that follows the restart. Such a list does not end
+     * with the elements that close a block sequence, and the rest of its content is obtained
+     * with {@link #getRemainingKnuthElements(LayoutContext, int)} if the page breaking does
+     * not stop at the next change of IPD.
+     * @return true if the last element list is incomplete; false by default
+     */
+    protected boolean hasRemainingKnuthElements() {
+        return false;
+    }
+
+    /**
+     * Returns the elements that follow an incomplete element list, up to the next forced
+     * break or span change or to the end of the content.
+     * Only called if {@link #hasRemainingKnuthElements()} returns true; returns an empty list
+     * by default.
+     * @param context the layout context
+     * @param alignment the desired text alignment
+     * @return the remaining elements
+     * @see #hasRemainingKnuthElements()
+     */
+    protected List<KnuthElement> getRemainingKnuthElements(LayoutContext context, int alignment) {
+        return new LinkedList<KnuthElement>();
+    }
+
+    /**
+     * Indicates whether this breaker supports incremental mode, that is whether it implements
+     * {@link #addCommittedAreas(PageBreakingAlgorithm, int, BlockSequence)}. The page window
+     * of breakers that don't is ignored.
+     * @return true if parts can be decided before the end of an element list
+     */
+    protected boolean canCommitParts() {
+        return false;
+    }
+
+    /**
+     * Returns the number of parts the page breaking algorithm looks ahead in incremental
+     * mode, or 0 if the breaks are to be determined over whole element lists, which is the
+     * default. Only used if {@link #canCommitParts()} returns true.
+     * @return the number of parts of lookahead
+     * @see PageBreakingAlgorithm#setPageWindow(int)
+     */
+    protected int getPageWindow() {
+        return 0;
+    }
+
+    /**
+     * Adds the areas of the parts decided by a run of the page breaking algorithm in
+     * incremental mode, and prepares the layout of the parts that follow. Only called if
+     * {@link #canCommitParts()} returns true, so breakers that override this method must also
+     * override {@link #canCommitParts()}. Does nothing and returns 0 by default.
+     * @param alg the algorithm that stopped at a decided break
+     * @param partCount the number of decided parts
+     * @param blockList the element list
+     * @return the index of the element at which the next run is to start
+     */
+    protected int addCommittedAreas(PageBreakingAlgorithm alg, int partCount, BlockSequence blockList) {
+        return 0;
+    }
+
     private LayoutManager getRestartAtLM(PageBreakingAlgorithm alg, boolean ipdChangesOnNextPage,
                                          boolean onLastPageAndIPDChanges, boolean visitedBefore,
                                          BlockSequence blockList, int start) {
@@ -543,8 +672,34 @@ public abstract class AbstractBreaker {
         return restartAtLM;
     }
 
+    /**
+     * Indicates whether the restart at the change of IPD found on an incomplete block list
+     * needs the elements that follow the list. This is the case when the break falls in
+     * non-restartable content that is not followed by a break between restartable content
+     * within the list, since the elements up to the end of the content are then carried over.
+     * @param alg the algorithm that stopped at the change of IPD
+     * @param blockList the incomplete block list
+     * @return true if the block list must be completed before restarting
+     */
+    private boolean isRestartBeyondIncompleteList(PageBreakingAlgorithm alg, BlockSequence blockList) {
+        if (alg.getIPDdifference() == 0) {
+            return false;
+        }
+        int positionIndex = findPositionIndex(alg.getBestNodeBeforeIPDChange(), alg, 1);
+        if (positionAtBreak == null || !containsNonRestartableLM(positionAtBreak)) {
+            return false;
+        }
+        Iterator iter = blockList.listIterator(positionIndex + 1);
+        Position position = null;
+        while (iter.hasNext() && (position == null || containsNonRestartableLM(position))) {
+            position = ((KnuthElement) iter.next()).getPosition();
+        }
+        return !(position instanceof SpaceResolver.SpaceHandlingBreakPosition)
+                || containsNonRestartableLM(position);
+    }
+
     private int findPositionIndex(KnuthNode optimalBreak, PageBreakingAlgorithm alg, int start) {
-        int positionIndex = (optimalBreak != null) ? optimalBreak.position : start;
+        int positionIndex = (optimalBreak != null) ? optimalBreak.getPosition() : start;
         for (int i = positionIndex; i < alg.par.size(); i++) {
             KnuthElement elementAtBreak = alg.getElement(i);
             if (elementAtBreak.getPosition() == null) {
@@ -616,7 +771,7 @@ public abstract class AbstractBreaker {
             BlockSequence originalList, BlockSequence effectiveList, final LayoutContext childLC) {
         int startElementIndex = 0;
         int endElementIndex = 0;
-        int lastBreak = -1;
+        int lastBreak = effectiveList.breakAtStart;
         for (int p = startPart; p < startPart + partCount; p++) {
             PageBreakPosition pbp = alg.getPageBreaks().get(p);
 
@@ -800,41 +955,77 @@ public abstract class AbstractBreaker {
             //Only implemented by the PSLM
             nextSequenceStartsOn = handleSpanChange(childLC, nextSequenceStartsOn);
 
-            Position breakPosition = null;
-            if (ElementListUtils.endsWithForcedBreak(returnedList)) {
-                KnuthPenalty breakPenalty = (KnuthPenalty) ListUtil
-                        .removeLast(returnedList);
-                breakPosition = breakPenalty.getPosition();
-                log.debug("PLM> break - " + getBreakClassName(breakPenalty.getBreakClass()));
-                switch (breakPenalty.getBreakClass()) {
-                case Constants.EN_PAGE:
-                    nextSequenceStartsOn = Constants.EN_ANY;
-                    break;
-                case Constants.EN_COLUMN:
-                    //TODO Fix this when implementing multi-column layout
-                    nextSequenceStartsOn = Constants.EN_COLUMN;
-                    break;
-                case Constants.EN_ODD_PAGE:
-                    nextSequenceStartsOn = Constants.EN_ODD_PAGE;
-                    break;
-                case Constants.EN_EVEN_PAGE:
-                    nextSequenceStartsOn = Constants.EN_EVEN_PAGE;
-                    break;
-                default:
-                    throw new IllegalStateException("Invalid break class: "
-                            + breakPenalty.getBreakClass());
-                }
-                if (ElementListUtils.isEmptyBox(returnedList)) {
-                    ListUtil.removeLast(returnedList);
-                }
+            if (hasRemainingKnuthElements()) {
+                // the sequence is ended once completed, see completeBlockList()
+                blockList.addAll(returnedList);
+                blockLists.add(blockList);
+                return nextSequenceStartsOn;
+            }
+            nextSequenceStartsOn = endBlockList(blockList, returnedList, nextSequenceStartsOn,
+                    blockLists.size());
+        }
+        return nextSequenceStartsOn;
+    }
+
+    /**
+     * Completes the current block list, obtained after a restart due to a change of IPD,
+     * with the elements of the content that follows it, and ends it.
+     * @param childLC LayoutContext to use
+     * @param nextSequenceStartsOn the page on which the next content should appear
+     * @return the page on which the next content should appear after a hard break
+     */
+    private int completeBlockList(LayoutContext childLC, int nextSequenceStartsOn) {
+        BlockSequence blockList = blockLists.remove(blockListIndex);
+        List<KnuthElement> returnedList = getRemainingKnuthElements(childLC, alignment);
+        nextSequenceStartsOn = handleSpanChange(childLC, nextSequenceStartsOn);
+        return endBlockList(blockList, returnedList, nextSequenceStartsOn, blockListIndex);
+    }
+
+    /**
+     * Adds the given elements to a block list, ends it and inserts it in the list of block
+     * lists.
+     * @param blockList the block list
+     * @param returnedList the elements to add, possibly ending with a forced break
+     * @param nextSequenceStartsOn the page on which the next content should appear
+     * @param index the index at which the ended block list is inserted
+     * @return the page on which the next content should appear after a hard break
+     */
+    private int endBlockList(BlockSequence blockList, List<KnuthElement> returnedList,
+            int nextSequenceStartsOn, int index) {
+        Position breakPosition = null;
+        if (ElementListUtils.endsWithForcedBreak(returnedList)) {
+            KnuthPenalty breakPenalty = (KnuthPenalty) ListUtil
+                    .removeLast(returnedList);
+            breakPosition = breakPenalty.getPosition();
+            log.debug("PLM> break - " + getBreakClassName(breakPenalty.getBreakClass()));
+            switch (breakPenalty.getBreakClass()) {
+            case Constants.EN_PAGE:
+                nextSequenceStartsOn = Constants.EN_ANY;
+                break;
+            case Constants.EN_COLUMN:
+                //TODO Fix this when implementing multi-column layout
+                nextSequenceStartsOn = Constants.EN_COLUMN;
+                break;
+            case Constants.EN_ODD_PAGE:
+                nextSequenceStartsOn = Constants.EN_ODD_PAGE;
+                break;
+            case Constants.EN_EVEN_PAGE:
+                nextSequenceStartsOn = Constants.EN_EVEN_PAGE;
+                break;
+            default:
+                throw new IllegalStateException("Invalid break class: "
+                        + breakPenalty.getBreakClass());
             }
-            blockList.addAll(returnedList);
-            BlockSequence seq;
-            seq = blockList.endBlockSequence(breakPosition);
-            if (seq != null) {
-                blockLists.add(seq);
+            if (blockList.isEmpty() && ElementListUtils.isEmptyBox(returnedList)) {
+                ListUtil.removeLast(returnedList);
             }
         }
+        blockList.addAll(returnedList);
+        BlockSequence seq;
+        seq = blockList.endBlockSequence(breakPosition);
+        if (seq != null) {
+            blockLists.add(index, seq);
+        }
         return nextSequenceStartsOn;
     }
 
@@ -854,7 +1045,7 @@ public abstract class AbstractBreaker {
     private boolean thereIsANonRestartableLM(PageBreakingAlgorithm alg) {
         KnuthNode optimalBreak = alg.getBestNodeForLastPage();
         if (optimalBreak != null) {
-            int positionIndex = optimalBreak.position;
+            int positionIndex = optimalBreak.getPosition();
             KnuthElement elementAtBreak = alg.getElement(positionIndex);
             Position positionAtBreak = elementAtBreak.getPosition();
             if (!(positionAtBreak instanceof SpaceResolver.SpaceHandlingBreakPosition)) {
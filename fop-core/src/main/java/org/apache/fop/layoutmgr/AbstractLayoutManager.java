@@ -233,6 +233,22 @@ public abstract class AbstractLayoutManager extends AbstractBaseLayoutManager im
         return parentLayoutManager.getPSLM();
     }
 
+    /**
+     * Returns the listener to notify of the work done by this layout manager and its
+     * children.
+     * @return the listener, or null if layout is not profiled
+     * @see org.apache.fop.apps.FOUserAgent#getLayoutProfileListener()
+     */
+    public LayoutProfileListener getLayoutProfileListener() {
+        if (fobj != null) {
+            return fobj.getUserAgent().getLayoutProfileListener();
+        } else if (parentLayoutManager instanceof AbstractLayoutManager) {
+            return ((AbstractLayoutManager) parentLayoutManager).getLayoutProfileListener();
+        } else {
+            return null;
+        }
+    }
+
     /**
      * @see PageSequenceLayoutManager#getCurrentPage()
      * @return the {@link Page} instance corresponding to the current page
@@ -94,6 +94,12 @@ public final class AreaAdditionUtil {
         }
 
         PositionIterator childPosIter = new PositionIterator(positionList.listIterator());
+        LayoutProfileListener profiler = null;
+        if (parentLM != null) {
+            profiler = parentLM.getLayoutProfileListener();
+        } else if (firstLM instanceof AbstractLayoutManager) {
+            profiler = ((AbstractLayoutManager) firstLM).getLayoutProfileListener();
+        }
 
         while ((childLM = childPosIter.getNextChildLM()) != null) {
             // TODO vh: the test above might be problematic in some cases. See comment in
@@ -110,7 +116,13 @@ public final class AreaAdditionUtil {
             // display-align = distribute
             lc.setSpaceAfter(layoutContext.getSpaceAfter());
             lc.setStackLimitBP(layoutContext.getStackLimitBP());
+            if (profiler != null) {
+                profiler.started(LayoutProfileListener.Activity.ADD_AREAS, childLM);
+            }
             childLM.addAreas(childPosIter, lc);
+            if (profiler != null) {
+                profiler.finished(LayoutProfileListener.Activity.ADD_AREAS, childLM, 0);
+            }
         }
 
         if (parentLM != null) {
@@ -21,7 +21,6 @@ package org.apache.fop.layoutmgr;
 
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.apache.fop.traits.MinOptMax;
@@ -32,7 +31,8 @@ import org.apache.fop.traits.MinOptMax;
  */
 public class BalancingColumnBreakingAlgorithm extends PageBreakingAlgorithm {
 
-    private int columnCount;
+    /** the number of columns to balance the content over */
+    protected final int columnCount;
     private List<Integer> idealBreaks;
 
     public BalancingColumnBreakingAlgorithm(LayoutManager topLevelLM,
@@ -52,30 +52,34 @@ public class BalancingColumnBreakingAlgorithm extends PageBreakingAlgorithm {
     /** {@inheritDoc} */
     protected double computeDemerits(KnuthNode activeNode,
             KnuthElement element, int fitnessClass, double r) {
-        double demerits = Double.MAX_VALUE;
         if (idealBreaks == null) {
-            idealBreaks = calculateIdealBreaks(activeNode.position);
+            idealBreaks = calculateIdealBreaks(activeNode.getPosition());
         }
-        LinkedList<Integer> curPossibility = getPossibilityTrail(activeNode);
-        boolean notIdeal = false;
-        int idealDemerit = columnCount + 1 - curPossibility.size();
-        if (curPossibility.size() > idealBreaks.size()) {
-            return demerits;
+        //only the breaks of the ideal trail are acceptable
+        int trailLength = 0;
+        for (KnuthNode node = activeNode; node != null; node = node.previous) {
+            trailLength++;
         }
-        for (int breakPos = 0; breakPos < curPossibility.size(); breakPos++) {
-            if (curPossibility.get(breakPos) != 0
-                    && !curPossibility.get(breakPos).equals(idealBreaks.get(breakPos))) {
-                notIdeal = true;
-                break;
-            }
+        if (trailLength > idealBreaks.size()) {
+            return Double.MAX_VALUE;
         }
-        if (!notIdeal) {
-            demerits = idealDemerit;
+        int breakPos = trailLength - 1;
+        for (KnuthNode node = activeNode; node != null; node = node.previous, breakPos--) {
+            if (node.getPosition() != 0 && node.getPosition() != idealBreaks.get(breakPos)) {
+                return Double.MAX_VALUE;
+            }
         }
-        return demerits;
+        return columnCount + 1 - trailLength;
     }
 
-    private List<Integer> calculateIdealBreaks(int startPos) {
+    /**
+     * Calculates the breaks which balance the content over the columns. Only these breaks are
+     * considered by the breaking algorithm.
+     *
+     * @param startPos the index of the first element of the content to balance
+     * @return the index of the first element, followed by the indexes of the column breaks
+     */
+    protected List<Integer> calculateIdealBreaks(int startPos) {
         List<ColumnContent> previousPreviousBreaks = null;
         List<ColumnContent> previousBreaks = null;
         List<ColumnContent> breaks = new ArrayList<ColumnContent>();
@@ -250,14 +254,4 @@ public class BalancingColumnBreakingAlgorithm extends PageBreakingAlgorithm {
         }
         return elementIdBreaks;
     }
-
-    private LinkedList<Integer> getPossibilityTrail(KnuthNode activeNode) {
-        LinkedList<Integer> trail = new LinkedList<Integer>();
-        KnuthNode previous = activeNode;
-        do {
-            trail.addFirst(previous.position);
-            previous = previous.previous;
-        } while (previous != null);
-        return trail;
-    }
 }
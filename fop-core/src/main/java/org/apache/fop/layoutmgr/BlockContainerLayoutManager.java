@@ -253,10 +253,10 @@ public class BlockContainerLayoutManager extends SpacedBorderedPaddedBlockLayout
                     if (isRestart) {
                         curLM.reset();
                     }
-                    returnedList = getNextChildElements(curLM, context, childLC, alignment,
+                    returnedList = getProfiledChildElements(curLM, context, childLC, alignment,
                             null, null, null);
                 } else {
-                    returnedList = getNextChildElements(curLM, context, childLC, alignment,
+                    returnedList = getProfiledChildElements(curLM, context, childLC, alignment,
                             lmStack, restartPosition, restartAtLM);
                     // once encountered, irrelevant for following child LMs
                     emptyStack = true;
@@ -287,11 +287,11 @@ public abstract class BlockStackingLayoutManager extends AbstractLayoutManager
                     currentChildLM.reset(); // TODO won't work with forced breaks
                 }
 
-                childElements = getNextChildElements(currentChildLM, context, childLC, alignment,
+                childElements = getProfiledChildElements(currentChildLM, context, childLC, alignment,
                         null, null, null);
             } else {
                 // restart && non-empty LM stack
-                childElements = getNextChildElements(currentChildLM, context, childLC, alignment,
+                childElements = getProfiledChildElements(currentChildLM, context, childLC, alignment,
                         lmStack, restartPosition, restartAtLM);
                 // once encountered, irrelevant for following child LMs
                 emptyStack = true;
@@ -470,6 +470,34 @@ public abstract class BlockStackingLayoutManager extends AbstractLayoutManager
                              isAuxiliary);
     }
 
+    /**
+     * Gets the next set of child elements for the given childLM through
+     * {@link #getNextChildElements}, notifying the {@link LayoutProfileListener}, if any.
+     * @param childLM   the current child LM
+     * @param context   the layout context
+     * @param childLC   the child layout context
+     * @param alignment the vertical alignment
+     * @param lmStack   the stack of currently active LMs (if any)
+     * @param restartPosition   the position to restart from (if any)
+     * @param restartAtLM   the LM to restart from (if any)
+     * @return  list of elements corresponding to the content generated by childLM
+     */
+    protected final List<ListElement> getProfiledChildElements(LayoutManager childLM,
+            LayoutContext context, LayoutContext childLC, int alignment,
+            Stack<LayoutManager> lmStack, Position restartPosition, LayoutManager restartAtLM) {
+        LayoutProfileListener profiler = getLayoutProfileListener();
+        if (profiler == null) {
+            return getNextChildElements(childLM, context, childLC, alignment, lmStack,
+                    restartPosition, restartAtLM);
+        }
+        profiler.started(LayoutProfileListener.Activity.ELEMENT_LIST, childLM);
+        List<ListElement> childElements = getNextChildElements(childLM, context, childLC,
+                alignment, lmStack, restartPosition, restartAtLM);
+        profiler.finished(LayoutProfileListener.Activity.ELEMENT_LIST, childLM,
+                ElementListUtils.countElements(childElements));
+        return childElements;
+    }
+
     /**
      * Gets the next set of child elements for the given childLM.
      * The default implementation basically copies the pending marks to the child layout context,
@@ -192,6 +192,13 @@ public abstract class BreakingAlgorithm {
     private boolean partOverflowRecoveryActivated = true;
     private KnuthNode lastRecovered;
 
+    /** Store providing reusable storage to the runs of the algorithm, or null. */
+    private KnuthNodeStore nodeStore;
+    /** True if the nodes may be taken from the pool of {@link #nodeStore}. */
+    private boolean recycleNodes;
+    /** The store while it is held by the current run, null otherwise. */
+    private KnuthNodeStore currentStore;
+
     /**
      * Create a new instance.
      *
@@ -220,40 +227,96 @@ public abstract class BreakingAlgorithm {
         this.maxFlaggedPenaltiesCount = maxFlagCount;
     }
 
+    /**
+     * Sets the store whose storage is reused by the runs of this algorithm. If
+     * {@code recycleNodes} is true, the nodes are also taken from the pool of the store: this
+     * requires that the nodes are not used once {@link #findBreakingPoints} has returned, and
+     * that the subclass does not override the <code>createNode</code> methods.
+     * @param store the store, or null to allocate new storage for each run
+     * @param recycleNodes true if the nodes of previous runs may be recycled
+     */
+    public void setNodeStore(KnuthNodeStore store, boolean recycleNodes) {
+        this.nodeStore = store;
+        this.recycleNodes = recycleNodes;
+    }
+
 
     /**
      * Class recording all the informations of a feasible breaking point.
+     * <p>
+     * The fields describing the breakpoint are not final, as a {@link KnuthNodeStore} may
+     * recycle the node once the run that created it is over: read them through the getters.
      */
     public class KnuthNode {
-        /** index of the breakpoint represented by this node */
-        public final int position;
+        /**
+         * index of the breakpoint represented by this node
+         * @deprecated use {@link #getPosition()}, as the field is not final
+         */
+        @Deprecated
+        public int position;
 
-        /** number of the line ending at this breakpoint */
-        public final int line;
+        /**
+         * number of the line ending at this breakpoint
+         * @deprecated use {@link #getLine()}, as the field is not final
+         */
+        @Deprecated
+        public int line;
 
-        /** fitness class of the line ending at this breakpoint. One of 0, 1, 2, 3. */
-        public final int fitness;
+        /**
+         * fitness class of the line ending at this breakpoint. One of 0, 1, 2, 3.
+         * @deprecated use {@link #getFitness()}, as the field is not final
+         */
+        @Deprecated
+        public int fitness;
 
-        /** accumulated width of the KnuthElements up to after this breakpoint. */
-        public final int totalWidth;
+        /**
+         * accumulated width of the KnuthElements up to after this breakpoint.
+         * @deprecated use {@link #getTotalWidth()}, as the field is not final
+         */
+        @Deprecated
+        public int totalWidth;
 
-        /** accumulated stretchability of the KnuthElements up to after this breakpoint. */
-        public final int totalStretch;
+        /**
+         * accumulated stretchability of the KnuthElements up to after this breakpoint.
+         * @deprecated use {@link #getTotalStretch()}, as the field is not final
+         */
+        @Deprecated
+        public int totalStretch;
 
-        /** accumulated shrinkability of the KnuthElements up to after this breakpoint. */
-        public final int totalShrink;
+        /**
+         * accumulated shrinkability of the KnuthElements up to after this breakpoint.
+         * @deprecated use {@link #getTotalShrink()}, as the field is not final
+         */
+        @Deprecated
+        public int totalShrink;
 
-        /** adjustment ratio if the line ends at this breakpoint */
-        public final double adjustRatio;
+        /**
+         * adjustment ratio if the line ends at this breakpoint
+         * @deprecated use {@link #getAdjustRatio()}, as the field is not final
+         */
+        @Deprecated
+        public double adjustRatio;
 
-        /** available stretch of the line ending at this breakpoint */
-        public final int availableShrink;
+        /**
+         * available stretch of the line ending at this breakpoint
+         * @deprecated use {@link #getAvailableShrink()}, as the field is not final
+         */
+        @Deprecated
+        public int availableShrink;
 
-        /** available shrink of the line ending at this breakpoint */
-        public final int availableStretch;
+        /**
+         * available shrink of the line ending at this breakpoint
+         * @deprecated use {@link #getAvailableStretch()}, as the field is not final
+         */
+        @Deprecated
+        public int availableStretch;
 
-        /** difference between target and actual line width */
-        public final int difference;
+        /**
+         * difference between target and actual line width
+         * @deprecated use {@link #getDifference()}, as the field is not final
+         */
+        @Deprecated
+        public int difference;
 
         /** minimum total demerits up to this breakpoint */
         public double totalDemerits;
@@ -289,6 +352,69 @@ public abstract class BreakingAlgorithm {
                 int totalWidth, int totalStretch, int totalShrink,
                 double adjustRatio, int availableShrink, int availableStretch,
                 int difference, double totalDemerits, KnuthNode previous) {
+            init(position, line, fitness, totalWidth, totalStretch, totalShrink,
+                    adjustRatio, availableShrink, availableStretch,
+                    difference, totalDemerits, previous);
+        }
+
+        /** @return the index of the breakpoint represented by this node */
+        public final int getPosition() {
+            return position;
+        }
+
+        /** @return the number of the line ending at this breakpoint */
+        public final int getLine() {
+            return line;
+        }
+
+        /** @return the fitness class of the line ending at this breakpoint */
+        public final int getFitness() {
+            return fitness;
+        }
+
+        /** @return the accumulated width of the KnuthElements up to after this breakpoint */
+        public final int getTotalWidth() {
+            return totalWidth;
+        }
+
+        /** @return the accumulated stretchability of the KnuthElements up to after this breakpoint */
+        public final int getTotalStretch() {
+            return totalStretch;
+        }
+
+        /** @return the accumulated shrinkability of the KnuthElements up to after this breakpoint */
+        public final int getTotalShrink() {
+            return totalShrink;
+        }
+
+        /** @return the adjustment ratio if the line ends at this breakpoint */
+        public final double getAdjustRatio() {
+            return adjustRatio;
+        }
+
+        /** @return the available shrink of the line ending at this breakpoint */
+        public final int getAvailableShrink() {
+            return availableShrink;
+        }
+
+        /** @return the available stretch of the line ending at this breakpoint */
+        public final int getAvailableStretch() {
+            return availableStretch;
+        }
+
+        /** @return the difference between target and actual line width */
+        public final int getDifference() {
+            return difference;
+        }
+
+        /**
+         * (Re-)initializes the node with the values of a new breaking point. Used by
+         * {@link KnuthNodeStore} to recycle nodes.
+         */
+        final void init(int position, int line, int fitness,
+                int totalWidth, int totalStretch, int totalShrink,
+                double adjustRatio, int availableShrink, int availableStretch,
+                int difference, double totalDemerits, KnuthNode previous) {
             this.position = position;
             this.line = line;
             this.fitness = fitness;
@@ -301,6 +427,8 @@ public abstract class BreakingAlgorithm {
             this.difference = difference;
             this.totalDemerits = totalDemerits;
             this.previous = previous;
+            this.next = null;
+            this.fitRecoveryCounter = 0;
         }
 
         /** {@inheritDoc} */
@@ -522,6 +650,24 @@ public abstract class BreakingAlgorithm {
     public int findBreakingPoints(KnuthSequence par, int startIndex,
                                   double threshold, boolean force,
                                   int allowedBreaks) {
+        boolean useStore = nodeStore != null && nodeStore.acquire();
+        if (useStore) {
+            currentStore = nodeStore;
+        }
+        try {
+            return doFindBreakingPoints(par, startIndex, threshold, force, allowedBreaks);
+        } finally {
+            if (useStore) {
+                activeLines = null;
+                currentStore.release();
+                currentStore = null;
+            }
+        }
+    }
+
+    private int doFindBreakingPoints(KnuthSequence par, int startIndex,
+                                     double threshold, boolean force,
+                                     int allowedBreaks) {
         this.par = par;
         this.threshold = threshold;
         this.force = force;
@@ -557,6 +703,10 @@ public abstract class BreakingAlgorithm {
             previousIsBox = handleElementAt(
                     elementIndex, previousIsBox, allowedBreaks).isBox();
 
+            if (activeNodeCount > 0 && canCommit()) {
+                return handleCommit();
+            }
+
             if (activeNodeCount == 0) {
                 if (handlingFloat()) {
                     return handleFloat();
@@ -590,6 +740,10 @@ public abstract class BreakingAlgorithm {
 
         }
 
+        if (isSequenceIncomplete()) {
+            return handleIncompleteSequence();
+        }
+
         finish();
 
         // there is at least one set of breaking points
@@ -665,7 +819,7 @@ public abstract class BreakingAlgorithm {
         this.lastTooLong = null;
         this.startLine = 0;
         this.endLine = 0;
-        this.activeLines = new KnuthNode[20];
+        this.activeLines = currentStore != null ? currentStore.getActiveLines() : new KnuthNode[20];
     }
 
     /**
@@ -692,6 +846,12 @@ public abstract class BreakingAlgorithm {
             int totalWidth, int totalStretch, int totalShrink,
             double adjustRatio, int availableShrink, int availableStretch,
             int difference, double totalDemerits, KnuthNode previous) {
+        if (recycleNodes && currentStore != null) {
+            return currentStore.createNode(this, position, line, fitness,
+                    totalWidth, totalStretch, totalShrink,
+                    adjustRatio, availableShrink, availableStretch,
+                    difference, totalDemerits, previous);
+        }
         return new KnuthNode(position, line, fitness,
                              totalWidth, totalStretch, totalShrink,
                              adjustRatio, availableShrink, availableStretch,
@@ -715,11 +875,11 @@ public abstract class BreakingAlgorithm {
      */
     protected KnuthNode createNode(int position, int line, int fitness,
                                    int totalWidth, int totalStretch, int totalShrink) {
-        return new KnuthNode(position, line, fitness,
-                             totalWidth, totalStretch, totalShrink, best.getAdjust(fitness),
-                             best.getAvailableShrink(fitness), best.getAvailableStretch(fitness),
-                             best.getDifference(fitness), best.getDemerits(fitness),
-                             best.getNode(fitness));
+        return createNode(position, line, fitness,
+                          totalWidth, totalStretch, totalShrink, best.getAdjust(fitness),
+                          best.getAvailableShrink(fitness), best.getAvailableStretch(fitness),
+                          best.getDifference(fitness), best.getDemerits(fitness),
+                          best.getNode(fitness));
     }
 
     /**
@@ -1346,6 +1506,9 @@ public abstract class BreakingAlgorithm {
             KnuthNode[] oldList = activeLines;
             activeLines = new KnuthNode[headIdx + headIdx];
             System.arraycopy(oldList, 0, activeLines, 0, oldList.length);
+            if (currentStore != null) {
+                currentStore.setActiveLines(activeLines);
+            }
         }
         node.next = null;
         if (activeLines[headIdx + 1] != null) {
@@ -1467,6 +1630,42 @@ public abstract class BreakingAlgorithm {
         return false;
     }
 
+    /**
+     * Indicates whether the breaks up to one of the active nodes can be decided before the
+     * end of the sequence is reached, in which case the algorithm stops there.
+     * @return true if {@link #handleCommit()} is to be called
+     */
+    protected boolean canCommit() {
+        return false;
+    }
+
+    /**
+     * Determines the breakpoints up to the node decided by {@link #canCommit()}.
+     * @return the number of lines/parts up to that node
+     */
+    protected int handleCommit() {
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Indicates whether the sequence is only the beginning of the content to break. The
+     * breaks can then not be determined when the end of the sequence is reached with active
+     * nodes left, since they depend on the content that follows.
+     * @return true if {@link #handleIncompleteSequence()} is to be called at the end of the
+     * sequence
+     */
+    protected boolean isSequenceIncomplete() {
+        return false;
+    }
+
+    /**
+     * Handles the end of an incomplete sequence, reached with active nodes left.
+     * @return the number of lines/parts whose breaks were determined
+     */
+    protected int handleIncompleteSequence() {
+        throw new IllegalStateException();
+    }
+
     protected int handleFloat() {
         throw new IllegalStateException();
     }
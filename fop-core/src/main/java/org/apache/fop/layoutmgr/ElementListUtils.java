@@ -172,6 +172,23 @@ public final class ElementListUtils {
         return calcContentLength(elems, 0, elems.size() - 1);
     }
 
+    /**
+     * Counts the elements of the given list, which may also be a list of
+     * {@link KnuthSequence}s as returned by inline-level layout managers.
+     * @param elems the element list, may be null
+     * @return the number of elements
+     */
+    public static int countElements(List elems) {
+        if (elems == null) {
+            return 0;
+        }
+        int count = 0;
+        for (Object elem : elems) {
+            count += elem instanceof KnuthSequence ? ((KnuthSequence) elem).size() : 1;
+        }
+        return count;
+    }
+
     /**
      * Indicates whether the given element list ends with a forced break.
      * @param elems the element list
@@ -19,6 +19,7 @@
 
 package org.apache.fop.layoutmgr;
 
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
@@ -51,6 +52,22 @@ public class FlowLayoutManager extends BlockStackingLayoutManager {
 
     private boolean handlingFloat;
 
+    /**
+     * The page provider used, when the layout restarts after a change of IPD, to lay out
+     * again only the content needed up to the next change of IPD; null to lay out the
+     * whole rest of the flow.
+     */
+    private PageProvider restartPageProvider;
+
+    /**
+     * The elements laid out since a restart, before space resolution, when only the
+     * beginning of them has been returned; null otherwise.
+     */
+    private List<ListElement> restartElements;
+
+    /** The number of elements returned, after space resolution, for restartElements. */
+    private int returnedRestartElementCount;
+
     /**
      * This is the top level layout manager.
      * It is created by the PageSequence FO.
@@ -83,6 +100,7 @@ public class FlowLayoutManager extends BlockStackingLayoutManager {
             Position restartPosition, LayoutManager restartLM) {
 
         List<ListElement> elements = new LinkedList<ListElement>();
+        restartElements = null;
 
         boolean isRestart = (restartPosition != null);
         // always reset in case of restart (exception: see below)
@@ -108,7 +126,12 @@ public class FlowLayoutManager extends BlockStackingLayoutManager {
             currentChildLM = getChildLM();
         }
 
+        IPDChangeLookahead lookahead = null;
+        if (isRestart && restartPageProvider != null) {
+            lookahead = new IPDChangeLookahead(restartPageProvider);
+        }
         while (currentChildLM != null) {
+            int start = elements.size();
             if (!isRestart || doReset) {
                 if (doReset) {
                     currentChildLM.reset(); // TODO won't work with forced breaks
@@ -125,6 +148,13 @@ public class FlowLayoutManager extends BlockStackingLayoutManager {
                 // restarted; force reset as of next child
                 doReset = true;
             }
+            if (lookahead != null && hasNextChildLM()
+                    && lookahead.isBeyondIPDChange(elements.listIterator(start))) {
+                List<ListElement> returnedElements = getRestartElementsBeforeIPDChange(elements);
+                if (returnedElements != null) {
+                    return returnedElements;
+                }
+            }
             currentChildLM = getChildLM();
         }
 
@@ -135,6 +165,107 @@ public class FlowLayoutManager extends BlockStackingLayoutManager {
         return elements;
     }
 
+    /**
+     * Returns the beginning of the elements laid out since a restart, up to their last box,
+     * and keeps them all for {@link #getRemainingKnuthElements(LayoutContext, int)}.
+     * @param elements the elements laid out since the restart, before space resolution
+     * @return the space-resolved beginning of the elements, or null if they cannot be cut
+     */
+    private List<ListElement> getRestartElementsBeforeIPDChange(List<ListElement> elements) {
+        // cut after a box, so that the spaces before it are resolved as in the whole list
+        int cut = elements.size();
+        ListIterator<ListElement> iter = elements.listIterator(cut);
+        ListElement lastBox = null;
+        while (iter.hasPrevious() && lastBox == null) {
+            ListElement element = iter.previous();
+            if (element.isBox()) {
+                lastBox = element;
+            } else {
+                cut--;
+            }
+        }
+        // a restart within non-restartable content takes the elements up to the content
+        // that follows it, which must then be part of the list
+        if (lastBox == null || containsNonRestartableLM(lastBox.getPosition())) {
+            return null;
+        }
+        List<ListElement> returnedElements = new LinkedList<ListElement>(elements.subList(0, cut));
+        SpaceResolver.resolveElementList(returnedElements);
+        restartElements = elements;
+        returnedRestartElementCount = returnedElements.size();
+        return returnedElements;
+    }
+
+    private static boolean containsNonRestartableLM(Position position) {
+        LayoutManager lm = position.getLM();
+        if (lm != null && !lm.isRestartable()) {
+            return true;
+        } else {
+            Position subPosition = position.getPosition();
+            return subPosition != null && containsNonRestartableLM(subPosition);
+        }
+    }
+
+    /**
+     * Sets the page provider used to find out, when the layout restarts after a change of IPD,
+     * whether the content laid out since the restart is certain to reach beyond the next
+     * change of IPD. The rest of the flow is then laid out only if
+     * {@link #getRemainingKnuthElements(LayoutContext, int)} is called.
+     * @param pageProvider the page provider, or null to always lay out the whole rest of the flow
+     */
+    void setRestartPageProvider(PageProvider pageProvider) {
+        this.restartPageProvider = pageProvider;
+    }
+
+    /**
+     * Indicates whether only the beginning of the elements laid out since the last restart
+     * has been returned.
+     * @return true if {@link #getRemainingKnuthElements(LayoutContext, int)} can be called
+     */
+    boolean hasRemainingKnuthElements() {
+        return restartElements != null;
+    }
+
+    /**
+     * Discards the elements kept since the last restart, once the page breaking has stopped at
+     * the next change of IPD or when the next element list does not start from this flow.
+     */
+    void discardRemainingKnuthElements() {
+        restartElements = null;
+    }
+
+    /**
+     * Returns the elements following those returned after the last restart, up to the end of
+     * the flow or to the next forced break or span change, as they would have been returned
+     * had the elements not been cut.
+     * @param context the LayoutContext used to store layout information
+     * @param alignment the desired text alignment
+     * @return the remaining elements
+     */
+    List getRemainingKnuthElements(LayoutContext context, int alignment) {
+        if (restartElements == null) {
+            throw new IllegalStateException("No remaining elements since the last restart");
+        }
+        List<ListElement> elements = restartElements;
+        restartElements = null;
+        LayoutManager currentChildLM = getChildLM();
+        boolean finished = true;
+        while (currentChildLM != null) {
+            currentChildLM.reset();
+            if (addChildElements(elements, currentChildLM, context, alignment,
+                    null, null, null) != null) {
+                finished = false;
+                break;
+            }
+            currentChildLM = getChildLM();
+        }
+        if (finished) {
+            SpaceResolver.resolveElementList(elements);
+            setFinished(true);
+        }
+        return new LinkedList<ListElement>(elements.subList(returnedRestartElementCount, elements.size()));
+    }
+
     private List<ListElement> addChildElements(List<ListElement> elements,
             LayoutManager childLM, LayoutContext context, int alignment,
             Stack<LayoutManager> lmStack, Position position, LayoutManager restartAtLM) {
@@ -145,7 +276,7 @@ public class FlowLayoutManager extends BlockStackingLayoutManager {
 
         LayoutContext childLC = makeChildLayoutContext(context);
         List<ListElement> childElements
-                = getNextChildElements(childLM, context, childLC, alignment, lmStack,
+                = getProfiledChildElements(childLM, context, childLC, alignment, lmStack,
                     position, restartAtLM);
         if (elements.isEmpty()) {
             context.updateKeepWithPreviousPending(childLC.getKeepWithPreviousPending());
@@ -444,5 +575,64 @@ public class FlowLayoutManager extends BlockStackingLayoutManager {
     public boolean handlingFloat() {
         return handlingFloat;
     }
-}
 
+    /**
+     * Follows the parts of the element list laid out after a restart due to a change of IPD,
+     * as the list grows, to find out whether its content is certain to reach beyond the next
+     * change of IPD. The page breaking then stops at that change and restarts the layout
+     * there, so that the content following it is not needed.
+     */
+    private static final class IPDChangeLookahead {
+
+        /** The number of parts beyond which a change of IPD is not looked for. */
+        private static final int MAX_PARTS = 64;
+
+        private final PageProvider pageProvider;
+
+        /** The minimum BPD of the content laid out so far. */
+        private long contentBPD;
+
+        /** The available BPD of the parts looked at so far. */
+        private long partsBPD;
+
+        private int partCount;
+
+        private boolean ipdChangeFound;
+
+        IPDChangeLookahead(PageProvider pageProvider) {
+            this.pageProvider = pageProvider;
+        }
+
+        /**
+         * Adds the given elements to the content and tells whether it is certain to reach
+         * beyond the part following the next change of IPD.
+         * @param newElements the elements added to the content
+         * @return true if the content reaches beyond the next change of IPD
+         */
+        boolean isBeyondIPDChange(Iterator<ListElement> newElements) {
+            if (!ipdChangeFound && partCount >= MAX_PARTS) {
+                return false;
+            }
+            while (newElements.hasNext()) {
+                ListElement element = newElements.next();
+                if (element.isBox()) {
+                    contentBPD += ((KnuthElement) element).getWidth();
+                } else if (element.isGlue()) {
+                    KnuthElement glue = (KnuthElement) element;
+                    contentBPD += glue.getWidth() - glue.getShrink();
+                }
+            }
+            while (contentBPD > partsBPD && !ipdChangeFound && partCount < MAX_PARTS) {
+                partsBPD += pageProvider.getAvailableBPD(partCount);
+                if (pageProvider.compareIPDs(partCount) != 0) {
+                    // one more part after the change, for the page breaking to stop there
+                    // even if the last part before it can take less than its available BPD
+                    partsBPD += pageProvider.getAvailableBPD(partCount + 1);
+                    ipdChangeFound = true;
+                }
+                partCount++;
+            }
+            return ipdChangeFound && contentBPD > partsBPD;
+        }
+    }
+}
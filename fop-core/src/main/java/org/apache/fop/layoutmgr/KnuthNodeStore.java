@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.util.Arrays;
+
+import org.apache.fop.layoutmgr.BreakingAlgorithm.KnuthNode;
+
+/**
+ * Storage reused by the successive runs of {@link BreakingAlgorithm#findBreakingPoints} in a
+ * page-sequence, so that breaking many paragraphs does not allocate a new active line index
+ * and a new set of nodes for each of them.
+ * <p>
+ * The store keeps the active line index of the last run, which is cleared and handed out to
+ * the next run, and a pool of nodes for algorithms that do not keep their nodes once
+ * {@link BreakingAlgorithm#findBreakingPoints} has returned, such as the line breaker. The
+ * pooled nodes are recycled in the order in which they were created, so a run reusing them
+ * only re-initializes their primitive fields. As a node is an inner object of the algorithm
+ * that allocated it, the pool keeps that algorithm reachable as long as the store itself.
+ * <p>
+ * A store is used by one run at a time; a run started while another one holds the store (for
+ * instance when a nested layout breaks its own content) simply allocates its own storage.
+ * This class is not thread-safe.
+ */
+public final class KnuthNodeStore {
+
+    /** Initial size of the active line index (two entries per line). */
+    private static final int INITIAL_ACTIVE_LINES = 20;
+
+    /** Maximum number of nodes kept in the pool. */
+    private static final int MAX_POOLED_NODES = 8192;
+
+    private KnuthNode[] activeLines = new KnuthNode[INITIAL_ACTIVE_LINES];
+
+    private KnuthNode[] nodes = new KnuthNode[64];
+
+    /** Number of nodes in the pool. */
+    private int nodeCount;
+
+    /** Index of the next pooled node to be recycled. */
+    private int nextNode;
+
+    private boolean inUse;
+
+    private int runs;
+
+    private long createdNodes;
+
+    private long recycledNodes;
+
+    /**
+     * Reserves the store for a run of the breaking algorithm.
+     * @return true if the store was free, false if it is already used by another run
+     */
+    boolean acquire() {
+        if (inUse) {
+            return false;
+        }
+        inUse = true;
+        nextNode = 0;
+        runs++;
+        return true;
+    }
+
+    /**
+     * Ends the current run. The active line index is cleared so that the store does not keep
+     * the nodes of the run alive.
+     */
+    void release() {
+        Arrays.fill(activeLines, null);
+        inUse = false;
+    }
+
+    /**
+     * Returns the active line index for the current run, which is empty.
+     * @return the active line index
+     */
+    KnuthNode[] getActiveLines() {
+        return activeLines;
+    }
+
+    /**
+     * Registers the grown active line index of the current run, so that it is reused by the
+     * next runs.
+     * @param activeLines the new active line index
+     */
+    void setActiveLines(KnuthNode[] activeLines) {
+        this.activeLines = activeLines;
+    }
+
+    /**
+     * Returns a node for the given breaking point, recycling a node of a previous run if
+     * there is one left in the pool.
+     * @param algorithm the algorithm of the current run, enclosing the node if a new one is
+     * allocated
+     * @param position index of the element in the Knuth sequence
+     * @param line number of the line ending at the breakpoint
+     * @param fitness fitness class of the line ending at the breakpoint. One of 0, 1, 2, 3.
+     * @param totalWidth accumulated width of the KnuthElements up to after the breakpoint
+     * @param totalStretch accumulated stretchability of the KnuthElements up to after the
+     * breakpoint
+     * @param totalShrink accumulated shrinkability of the KnuthElements up to after the
+     * breakpoint
+     * @param adjustRatio adjustment ratio if the line ends at this breakpoint
+     * @param availableShrink available stretch of the line ending at this breakpoint
+     * @param availableStretch available shrink of the line ending at this breakpoint
+     * @param difference difference between target and actual line width
+     * @param totalDemerits minimum total demerits up to the breakpoint
+     * @param previous active node for the preceding breakpoint
+     * @return the node
+     */
+    KnuthNode createNode(BreakingAlgorithm algorithm, int position, int line, int fitness,
+            int totalWidth, int totalStretch, int totalShrink,
+            double adjustRatio, int availableShrink, int availableStretch,
+            int difference, double totalDemerits, KnuthNode previous) {
+        if (nextNode < nodeCount) {
+            KnuthNode node = nodes[nextNode++];
+            node.init(position, line, fitness,
+                    totalWidth, totalStretch, totalShrink,
+                    adjustRatio, availableShrink, availableStretch,
+                    difference, totalDemerits, previous);
+            recycledNodes++;
+            return node;
+        }
+        KnuthNode node = algorithm.new KnuthNode(position, line, fitness,
+                totalWidth, totalStretch, totalShrink,
+                adjustRatio, availableShrink, availableStretch,
+                difference, totalDemerits, previous);
+        createdNodes++;
+        if (nodeCount < MAX_POOLED_NODES) {
+            if (nodeCount == nodes.length) {
+                nodes = Arrays.copyOf(nodes, Math.min(nodeCount * 2, MAX_POOLED_NODES));
+            }
+            nodes[nodeCount++] = node;
+            nextNode = nodeCount;
+        }
+        return node;
+    }
+
+    /** @return the number of runs that used this store */
+    public int getRunCount() {
+        return runs;
+    }
+
+    /** @return the number of nodes allocated by the store */
+    public long getCreatedNodeCount() {
+        return createdNodes;
+    }
+
+    /** @return the number of times a node of the pool was recycled */
+    public long getRecycledNodeCount() {
+        return recycledNodes;
+    }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return "KnuthNodeStore[runs=" + runs + ", nodes=" + nodeCount
+                + ", created=" + createdNodes + ", recycled=" + recycledNodes + "]";
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+
+package org.apache.fop.layoutmgr;
+
+/**
+ * Receives notifications about the work done by the layout managers, for example to find out
+ * which parts of a document are expensive to lay out. A listener is registered through
+ * {@link org.apache.fop.apps.FOUserAgent#setLayoutProfileListener(LayoutProfileListener)}; no
+ * notification is made and no time is measured when none is registered.
+ * <p>
+ * Every {@link #started(Activity, LayoutManager)} is followed on the same thread by the
+ * matching {@link #finished(Activity, LayoutManager, int)}, and activities nest: the element
+ * list of a block is created while the element list of its parent is being created. With
+ * page-sequences laid out in parallel, notifications come from several threads at once.
+ * Activities carried out directly by a layout manager for a child that is not notified are
+ * accounted to the layout manager itself.
+ *
+ * @see LayoutProfiler
+ */
+public interface LayoutProfileListener {
+
+    /** The kinds of layout work that are notified. */
+    enum Activity {
+        /** Creation of an element list by {@link LayoutManager#getNextKnuthElements}. */
+        ELEMENT_LIST,
+        /** Creation of areas by {@link LayoutManager#addAreas}. */
+        ADD_AREAS,
+        /** Determination of the line breaks of a paragraph. */
+        LINE_BREAKING,
+        /** Determination of the page or column breaks of an element list. */
+        PAGE_BREAKING
+    }
+
+    /**
+     * Notifies that a layout manager starts an activity.
+     * @param activity the activity
+     * @param lm the layout manager
+     */
+    void started(Activity activity, LayoutManager lm);
+
+    /**
+     * Notifies that a layout manager has finished an activity.
+     * @param activity the activity
+     * @param lm the layout manager
+     * @param elementCount the number of elements created or broken by the activity, 0 for
+     * {@link Activity#ADD_AREAS}
+     */
+    void finished(Activity activity, LayoutManager lm, int elementCount);
+
+    /**
+     * Notifies that layout is restarted from the given layout manager because the
+     * inline-progression-dimension changes from one page to the next.
+     * @param lm the layout manager whose element list is created again, or the top-level
+     * layout manager of the breaker if the layout manager could not be determined
+     */
+    void layoutRestarted(LayoutManager lm);
+}
@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+
+package org.apache.fop.layoutmgr;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.fop.fo.FObj;
+
+/**
+ * A {@link LayoutProfileListener} that adds up, per layout manager class and per FO node
+ * type, the number of times each activity is carried out, the time it takes and the number
+ * of elements it handles. The total time of an activity includes the time of the activities
+ * nested in it; its self time does not. The figures can be written as a JSON report.
+ * <p>
+ * This class is thread-safe, so a single profiler can be used with page-sequences laid out
+ * in parallel.
+ */
+public class LayoutProfiler implements LayoutProfileListener {
+
+    /** The figures of one activity. */
+    public static final class Timing {
+
+        private long count;
+
+        private long totalNanos;
+
+        private long selfNanos;
+
+        private long elementCount;
+
+        private Timing() {
+        }
+
+        private void add(long total, long self, int elements) {
+            count++;
+            totalNanos += total;
+            selfNanos += self;
+            elementCount += elements;
+        }
+
+        /** @return the number of times the activity was carried out */
+        public long getCount() {
+            return count;
+        }
+
+        /** @return the time spent in the activity, in nanoseconds */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * @return the time spent in the activity, excluding the activities nested in it, in
+         * nanoseconds
+         */
+        public long getSelfNanos() {
+            return selfNanos;
+        }
+
+        /** @return the number of elements created or broken by the activity */
+        public long getElementCount() {
+            return elementCount;
+        }
+    }
+
+    /** An activity in progress. */
+    private static final class Frame {
+
+        private final Activity activity;
+
+        private final LayoutManager lm;
+
+        private final long start;
+
+        private long nestedNanos;
+
+        Frame(Activity activity, LayoutManager lm, long start) {
+            this.activity = activity;
+            this.lm = lm;
+            this.start = start;
+        }
+    }
+
+    /** The figures of one layout manager class or FO node type. */
+    private static final class Entry {
+
+        private final Map<Activity, Timing> timings = new EnumMap<Activity, Timing>(Activity.class);
+
+        private int restartCount;
+
+        private Timing getTiming(Activity activity) {
+            Timing timing = timings.get(activity);
+            if (timing == null) {
+                timing = new Timing();
+                timings.put(activity, timing);
+            }
+            return timing;
+        }
+    }
+
+    private final ThreadLocal<List<Frame>> activities = new ThreadLocal<List<Frame>>() {
+        protected List<Frame> initialValue() {
+            return new ArrayList<Frame>();
+        }
+    };
+
+    private final Map<String, Entry> layoutManagers = new TreeMap<String, Entry>();
+
+    private final Map<String, Entry> foNodes = new TreeMap<String, Entry>();
+
+    private int restartCount;
+
+    /** {@inheritDoc} */
+    public void started(Activity activity, LayoutManager lm) {
+        activities.get().add(new Frame(activity, lm, System.nanoTime()));
+    }
+
+    /** {@inheritDoc} */
+    public void finished(Activity activity, LayoutManager lm, int elementCount) {
+        long end = System.nanoTime();
+        List<Frame> stack = activities.get();
+        int index = stack.size() - 1;
+        //Activities left unfinished by an exception are dropped
+        while (index >= 0 && (stack.get(index).activity != activity || stack.get(index).lm != lm)) {
+            index--;
+        }
+        if (index < 0) {
+            return;
+        }
+        Frame frame = stack.get(index);
+        while (stack.size() > index) {
+            stack.remove(stack.size() - 1);
+        }
+        long total = end - frame.start;
+        if (index > 0) {
+            stack.get(index - 1).nestedNanos += total;
+        }
+        synchronized (this) {
+            long self = total - frame.nestedNanos;
+            getEntry(layoutManagers, lm.getClass().getName()).getTiming(activity)
+                    .add(total, self, elementCount);
+            getEntry(foNodes, getFONodeName(lm)).getTiming(activity).add(total, self, elementCount);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public synchronized void layoutRestarted(LayoutManager lm) {
+        restartCount++;
+        getEntry(layoutManagers, lm.getClass().getName()).restartCount++;
+        getEntry(foNodes, getFONodeName(lm)).restartCount++;
+    }
+
+    private static Entry getEntry(Map<String, Entry> entries, String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(name, entry);
+        }
+        return entry;
+    }
+
+    private static String getFONodeName(LayoutManager lm) {
+        FObj fobj = lm.getFObj();
+        return fobj != null ? fobj.getName() : "(none)";
+    }
+
+    /**
+     * Returns the figures of an activity of a layout manager class.
+     * @param lmClass the layout manager class
+     * @param activity the activity
+     * @return the figures, or null if the activity was never carried out by that class
+     */
+    public synchronized Timing getLayoutManagerTiming(Class<? extends LayoutManager> lmClass,
+            Activity activity) {
+        Entry entry = layoutManagers.get(lmClass.getName());
+        return entry != null ? entry.timings.get(activity) : null;
+    }
+
+    /**
+     * Returns the figures of an activity of the layout managers of an FO node type.
+     * @param name the qualified name of the FO node, for example "fo:block"
+     * @param activity the activity
+     * @return the figures, or null if the activity was never carried out for that node type
+     */
+    public synchronized Timing getFONodeTiming(String name, Activity activity) {
+        Entry entry = foNodes.get(name);
+        return entry != null ? entry.timings.get(activity) : null;
+    }
+
+    /** @return the number of times layout was restarted because of a change of IPD */
+    public synchronized int getRestartCount() {
+        return restartCount;
+    }
+
+    /**
+     * Writes the figures as a JSON object, with a "layoutManagers" member keyed by layout
+     * manager class name and a "foNodes" member keyed by FO node name.
+     * @param writer the writer to write to
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized void writeJSON(Writer writer) throws IOException {
+        writer.write("{\n  \"restarts\": " + restartCount + ",\n");
+        writeEntries(writer, "layoutManagers", layoutManagers);
+        writer.write(",\n");
+        writeEntries(writer, "foNodes", foNodes);
+        writer.write("\n}\n");
+        writer.flush();
+    }
+
+    private static void writeEntries(Writer writer, String name, Map<String, Entry> entries)
+            throws IOException {
+        writer.write("  \"" + name + "\": {");
+        boolean first = true;
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            writer.write(first ? "\n" : ",\n");
+            first = false;
+            Entry entry = e.getValue();
+            writer.write("    \"" + e.getKey() + "\": {");
+            String separator = "\n";
+            for (Map.Entry<Activity, Timing> t : entry.timings.entrySet()) {
+                Timing timing = t.getValue();
+                writer.write(separator + "      \"" + getJSONName(t.getKey()) + "\": {"
+                        + "\"count\": " + timing.count
+                        + ", \"totalNanos\": " + timing.totalNanos
+                        + ", \"selfNanos\": " + timing.selfNanos
+                        + ", \"elements\": " + timing.elementCount + "}");
+                separator = ",\n";
+            }
+            if (entry.restartCount > 0) {
+                writer.write(separator + "      \"restarts\": " + entry.restartCount);
+            }
+            writer.write("\n    }");
+        }
+        writer.write(first ? "}" : "\n  }");
+    }
+
+    private static String getJSONName(Activity activity) {
+        switch (activity) {
+        case ELEMENT_LIST:
+            return "elementList";
+        case ADD_AREAS:
+            return "addAreas";
+        case LINE_BREAKING:
+            return "lineBreaking";
+        default:
+            return "pageBreaking";
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.fop.traits.MinOptMax;
+
+/**
+ * A breaking algorithm balancing columns in linear time. The lengths of the content are
+ * summed up in a single pass over the element list, which also collects the legal breaks.
+ * Whether the content fits into a number of columns of a given height is then checked by
+ * filling the columns one after the other, each with a binary search over these prefix sums.
+ * The smallest height at which the content fits into the available columns is found with a
+ * binary search, and the break of each column is the first one after which the rest of the
+ * content fits into the following columns without exceeding this column. Columns are thus as
+ * even as the breaks allow, earlier columns being longer than later ones, as with
+ * {@link BalancingColumnBreakingAlgorithm}, which redistributes the content until the breaks
+ * settle instead.
+ */
+public class LinearBalancingColumnBreakingAlgorithm extends BalancingColumnBreakingAlgorithm {
+
+    /**
+     * Creates a new instance.
+     * @param topLevelLM the top level layout manager
+     * @param pageProvider the page provider
+     * @param layoutListener the layout listener
+     * @param alignment alignment of the paragraph/page
+     * @param alignmentLast alignment of the last line
+     * @param footnoteSeparatorLength length of the footnote separator
+     * @param partOverflowRecovery true if part overflow recovery is activated
+     * @param columnCount the number of columns to balance the content over
+     */
+    public LinearBalancingColumnBreakingAlgorithm(LayoutManager topLevelLM,
+            PageProvider pageProvider,
+            PageBreakingLayoutListener layoutListener,
+            int alignment, int alignmentLast,
+            MinOptMax footnoteSeparatorLength,
+            boolean partOverflowRecovery,
+            int columnCount) {
+        super(topLevelLM, pageProvider, layoutListener, alignment, alignmentLast,
+                footnoteSeparatorLength, partOverflowRecovery, columnCount);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected List<Integer> calculateIdealBreaks(int startPos) {
+        Breaks breaks = new Breaks(startPos);
+        //the content always fits into a single column of its whole length
+        int low = 0;
+        int high = breaks.getLength(startPos);
+        while (low < high) {
+            int height = low + (high - low) / 2;
+            if (breaks.fits(startPos, 0, columnCount, height)) {
+                high = height;
+            } else {
+                low = height + 1;
+            }
+        }
+        int maxHeight = high;
+
+        List<Integer> idealBreaks = new ArrayList<Integer>(columnCount);
+        idealBreaks.add(startPos);
+        int columnStart = startPos;
+        int firstBreak = 0;
+        for (int columns = columnCount; columns > 1; columns--) {
+            //the first break after which the rest fits into the following columns
+            int lastBreak = breaks.getLastBreak(columnStart, firstBreak, maxHeight);
+            if (lastBreak < firstBreak) {
+                break;
+            }
+            int found = lastBreak;
+            int left = firstBreak;
+            int right = lastBreak - 1;
+            while (left <= right) {
+                int mid = (left + right) >>> 1;
+                int nextStart = breaks.getNextStart(mid);
+                if (breaks.fits(nextStart, breaks.getFirstBreak(nextStart, mid + 1), columns - 1,
+                        breaks.getColumnLength(columnStart, mid))) {
+                    found = mid;
+                    right = mid - 1;
+                } else {
+                    left = mid + 1;
+                }
+            }
+            idealBreaks.add(breaks.getPosition(found));
+            columnStart = breaks.getNextStart(found);
+            firstBreak = breaks.getFirstBreak(columnStart, found + 1);
+        }
+        return idealBreaks;
+    }
+
+    /** The legal breaks of the content to balance and the prefix sums of its lengths. */
+    private final class Breaks {
+
+        private final int startPos;
+
+        /** the length of the boxes and glues before each element, from startPos */
+        private final int[] lengths;
+
+        /** the index of the element of each legal break, in increasing order */
+        private final int[] positions;
+
+        /** the length of the content up to and including each legal break */
+        private final int[] breakLengths;
+
+        /** the index of the first box after each legal break */
+        private final int[] nextStarts;
+
+        private final int breakCount;
+
+        Breaks(int startPos) {
+            this.startPos = startPos;
+            int size = par.size();
+            lengths = new int[size - startPos + 1];
+            positions = new int[size - startPos];
+            breakLengths = new int[size - startPos];
+            nextStarts = new int[size - startPos];
+            int count = 0;
+            int length = 0;
+            boolean prevIsBox = false;
+            for (int i = startPos; i < size; i++) {
+                KnuthElement element = (KnuthElement) par.get(i);
+                lengths[i - startPos] = length;
+                if (element.isPenalty()) {
+                    //the last element ends the last column
+                    if (element.getPenalty() < KnuthElement.INFINITE && i < size - 1) {
+                        positions[count] = i;
+                        breakLengths[count++] = length + element.getWidth();
+                    }
+                } else {
+                    if (element.isGlue() && prevIsBox) {
+                        positions[count] = i;
+                        breakLengths[count++] = length;
+                    }
+                    length += element.getWidth();
+                }
+                if (element.isBox()) {
+                    //the columns following the breaks seen since the previous box start here
+                    for (int b = count - 1; b >= 0 && nextStarts[b] == 0 && positions[b] < i; b--) {
+                        nextStarts[b] = i;
+                    }
+                }
+                prevIsBox = element.isBox();
+            }
+            lengths[size - startPos] = length;
+            //breaks followed by no box leave nothing for the next column
+            while (count > 0 && nextStarts[count - 1] == 0) {
+                count--;
+            }
+            this.breakCount = count;
+        }
+
+        int getPosition(int breakIndex) {
+            return positions[breakIndex];
+        }
+
+        int getNextStart(int breakIndex) {
+            return nextStarts[breakIndex];
+        }
+
+        /** Returns the first break from the given one which follows the start of a column. */
+        int getFirstBreak(int columnStart, int breakIndex) {
+            while (breakIndex < breakCount && positions[breakIndex] < columnStart) {
+                breakIndex++;
+            }
+            return breakIndex;
+        }
+
+        /** Returns the length of the content from the given element to the end. */
+        int getLength(int columnStart) {
+            return lengths[lengths.length - 1] - lengths[columnStart - startPos];
+        }
+
+        /** Returns the length of a column from the given element up to the given break. */
+        int getColumnLength(int columnStart, int breakIndex) {
+            return breakLengths[breakIndex] - lengths[columnStart - startPos];
+        }
+
+        /**
+         * Returns the last break up to which a column starting at the given element does not
+         * exceed the given height, or -1 if there is none.
+         */
+        int getLastBreak(int columnStart, int firstBreak, int height) {
+            int maxLength = lengths[columnStart - startPos] + height;
+            int low = firstBreak;
+            int high = breakCount - 1;
+            int found = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (breakLengths[mid] <= maxLength) {
+                    found = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Indicates whether the content from the given element fits into the given number of
+         * columns of the given height, filling each column as far as possible.
+         */
+        boolean fits(int columnStart, int firstBreak, int columns, int height) {
+            for (int column = 1; getLength(columnStart) > height; column++) {
+                if (column >= columns) {
+                    return false;
+                }
+                int lastBreak = getLastBreak(columnStart, firstBreak, height);
+                if (lastBreak < firstBreak) {
+                    return false;
+                }
+                columnStart = nextStarts[lastBreak];
+                firstBreak = getFirstBreak(columnStart, lastBreak + 1);
+            }
+            return true;
+        }
+    }
+}
@@ -30,6 +30,7 @@ import org.apache.fop.area.Footnote;
 import org.apache.fop.area.PageViewport;
 import org.apache.fop.fo.Constants;
 import org.apache.fop.fo.FObj;
+import org.apache.fop.fo.pagination.PageSequence;
 import org.apache.fop.fo.pagination.Region;
 import org.apache.fop.fo.pagination.RegionBody;
 import org.apache.fop.fo.pagination.StaticContent;
@@ -161,6 +162,7 @@ public class PageBreaker extends AbstractBreaker {
     /** {@inheritDoc} */
     protected int getNextBlockList(LayoutContext childLC, int nextSequenceStartsOn,
             Position positionAtIPDChange, LayoutManager restartLM, List firstElements) {
+        childFLM.discardRemainingKnuthElements();
         if (!layoutRedone && !handlingFloat()) {
             if (!firstPart) {
                 // if this is the first page that will be created by
@@ -246,10 +248,18 @@ public class PageBreaker extends AbstractBreaker {
     /** {@inheritDoc} */
     protected List getNextKnuthElements(LayoutContext context, int alignment) {
         List contentList = null;
+        LayoutProfileListener profiler = childFLM.getLayoutProfileListener();
+        if (profiler != null) {
+            profiler.started(LayoutProfileListener.Activity.ELEMENT_LIST, childFLM);
+        }
 
         while (!childFLM.isFinished() && contentList == null) {
             contentList = childFLM.getNextKnuthElements(context, alignment);
         }
+        if (profiler != null) {
+            profiler.finished(LayoutProfileListener.Activity.ELEMENT_LIST, childFLM,
+                    ElementListUtils.countElements(contentList));
+        }
 
         // scan contentList, searching for footnotes
         if (containsFootnotes(contentList, context)) {
@@ -264,11 +274,25 @@ public class PageBreaker extends AbstractBreaker {
     protected List getNextKnuthElements(LayoutContext context, int alignment,
             Position positionAtIPDChange, LayoutManager restartAtLM) {
         List contentList = null;
+        LayoutProfileListener profiler = childFLM.getLayoutProfileListener();
+        if (profiler != null) {
+            profiler.started(LayoutProfileListener.Activity.ELEMENT_LIST, childFLM);
+        }
 
+        // the pages up to the next change of IPD are known unless the layout is redone or
+        // the page breaking is incremental: only the content they can take is laid out again
+        if (!layoutRedone && !handlingFloat() && getPageWindow() == 0) {
+            childFLM.setRestartPageProvider(pageProvider);
+        }
         do {
             contentList = childFLM.getNextKnuthElements(context, alignment, positionAtIPDChange,
                     restartAtLM);
         } while (!childFLM.isFinished() && contentList == null);
+        childFLM.setRestartPageProvider(null);
+        if (profiler != null) {
+            profiler.finished(LayoutProfileListener.Activity.ELEMENT_LIST, childFLM,
+                    ElementListUtils.countElements(contentList));
+        }
 
         // scan contentList, searching for footnotes
         if (containsFootnotes(contentList, context)) {
@@ -278,6 +302,30 @@ public class PageBreaker extends AbstractBreaker {
         return contentList;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected boolean hasRemainingKnuthElements() {
+        return childFLM.hasRemainingKnuthElements();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected List getRemainingKnuthElements(LayoutContext context, int alignment) {
+        LayoutProfileListener profiler = childFLM.getLayoutProfileListener();
+        if (profiler != null) {
+            profiler.started(LayoutProfileListener.Activity.ELEMENT_LIST, childFLM);
+        }
+        List contentList = childFLM.getRemainingKnuthElements(context, alignment);
+        if (profiler != null) {
+            profiler.finished(LayoutProfileListener.Activity.ELEMENT_LIST, childFLM,
+                    ElementListUtils.countElements(contentList));
+        }
+        if (containsFootnotes(contentList, context)) {
+            handleFootnoteSeparator();
+        }
+        return contentList;
+    }
+
     /**
      * @return current display alignment
      */
@@ -312,7 +360,14 @@ public class PageBreaker extends AbstractBreaker {
             footnoteSeparatorLM.doLayout();
         }
 
+        LayoutProfileListener profiler = childFLM.getLayoutProfileListener();
+        if (profiler != null) {
+            profiler.started(LayoutProfileListener.Activity.ADD_AREAS, childFLM);
+        }
         childFLM.addAreas(posIter, context);
+        if (profiler != null) {
+            profiler.finished(LayoutProfileListener.Activity.ADD_AREAS, childFLM, 0);
+        }
     }
 
     /**
@@ -338,10 +393,52 @@ public class PageBreaker extends AbstractBreaker {
         addAreas(alg, partCount, originalList, effectiveList);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected boolean canCommitParts() {
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected int getPageWindow() {
+        PageSequence pageSequence = pslm.getPageSequence();
+        if (needColumnBalancing || pageSequence.hasPagePositionLast()
+                || pageSequence.hasPagePositionOnly()) {
+            //the last parts are laid out again, which are only known at the end
+            return 0;
+        }
+        return pageSequence.getUserAgent().getPageBreakingWindow();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected int addCommittedAreas(PageBreakingAlgorithm alg, int partCount, BlockSequence blockList) {
+        addAreas(alg, partCount, blockList, blockList);
+        PageBreakPosition pbp = alg.getPageBreaks().get(partCount - 1);
+        int newStartPos = alg.par.getFirstBoxIndex(pbp.getLeafPos() + 1);
+        //Handle the break right here, as startPart() would for the next part
+        ListElement breakElement = blockList.getElement(pbp.getLeafPos());
+        if (breakElement.isPenalty()
+                && ((KnuthPenalty) breakElement).getPenalty() != KnuthPenalty.INFINITE) {
+            handleBreakTrait(((KnuthPenalty) breakElement).getBreakClass());
+        } else {
+            handleBreakTrait(Constants.EN_COLUMN);
+        }
+        pageBreakHandled = true;
+        //Update so the available BPD is reported correctly
+        pageProvider.setStartOfNextElementList(pslm.getCurrentPageNum(),
+                pslm.getCurrentPV().getCurrentSpan().getCurrentFlowIndex(), this.spanAllActive);
+        //Make sure we only add the areas we haven't added already
+        blockList.ignoreAtStart = newStartPos;
+        blockList.breakAtStart = pbp.getLeafPos();
+        return newStartPos;
+    }
+
     protected void prepareToRedoLayout(PageBreakingAlgorithm alg, int partCount,
             BlockSequence originalList,
             BlockSequence effectiveList) {
-        int newStartPos = 0;
+        int newStartPos = effectiveList.ignoreAtStart;
         int restartPoint = pageProvider.getStartingPartIndexForLastPage(partCount);
         if (restartPoint > 0 && !layoutRedone) {
             // Add definitive areas for the parts before the
@@ -350,6 +447,7 @@ public class PageBreaker extends AbstractBreaker {
             // Get page break from which we restart
             PageBreakPosition pbp = alg.getPageBreaks().get(restartPoint - 1);
             newStartPos = alg.par.getFirstBoxIndex(pbp.getLeafPos() + 1);
+            effectiveList.breakAtStart = -1;
             // Handle page break right here to avoid any side-effects
             if (newStartPos > 0) {
                 handleBreakTrait(Constants.EN_PAGE);
@@ -386,7 +484,7 @@ public class PageBreaker extends AbstractBreaker {
     private void redoLayout(PageBreakingAlgorithm alg, int partCount,
             BlockSequence originalList, BlockSequence effectiveList) {
 
-        int newStartPos = 0;
+        int newStartPos = effectiveList.ignoreAtStart;
         int restartPoint = pageProvider.getStartingPartIndexForLastPage(partCount);
         if (restartPoint > 0) {
             //Add definitive areas for the parts before the
@@ -395,6 +493,7 @@ public class PageBreaker extends AbstractBreaker {
             //Get page break from which we restart
             PageBreakPosition pbp = alg.getPageBreaks().get(restartPoint - 1);
             newStartPos = alg.par.getFirstBoxIndex(pbp.getLeafPos() + 1);
+            effectiveList.breakAtStart = -1;
             //Handle page break right here to avoid any side-effects
             if (newStartPos > 0) {
                 handleBreakTrait(Constants.EN_PAGE);
@@ -420,11 +519,18 @@ public class PageBreaker extends AbstractBreaker {
             log.debug("===================================================");
 
             //Restart last page
-            algRestart = new BalancingColumnBreakingAlgorithm(
-                    getTopLevelLM(), getPageProvider(), createLayoutListener(),
-                    alignment, Constants.EN_START, footnoteSeparatorLength,
-                    isPartOverflowRecoveryActivated(),
-                    pslm.getCurrentPV().getBodyRegion().getColumnCount());
+            int columnCount = pslm.getCurrentPV().getBodyRegion().getColumnCount();
+            if (pslm.getPageSequence().getUserAgent().isLinearColumnBalancing()) {
+                algRestart = new LinearBalancingColumnBreakingAlgorithm(
+                        getTopLevelLM(), getPageProvider(), createLayoutListener(),
+                        alignment, Constants.EN_START, footnoteSeparatorLength,
+                        isPartOverflowRecoveryActivated(), columnCount);
+            } else {
+                algRestart = new BalancingColumnBreakingAlgorithm(
+                        getTopLevelLM(), getPageProvider(), createLayoutListener(),
+                        alignment, Constants.EN_START, footnoteSeparatorLength,
+                        isPartOverflowRecoveryActivated(), columnCount);
+            }
             log.debug("===================================================");
         } else  {
             // Handle special page-master for last page
@@ -447,9 +553,8 @@ public class PageBreaker extends AbstractBreaker {
             log.debug("===================================================");
         }
 
-        int optimalPageCount = algRestart.findBreakingPoints(effectiveList,
-                    newStartPos,
-                    1, true, BreakingAlgorithm.ALL_BREAKS);
+        algRestart.setNodeStore(getNodeStore(), false);
+        int optimalPageCount = findPageBreaks(algRestart, effectiveList, newStartPos);
         log.debug("restart: optimalPageCount= " + optimalPageCount
                 + " pageBreaks.size()= " + algRestart.getPageBreaks().size());
 
@@ -528,15 +633,16 @@ public class PageBreaker extends AbstractBreaker {
     /** {@inheritDoc} */
     protected void finishPart(PageBreakingAlgorithm alg, PageBreakPosition pbp) {
         // add footnote areas
+        boolean hasFootnotes = pbp.footnoteFirstListIndex < pbp.footnoteLastListIndex
+                || pbp.footnoteFirstElementIndex <= pbp.footnoteLastElementIndex;
         if (!pslm.getTableHeaderFootnotes().isEmpty()
-                || pbp.footnoteFirstListIndex < pbp.footnoteLastListIndex
-                || pbp.footnoteFirstElementIndex <= pbp.footnoteLastElementIndex
+                || hasFootnotes
                 || !pslm.getTableFooterFootnotes().isEmpty()) {
             for (List<KnuthElement> footnote : pslm.getTableHeaderFootnotes()) {
                 addFootnoteAreas(footnote);
             }
             // call addAreas() for each FootnoteBodyLM
-            for (int i = pbp.footnoteFirstListIndex; i <= pbp.footnoteLastListIndex; i++) {
+            for (int i = pbp.footnoteFirstListIndex; hasFootnotes && i <= pbp.footnoteLastListIndex; i++) {
                 List elementList = alg.getFootnoteList(i);
                 int firstIndex = (i == pbp.footnoteFirstListIndex
                         ? pbp.footnoteFirstElementIndex : 0);
@@ -766,7 +872,7 @@ public class PageBreaker extends AbstractBreaker {
         pageBreakHandled = true;
         List firstElements = Collections.EMPTY_LIST;
         KnuthNode floatNode = alg.getBestFloatEdgeNode();
-        int floatPosition = floatNode.position;
+        int floatPosition = floatNode.getPosition();
         KnuthElement floatElem = alg.getElement(floatPosition);
         Position positionAtBreak = floatElem.getPosition();
         if (!(positionAtBreak instanceof SpaceResolver.SpaceHandlingBreakPosition)) {
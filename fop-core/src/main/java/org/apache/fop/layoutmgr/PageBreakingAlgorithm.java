@@ -20,6 +20,7 @@
 package org.apache.fop.layoutmgr;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
@@ -111,6 +112,16 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
     private int previousFootnoteElementIndex = -2;
     private boolean relayingFootnotes;
 
+    /** Number of parts of lookahead in incremental mode, 0 to consider the whole sequence. */
+    private int pageWindow;
+    /** The value of endLine when the lookahead was last checked. */
+    private int lookaheadCheckedLine;
+    private KnuthNode committedNode;
+
+    /** True if the sequence is only the beginning of the content laid out after a restart. */
+    private boolean sequenceIncomplete;
+    private boolean endOfIncompleteSequenceReached;
+
     /**
      * Construct a page breaking algorithm.
      * @param topLevelLM the top level layout manager
@@ -168,9 +179,9 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         /**
          * Pending variants of dynamic contents that were evaluated WRT this node.
          * When computing page difference for a break element, the total width of these variants
-         * will be added to 'actualWidth'.
+         * will be added to 'actualWidth'. Created on demand, as most nodes have none.
          */
-        private final List<Variant> pendingVariants = new ArrayList<Variant>();
+        private List<Variant> pendingVariants = Collections.emptyList();
         private int totalVariantsWidth;
 
         public KnuthPageNode(int position,
@@ -191,6 +202,9 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         }
 
         public void addVariant(Variant variant) {
+            if (pendingVariants.isEmpty()) {
+                pendingVariants = new ArrayList<Variant>(2);
+            }
             pendingVariants.add(variant);
             totalVariantsWidth += variant.width;
         }
@@ -286,11 +300,11 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         KnuthNode node = lastBeforeKeepContextSwitch;
         lastBeforeKeepContextSwitch = null;
         // content would overflow, insert empty page/column(s) and try again
-        while (!pageProvider.endPage(node.line - 1)) {
+        while (!pageProvider.endPage(node.getLine() - 1)) {
             log.trace("Adding node for empty column");
             node = createNode(
-                    node.position,
-                    node.line + 1, 1,
+                    node.getPosition(),
+                    node.getLine() + 1, 1,
                     0, 0, 0,
                     0, 0, 0,
                     0, 0, node);
@@ -317,11 +331,11 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
          * and the other one corresponds to a page-break, return the page-break node
          */
         if (pageProvider != null) {
-            if (pageProvider.endPage(node1.line - 1)
-                    && !pageProvider.endPage(node2.line - 1)) {
+            if (pageProvider.endPage(node1.getLine() - 1)
+                    && !pageProvider.endPage(node2.getLine() - 1)) {
                 return node1;
-            } else if (pageProvider.endPage(node2.line - 1)
-                    && !pageProvider.endPage(node1.line - 1)) {
+            } else if (pageProvider.endPage(node2.getLine() - 1)
+                    && !pageProvider.endPage(node1.getLine() - 1)) {
                 return node2;
             }
         }
@@ -454,7 +468,7 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         if (footnotesPending) {
             // remove from footnotesList the note lists that will be met
             // after the restarting point
-            for (int j = currentIndex; j >= restartingNode.position; j--) {
+            for (int j = currentIndex; j >= restartingNode.getPosition(); j--) {
                 final KnuthElement resetElement = getElement(j);
                 if (resetElement instanceof KnuthBlockBox
                         && ((KnuthBlockBox) resetElement).hasAnchors()) {
@@ -549,7 +563,7 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
     protected int computeDifference(KnuthNode activeNode, KnuthElement element,
                                     int elementIndex) {
         KnuthPageNode pageNode = (KnuthPageNode) activeNode;
-        int actualWidth = totalWidth - pageNode.totalWidth;
+        int actualWidth = totalWidth - pageNode.getTotalWidth();
         int footnoteSplit;
         boolean canDeferOldFN;
         actualWidth += pageNode.totalVariantsWidth;
@@ -566,7 +580,7 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
                 // this page contains some footnote citations
                 // add the footnote separator width
                 actualWidth += footnoteSeparatorLength.getOpt();
-                if (actualWidth + allFootnotes <= getLineWidth(activeNode.line)) {
+                if (actualWidth + allFootnotes <= getLineWidth(activeNode.getLine())) {
                     // there is enough space to insert all footnotes:
                     // add the whole allFootnotes length
                     actualWidth += allFootnotes;
@@ -578,7 +592,7 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
                              pageNode, elementIndex))
                             || newFootnotes)
                            && (footnoteSplit = getFootnoteSplit(
-                               pageNode, getLineWidth(activeNode.line) - actualWidth,
+                               pageNode, getLineWidth(activeNode.getLine()) - actualWidth,
                                 canDeferOldFN)) > 0) {
                     // it is allowed to break or even defer footnotes if either:
                     //  - there are new footnotes in the last piece of content, and
@@ -608,7 +622,7 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         } else {
             // there are no footnotes
         }
-        int diff = getLineWidth(activeNode.line) - actualWidth;
+        int diff = getLineWidth(activeNode.getLine()) - actualWidth;
         if (autoHeight && diff < 0) {
             //getLineWidth() for auto-height parts return 0 so the diff will be negative
             return 0; //...but we don't want to shrink in this case. Stick to optimum.
@@ -644,7 +658,7 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
      * @return  true if footnotes can be deferred
      */
     private boolean canDeferOldFootnotes(KnuthPageNode node, int contentElementIndex) {
-        return (noBreakBetween(node.position, contentElementIndex)
+        return (noBreakBetween(node.getPosition(), contentElementIndex)
                 && deferredFootnotes(node.footnoteListIndex,
                         node.footnoteElementIndex, node.insertedFootnotes));
     }
@@ -858,7 +872,7 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
     protected double computeAdjustmentRatio(KnuthNode activeNode, int difference) {
         // compute the adjustment ratio
         if (difference > 0) {
-            int maxAdjustment = totalStretch - activeNode.totalStretch;
+            int maxAdjustment = totalStretch - activeNode.getTotalStretch();
             // add the footnote separator stretch if some footnote content will be added
             if (((KnuthPageNode) activeNode).insertedFootnotes < totalFootnotesLength) {
                 maxAdjustment += footnoteSeparatorLength.getStretch();
@@ -869,7 +883,7 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
                 return INFINITE_RATIO;
             }
         } else if (difference < 0) {
-            int maxAdjustment = totalShrink - activeNode.totalShrink;
+            int maxAdjustment = totalShrink - activeNode.getTotalShrink();
             // add the footnote separator shrink if some footnote content will be added
             if (((KnuthPageNode) activeNode).insertedFootnotes < totalFootnotesLength) {
                 maxAdjustment += footnoteSeparatorLength.getShrink();
@@ -907,12 +921,12 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         }
 
         if (element.isPenalty() && ((KnuthPenalty) element).isPenaltyFlagged()
-            && getElement(activeNode.position).isPenalty()
-            && ((KnuthPenalty) getElement(activeNode.position)).isPenaltyFlagged()) {
+            && getElement(activeNode.getPosition()).isPenalty()
+            && ((KnuthPenalty) getElement(activeNode.getPosition())).isPenaltyFlagged()) {
             // add demerit for consecutive breaks at flagged penalties
             demerits += repeatedFlaggedDemerit;
         }
-        if (Math.abs(fitnessClass - activeNode.fitness) > 1) {
+        if (Math.abs(fitnessClass - activeNode.getFitness()) > 1) {
             // add demerit for consecutive breaks
             // with very different fitness classes
             demerits += incompatibleFitnessDemerit;
@@ -959,7 +973,7 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         insertedFootnotesLength = lastNode.insertedFootnotes;
         footnoteListIndex = lastNode.footnoteListIndex;
         footnoteElementIndex = lastNode.footnoteElementIndex;
-        int availableBPD = getLineWidth(lastNode.line);
+        int availableBPD = getLineWidth(lastNode.getLine());
         int split = 0;
         KnuthPageNode prevNode = lastNode;
 
@@ -982,27 +996,27 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
                 // cannot add any content: create a new node and start again
                 // @SuppressFBWarnings("BC_UNCONFIRMED_CAST_OF_RETURN_VALUE")
                 KnuthPageNode node = (KnuthPageNode)
-                                     createNode(lastNode.position, prevNode.line + 1, 1,
+                                     createNode(lastNode.getPosition(), prevNode.getLine() + 1, 1,
                                                 insertedFootnotesLength - prevNode.insertedFootnotes,
                                                 0, 0,
                                                 0, 0, 0,
                                                 0, 0, prevNode);
-                addNode(node.line, node);
-                removeNode(prevNode.line, prevNode);
+                addNode(node.getLine(), node);
+                removeNode(prevNode.getLine(), prevNode);
 
                 prevNode = node;
-                availableBPD = getLineWidth(node.line);
+                availableBPD = getLineWidth(node.getLine());
             }
         }
         // create the last node
         // @SuppressFBWarnings("BC_UNCONFIRMED_CAST_OF_RETURN_VALUE")
         KnuthPageNode node = (KnuthPageNode)
-                             createNode(lastNode.position, prevNode.line + 1, 1,
+                             createNode(lastNode.getPosition(), prevNode.getLine() + 1, 1,
                                         totalFootnotesLength - prevNode.insertedFootnotes, 0, 0,
                                         0, 0, 0,
                                         0, 0, prevNode);
-        addNode(node.line, node);
-        removeNode(prevNode.line, prevNode);
+        addNode(node.getLine(), node);
+        removeNode(prevNode.getLine(), prevNode);
     }
 
     /**
@@ -1061,19 +1075,19 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
                 penalty.setActiveVariant(var);
             }
         }
-        int difference = bestActiveNode.difference;
-        if (difference + bestActiveNode.availableShrink < 0) {
+        int difference = bestActiveNode.getDifference();
+        if (difference + bestActiveNode.getAvailableShrink() < 0) {
             if (!autoHeight) {
                 if (layoutListener != null) {
-                    layoutListener.notifyOverflow(bestActiveNode.line - 1, -difference, getFObj());
+                    layoutListener.notifyOverflow(bestActiveNode.getLine() - 1, -difference, getFObj());
                 }
             }
         }
-        boolean isNonLastPage = (bestActiveNode.line < total);
+        boolean isNonLastPage = (bestActiveNode.getLine() < total);
         int blockAlignment = isNonLastPage ? alignment : alignmentLast;
         // it is always allowed to adjust space, so the ratio must be set regardless of
         // the value of the property display-align; the ratio must be <= 1
-        double ratio = bestActiveNode.adjustRatio;
+        double ratio = bestActiveNode.getAdjustRatio();
         if (ratio < 0) {
             // page break with a negative difference:
             // spaces always have enough shrink
@@ -1086,7 +1100,7 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
             // not-last page with a positive difference greater than the available stretch
             // spaces can stretch to fill the difference only partially
             ratio = 1;
-            difference -= bestActiveNode.availableStretch;
+            difference -= bestActiveNode.getAvailableStretch();
         } else {
             // last page with a positive difference:
             // spaces do not need to stretch
@@ -1102,12 +1116,12 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         // backwards, from the last one to the first one
         if (log.isDebugEnabled()) {
             log.debug("BBA> difference=" + difference + " ratio=" + ratio
-                    + " position=" + bestActiveNode.position);
+                    + " position=" + bestActiveNode.getPosition());
         }
         if (handlingFloat() && floatPosition == null) {
-            floatPosition = new FloatPosition(this.topLevelLM, bestActiveNode.position, ratio, difference);
+            floatPosition = new FloatPosition(this.topLevelLM, bestActiveNode.getPosition(), ratio, difference);
         } else {
-            boolean useRelayedFootnotes = relayingFootnotes && bestActiveNode.previous.position == 0;
+            boolean useRelayedFootnotes = relayingFootnotes && bestActiveNode.previous.getPosition() == 0;
             // compute the indexes of the first footnote list and the first element in that list
             int firstListIndex = (useRelayedFootnotes) ? previousFootnoteListIndex
                     : ((KnuthPageNode) bestActiveNode.previous).footnoteListIndex;
@@ -1125,7 +1139,7 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
             } else {
                 firstElementIndex++;
             }
-            insertPageBreakAsFirst(new PageBreakPosition(this.topLevelLM, bestActiveNode.position,
+            insertPageBreakAsFirst(new PageBreakPosition(this.topLevelLM, bestActiveNode.getPosition(),
                     firstListIndex, firstElementIndex, ((KnuthPageNode) bestActiveNode).footnoteListIndex,
                     ((KnuthPageNode) bestActiveNode).footnoteElementIndex, ratio, difference));
         }
@@ -1139,9 +1153,9 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         for (int i = startLine; i < endLine; i++) {
             for (KnuthNode node = getNode(i); node != null; node = node.next) {
                 if (favorSinglePart
-                        && node.line > 1
+                        && node.getLine() > 1
                         && bestActiveNode != null
-                        && Math.abs(bestActiveNode.difference) < bestActiveNode.availableShrink) {
+                        && Math.abs(bestActiveNode.getDifference()) < bestActiveNode.getAvailableShrink()) {
                     //favor current best node, so just skip the current node because it would
                     //result in more than one part
                 } else {
@@ -1153,7 +1167,7 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
             }
         }
         assert (bestActiveNode != null);
-        return bestActiveNode.line;
+        return bestActiveNode.getLine();
     }
 
     /**
@@ -1203,7 +1217,7 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
 
     @Override
     protected KnuthNode recoverFromOverflow() {
-        if (compareIPDs(getLastTooLong().line - 1) != 0) {
+        if (compareIPDs(getLastTooLong().getLine() - 1) != 0) {
             /**
              * If the IPD of the next page changes, disable the recovery mechanism as the
              * inline content has to be re-laid out according to the new IPD anyway.
@@ -1232,9 +1246,9 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
          * different ipd. So tweak the parameter to fall into the non-last-page
          * case.
          */
-        calculateBreakPoints(bestNodeForIPDChange, par, bestNodeForIPDChange.line + 1);
+        calculateBreakPoints(bestNodeForIPDChange, par, bestNodeForIPDChange.getLine() + 1);
         activeLines = null;
-        return bestNodeForIPDChange.line;
+        return bestNodeForIPDChange.getLine();
     }
 
     /**
@@ -1245,7 +1259,7 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
      */
     @Override
     protected void addNode(int line, KnuthNode node) {
-        if (node.position < par.size() - 1 && line > 0
+        if (node.getPosition() < par.size() - 1 && line > 0
                 && (ipdDifference = compareIPDs(line - 1)) != 0) {
             log.trace("IPD changes at page " + line);
             if (bestNodeForIPDChange == null
@@ -1253,7 +1267,7 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
                 bestNodeForIPDChange = node;
             }
         } else {
-            if (node.position == par.size() - 1) {
+            if (node.getPosition() == par.size() - 1) {
                 /*
                  * The whole sequence could actually fit on the last page before
                  * the IPD change. No need to do any special handling.
@@ -1267,6 +1281,112 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         }
     }
 
+    /**
+     * Sets the number of parts (pages or columns) the algorithm looks ahead in incremental
+     * mode. When the active nodes reach twice that number of parts, the breaks up to the
+     * ancestor, that many parts back, of the best node of the last part are decided and the
+     * algorithm stops; the caller adds the areas of these parts and starts a new run after
+     * the last decided break. Breaks are only decided at nodes that have no deferred footnotes
+     * and no pending variants of dynamic content. A value of 0 (the default) considers the
+     * whole sequence, which gives the optimal set of breaks. The sequence itself is still
+     * complete from the first run on: only the active nodes are bounded by the window.
+     * @param pageWindow the number of parts of lookahead, or 0
+     */
+    public void setPageWindow(int pageWindow) {
+        this.pageWindow = pageWindow;
+    }
+
+    /**
+     * Returns the node up to which the breaks were decided if the run stopped before the end
+     * of the sequence, in incremental mode.
+     * @return the last decided node, or null if the whole sequence was handled
+     */
+    KnuthNode getCommittedNode() {
+        return committedNode;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean canCommit() {
+        if (pageWindow <= 0 || endLine <= lookaheadCheckedLine) {
+            return false;
+        }
+        lookaheadCheckedLine = endLine;
+        if (endLine - 1 < 2 * pageWindow || handlingFloat() || bestNodeForIPDChange != null) {
+            return false;
+        }
+        KnuthNode bestNode = null;
+        for (KnuthNode node = getNode(endLine - 1); node != null; node = node.next) {
+            if (bestNode == null || node.totalDemerits < bestNode.totalDemerits) {
+                bestNode = node;
+            }
+        }
+        KnuthNode node = bestNode;
+        while (node.getLine() > bestNode.getLine() - pageWindow) {
+            node = node.previous;
+        }
+        KnuthNode startNode = node;
+        while (startNode.previous != null) {
+            startNode = startNode.previous;
+        }
+        KnuthPageNode pageNode = (KnuthPageNode) node;
+        if (node.getPosition() <= startNode.getPosition()
+                || pageNode.insertedFootnotes != pageNode.totalFootnotes
+                || !pageNode.pendingVariants.isEmpty()) {
+            // no progress (only empty parts after an overflow) or content still pending
+            return false;
+        }
+        committedNode = node;
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected int handleCommit() {
+        log.debug("Breaks decided up to part " + committedNode.getLine() + ": " + committedNode);
+        // as for an IPD change, pretend there are more parts so the last decided part is
+        // not handled like the last one
+        calculateBreakPoints(committedNode, par, committedNode.getLine() + 1);
+        activeLines = null;
+        return committedNode.getLine();
+    }
+
+    /**
+     * Indicates that the sequence to break is only the beginning of the content that follows
+     * a restart due to a change of IPD: the rest of the content is only needed if this
+     * beginning does not reach the next change of IPD. If the end of the sequence is reached
+     * with active nodes left, the run then stops without determining any breaks.
+     * @param sequenceIncomplete true if the sequence is incomplete
+     * @see #isEndOfIncompleteSequenceReached()
+     */
+    void setSequenceIncomplete(boolean sequenceIncomplete) {
+        this.sequenceIncomplete = sequenceIncomplete;
+    }
+
+    /**
+     * Indicates whether the run stopped at the end of an incomplete sequence, in which case it
+     * must be done again once the sequence has been completed.
+     * @return true if no breaks were determined because the sequence is incomplete
+     */
+    boolean isEndOfIncompleteSequenceReached() {
+        return endOfIncompleteSequenceReached;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean isSequenceIncomplete() {
+        return sequenceIncomplete;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected int handleIncompleteSequence() {
+        log.debug("End of the incomplete sequence reached");
+        endOfIncompleteSequenceReached = true;
+        activeLines = null;
+        return 0;
+    }
+
     KnuthNode getBestNodeBeforeIPDChange() {
         return bestNodeForIPDChange;
     }
@@ -1301,9 +1421,9 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
     }
 
     protected int handleFloat() {
-        calculateBreakPoints(bestFloatEdgeNode, par, bestFloatEdgeNode.line);
+        calculateBreakPoints(bestFloatEdgeNode, par, bestFloatEdgeNode.getLine());
         activeLines = null;
-        return bestFloatEdgeNode.line - 1;
+        return bestFloatEdgeNode.getLine() - 1;
     }
 
     protected KnuthNode getBestFloatEdgeNode() {
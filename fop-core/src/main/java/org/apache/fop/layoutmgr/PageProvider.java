@@ -367,9 +367,9 @@ public class PageProvider implements Constants {
         page.getPageViewport().setWritingModeTraits(pageSeq);
         cachedPages.add(page);
         if (isLastPage) {
-            pageSeq.getRoot().setLastSeq(pageSeq);
+            areaTreeHandler.setLastSeq(pageSeq);
         } else if (!isFirstPage) {
-            pageSeq.getRoot().setLastSeq(null);
+            areaTreeHandler.setLastSeq(null);
         }
         return page;
     }
@@ -387,7 +387,8 @@ public class PageProvider implements Constants {
         boolean isFirstPage = (startPageOfPageSequence == index);
         SimplePageMaster spm = pageSeq.getLastSimplePageMaster(index, isFirstPage, false);
         Page page = new Page(spm, index, "", false, false, false);
-        if (pageSeq.getRoot().getLastSeq() != null && pageSeq.getRoot().getLastSeq() != pageSeq) {
+        PageSequence lastSeq = areaTreeHandler.getLastSeq();
+        if (lastSeq != null && lastSeq != pageSeq) {
             return -1;
         }
         return page.getPageViewport().getBodyRegion().getColumnIPD();
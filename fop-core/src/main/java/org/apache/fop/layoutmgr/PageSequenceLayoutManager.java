@@ -21,7 +21,9 @@ package org.apache.fop.layoutmgr;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -38,7 +40,9 @@ import org.apache.fop.fo.pagination.Region;
 import org.apache.fop.fo.pagination.RegionBody;
 import org.apache.fop.fo.pagination.SideRegion;
 import org.apache.fop.fo.pagination.StaticContent;
+import org.apache.fop.fonts.ShapingCache;
 import org.apache.fop.layoutmgr.inline.ContentLayoutManager;
+import org.apache.fop.layoutmgr.inline.LineBreakCache;
 import org.apache.fop.traits.MinOptMax;
 
 /**
@@ -63,6 +67,17 @@ public class PageSequenceLayoutManager extends AbstractPageSequenceLayoutManager
     private int startIntrusionAdjustment;
     private int endIntrusionAdjustment;
 
+    /** Storage reused by the page and line breaking algorithms of the page-sequence. */
+    private final KnuthNodeStore knuthNodeStore = new KnuthNodeStore();
+
+    /** The static content whose areas do not depend on the page they are on. */
+    private final Map<StaticContent, Boolean> pageIndependentStaticContent
+            = new HashMap<StaticContent, Boolean>();
+
+    /** The areas of page-independent static content, by side region. */
+    private final Map<SideRegion, StaticContentLayoutManager.RegionLayout> staticContentLayouts
+            = new HashMap<SideRegion, StaticContentLayoutManager.RegionLayout>();
+
     /**
      * Constructor
      *
@@ -94,6 +109,65 @@ public class PageSequenceLayoutManager extends AbstractPageSequenceLayoutManager
         return this;
     }
 
+    /**
+     * Returns the storage reused by the page and line breaking algorithms of this
+     * page-sequence.
+     * @return the node store
+     */
+    public KnuthNodeStore getKnuthNodeStore() {
+        return knuthNodeStore;
+    }
+
+    /**
+     * Returns the cache of the line breaks found for the paragraphs of the document.
+     * @return the line break cache
+     */
+    public LineBreakCache getLineBreakCache() {
+        return areaTreeHandler.getLineBreakCache();
+    }
+
+    /**
+     * Returns the cache of the shaping of the words of the document.
+     * @return the shaping cache
+     */
+    public ShapingCache getShapingCache() {
+        return areaTreeHandler.getShapingCache();
+    }
+
+    /**
+     * Indicates whether the areas of the given static content are the same on every page.
+     * @param staticContent the static content
+     * @return true if the areas do not depend on the page
+     */
+    boolean isPageIndependent(StaticContent staticContent) {
+        Boolean pageIndependent = pageIndependentStaticContent.get(staticContent);
+        if (pageIndependent == null) {
+            pageIndependent = StaticContentLayoutManager.isPageIndependent(staticContent);
+            pageIndependentStaticContent.put(staticContent, pageIndependent);
+        }
+        return pageIndependent;
+    }
+
+    /**
+     * Returns the areas of the page-independent static content last laid out for the given
+     * side region.
+     * @param region the side region
+     * @return the areas, or null if the static content of the region has not been laid out yet
+     */
+    StaticContentLayoutManager.RegionLayout getStaticContentLayout(SideRegion region) {
+        return staticContentLayouts.get(region);
+    }
+
+    /**
+     * Keeps the areas of page-independent static content so they can be added to the next
+     * pages with the same side region.
+     * @param region the side region
+     * @param layout the areas of the static content
+     */
+    void setStaticContentLayout(SideRegion region, StaticContentLayoutManager.RegionLayout layout) {
+        staticContentLayouts.put(region, layout);
+    }
+
     public FlowLayoutManager getFlowLayoutManager() {
         if (pageBreaker == null) {
             throw new IllegalStateException("This method can be called only during layout");
@@ -19,12 +19,20 @@
 
 package org.apache.fop.layoutmgr;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.fop.area.Area;
 import org.apache.fop.area.Block;
 import org.apache.fop.area.RegionReference;
 import org.apache.fop.fo.Constants;
+import org.apache.fop.fo.FONode;
+import org.apache.fop.fo.FObj;
+import org.apache.fop.fo.flow.AbstractPageNumberCitation;
+import org.apache.fop.fo.flow.AbstractRetrieveMarker;
+import org.apache.fop.fo.flow.BasicLink;
+import org.apache.fop.fo.flow.PageNumber;
 import org.apache.fop.fo.pagination.PageSequence;
 import org.apache.fop.fo.pagination.SideRegion;
 import org.apache.fop.fo.pagination.StaticContent;
@@ -121,6 +129,7 @@ public class StaticContentLayoutManager extends BlockStackingLayoutManager {
         int targetAlign = EN_AUTO;
         boolean autoHeight = false;
         StaticContentBreaker breaker;
+        RegionLayout regionLayout = null;
 
         if (getStaticContentFO().getFlowName().equals("xsl-footnote-separator")) {
             targetIPD = targetBlock.getIPD();
@@ -133,26 +142,106 @@ public class StaticContentLayoutManager extends BlockStackingLayoutManager {
             targetIPD = targetRegion.getIPD();
             targetBPD = targetRegion.getBPD();
             targetAlign = regionFO.getDisplayAlign();
+            if (isReusable()) {
+                regionLayout = getPSLM().getStaticContentLayout(regionFO);
+                if (regionLayout != null && regionLayout.ipd == targetIPD && regionLayout.bpd == targetBPD) {
+                    for (Block block : regionLayout.blocks) {
+                        targetRegion.addBlock(block);
+                    }
+                    if (regionLayout.overflowAmount > 0) {
+                        notifyOverflow(regionLayout.overflowAmount);
+                    }
+                    return;
+                }
+                regionLayout = new RegionLayout(targetIPD, targetBPD);
+            }
         }
         setContentAreaIPD(targetIPD);
         setContentAreaBPD(targetBPD);
+        RegionReference region = targetRegion;
         breaker = new StaticContentBreaker(this, targetIPD, targetAlign);
         breaker.doLayout(targetBPD, autoHeight);
         if (breaker.isOverflow()) {
             if (!autoHeight) {
-                String page = getPSLM().getCurrentPage().getPageViewport().getPageNumberString();
-
-                BlockLevelEventProducer eventProducer = BlockLevelEventProducer.Provider.get(
-                        getStaticContentFO().getUserAgent().getEventBroadcaster());
-                boolean canRecover = (regionFO.getOverflow() != EN_ERROR_IF_OVERFLOW);
-                boolean needClip = (regionFO.getOverflow() == Constants.EN_HIDDEN
-                        || regionFO.getOverflow() == Constants.EN_ERROR_IF_OVERFLOW);
-                eventProducer.staticRegionOverflow(this, regionFO.getName(),
-                        page,
-                        breaker.getOverflowAmount(), needClip, canRecover,
-                        getStaticContentFO().getLocator());
+                notifyOverflow(breaker.getOverflowAmount());
+            }
+        }
+        if (regionLayout != null) {
+            for (Area area : region.getBlocks()) {
+                regionLayout.blocks.add((Block) area);
+            }
+            regionLayout.overflowAmount = breaker.isOverflow() ? breaker.getOverflowAmount() : 0;
+            getPSLM().setStaticContentLayout(regionFO, regionLayout);
+        }
+    }
+
+    private void notifyOverflow(int overflowAmount) {
+        String page = getPSLM().getCurrentPage().getPageViewport().getPageNumberString();
+
+        BlockLevelEventProducer eventProducer = BlockLevelEventProducer.Provider.get(
+                getStaticContentFO().getUserAgent().getEventBroadcaster());
+        boolean canRecover = (regionFO.getOverflow() != EN_ERROR_IF_OVERFLOW);
+        boolean needClip = (regionFO.getOverflow() == Constants.EN_HIDDEN
+                || regionFO.getOverflow() == Constants.EN_ERROR_IF_OVERFLOW);
+        eventProducer.staticRegionOverflow(this, regionFO.getName(),
+                page,
+                overflowAmount, needClip, canRecover,
+                getStaticContentFO().getLocator());
+    }
+
+    /**
+     * Indicates whether the areas of the static content may be laid out once and then added
+     * to every page with the same side region. This is the case if they do not depend on the
+     * page they are on: the static content must not contain page numbers, page number
+     * citations, retrieved markers, internal links or formatting objects with an id, and the
+     * areas must not be part of a structure tree.
+     * @return true if the layout of the static content can be reused
+     */
+    private boolean isReusable() {
+        if (getStaticContentFO().getUserAgent().isAccessibilityEnabled()) {
+            return false;
+        }
+        return getPSLM().isPageIndependent(getStaticContentFO());
+    }
+
+    /**
+     * Indicates whether the areas generated by the given node and its descendants are the
+     * same on every page.
+     * @param node the node to check
+     * @return true if the areas do not depend on the page
+     */
+    static boolean isPageIndependent(FONode node) {
+        if (node instanceof PageNumber || node instanceof AbstractPageNumberCitation
+                || node instanceof AbstractRetrieveMarker) {
+            return false;
+        }
+        if (node instanceof BasicLink && ((BasicLink) node).hasInternalDestination()) {
+            return false;
+        }
+        if (node instanceof FObj && ((FObj) node).hasId()) {
+            return false;
+        }
+        Iterator<FONode> children = node.getChildNodes();
+        while (children != null && children.hasNext()) {
+            if (!isPageIndependent(children.next())) {
+                return false;
             }
         }
+        return true;
+    }
+
+    /** The areas of a side region, laid out for a given region geometry. */
+    static final class RegionLayout {
+
+        private final int ipd;
+        private final int bpd;
+        private final List<Block> blocks = new ArrayList<Block>();
+        private int overflowAmount;
+
+        private RegionLayout(int ipd, int bpd) {
+            this.ipd = ipd;
+            this.bpd = bpd;
+        }
     }
 
     /**
@@ -46,11 +46,13 @@ import org.apache.fop.fonts.FontTriplet;
 import org.apache.fop.layoutmgr.BlockKnuthSequence;
 import org.apache.fop.layoutmgr.BlockLevelLayoutManager;
 import org.apache.fop.layoutmgr.BreakElement;
+import org.apache.fop.layoutmgr.ElementListUtils;
 import org.apache.fop.layoutmgr.InlineKnuthSequence;
 import org.apache.fop.layoutmgr.KnuthBox;
 import org.apache.fop.layoutmgr.KnuthSequence;
 import org.apache.fop.layoutmgr.LayoutContext;
 import org.apache.fop.layoutmgr.LayoutManager;
+import org.apache.fop.layoutmgr.LayoutProfileListener;
 import org.apache.fop.layoutmgr.NonLeafPosition;
 import org.apache.fop.layoutmgr.Position;
 import org.apache.fop.layoutmgr.PositionIterator;
@@ -262,6 +264,7 @@ public class InlineLayoutManager extends InlineStackingLayoutManager {
     public List getNextKnuthElements(
         LayoutContext context, int alignment) {
         LayoutManager curLM;
+        LayoutProfileListener profiler = getLayoutProfileListener();
 
         // the list returned by child LM
         List<KnuthSequence> returnedList;
@@ -328,7 +331,14 @@ public class InlineLayoutManager extends InlineStackingLayoutManager {
             }
 
             // get KnuthElements from curLM
+            if (profiler != null) {
+                profiler.started(LayoutProfileListener.Activity.ELEMENT_LIST, curLM);
+            }
             returnedList = curLM.getNextKnuthElements(childLC, alignment);
+            if (profiler != null) {
+                profiler.finished(LayoutProfileListener.Activity.ELEMENT_LIST, curLM,
+                        ElementListUtils.countElements(returnedList));
+            }
             if (returnList.isEmpty() && childLC.isKeepWithPreviousPending()) {
                 childLC.clearKeepWithPreviousPending();
             }
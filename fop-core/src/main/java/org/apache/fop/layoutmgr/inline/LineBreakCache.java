@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr.inline;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.fop.layoutmgr.KnuthElement;
+import org.apache.fop.layoutmgr.KnuthPenalty;
+
+/**
+ * Cache of the line breaks found for paragraphs, shared by the line layout managers of a
+ * document. Documents such as invoices repeat the same paragraphs, for instance the legal
+ * text of a static-content laid out on every page; the breaks of such a paragraph only need
+ * to be computed once. It also serves the paragraphs broken again when the layout restarts
+ * after a change of IPD, when they are laid out at a width they were already broken at.
+ * <p>
+ * A paragraph is identified by a fingerprint of its element list (the type, width, stretch,
+ * shrink and penalty value of each element, after hyphenation) and of the settings the
+ * breaking depends on: the available width, the alignment and indentation, the line height
+ * of the font and the hyphenation and wrapping options. The cache holds the line layout
+ * possibilities found for the paragraph as element indexes and adjustments, from which the
+ * break positions of another paragraph with the same fingerprint are created again.
+ * <p>
+ * The cache keeps the most recently used entries up to a fixed count, and ignores very long
+ * paragraphs, which hardly ever repeat. It counts its hits and misses and estimates the time
+ * it saved from the time the line breaking took when an entry was created. A cache with a
+ * maximum of 0 entries is disabled, so that it can be ruled out when looking into a layout
+ * problem (see {@link org.apache.fop.apps.FOUserAgent#setLineBreakCacheSize(int)}). This
+ * class is thread-safe.
+ */
+public final class LineBreakCache {
+
+    /** Default maximum number of entries. */
+    public static final int DEFAULT_SIZE = 256;
+
+    /** Maximum number of elements of a paragraph whose breaks are cached. */
+    private static final int MAX_ELEMENTS = 1024;
+
+    private static final int BOX = 0;
+    private static final int GLUE = 1;
+    private static final int PENALTY = 2;
+    private static final int FLAGGED_PENALTY = 3;
+    private static final int AUXILIARY = 4;
+
+    private final int maxEntries;
+
+    private final Map<Key, Breaks> entries = new LinkedHashMap<Key, Breaks>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = -7327566787402436716L;
+
+        protected boolean removeEldestEntry(Map.Entry<Key, Breaks> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private long hits;
+
+    private long misses;
+
+    private long savedTime;
+
+    /**
+     * Creates a cache with the default maximum number of entries.
+     */
+    public LineBreakCache() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * Creates a cache.
+     * @param maxEntries the maximum number of entries, 0 to disable the cache
+     */
+    public LineBreakCache(int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("The maximum number of entries must not be negative");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Indicates whether the breaks of paragraphs are cached.
+     * @return false if the cache is disabled
+     */
+    public boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    /**
+     * Creates the key of a paragraph.
+     * @param paragraph the element list of the paragraph
+     * @param settings the values of the settings the line breaks depend on
+     * @return the key, or null if the breaks of the paragraph are not to be cached
+     */
+    static Key createKey(List paragraph, int... settings) {
+        int size = paragraph.size();
+        if (size > MAX_ELEMENTS) {
+            return null;
+        }
+        // the type and width of each element, then the stretch and shrink of the glues and
+        // the values of the penalties
+        int extra = 0;
+        for (int i = 0; i < size; i++) {
+            Object element = paragraph.get(i);
+            if (!(element instanceof KnuthElement)) {
+                return null;
+            } else if (((KnuthElement) element).isGlue()) {
+                extra += 2;
+            } else if (((KnuthElement) element).isPenalty()) {
+                extra++;
+            }
+        }
+        int[] data = new int[settings.length + 2 * size + extra];
+        System.arraycopy(settings, 0, data, 0, settings.length);
+        int index = settings.length;
+        int extraIndex = settings.length + 2 * size;
+        for (int i = 0; i < size; i++) {
+            KnuthElement element = (KnuthElement) paragraph.get(i);
+            int type;
+            if (element.isBox()) {
+                type = BOX;
+            } else if (element.isGlue()) {
+                type = GLUE;
+                data[extraIndex++] = element.getStretch();
+                data[extraIndex++] = element.getShrink();
+            } else {
+                type = ((KnuthPenalty) element).isPenaltyFlagged() ? FLAGGED_PENALTY : PENALTY;
+                data[extraIndex++] = element.getPenalty();
+            }
+            data[index++] = element.isAuxiliary() ? type | AUXILIARY : type;
+            data[index++] = element.getWidth();
+        }
+        return new Key(data);
+    }
+
+    /**
+     * Returns the breaks found for a paragraph with the given key.
+     * @param key the key of the paragraph
+     * @return the breaks, or null if there are none in the cache
+     */
+    synchronized Breaks get(Key key) {
+        Breaks breaks = entries.get(key);
+        if (breaks == null) {
+            misses++;
+        } else {
+            hits++;
+            savedTime += breaks.breakingTime;
+        }
+        return breaks;
+    }
+
+    /**
+     * Adds the breaks found for a paragraph.
+     * @param key the key of the paragraph
+     * @param breaks the breaks
+     */
+    synchronized void put(Key key, Breaks breaks) {
+        entries.put(key, breaks);
+    }
+
+    /**
+     * Returns the number of paragraphs whose breaks were found in the cache.
+     * @return the number of hits
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of paragraphs whose breaks had to be computed.
+     * @return the number of misses
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Returns the proportion of the paragraphs whose breaks were found in the cache.
+     * @return the hit rate, between 0 and 1
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Returns an estimate of the time saved by the cache: the sum, over all hits, of the time
+     * it took to compute the breaks of the entry.
+     * @return the time saved in nanoseconds
+     */
+    public synchronized long getSavedTime() {
+        return savedTime;
+    }
+
+    /** {@inheritDoc} */
+    public synchronized String toString() {
+        return "LineBreakCache[hits=" + hits + ", misses=" + misses
+                + ", saved=" + (savedTime / 1000000L) + "ms]";
+    }
+
+    /** Fingerprint of a paragraph and of the settings of its line breaking. */
+    static final class Key {
+
+        private final int[] data;
+
+        private final int hash;
+
+        private Key(int[] data) {
+            this.data = data;
+            this.hash = Arrays.hashCode(data);
+        }
+
+        /** {@inheritDoc} */
+        public int hashCode() {
+            return hash;
+        }
+
+        /** {@inheritDoc} */
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && Arrays.equals(data, other.data);
+        }
+    }
+
+    /**
+     * The line layout possibilities of a paragraph. For each possibility, the breaks are
+     * stored line after line as the index of the first element of the line, the index of the
+     * break, the available shrink and stretch, the difference and the start and end indents,
+     * together with the adjustment ratio of each line.
+     */
+    static final class Breaks {
+
+        /** Number of values stored for each line. */
+        static final int LINE_DATA = 7;
+
+        final int[] lineCounts;
+        final double[] demerits;
+        final int[][] lines;
+        final double[][] ratios;
+        final int minimumIndex;
+        final int optimumIndex;
+        final int maximumIndex;
+        final int chosenIndex;
+        final long breakingTime;
+
+        Breaks(int[] lineCounts, double[] demerits, int[][] lines, double[][] ratios,
+                int[] indexes, long breakingTime) {
+            this.lineCounts = lineCounts;
+            this.demerits = demerits;
+            this.lines = lines;
+            this.ratios = ratios;
+            this.minimumIndex = indexes[0];
+            this.optimumIndex = indexes[1];
+            this.maximumIndex = indexes[2];
+            this.chosenIndex = indexes[3];
+            this.breakingTime = breakingTime;
+        }
+    }
+}
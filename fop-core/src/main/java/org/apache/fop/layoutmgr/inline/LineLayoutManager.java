@@ -51,6 +51,7 @@ import org.apache.fop.layoutmgr.BlockLevelLayoutManager;
 import org.apache.fop.layoutmgr.BreakElement;
 import org.apache.fop.layoutmgr.BreakingAlgorithm;
 import org.apache.fop.layoutmgr.ElementListObserver;
+import org.apache.fop.layoutmgr.ElementListUtils;
 import org.apache.fop.layoutmgr.FloatContentLayoutManager;
 import org.apache.fop.layoutmgr.FootenoteUtil;
 import org.apache.fop.layoutmgr.FootnoteBodyLayoutManager;
@@ -65,6 +66,7 @@ import org.apache.fop.layoutmgr.KnuthPossPosIter;
 import org.apache.fop.layoutmgr.KnuthSequence;
 import org.apache.fop.layoutmgr.LayoutContext;
 import org.apache.fop.layoutmgr.LayoutManager;
+import org.apache.fop.layoutmgr.LayoutProfileListener;
 import org.apache.fop.layoutmgr.LeafPosition;
 import org.apache.fop.layoutmgr.ListElement;
 import org.apache.fop.layoutmgr.NonLeafPosition;
@@ -344,8 +346,8 @@ public class LineLayoutManager extends InlineStackingLayoutManager
             // the value of text-align and text-align-last
             int startIndent;
             int endIndent;
-            int difference = bestActiveNode.difference;
-            int textAlign = (bestActiveNode.line < total) ? alignment : alignmentLast;
+            int difference = bestActiveNode.getDifference();
+            int textAlign = (bestActiveNode.getLine() < total) ? alignment : alignmentLast;
 
             switch (textAlign) {
             case Constants.EN_START:
@@ -371,12 +373,12 @@ public class LineLayoutManager extends InlineStackingLayoutManager
             startIndent += (textAlign == Constants.EN_CENTER)
                       ? difference / 2 : (textAlign == Constants.EN_END) ? difference : 0;
             */
-            startIndent += (bestActiveNode.line == 1 && indentFirstPart && isFirstInBlock)
+            startIndent += (bestActiveNode.getLine() == 1 && indentFirstPart && isFirstInBlock)
                       ? textIndent : 0;
 
             double ratio = (textAlign == Constants.EN_JUSTIFY
-                || difference < 0 && -difference <= bestActiveNode.availableShrink)
-                        ? bestActiveNode.adjustRatio : 0;
+                || difference < 0 && -difference <= bestActiveNode.getAvailableShrink())
+                        ? bestActiveNode.getAdjustRatio() : 0;
 
             // add nodes at the beginning of the list, as they are found
             // backwards, from the last one to the first one
@@ -392,7 +394,21 @@ public class LineLayoutManager extends InlineStackingLayoutManager
                 addedPositions = 0;
             }
 
-            int lack = difference + bestActiveNode.availableShrink;
+            checkOverflow(bestActiveNode.getLine(), difference + bestActiveNode.getAvailableShrink());
+
+            //log.debug("LLM> (" + (lineLayouts.getLineNumber(activePossibility) - addedPositions)
+            //    + ") difference = " + difference + " ratio = " + ratio);
+            lineLayouts.addBreakPosition(makeLineBreakPosition(par,
+                   (bestActiveNode.getLine() > 1 ? bestActiveNode.previous.getPosition() + 1 : 0),
+                   bestActiveNode.getPosition(),
+                   bestActiveNode.getAvailableShrink() - (addedPositions > 0
+                       ? 0 : ((Paragraph) par).lineFiller.getShrink()),
+                   bestActiveNode.getAvailableStretch(),
+                   difference, ratio, startIndent, endIndent), activePossibility);
+            addedPositions++;
+        }
+
+        private void checkOverflow(int line, int lack) {
             // if this LLM is nested inside a BlockContainerLayoutManager that is constraining
             // the available width and thus responsible for the overflow then we do not issue
             // warning event here and instead let the BCLM handle that at a later stage
@@ -401,24 +417,13 @@ public class LineLayoutManager extends InlineStackingLayoutManager
                     = InlineLevelEventProducer.Provider.get(
                         getFObj().getUserAgent().getEventBroadcaster());
                 if (curChildLM.getFObj() == null) {
-                    eventProducer.lineOverflows(this, getFObj().getName(), bestActiveNode.line,
+                    eventProducer.lineOverflows(this, getFObj().getName(), line,
                             -lack, getFObj().getLocator());
                 } else {
-                    eventProducer.lineOverflows(this, curChildLM.getFObj().getName(), bestActiveNode.line,
+                    eventProducer.lineOverflows(this, curChildLM.getFObj().getName(), line,
                         -lack, curChildLM.getFObj().getLocator());
                 }
             }
-
-            //log.debug("LLM> (" + (lineLayouts.getLineNumber(activePossibility) - addedPositions)
-            //    + ") difference = " + difference + " ratio = " + ratio);
-            lineLayouts.addBreakPosition(makeLineBreakPosition(par,
-                   (bestActiveNode.line > 1 ? bestActiveNode.previous.position + 1 : 0),
-                   bestActiveNode.position,
-                   bestActiveNode.availableShrink - (addedPositions > 0
-                       ? 0 : ((Paragraph) par).lineFiller.getShrink()),
-                   bestActiveNode.availableStretch,
-                   difference, ratio, startIndent, endIndent), activePossibility);
-            addedPositions++;
         }
 
         /* reset activePossibility, as if breakpoints have not yet been computed
@@ -427,6 +432,33 @@ public class LineLayoutManager extends InlineStackingLayoutManager
             activePossibility = -1;
         }
 
+        /**
+         * Adds the line layout possibilities of a paragraph from the breaks found for an
+         * identical one.
+         * @param par the paragraph
+         * @param breaks the cached breaks
+         */
+        private void restoreBreaks(Paragraph par, LineBreakCache.Breaks breaks) {
+            for (int p = 0; p < breaks.lineCounts.length; p++) {
+                int lineCount = breaks.lineCounts[p];
+                int[] lines = breaks.lines[p];
+                lineLayouts.addPossibility(lineCount, breaks.demerits[p]);
+                // as in updateData2(), from the last line to the first one
+                for (int i = lineCount - 1; i >= 0; i--) {
+                    int index = i * LineBreakCache.Breaks.LINE_DATA;
+                    int availableShrink = lines[index + 2];
+                    int difference = lines[index + 4];
+                    checkOverflow(i + 1, difference + availableShrink
+                            + (i == lineCount - 1 ? par.lineFiller.getShrink() : 0));
+                    lineLayouts.addBreakPosition(makeLineBreakPosition(par, lines[index],
+                            lines[index + 1], availableShrink, lines[index + 3], difference,
+                            breaks.ratios[p][i], lines[index + 5], lines[index + 6]), p);
+                }
+            }
+            lineLayouts.setIndexes(new int[] {breaks.minimumIndex, breaks.optimumIndex,
+                    breaks.maximumIndex, breaks.chosenIndex});
+        }
+
         private LineBreakPosition makeLineBreakPosition(KnuthSequence par, int firstElementIndex, int lastElementIndex,
                 int availableShrink, int availableStretch, int difference, double ratio,
                 int startIndent, int endIndent) {
@@ -531,7 +563,7 @@ public class LineLayoutManager extends InlineStackingLayoutManager
                     for (KnuthNode node = getNode(i); node != null; node = node.next) {
                         //if (Math.abs(node.line - bestActiveNode.line) > maxDiff) {
                         //if (false) {
-                        if (node.line != bestActiveNode.line
+                        if (node.getLine() != bestActiveNode.getLine()
                             && node.totalDemerits > MAX_DEMERITS) {
                             //log.debug("                     XXX lines = "
                             //+ node.line + " demerits = " + node.totalDemerits);
@@ -553,7 +585,7 @@ public class LineLayoutManager extends InlineStackingLayoutManager
                     }
                 }
             }
-            return bestActiveNode.line;
+            return bestActiveNode.getLine();
         }
     }
 
@@ -693,9 +725,17 @@ public class LineLayoutManager extends InlineStackingLayoutManager
 
         Paragraph lastPar = null;
 
+        LayoutProfileListener profiler = getLayoutProfileListener();
         InlineLevelLayoutManager curLM;
         while ((curLM = (InlineLevelLayoutManager) getChildLM()) != null) {
+            if (profiler != null) {
+                profiler.started(LayoutProfileListener.Activity.ELEMENT_LIST, curLM);
+            }
             List inlineElements = curLM.getNextKnuthElements(inlineLC, effectiveAlignment);
+            if (profiler != null) {
+                profiler.finished(LayoutProfileListener.Activity.ELEMENT_LIST, curLM,
+                        ElementListUtils.countElements(inlineElements));
+            }
             if (inlineElements == null || inlineElements.size() == 0) {
                 /* curLM.getNextKnuthElements() returned null or an empty list;
                  * this can happen if there is nothing more to layout,
@@ -813,12 +853,18 @@ public class LineLayoutManager extends InlineStackingLayoutManager
         Iterator<KnuthSequence> paragraphsIterator = knuthParagraphs.iterator();
         lineLayoutsList = new LineLayoutPossibilities[knuthParagraphs.size()];
         LineLayoutPossibilities llPoss;
+        LayoutProfileListener profiler = getLayoutProfileListener();
         for (int i = 0; paragraphsIterator.hasNext(); i++) {
             KnuthSequence seq = paragraphsIterator.next();
             if (!seq.isInlineSequence()) {
                 // This set of line layout possibilities does not matter;
                 // we only need an entry in lineLayoutsList.
                 llPoss = new LineLayoutPossibilities();
+            } else if (profiler != null) {
+                profiler.started(LayoutProfileListener.Activity.LINE_BREAKING, this);
+                llPoss = findOptimalBreakingPoints(alignment, (Paragraph) seq,
+                                                   !paragraphsIterator.hasNext());
+                profiler.finished(LayoutProfileListener.Activity.LINE_BREAKING, this, seq.size());
             } else {
                 llPoss = findOptimalBreakingPoints(alignment, (Paragraph) seq,
                                                    !paragraphsIterator.hasNext());
@@ -844,14 +890,15 @@ public class LineLayoutManager extends InlineStackingLayoutManager
         // use the member lineLayouts, which is read by LineBreakingAlgorithm.updateData1 and 2
         lineLayouts = new LineLayoutPossibilities();
         double maxAdjustment = 1;
+        boolean first = (knuthParagraphs.indexOf(currPar) == 0);
+        int maxFlagCount = hyphenationLadderCount.getEnum() == EN_NO_LIMIT
+                ? 0 : hyphenationLadderCount.getValue();
         LineBreakingAlgorithm alg = new LineBreakingAlgorithm(alignment,
                                         textAlignment, textAlignmentLast,
                                         textIndent.getValue(this), currPar.lineFiller.getOpt(),
                                         lineHeight.getValue(this), lead, follow,
-                                        (knuthParagraphs.indexOf(currPar) == 0),
-                                        hyphenationLadderCount.getEnum() == EN_NO_LIMIT
-                                            ? 0 : hyphenationLadderCount.getValue(),
-                                        this);
+                                        first, maxFlagCount, this);
+        alg.setNodeStore(getPSLM().getKnuthNodeStore(), true);
         alg.setConstantLineWidth(ipd);
         boolean canWrap = (wrapOption != EN_NO_WRAP);
         boolean canHyphenate = (canWrap && hyphenationProperties.hyphenate.getEnum() == EN_TRUE);
@@ -864,6 +911,25 @@ public class LineLayoutManager extends InlineStackingLayoutManager
             findHyphenationPoints(currPar);
         }
 
+        // reuse the breaks of an identical paragraph laid out before, e.g. in a static-content
+        LineBreakCache lineBreakCache = getPSLM().getLineBreakCache();
+        LineBreakCache.Key key = null;
+        if (lineBreakCache.isEnabled()) {
+            key = LineBreakCache.createKey(currPar, ipd, alignment,
+                    textAlignment, textAlignmentLast, textIndent.getValue(this),
+                    currPar.lineFiller.getMin(), currPar.lineFiller.getOpt(), currPar.lineFiller.getMax(),
+                    lineHeight.getValue(this), lead, follow, first ? 1 : 0, isFirstInBlock ? 1 : 0,
+                    maxFlagCount, wrapOption, canHyphenate ? 1 : 0);
+        }
+        if (key != null) {
+            LineBreakCache.Breaks breaks = lineBreakCache.get(key);
+            if (breaks != null) {
+                alg.restoreBreaks(currPar, breaks);
+                return lineLayouts;
+            }
+        }
+        long startTime = System.nanoTime();
+
         // first try: do not consider hyphenation points as legal breaks
         int allowedBreaks = (canWrap ? BreakingAlgorithm.NO_FLAGGED_PENALTIES
                 : BreakingAlgorithm.ONLY_FORCED_BREAKS);
@@ -907,9 +973,42 @@ public class LineLayoutManager extends InlineStackingLayoutManager
             lineLayouts.restorePossibilities();
         }
 
+        if (key != null && lineLayouts.getPossibilitiesNumber() > 0) {
+            lineBreakCache.put(key, createBreaks(lineLayouts, System.nanoTime() - startTime));
+        }
         return lineLayouts;
     }
 
+    private static LineBreakCache.Breaks createBreaks(LineLayoutPossibilities llPoss,
+            long breakingTime) {
+        int count = llPoss.getPossibilitiesNumber();
+        int[] lineCounts = new int[count];
+        double[] demerits = new double[count];
+        int[][] lines = new int[count][];
+        double[][] ratios = new double[count][];
+        for (int p = 0; p < count; p++) {
+            int lineCount = llPoss.getLineCount(p);
+            lineCounts[p] = lineCount;
+            demerits[p] = llPoss.getDemerits(p);
+            lines[p] = new int[lineCount * LineBreakCache.Breaks.LINE_DATA];
+            ratios[p] = new double[lineCount];
+            for (int i = 0; i < lineCount; i++) {
+                LineBreakPosition lbp = llPoss.getBreakPosition(p, i);
+                int index = i * LineBreakCache.Breaks.LINE_DATA;
+                lines[p][index] = lbp.startIndex;
+                lines[p][index + 1] = lbp.getLeafPos();
+                lines[p][index + 2] = lbp.availableShrink;
+                lines[p][index + 3] = lbp.availableStretch;
+                lines[p][index + 4] = lbp.difference;
+                lines[p][index + 5] = lbp.startIndent;
+                lines[p][index + 6] = lbp.endIndent;
+                ratios[p][i] = lbp.ipdAdjust;
+            }
+        }
+        return new LineBreakCache.Breaks(lineCounts, demerits, lines, ratios, llPoss.getIndexes(),
+                breakingTime);
+    }
+
     /**
      * Creates the element list in BP direction for the broken lines.
      * @param alignment the currently applicable vertical alignment
@@ -1577,10 +1676,17 @@ public class LineLayoutManager extends InlineStackingLayoutManager
 
         setCurrentArea(lineArea);
         setChildContext(lc);
+        LayoutProfileListener profiler = getLayoutProfileListener();
         LayoutManager childLM;
         while ((childLM = inlinePosIter.getNextChildLM()) != null) {
             lc.setFlags(LayoutContext.LAST_AREA, (childLM == lastLM));
+            if (profiler != null) {
+                profiler.started(LayoutProfileListener.Activity.ADD_AREAS, childLM);
+            }
             childLM.addAreas(inlinePosIter, lc);
+            if (profiler != null) {
+                profiler.finished(LayoutProfileListener.Activity.ADD_AREAS, childLM, 0);
+            }
             lc.setLeadingSpace(lc.getTrailingSpace());
             lc.setTrailingSpace(new SpaceSpecifier(false));
         }
@@ -1632,6 +1738,7 @@ public class LineLayoutManager extends InlineStackingLayoutManager
         blocklc.setLeadingSpace(new SpaceSpecifier(true));
         blocklc.setTrailingSpace(new SpaceSpecifier(false));
         blocklc.setFlags(LayoutContext.RESOLVE_LEADING_SPACE, true);
+        LayoutProfileListener profiler = getLayoutProfileListener();
         LayoutManager childLM;
         while ((childLM = childPosIter.getNextChildLM()) != null) {
             // set last area flag
@@ -1639,7 +1746,13 @@ public class LineLayoutManager extends InlineStackingLayoutManager
                              (context.isLastArea() && childLM == lastLM));
             blocklc.setStackLimitBP(context.getStackLimitBP());
             // Add the line areas to Area
+            if (profiler != null) {
+                profiler.started(LayoutProfileListener.Activity.ADD_AREAS, childLM);
+            }
             childLM.addAreas(childPosIter, blocklc);
+            if (profiler != null) {
+                profiler.finished(LayoutProfileListener.Activity.ADD_AREAS, childLM, 0);
+            }
             blocklc.setLeadingSpace(blocklc.getTrailingSpace());
             blocklc.setTrailingSpace(new SpaceSpecifier(false));
         }
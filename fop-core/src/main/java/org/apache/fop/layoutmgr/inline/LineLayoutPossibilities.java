@@ -247,6 +247,32 @@ public class LineLayoutPossibilities {
         return ((Possibility)possibilitiesList.get(chosenIndex)).getBreakPosition(i);
     }
 
+    /**
+     * @param possibility the posibilities list index
+     * @param i the break position index
+     * @return the break position
+     */
+    LineLayoutManager.LineBreakPosition getBreakPosition(int possibility, int i) {
+        return ((Possibility)possibilitiesList.get(possibility)).getBreakPosition(i);
+    }
+
+    /** @return the minimum, optimum, maximum and chosen indexes */
+    int[] getIndexes() {
+        return new int[] {minimumIndex, optimumIndex, maximumIndex, chosenIndex};
+    }
+
+    /**
+     * Sets the minimum, optimum, maximum and chosen indexes, as when the possibilities were
+     * first computed.
+     * @param indexes the indexes, as returned by {@link #getIndexes()}
+     */
+    void setIndexes(int[] indexes) {
+        minimumIndex = indexes[0];
+        optimumIndex = indexes[1];
+        maximumIndex = indexes[2];
+        chosenIndex = indexes[3];
+    }
+
     /**
      * @param adj the adjustment
      * @return the adjustment or zero
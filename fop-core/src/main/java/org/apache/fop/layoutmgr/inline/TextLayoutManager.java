@@ -941,7 +941,7 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
                 && prevMapping.endIndex > 0 ? foText.charAt(prevMapping.endIndex - 1) : 0;
         GlyphMapping mapping = GlyphMapping.doGlyphMapping(foText, thisStart, lastIndex, font,
                 letterSpaceIPD, letterSpaceAdjustArray, precedingChar, breakOpportunityChar,
-                endsWithHyphen, level, false, false, retainControls);
+                endsWithHyphen, level, false, false, retainControls, getPSLM().getShapingCache());
         prevMapping = mapping;
         addGlyphMapping(mapping);
         tempStart = nextStart;
@@ -39,7 +39,7 @@ public class CollapsingBorderModelEyeCatching extends CollapsingBorderModel {
         if (discard) {
             if (bi1.getWidth().isDiscard()) {
                 if (bi2.getWidth().isDiscard()) {
-                    return new BorderSpecification(
+                    return BorderSpecification.getInstance(
                             CommonBorderPaddingBackground.getDefaultBorderInfo(), 0/*TODO*/);
                 } else {
                     return border2;
@@ -19,7 +19,6 @@
 
 package org.apache.fop.layoutmgr.table;
 
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -30,12 +29,12 @@ import org.apache.fop.fo.Constants;
 import org.apache.fop.fo.flow.table.EffRow;
 import org.apache.fop.fo.flow.table.GridUnit;
 import org.apache.fop.fo.flow.table.PrimaryGridUnit;
-import org.apache.fop.fo.flow.table.TableColumn;
 import org.apache.fop.fo.flow.table.TableRow;
 import org.apache.fop.fo.properties.CommonBorderPaddingBackground;
 import org.apache.fop.fo.properties.LengthRangeProperty;
 import org.apache.fop.layoutmgr.ElementListObserver;
 import org.apache.fop.layoutmgr.LayoutContext;
+import org.apache.fop.layoutmgr.LayoutProfileListener;
 import org.apache.fop.traits.MinOptMax;
 import org.apache.fop.util.BreakUtil;
 
@@ -47,13 +46,16 @@ class RowGroupLayoutManager {
 
     private EffRow[] rowGroup;
 
+    private TableContentLayoutManager tclm;
+
     private TableLayoutManager tableLM;
 
     private TableStepper tableStepper;
 
-    RowGroupLayoutManager(TableLayoutManager tableLM, EffRow[] rowGroup,
+    RowGroupLayoutManager(TableContentLayoutManager tclm, EffRow[] rowGroup,
             TableStepper tableStepper) {
-        this.tableLM = tableLM;
+        this.tclm = tclm;
+        this.tableLM = tclm.getTableLM();
         this.rowGroup = rowGroup;
         this.tableStepper = tableStepper;
     }
@@ -104,21 +106,23 @@ class RowGroupLayoutManager {
                     // TODO a new LM must be created for every new static-content
                     primary.createCellLM();
                     primary.getCellLM().setParent(tableLM);
-                    //Calculate width of cell
-                    int spanWidth = 0;
-                    Iterator colIter = tableLM.getTable().getColumns().listIterator(
-                            primary.getColIndex());
-                    for (int i = 0, c = primary.getCell().getNumberColumnsSpanned(); i < c; i++) {
-                        spanWidth += ((TableColumn) colIter.next()).getColumnWidth().getValue(
-                                tableLM);
-                    }
                     LayoutContext childLC = LayoutContext.newInstance();
                     childLC.setStackLimitBP(context.getStackLimitBP()); //necessary?
-                    childLC.setRefIPD(spanWidth);
+                    //Width of cell
+                    childLC.setRefIPD(tclm.getSpanWidth(primary));
 
                     //Get the element list for the cell contents
+                    LayoutProfileListener profiler = tableLM.getLayoutProfileListener();
+                    if (profiler != null) {
+                        profiler.started(LayoutProfileListener.Activity.ELEMENT_LIST,
+                                primary.getCellLM());
+                    }
                     List elems = primary.getCellLM().getNextKnuthElements(
                             childLC, alignment);
+                    if (profiler != null) {
+                        profiler.finished(LayoutProfileListener.Activity.ELEMENT_LIST,
+                                primary.getCellLM(), elems.size());
+                    }
                     ElementListObserver.observe(elems, "table-cell", primary.getCell().getId());
                     primary.setElements(elems);
                 }
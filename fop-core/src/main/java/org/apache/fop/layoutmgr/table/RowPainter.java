@@ -43,6 +43,7 @@ import org.apache.fop.layoutmgr.ElementListUtils;
 import org.apache.fop.layoutmgr.KnuthElement;
 import org.apache.fop.layoutmgr.KnuthPossPosIter;
 import org.apache.fop.layoutmgr.LayoutContext;
+import org.apache.fop.layoutmgr.LayoutProfileListener;
 import org.apache.fop.layoutmgr.SpaceResolver;
 import org.apache.fop.layoutmgr.TraitSetter;
 
@@ -311,6 +312,12 @@ class RowPainter {
                         firstCellParts[i].start, lastCellParts[i].end,
                         actualRowHeight, borderBeforeWhich, borderAfterWhich,
                         lastOnPage);
+                if (lastCellParts[i].isLastPart()
+                        && currentRow.getBodyType() == TableRowIterator.BODY) {
+                    // Unlike the ones of headers and footers, the areas of a body cell are
+                    // added only once: its layout is no longer needed
+                    lastCellParts[i].pgu.releaseCellLM();
+                }
                 firstCellParts[i] = null; // why? what about the lastCellParts[i]?
                 Arrays.fill(firstCellOnPage, i, i + currentGU.getCell().getNumberColumnsSpanned(),
                         false);
@@ -429,10 +436,17 @@ class RowPainter {
             SpaceResolver.performConditionalsNotification(pgu.getElements(),
                     startPos, endPos, prevBreak);
         }
+        LayoutProfileListener profiler = cellLM.getLayoutProfileListener();
+        if (profiler != null) {
+            profiler.started(LayoutProfileListener.Activity.ADD_AREAS, cellLM);
+        }
         cellLM.addAreas(new KnuthPossPosIter(pgu.getElements(), startPos, endPos + 1),
                 layoutContext, spannedGridRowHeights, startRowIndex - pgu.getRowIndex(),
                 currentRowIndex - pgu.getRowIndex(), borderBeforeWhich, borderAfterWhich,
                 startRowIndex == firstRowOnPageIndex, lastOnPage, this, firstRowHeight);
+        if (profiler != null) {
+            profiler.finished(LayoutProfileListener.Activity.ADD_AREAS, cellLM, 0);
+        }
     }
 
     private void addAreaForEmptyGridUnit(EmptyGridUnit gu, int rowIndex, int colIndex,
@@ -54,6 +54,7 @@ import org.apache.fop.layoutmgr.KnuthGlue;
 import org.apache.fop.layoutmgr.KnuthPenalty;
 import org.apache.fop.layoutmgr.LayoutContext;
 import org.apache.fop.layoutmgr.LayoutManager;
+import org.apache.fop.layoutmgr.LayoutProfileListener;
 import org.apache.fop.layoutmgr.LocalBreaker;
 import org.apache.fop.layoutmgr.Position;
 import org.apache.fop.layoutmgr.PositionIterator;
@@ -180,6 +181,7 @@ public class TableCellLayoutManager extends BlockStackingLayoutManager {
         List returnList = new LinkedList();
 
         LayoutManager curLM; // currently active LM
+        LayoutProfileListener profiler = getLayoutProfileListener();
         LayoutManager prevLM = null; // previously active LM
         while ((curLM = getChildLM()) != null) {
             LayoutContext childLC = LayoutContext.newInstance();
@@ -188,7 +190,14 @@ public class TableCellLayoutManager extends BlockStackingLayoutManager {
             childLC.setRefIPD(cellIPD);
 
             // get elements from curLM
+            if (profiler != null) {
+                profiler.started(LayoutProfileListener.Activity.ELEMENT_LIST, curLM);
+            }
             returnedList = curLM.getNextKnuthElements(childLC, alignment);
+            if (profiler != null) {
+                profiler.finished(LayoutProfileListener.Activity.ELEMENT_LIST, curLM,
+                        ElementListUtils.countElements(returnedList));
+            }
             if (childLC.isKeepWithNextPending()) {
                 log.debug("child LM signals pending keep with next");
             }
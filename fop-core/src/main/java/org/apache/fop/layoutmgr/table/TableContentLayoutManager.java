@@ -36,6 +36,7 @@ import org.apache.fop.fo.flow.table.EffRow;
 import org.apache.fop.fo.flow.table.PrimaryGridUnit;
 import org.apache.fop.fo.flow.table.Table;
 import org.apache.fop.fo.flow.table.TableBody;
+import org.apache.fop.fo.flow.table.TableColumn;
 import org.apache.fop.fo.flow.table.TablePart;
 import org.apache.fop.layoutmgr.BreakElement;
 import org.apache.fop.layoutmgr.ElementListUtils;
@@ -75,6 +76,12 @@ public class TableContentLayoutManager implements PercentBaseContext {
     private int startXOffset;
     private int usedBPD;
 
+    /** The widths of the columns, computed once for all the cells of the table. */
+    private int[] columnWidths;
+
+    /** The X offsets of the cells spanning one column, without the starting x-offset. */
+    private int[] columnXOffsets;
+
     private TableStepper stepper;
 
     private boolean headerIsBeingRepeated;
@@ -265,7 +272,7 @@ public class TableContentLayoutManager implements PercentBaseContext {
         Keep keepWithPrevious = Keep.KEEP_AUTO;
         int breakBefore = Constants.EN_AUTO;
         if (rowGroup != null) {
-            RowGroupLayoutManager rowGroupLM = new RowGroupLayoutManager(getTableLM(), rowGroup,
+            RowGroupLayoutManager rowGroupLM = new RowGroupLayoutManager(this, rowGroup,
                     stepper);
             List nextRowGroupElems = rowGroupLM.getNextKnuthElements(context, alignment, bodyType);
             keepWithPrevious = keepWithPrevious.compare(context.getKeepWithPreviousPending());
@@ -273,7 +280,7 @@ public class TableContentLayoutManager implements PercentBaseContext {
             int breakBetween = context.getBreakAfter();
             returnList.addAll(nextRowGroupElems);
             while ((rowGroup = iter.getNextRowGroup()) != null) {
-                rowGroupLM = new RowGroupLayoutManager(getTableLM(), rowGroup, stepper);
+                rowGroupLM = new RowGroupLayoutManager(this, rowGroup, stepper);
 
                 //Note previous pending keep-with-next and clear the strength
                 //(as the layout context is reused)
@@ -369,7 +376,36 @@ public class TableContentLayoutManager implements PercentBaseContext {
      * @return the requested X offset
      */
     protected int getXOffsetOfGridUnit(int colIndex, int nrColSpan) {
-        return startXOffset + getTableLM().getColumns().getXOffset(colIndex + 1, nrColSpan, getTableLM());
+        if (nrColSpan > 1) {
+            return startXOffset + getColumns().getXOffset(colIndex + 1, nrColSpan, getTableLM());
+        }
+        if (columnXOffsets == null) {
+            columnXOffsets = new int[getTableLM().getTable().getNumberOfColumns()];
+            for (int i = 0; i < columnXOffsets.length; i++) {
+                columnXOffsets[i] = getColumns().getXOffset(i + 1, 1, getTableLM());
+            }
+        }
+        return startXOffset + columnXOffsets[colIndex];
+    }
+
+    /**
+     * Returns the width of the columns spanned by the given grid unit.
+     * @param gu the grid unit
+     * @return the sum of the widths of the spanned columns
+     */
+    int getSpanWidth(PrimaryGridUnit gu) {
+        if (columnWidths == null) {
+            List columns = getTableLM().getTable().getColumns();
+            columnWidths = new int[columns.size()];
+            for (int i = 0; i < columnWidths.length; i++) {
+                columnWidths[i] = ((TableColumn) columns.get(i)).getColumnWidth().getValue(getTableLM());
+            }
+        }
+        int spanWidth = 0;
+        for (int i = 0, c = gu.getCell().getNumberColumnsSpanned(); i < c; i++) {
+            spanWidth += columnWidths[gu.getColIndex() + i];
+        }
+        return spanWidth;
     }
 
     /**
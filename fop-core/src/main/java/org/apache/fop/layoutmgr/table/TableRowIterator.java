@@ -19,8 +19,8 @@
 
 package org.apache.fop.layoutmgr.table;
 
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.apache.fop.fo.FONode;
@@ -48,6 +48,9 @@ public class TableRowIterator {
 
     private Iterator rowGroupsIter;
 
+    /** The children of the table, among which the table-body elements not iterated yet. */
+    private FONodeIterator bodies;
+
     private int rowIndex;
 
     /**
@@ -65,15 +68,8 @@ public class TableRowIterator {
                 rowGroupsIter = table.getTableFooter().getRowGroups().iterator();
                 break;
             case BODY:
-                List rowGroupsList = new LinkedList();
-                // TODO this is ugly
-                for (FONodeIterator iter = table.getChildNodes(); iter.hasNext();) {
-                    FONode node = iter.next();
-                    if (node instanceof TableBody) {
-                        rowGroupsList.addAll(((TableBody) node).getRowGroups());
-                    }
-                }
-                rowGroupsIter = rowGroupsList.iterator();
+                bodies = table.getChildNodes();
+                rowGroupsIter = Collections.EMPTY_LIST.iterator();
                 break;
             default:
                 throw new IllegalArgumentException("Unrecognised TablePart: " + tablePart);
@@ -86,8 +82,10 @@ public class TableRowIterator {
      * @return the next row group, or null
      */
     EffRow[] getNextRowGroup() {
-        if (!rowGroupsIter.hasNext()) {
-            return null;
+        while (!rowGroupsIter.hasNext()) {
+            if (!nextBody()) {
+                return null;
+            }
         }
         List rowGroup = (List) rowGroupsIter.next();
         EffRow[] effRowGroup = new EffRow[rowGroup.size()];
@@ -99,4 +97,20 @@ public class TableRowIterator {
         return effRowGroup;
     }
 
+    /**
+     * Moves on to the row groups of the next table-body. They are iterated over in place,
+     * rather than copied for the whole table.
+     * @return false if there is no further table-body
+     */
+    private boolean nextBody() {
+        while (bodies != null && bodies.hasNext()) {
+            FONode node = bodies.next();
+            if (node instanceof TableBody) {
+                rowGroupsIter = ((TableBody) node).getRowGroups().iterator();
+                return true;
+            }
+        }
+        return false;
+    }
+
 }
@@ -37,4 +37,9 @@ public abstract class AbstractPDFFontStream extends AbstractPDFStream {
         return PDFFilterList.FONT_FILTER;
     }
 
+    /** {@inheritDoc} */
+    protected boolean isParallelEncodingSupported() {
+        return true;
+    }
+
 }
@@ -19,13 +19,22 @@
 
 package org.apache.fop.pdf;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.commons.io.output.CountingOutputStream;
 
 import org.apache.fop.util.CloseBlockerOutputStream;
+import org.apache.fop.util.EncodedStreamCache;
 
 /**
  * This is an abstract base class for PDF streams.
@@ -41,6 +50,24 @@ public abstract class AbstractPDFStream extends PDFObject {
 
     private PDFNumber refLength = new PDFNumber();
 
+    /** The stream encoded ahead of output on another thread, if any */
+    private Future<StreamCache> pendingEncoding;
+
+    /** The index of the first filter added by the document's encryption */
+    private int encryptionFilterIndex;
+
+    /** Whether the pending encoding leaves out the encryption filters */
+    private boolean encryptionDeferred;
+
+    /** Identifies the stream's payload in the encoded stream cache, null if it isn't shared */
+    private String encodedStreamKey;
+
+    /** The encoded payload taken from the encoded stream cache ahead of output, if any */
+    private EncodedStreamCache.Entry sharedEncoding;
+
+    /** Whether the encoded stream cache has already been searched in vain for the payload */
+    private boolean sharedEncodingMissing;
+
     protected AbstractPDFStream() {
         this(true);
     }
@@ -88,6 +115,8 @@ public abstract class AbstractPDFStream extends PDFObject {
                 getDefaultFilterName());
         }
         prepareImplicitFilters();
+        getFilterList().setCompressionLevel(getDocument().getCompressionLevel());
+        encryptionFilterIndex = getFilterList().size();
         getDocument().applyEncryption(this);
     }
 
@@ -159,23 +188,195 @@ public abstract class AbstractPDFStream extends PDFObject {
         return length;
     }
 
+    /**
+     * Creates a buffer for the data of this stream, using the spill threshold of the document
+     * the stream belongs to, or the default threshold if it does not belong to one yet.
+     * @param hintSize a hint about the approximate expected size of the buffer
+     * @return the buffer
+     * @throws IOException in case of an I/O problem
+     */
+    protected StreamCache createStreamCache(int hintSize) throws IOException {
+        PDFDocument doc = getDocument();
+        if (doc == null) {
+            return StreamCacheFactory.getInstance().createStreamCache(hintSize);
+        }
+        return StreamCacheFactory.getInstance().createStreamCache(hintSize, doc.getStreamSpillThreshold());
+    }
+
     /**
      * Encodes the raw data stream for output to a PDF file.
      * @return the encoded stream
      * @throws IOException in case of an I/O problem
      */
     protected StreamCache encodeStream() throws IOException {
+        return encodeStream(getFilterList().size());
+    }
+
+    private StreamCache encodeStream(int filterCount) throws IOException {
         //Allocate a temporary buffer to find out the size of the encoded stream
-        final StreamCache encodedStream = StreamCacheFactory.getInstance()
-                .createStreamCache(getSizeHint());
+        final StreamCache encodedStream = createStreamCache(getSizeHint());
         OutputStream filteredOutput
-                = getFilterList().applyFilters(encodedStream.getOutputStream());
+                = getFilterList().applyFilters(encodedStream.getOutputStream(), 0, filterCount);
         outputRawStreamData(filteredOutput);
         filteredOutput.flush();
         filteredOutput.close();
         return encodedStream;
     }
 
+    /**
+     * Indicates whether this stream can be encoded by {@link #encodeStream()} on another thread
+     * before it is written. This is only the case if the raw stream data is complete once the
+     * stream is ready for output and is not shared with other objects.
+     * @return true if the stream may be encoded ahead of output
+     */
+    protected boolean isParallelEncodingSupported() {
+        return false;
+    }
+
+    /**
+     * Starts encoding the stream on the given executor so that {@link #output(OutputStream)}
+     * only has to write the encoded data. The written bytes are the same as if the stream was
+     * encoded during output. Nothing is done if the stream doesn't support being encoded on
+     * another thread. If the stream is encrypted with a key derived from its object number and
+     * the number hasn't been given out yet, only the other filters are applied ahead of output.
+     * @param executor the executor running the encoding
+     */
+    void prepareEncoding(ExecutorService executor) {
+        if (pendingEncoding != null || !isParallelEncodingSupported() || isEncodingShared()) {
+            return;
+        }
+        setupFilterList();
+        final int filterCount;
+        if (getObjectNumber().isAssigned() || !getDocument().isEncryptionKeyedByObject()) {
+            filterCount = getFilterList().size();
+        } else {
+            filterCount = encryptionFilterIndex;
+        }
+        encryptionDeferred = filterCount < getFilterList().size();
+        pendingEncoding = executor.submit(new Callable<StreamCache>() {
+            public StreamCache call() throws IOException {
+                return encodeStream(filterCount);
+            }
+        });
+    }
+
+    /**
+     * Applies the encryption filters to a stream that has been encoded ahead of output with
+     * the other filters only.
+     */
+    private StreamCache encryptPreparedEncoding(StreamCache encodedStream) throws IOException {
+        final StreamCache encryptedStream = createStreamCache(encodedStream.getSize());
+        OutputStream filteredOutput = getFilterList().applyFilters(encryptedStream.getOutputStream(),
+                encryptionFilterIndex, getFilterList().size());
+        encodedStream.outputContents(filteredOutput);
+        filteredOutput.flush();
+        filteredOutput.close();
+        encodedStream.clear();
+        return encryptedStream;
+    }
+
+    private boolean isEncodingShared() {
+        return sharedEncoding != null
+                || (encodedStreamKey != null && getDocument().getActiveEncodedStreamCache() != null);
+    }
+
+    private StreamCache getPreparedEncoding() throws IOException {
+        try {
+            return pendingEncoding.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while encoding stream " + getObjectID());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw new RuntimeException(cause);
+            }
+        } finally {
+            pendingEncoding = null;
+        }
+    }
+
+    /**
+     * Sets the key that identifies the raw data of this stream across documents, so that its
+     * encoded payload can be shared through the document's encoded stream cache. The key must
+     * only be set if streams with the same key always have the same raw data.
+     * @param key the key, or null if the payload mustn't be shared
+     */
+    public void setEncodedStreamKey(String key) {
+        this.encodedStreamKey = key;
+    }
+
+    /**
+     * Returns the key that identifies the raw data of this stream across documents.
+     * @return the key, or null if the payload mustn't be shared
+     * @throws IOException in case of an I/O problem
+     * @see #setEncodedStreamKey(String)
+     */
+    protected String getEncodedStreamKey() throws IOException {
+        return encodedStreamKey;
+    }
+
+    /**
+     * Sets the result of searching the encoded stream cache for the payload of this stream
+     * before its raw data was created.
+     * @param entry the encoded payload, or null if it isn't in the cache
+     */
+    void setSharedEncoding(EncodedStreamCache.Entry entry) {
+        this.sharedEncoding = entry;
+        this.sharedEncodingMissing = entry == null;
+    }
+
+    /**
+     * Creates the key under which an encoded payload is stored in the encoded stream cache.
+     * Besides the key of the raw data, it covers everything that decides how the raw data is
+     * encoded for the given document.
+     * @param doc the document
+     * @param type the stream class
+     * @param filterName the default filter name of the stream
+     * @param key the key of the raw data
+     * @return the key of the encoded payload
+     */
+    static String createEncodedStreamKey(PDFDocument doc, Class<? extends AbstractPDFStream> type,
+            String filterName, String key) {
+        Map<String, List<String>> filterMap = doc.getFilterMap();
+        return type.getName() + ':' + key + ':' + (filterMap != null ? filterMap.get(filterName) : null)
+                + ':' + doc.getCompressionLevel();
+    }
+
+    /**
+     * Returns the encoded stream from the document's encoded stream cache, or encodes it and
+     * adds it to the cache if it isn't there yet.
+     * @return the encoded stream, or null if its payload isn't shared with other documents
+     * @throws IOException in case of an I/O problem
+     */
+    private StreamCache getSharedEncoding() throws IOException {
+        EncodedStreamCache.Entry entry = sharedEncoding;
+        if (entry == null) {
+            EncodedStreamCache cache = getDocument().getActiveEncodedStreamCache();
+            String key = getEncodedStreamKey();
+            if (cache == null || key == null) {
+                return null;
+            }
+            key = createEncodedStreamKey(getDocument(), getClass(), getDefaultFilterName(), key);
+            entry = sharedEncodingMissing ? null : cache.get(key);
+            if (entry == null) {
+                StreamCache encodedStream = encodeStream();
+                ByteArrayOutputStream data = new ByteArrayOutputStream(encodedStream.getSize());
+                encodedStream.outputContents(data);
+                cache.put(key, new EncodedStreamCache.Entry(data.toByteArray(), getSizeHint()));
+                return encodedStream;
+            }
+        }
+        sharedEncoding = null;
+        StreamCache encodedStream = createStreamCache(entry.getData().length);
+        encodedStream.write(entry.getData());
+        return encodedStream;
+    }
+
     /**
      * Encodes and writes a stream directly to an OutputStream. The length of
      * the stream, in this case, is set on a PDFNumber object that has to be
@@ -217,12 +418,22 @@ public abstract class AbstractPDFStream extends PDFObject {
      */
     @Override
     public int output(OutputStream stream) throws IOException {
-        setupFilterList();
+        StreamCache encodedStream = null;
+        if (pendingEncoding != null) {
+            //The filter list has been set up when the encoding was started
+            encodedStream = getPreparedEncoding();
+            if (encryptionDeferred) {
+                encryptionDeferred = false;
+                encodedStream = encryptPreparedEncoding(encodedStream);
+            }
+        } else {
+            setupFilterList();
+            encodedStream = getSharedEncoding();
+        }
 
         CountingOutputStream cout = new CountingOutputStream(stream);
         StringBuilder textBuffer = new StringBuilder(64);
 
-        StreamCache encodedStream = null;
         final Object lengthEntry;
         if (encodeOnTheFly) {
             if (!refLength.hasObjectNumber()) {
@@ -230,7 +441,9 @@ public abstract class AbstractPDFStream extends PDFObject {
             }
             lengthEntry = refLength;
         } else {
-            encodedStream = encodeStream();
+            if (encodedStream == null) {
+                encodedStream = encodeStream();
+            }
             lengthEntry = encodedStream.getSize();
         }
 
@@ -242,6 +455,9 @@ public abstract class AbstractPDFStream extends PDFObject {
         if (encodedStream == null) {
             encodeAndWriteStream(cout, refLength);
         } else {
+            if (encodeOnTheFly) {
+                refLength.setNumber(encodedStream.getSize());
+            }
             outputStreamData(encodedStream, cout);
             encodedStream.clear(); //Encoded stream can now be discarded
         }
@@ -96,6 +96,29 @@ abstract class FileIDGenerator {
 
     }
 
+    private static final class UpdatedFileIDGenerator extends FileIDGenerator {
+
+        private final byte[] originalFileID;
+
+        private final FileIDGenerator updated;
+
+        private UpdatedFileIDGenerator(byte[] originalFileID, FileIDGenerator updated) {
+            this.originalFileID = originalFileID;
+            this.updated = updated;
+        }
+
+        @Override
+        byte[] getOriginalFileID() {
+            return originalFileID;
+        }
+
+        @Override
+        byte[] getUpdatedFileID() {
+            return updated.getUpdatedFileID();
+        }
+
+    }
+
     /**
      * Use this method when the file ID is needed before the document is finalized. The
      * digest method recommended by the PDF Reference is based, among other things, on the
@@ -121,4 +144,16 @@ abstract class FileIDGenerator {
             throws NoSuchAlgorithmException {
         return new DigestFileIDGenerator(document);
     }
+
+    /**
+     * Returns an instance for an incremental update of a file, which keeps the original file
+     * identifier of the file and takes the updated one from the given generator.
+     *
+     * @param originalFileID the first element of the ID entry of the file
+     * @param updated the generator of the updated file identifier
+     * @return the generator
+     */
+    static FileIDGenerator getUpdatedFileIDGenerator(byte[] originalFileID, FileIDGenerator updated) {
+        return new UpdatedFileIDGenerator(originalFileID, updated);
+    }
 }
@@ -21,6 +21,8 @@ package org.apache.fop.pdf;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 
 import org.apache.xmlgraphics.util.io.FlateEncodeOutputStream;
 
@@ -79,6 +81,7 @@ public class FlateFilter extends PDFFilter {
     private int colors;
     private int bitsPerComponent;
     private int columns;
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
 
     /**
      * Get the name of this filter.
@@ -207,13 +210,46 @@ public class FlateFilter extends PDFFilter {
         return columns;
     }
 
+    /**
+     * Sets the compression level used when this filter compresses a stream.
+     *
+     * @param level the compression level (0-9), or {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public void setCompressionLevel(int level) {
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION
+                || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        this.compressionLevel = level;
+    }
+
+    /**
+     * Returns the compression level used when this filter compresses a stream.
+     *
+     * @return the compression level
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
 
     /** {@inheritDoc} */
     public OutputStream applyFilter(OutputStream out) throws IOException {
         if (isApplied()) {
             return out;
-        } else {
+        } else if (compressionLevel == Deflater.DEFAULT_COMPRESSION) {
             return new FlateEncodeOutputStream(out);
+        } else {
+            final Deflater deflater = new Deflater(compressionLevel);
+            return new DeflaterOutputStream(out, deflater) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        deflater.end();
+                    }
+                }
+            };
         }
     }
 
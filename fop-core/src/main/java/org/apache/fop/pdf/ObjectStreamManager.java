@@ -19,6 +19,8 @@
 
 package org.apache.fop.pdf;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -31,36 +33,103 @@ import org.apache.fop.pdf.xref.CompressedObjectReference;
  */
 class ObjectStreamManager {
 
-    private static final int OBJECT_STREAM_CAPACITY = 100;
+    /** The default maximum number of objects in a stream */
+    static final int DEFAULT_OBJECT_STREAM_CAPACITY = 100;
+
+    /** The maximum number of objects in a stream, as the index is stored in 2 bytes */
+    static final int MAX_OBJECT_STREAM_CAPACITY = 0xFFFF;
 
     private final PDFDocument pdfDocument;
 
+    private final int capacity;
+
+    private final boolean trailer;
+
     private final List<CompressedObjectReference> compressedObjectReferences;
 
     private int numObjectsInStream;
 
+    private ObjectStream previousObjectStream;
+
     private ObjectStream currentObjectStream;
 
     ObjectStreamManager(PDFDocument pdfDocument) {
+        this(pdfDocument, DEFAULT_OBJECT_STREAM_CAPACITY, true);
+    }
+
+    /**
+     * Creates a new manager.
+     *
+     * @param pdfDocument the document the streams belong to
+     * @param capacity the maximum number of objects in a stream
+     * @param trailer true if completed streams are added to the trailer objects of the
+     * document, false if they are added to the objects to be written next
+     */
+    ObjectStreamManager(PDFDocument pdfDocument, int capacity, boolean trailer) {
+        if (capacity < 1 || capacity > MAX_OBJECT_STREAM_CAPACITY) {
+            throw new IllegalArgumentException("Object stream capacity must be between 1 and "
+                    + MAX_OBJECT_STREAM_CAPACITY + ": " + capacity);
+        }
         this.pdfDocument = pdfDocument;
-        createObjectStream();
+        this.capacity = capacity;
+        this.trailer = trailer;
         compressedObjectReferences = new ArrayList<CompressedObjectReference>();
     }
 
     void add(CompressedObject compressedObject) {
-        if (numObjectsInStream++ == OBJECT_STREAM_CAPACITY) {
+        if (currentObjectStream == null) {
             createObjectStream();
-            numObjectsInStream = 1;
         }
         compressedObjectReferences.add(currentObjectStream.addObject(compressedObject));
+        if (++numObjectsInStream == capacity) {
+            finish();
+        }
+    }
+
+    /**
+     * Adds an indirect object that is not a stream.
+     *
+     * @param object the object to put into an object stream
+     */
+    void addObject(final PDFObject object) {
+        add(new CompressedObject() {
+
+            public PDFObjectNumber getObjectNumber() {
+                return object.getObjectNumber();
+            }
+
+            public int output(OutputStream outputStream) throws IOException {
+                return object.output(outputStream);
+            }
+        });
+    }
+
+    /**
+     * Completes the current object stream, if any, and hands it over to the document for
+     * output. The next object added will go into a new stream.
+     *
+     * @return true if a stream has been completed
+     */
+    boolean finish() {
+        if (currentObjectStream == null) {
+            return false;
+        }
+        if (trailer) {
+            pdfDocument.addTrailerObject(currentObjectStream);
+        } else {
+            pdfDocument.addObject(currentObjectStream);
+        }
+        previousObjectStream = currentObjectStream;
+        currentObjectStream = null;
+        numObjectsInStream = 0;
+        return true;
     }
 
     private void createObjectStream() {
-        currentObjectStream = currentObjectStream == null
+        currentObjectStream = previousObjectStream == null
                 ? new ObjectStream()
-                : new ObjectStream(currentObjectStream);
+                : new ObjectStream(previousObjectStream);
         pdfDocument.assignObjectNumber(currentObjectStream);
-        pdfDocument.addTrailerObject(currentObjectStream);
     }
 
     List<CompressedObjectReference> getCompressedObjectReferences() {
@@ -422,6 +422,12 @@ public class PDFCMap extends PDFStream {
         return new CMapBuilder(writer, this.name);
     }
 
+    /** {@inheritDoc} */
+    protected boolean isParallelEncodingSupported() {
+        //The CMap is only written to the stream during output
+        return false;
+    }
+
     /** {@inheritDoc} */
     public int output(OutputStream stream) throws IOException {
         CMapBuilder builder = createCMapBuilder(getBufferWriter());
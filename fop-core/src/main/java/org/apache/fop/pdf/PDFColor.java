@@ -473,5 +473,14 @@ public class PDFColor extends PDFPathPaint {
         return false;
     }
 
+    /** {@inheritDoc} */
+    protected int contentHashCode() {
+        //adding zero turns -0.0 into 0.0, the two compare equal but have different bits
+        long bits = Double.doubleToLongBits(red + 0.0);
+        bits = 31 * bits + Double.doubleToLongBits(green + 0.0);
+        bits = 31 * bits + Double.doubleToLongBits(blue + 0.0);
+        return (int) (bits ^ (bits >>> 32));
+    }
+
 }
 
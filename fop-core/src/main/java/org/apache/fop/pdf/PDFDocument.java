@@ -20,6 +20,7 @@
 package org.apache.fop.pdf;
 
 // Java
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
@@ -29,9 +30,17 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -40,6 +49,7 @@ import org.apache.fop.pdf.StandardStructureAttributes.Table.Scope;
 import org.apache.fop.pdf.xref.CrossReferenceStream;
 import org.apache.fop.pdf.xref.CrossReferenceTable;
 import org.apache.fop.pdf.xref.TrailerDictionary;
+import org.apache.fop.util.EncodedStreamCache;
 
 /* image support modified from work of BoBoGi */
 /* font support based on work by Takayuki Takeuchi */
@@ -136,25 +146,30 @@ public class PDFDocument {
 
     private Map<String, List<String>> filterMap = new HashMap<String, List<String>>();
 
-    private List<PDFGState> gstates = new ArrayList<PDFGState>();
+    private PDFObjectRegistry<PDFGState> gstates = new PDFObjectRegistry<PDFGState>();
 
-    private List<PDFFunction> functions = new ArrayList<PDFFunction>();
+    private PDFObjectRegistry<PDFFunction> functions = new PDFObjectRegistry<PDFFunction>();
 
-    private List<PDFShading> shadings = new ArrayList<PDFShading>();
+    private PDFObjectRegistry<PDFShading> shadings = new PDFObjectRegistry<PDFShading>();
 
-    private List<PDFPattern> patterns = new ArrayList<PDFPattern>();
+    private PDFObjectRegistry<PDFPattern> patterns = new PDFObjectRegistry<PDFPattern>();
 
-    private List<PDFLink> links = new ArrayList<PDFLink>();
+    private PDFObjectRegistry<PDFLink> links = new PDFObjectRegistry<PDFLink>();
+
+    /** Links registered before their action was set, indexed once it is */
+    private Set<PDFLink> linksWithoutAction = new HashSet<PDFLink>();
 
     private List<PDFDestination> destinations;
 
-    private List<PDFFileSpec> filespecs = new ArrayList<PDFFileSpec>();
+    private Map<PDFDestination, PDFDestination> destinationIndex;
+
+    private PDFObjectRegistry<PDFFileSpec> filespecs = new PDFObjectRegistry<PDFFileSpec>();
 
-    private List<PDFGoToRemote> gotoremotes = new ArrayList<PDFGoToRemote>();
+    private PDFObjectRegistry<PDFGoToRemote> gotoremotes = new PDFObjectRegistry<PDFGoToRemote>();
 
-    private List<PDFGoTo> gotos = new ArrayList<PDFGoTo>();
+    private PDFObjectRegistry<PDFGoTo> gotos = new PDFObjectRegistry<PDFGoTo>();
 
-    private List<PDFLaunch> launches = new ArrayList<PDFLaunch>();
+    private PDFObjectRegistry<PDFLaunch> launches = new PDFObjectRegistry<PDFLaunch>();
 
     protected List<PDFPage> pageObjs = new ArrayList<PDFPage>();
 
@@ -174,6 +189,36 @@ public class PDFDocument {
 
     private boolean linearizationEnabled;
 
+    private PDFLinearization linearization;
+
+    private boolean streamingEnabled;
+
+    private int streamSpillThreshold = StreamCacheFactory.getInstance().getSpillThreshold();
+
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    private int compressionThreads = 1;
+
+    private ExecutorService compressionExecutor;
+
+    /** Whether the document holds on to the scratch file of the stream cache factory */
+    private boolean streamCacheInUse;
+
+    /** Shares encoded stream payloads with other documents, null if they are not shared */
+    private EncodedStreamCache encodedStreamCache;
+
+    private boolean objectStreamsEnabled;
+
+    private int objectStreamCapacity = ObjectStreamManager.DEFAULT_OBJECT_STREAM_CAPACITY;
+
+    private boolean objectStreamsChecked;
+
+    /** Collects the objects packed into object streams, null if objects are written as is */
+    private ObjectStreamManager objectStreams;
+
+    /** The file this document is appended to, null if a complete file is written */
+    private PDFIncrementalUpdate incrementalUpdate;
+
     protected boolean outputStarted;
 
     /**
@@ -506,13 +551,15 @@ public class PDFDocument {
         }
         if (obj instanceof PDFPage) {
             this.pages.notifyKidRegistered((PDFPage)obj);
-            pageObjs.add((PDFPage) obj);
+            if (!isStreamingEnabled()) {
+                pageObjs.add((PDFPage) obj);
+            }
         }
         if (obj instanceof PDFLaunch) {
             this.launches.add((PDFLaunch) obj);
         }
         if (obj instanceof PDFLink) {
-            this.links.add((PDFLink) obj);
+            indexLink((PDFLink) obj);
         }
         if (obj instanceof PDFFileSpec) {
             this.filespecs.add((PDFFileSpec) obj);
@@ -572,6 +619,9 @@ public class PDFDocument {
      */
     public void setEncryption(PDFEncryptionParams params) {
         getProfile().verifyEncryptionAllowed();
+        if (incrementalUpdate != null) {
+            throw new IllegalStateException("Encryption is not supported in an incremental update");
+        }
         fileIDGenerator = FileIDGenerator.getRandomFileIDGenerator();
         this.encryption = PDFEncryptionManager.newInstance(params, this);
         if (this.encryption != null) {
@@ -604,6 +654,19 @@ public class PDFDocument {
         return this.encryption != null;
     }
 
+    /**
+     * Indicates whether streams are encrypted with keys derived from their object numbers, so
+     * that a stream can only be encrypted once its number has been given out.
+     *
+     * @return true if the encryption of a stream depends on its object number
+     */
+    boolean isEncryptionKeyedByObject() {
+        if (encryption instanceof PDFEncryptionJCE) {
+            return ((PDFEncryptionJCE) encryption).isKeyedByObject();
+        }
+        return isEncryptionActive();
+    }
+
     /**
      * Returns the active Encryption object.
      *
@@ -613,15 +676,6 @@ public class PDFDocument {
         return this.encryption;
     }
 
-    private Object findPDFObject(List<? extends PDFObject> list, PDFObject compare) {
-        for (PDFObject obj : list) {
-            if (compare.contentEquals(obj)) {
-                return obj;
-            }
-        }
-        return null;
-    }
-
     /**
      * Looks through the registered functions to see if one that is equal to
      * a reference object exists
@@ -630,7 +684,7 @@ public class PDFDocument {
      * @return the function if it was found, null otherwise
      */
     protected PDFFunction findFunction(PDFFunction compare) {
-        return (PDFFunction)findPDFObject(this.functions, compare);
+        return this.functions.find(compare);
     }
 
     /**
@@ -641,7 +695,7 @@ public class PDFDocument {
      * @return the shading if it was found, null otherwise
      */
     protected PDFShading findShading(PDFShading compare) {
-        return (PDFShading)findPDFObject(this.shadings, compare);
+        return this.shadings.find(compare);
     }
 
     /**
@@ -654,7 +708,7 @@ public class PDFDocument {
      * @return the shading if it was found, null otherwise
      */
     protected PDFPattern findPattern(PDFPattern compare) {
-        return (PDFPattern)findPDFObject(this.patterns, compare);
+        return this.patterns.find(compare);
     }
 
     /**
@@ -674,12 +728,10 @@ public class PDFDocument {
      * @return the link if found, null otherwise
      */
     protected PDFDestination findDestination(PDFDestination compare) {
-        int index = getDestinationList().indexOf(compare);
-        if (index >= 0) {
-            return getDestinationList().get(index);
-        } else {
+        if (this.destinationIndex == null) {
             return null;
         }
+        return this.destinationIndex.get(compare);
     }
 
     /**
@@ -689,7 +741,35 @@ public class PDFDocument {
      * @return the link if found, null otherwise
      */
     protected PDFLink findLink(PDFLink compare) {
-        return (PDFLink)findPDFObject(this.links, compare);
+        return this.links.find(compare);
+    }
+
+    /**
+     * Indexes a registered link by its content, which depends on its action. A link without
+     * an action is only indexed once its action is set.
+     *
+     * @param link the link
+     */
+    void indexLink(PDFLink link) {
+        if (link.hasAction()) {
+            this.links.add(link);
+        } else {
+            this.linksWithoutAction.add(link);
+        }
+    }
+
+    /**
+     * Removes a link from the index before its content changes.
+     *
+     * @param link the link
+     * @return true if the link was indexed
+     */
+    boolean unindexLink(PDFLink link) {
+        if (link.hasAction()) {
+            return this.links.remove(link);
+        } else {
+            return this.linksWithoutAction.remove(link);
+        }
     }
 
     /**
@@ -699,7 +779,7 @@ public class PDFDocument {
      * @return the file spec if found, null otherwise
      */
     protected PDFFileSpec findFileSpec(PDFFileSpec compare) {
-        return (PDFFileSpec)findPDFObject(this.filespecs, compare);
+        return this.filespecs.find(compare);
     }
 
     /**
@@ -709,7 +789,7 @@ public class PDFDocument {
      * @return the goto remote if found, null otherwise
      */
     protected PDFGoToRemote findGoToRemote(PDFGoToRemote compare) {
-        return (PDFGoToRemote)findPDFObject(this.gotoremotes, compare);
+        return this.gotoremotes.find(compare);
     }
 
     /**
@@ -719,7 +799,7 @@ public class PDFDocument {
      * @return the goto if found, null otherwise
      */
     protected PDFGoTo findGoTo(PDFGoTo compare) {
-        return (PDFGoTo)findPDFObject(this.gotos, compare);
+        return this.gotos.find(compare);
     }
 
     /**
@@ -729,27 +809,17 @@ public class PDFDocument {
      * @return the launch if found, null otherwise
      */
     protected PDFLaunch findLaunch(PDFLaunch compare) {
-        return (PDFLaunch) findPDFObject(this.launches, compare);
+        return this.launches.find(compare);
     }
 
     /**
-     * Looks for an existing GState to use
+     * Looks for an existing GState with the same values
      *
-     * @param wanted requested features
-     * @param current currently active features
+     * @param compare reference object
      * @return the GState if found, null otherwise
      */
-    protected PDFGState findGState(PDFGState wanted, PDFGState current) {
-        PDFGState poss;
-        for (PDFGState avail : this.gstates) {
-            poss = new PDFGState();
-            poss.addValues(current);
-            poss.addValues(avail);
-            if (poss.equals(wanted)) {
-                return avail;
-            }
-        }
-        return null;
+    protected PDFGState findGState(PDFGState compare) {
+        return this.gstates.find(compare);
     }
 
     /**
@@ -818,8 +888,12 @@ public class PDFDocument {
     public void addDestination(PDFDestination destination) {
         if (this.destinations == null) {
             this.destinations = new ArrayList<PDFDestination>();
+            this.destinationIndex = new HashMap<PDFDestination, PDFDestination>();
         }
         this.destinations.add(destination);
+        if (!this.destinationIndex.containsKey(destination)) {
+            this.destinationIndex.put(destination, destination);
+        }
     }
 
     /**
@@ -986,15 +1060,114 @@ public class PDFDocument {
      */
     public void output(OutputStream stream) throws IOException {
         outputStarted = true;
+        prepareObjectStreams();
+        prepareStreamEncoding();
+        outputObjects(stream);
+    }
+
+    private void outputObjects(OutputStream stream) throws IOException {
         //Write out objects until the list is empty. This approach (used with a
         //LinkedList) allows for output() methods to create and register objects
         //on the fly even during serialization.
         while (this.objects.size() > 0) {
             PDFObject object = this.objects.remove(0);
+            outputObject(object, stream);
+        }
+    }
+
+    private void outputObject(PDFObject object, OutputStream stream) throws IOException {
+        if (objectStreams != null && isCompressible(object)) {
+            objectStreams.addObject(object);
+        } else {
             streamIndirectObject(object, stream);
         }
     }
 
+    private static boolean isCompressible(PDFObject object) {
+        return !(object instanceof AbstractPDFStream) && object.getGeneration() == 0;
+    }
+
+    /**
+     * Decides, when output starts, whether objects are packed into object streams. Object
+     * streams are not used for linearized or encrypted documents, and require PDF 1.5.
+     */
+    private void prepareObjectStreams() {
+        if (objectStreamsChecked) {
+            return;
+        }
+        objectStreamsChecked = true;
+        if (objectStreamsEnabled && !isLinearizationEnabled() && !isEncryptionActive()
+                && getProfile().isObjectStreamAllowed()
+                && versionController.allowObjectStreams()
+                && (incrementalUpdate == null || incrementalUpdate.isCrossReferenceStream())) {
+            objectStreams = new ObjectStreamManager(this, objectStreamCapacity, false);
+        }
+    }
+
+    /**
+     * Writes out the object streams still being filled, together with any object registered
+     * while writing them.
+     */
+    private void outputObjectStreams(OutputStream stream) throws IOException {
+        while (objectStreams.finish() || !this.objects.isEmpty()) {
+            outputObjects(stream);
+        }
+    }
+
+    /**
+     * Starts encoding the pending streams in parallel if more than one compression thread has
+     * been configured. With encryption active, the streams are encrypted on the same threads.
+     */
+    private void prepareStreamEncoding() {
+        if (compressionThreads <= 1) {
+            return;
+        }
+        for (PDFObject object : this.objects) {
+            if (object instanceof AbstractPDFStream) {
+                ((AbstractPDFStream) object).prepareEncoding(getCompressionExecutor());
+            }
+        }
+    }
+
+    private ExecutorService getCompressionExecutor() {
+        if (compressionExecutor == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(compressionThreads, compressionThreads,
+                    10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "FOP PDF stream compression");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            //Don't keep threads around if the document is never finished
+            executor.allowCoreThreadTimeOut(true);
+            compressionExecutor = executor;
+        }
+        return compressionExecutor;
+    }
+
+    /**
+     * Releases a page once it and the objects it uses have been written out. In streaming mode
+     * the document no longer holds on to the page, its annotations or its resource context, so
+     * only the cross-reference offsets and the shared resources remain in memory. Outside of
+     * streaming mode this method does nothing.
+     *
+     * @param page the page that has been written
+     */
+    public void releasePage(PDFPage page) {
+        if (!isStreamingEnabled()) {
+            return;
+        }
+        if (!this.objects.isEmpty()) {
+            throw new IllegalStateException("Page " + page.getPageIndex()
+                    + " cannot be released before all pending objects have been written");
+        }
+        page.getPDFResources().releaseContext(page);
+        //Link annotations belong to a single page, so they are no longer worth looking up
+        this.links.clear();
+        this.linksWithoutAction.clear();
+    }
+
     protected void writeTrailer(OutputStream stream, int first, int last, int size, long mainOffset, long startxref)
             throws IOException {
         TrailerOutputHelper trailerOutputHelper = mayCompressStructureTreeElements()
@@ -1023,12 +1196,29 @@ public class PDFDocument {
     private void streamIndirectObjects(Collection<? extends PDFObject> objects, OutputStream stream)
             throws IOException {
         for (PDFObject o : objects) {
-            streamIndirectObject(o, stream);
+            outputObject(o, stream);
         }
     }
 
+    /**
+     * Records the offset of an object whose bytes are not written through this document, but
+     * copied into the output by the caller, and moves the current position past it.
+     *
+     * @param number the object number
+     * @param length the length of the object, including obj/endobj
+     */
+    void recordIndirectObject(int number, int length) {
+        outputStarted = true;
+        recordObjectOffset(number);
+        this.position += length;
+    }
+
     private void recordObjectOffset(PDFObject object) {
-        int index = object.getObjectNumber().getNumber() - 1;
+        recordObjectOffset(object.getObjectNumber().getNumber());
+    }
+
+    private void recordObjectOffset(int number) {
+        int index = number - 1;
         while (indirectObjectOffsets.size() <= index) {
             indirectObjectOffsets.add(null);
         }
@@ -1067,9 +1257,26 @@ public class PDFDocument {
      */
     public void outputHeader(OutputStream stream) throws IOException {
         this.position = 0;
+        if (!streamCacheInUse) {
+            StreamCacheFactory.getInstance().documentStarted(this);
+            streamCacheInUse = true;
+        }
 
         getProfile().verifyPDFVersion();
 
+        if (incrementalUpdate != null) {
+            if (!incrementalUpdate.isAppend()) {
+                incrementalUpdate.writeTo(stream);
+            } else if (stream instanceof FileOutputStream) {
+                incrementalUpdate.checkAppendPosition((FileOutputStream) stream);
+            }
+            this.position = incrementalUpdate.getLength();
+            //Separate the new objects from the end of the file, which may lack an end-of-line
+            stream.write('\n');
+            this.position++;
+            return;
+        }
+
         byte[] pdf = encode("%PDF-" + getPDFVersionString() + "\n");
         stream.write(pdf);
         this.position += pdf.length;
@@ -1093,9 +1300,23 @@ public class PDFDocument {
      * @throws IOException if there is an exception writing to the output stream
      */
     public void outputTrailer(OutputStream stream) throws IOException {
-        createDestinations();
-        output(stream);
-        outputTrailerObjectsAndXref(stream);
+        try {
+            createDestinations();
+            try {
+                output(stream);
+            } finally {
+                if (compressionExecutor != null) {
+                    compressionExecutor.shutdown();
+                    compressionExecutor = null;
+                }
+            }
+            outputTrailerObjectsAndXref(stream);
+        } finally {
+            if (streamCacheInUse) {
+                streamCacheInUse = false;
+                StreamCacheFactory.getInstance().documentFinished(this);
+            }
+        }
     }
 
     private void createDestinations() {
@@ -1110,16 +1331,26 @@ public class PDFDocument {
     }
 
     private void outputTrailerObjectsAndXref(OutputStream stream) throws IOException {
-        TrailerOutputHelper trailerOutputHelper = mayCompressStructureTreeElements()
+        prepareObjectStreams();
+        TrailerOutputHelper trailerOutputHelper = objectStreams != null || mayCompressStructureTreeElements()
+                || incrementalUpdate != null && incrementalUpdate.isCrossReferenceStream()
                 ? new CompressedTrailerOutputHelper()
                 : new UncompressedTrailerOutputHelper();
         if (structureTreeElements != null) {
             trailerOutputHelper.outputStructureTreeElements(stream);
         }
         streamIndirectObjects(trailerObjects, stream);
+        if (objectStreams != null) {
+            outputObjectStreams(stream);
+        }
         TrailerDictionary trailerDictionary = createTrailerDictionary(true);
+        int size = indirectObjectOffsets.size();
+        if (incrementalUpdate != null) {
+            trailerDictionary.getDictionary().put("/Prev", incrementalUpdate.getStartXRef());
+            size = Math.max(size, incrementalUpdate.getSize() - 1);
+        }
         long startxref = trailerOutputHelper.outputCrossReferenceObject(stream, trailerDictionary, 0,
-                indirectObjectOffsets.size(), indirectObjectOffsets.size());
+                indirectObjectOffsets.size(), size);
         String trailer = "\nstartxref\n" + startxref + "\n%%EOF\n";
         stream.write(encode(trailer));
     }
@@ -1127,7 +1358,8 @@ public class PDFDocument {
     private boolean mayCompressStructureTreeElements() {
         return accessibilityEnabled
                 && versionController.getPDFVersion().compareTo(Version.V1_5) >= 0
-                && !isLinearizationEnabled();
+                && !isLinearizationEnabled()
+                && (incrementalUpdate == null || incrementalUpdate.isCrossReferenceStream());
     }
 
     private TrailerDictionary createTrailerDictionary(boolean addRoot) {
@@ -1175,23 +1407,33 @@ public class PDFDocument {
 
         public long outputCrossReferenceObject(OutputStream stream,
                 TrailerDictionary trailerDictionary, int first, int last, int size) throws IOException {
-            new CrossReferenceTable(trailerDictionary, position,
-                    indirectObjectOffsets, first, last, size).output(stream);
+            if (incrementalUpdate != null) {
+                new CrossReferenceTable(trailerDictionary, position, indirectObjectOffsets, size)
+                        .output(stream);
+            } else {
+                new CrossReferenceTable(trailerDictionary, position,
+                        indirectObjectOffsets, first, last, size).output(stream);
+            }
             return position;
         }
     }
 
     private class CompressedTrailerOutputHelper implements TrailerOutputHelper {
 
-        private ObjectStreamManager structureTreeObjectStreams;
+        private final ObjectStreamManager structureTreeObjectStreams = objectStreams != null
+                ? objectStreams
+                : new ObjectStreamManager(PDFDocument.this);
 
         public void outputStructureTreeElements(OutputStream stream)
                 throws IOException {
             assert structureTreeElements.size() > 0;
-            structureTreeObjectStreams = new ObjectStreamManager(PDFDocument.this);
             for (PDFStructElem structElem : structureTreeElements) {
                 structureTreeObjectStreams.add(structElem);
             }
+            if (objectStreams == null) {
+                //The streams must be trailer objects before these get written
+                structureTreeObjectStreams.finish();
+            }
         }
 
         public long outputCrossReferenceObject(OutputStream stream,
@@ -1200,7 +1442,8 @@ public class PDFDocument {
             assert objects.isEmpty();
             new CrossReferenceStream(PDFDocument.this, ++objectcount, trailerDictionary, position,
                     indirectObjectOffsets,
-                    structureTreeObjectStreams.getCompressedObjectReferences())
+                    structureTreeObjectStreams.getCompressedObjectReferences(),
+                    incrementalUpdate != null)
                     .output(stream);
             return position;
         }
@@ -1226,7 +1469,239 @@ public class PDFDocument {
     }
 
     public void setLinearizationEnabled(boolean b) {
+        if (b && incrementalUpdate != null) {
+            throw new IllegalStateException("Linearization is not supported in an incremental update");
+        }
         linearizationEnabled = b;
     }
 
+    /**
+     * Appends this document to an existing PDF file as an incremental update. Unless the
+     * update is in append mode, the bytes of the file are written unchanged by
+     * {@link #outputHeader(OutputStream)}. The pages of this document are added after the
+     * pages of the file, and the new cross-reference
+     * section only lists the objects of this document. The catalog and the document
+     * information dictionary of the file are kept as they are.
+     * <p>
+     * This method must be called before any object is numbered or written. Linearization
+     * and encryption are not supported in an incremental update.
+     *
+     * @param update the file to append this document to
+     */
+    public void setIncrementalUpdate(PDFIncrementalUpdate update) {
+        if (outputStarted || objectcount != 0) {
+            throw new IllegalStateException("Output has already started");
+        }
+        if (isLinearizationEnabled() || isEncryptionActive()) {
+            throw new IllegalStateException(
+                    "Linearization and encryption are not supported in an incremental update");
+        }
+        this.incrementalUpdate = update;
+        this.objectcount = update.getSize() - 1;
+        //The catalog of the file is kept and refers to the updated pages tree
+        root.setObjectNumber(update.getRootNumber());
+        trailerObjects.remove(root);
+        if (update.getInfoNumber() > 0) {
+            info.setObjectNumber(update.getInfoNumber());
+            objects.remove(info);
+        }
+        pages.setObjectNumber(update.getPagesNumber());
+        pages.setPreviousPages(update.getPages(), update.getPageCount());
+        versionController = VersionController.getFixedVersionController(update.getPDFVersion());
+        if (update.getOriginalFileID() != null) {
+            fileIDGenerator = FileIDGenerator.getUpdatedFileIDGenerator(update.getOriginalFileID(),
+                    getFileIDGenerator());
+        }
+    }
+
+    /**
+     * Returns the file this document is appended to.
+     *
+     * @return the file to update, null if a complete file is written
+     */
+    public PDFIncrementalUpdate getIncrementalUpdate() {
+        return incrementalUpdate;
+    }
+
+    /**
+     * Returns the object that lays out this document for linearization.
+     *
+     * @return the linearization of this document
+     */
+    public PDFLinearization getLinearization() {
+        if (linearization == null) {
+            linearization = new PDFLinearization(this);
+        }
+        return linearization;
+    }
+
+    /**
+     * Indicates whether the pages of a linearized document are spooled to a temporary file as
+     * they are completed, rather than kept in memory until the end. This is the case when
+     * streaming is enabled together with linearization.
+     *
+     * @return true if completed pages are spooled
+     */
+    public boolean isLinearizationSpoolingEnabled() {
+        return streamingEnabled && linearizationEnabled;
+    }
+
+    /**
+     * Indicates whether pages are released as soon as they have been written out. Streaming
+     * is not available together with linearization, which needs all pages until the end;
+     * see {@link #isLinearizationSpoolingEnabled()} instead.
+     *
+     * @return true if streaming is enabled
+     */
+    public boolean isStreamingEnabled() {
+        return streamingEnabled && !linearizationEnabled;
+    }
+
+    public void setStreamingEnabled(boolean b) {
+        streamingEnabled = b;
+    }
+
+    /**
+     * Returns the number of bytes a stream of this document may hold on the heap before its
+     * content is moved to the scratch file shared by the stream caches of the JVM.
+     *
+     * @return the threshold in bytes, 0 or less if streams are kept on the heap
+     */
+    public int getStreamSpillThreshold() {
+        return streamSpillThreshold;
+    }
+
+    /**
+     * Sets the number of bytes a stream of this document may hold on the heap before its
+     * content is moved to the scratch file shared by the stream caches of the JVM. It only
+     * applies to the streams created after it is set. The default is taken from the
+     * {@link StreamCacheFactory#SPILL_THRESHOLD_PROPERTY} system property.
+     *
+     * @param threshold the threshold in bytes, 0 or less to keep streams on the heap
+     */
+    public void setStreamSpillThreshold(int threshold) {
+        streamSpillThreshold = threshold;
+    }
+
+    /**
+     * Returns the compression level used by Flate filters.
+     *
+     * @return the compression level, {@link Deflater#DEFAULT_COMPRESSION} by default
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Sets the compression level used by Flate filters.
+     *
+     * @param level the compression level (0-9), or {@link Deflater#DEFAULT_COMPRESSION}
+     * @throws IllegalArgumentException if the level is out of range
+     */
+    public void setCompressionLevel(int level) {
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION
+                || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Invalid compression level: " + level
+                    + " (must be between 0 and 9, or -1 for the default level)");
+        }
+        compressionLevel = level;
+    }
+
+    /**
+     * Returns the number of threads used to compress streams.
+     *
+     * @return the number of threads
+     */
+    public int getCompressionThreads() {
+        return compressionThreads;
+    }
+
+    /**
+     * Sets the number of threads used to compress streams. With more than one thread, the
+     * streams pending for output are compressed in parallel before they are written. The
+     * written bytes are the same as with a single thread.
+     *
+     * @param threads the number of threads
+     */
+    public void setCompressionThreads(int threads) {
+        compressionThreads = threads;
+    }
+
+    /**
+     * Returns the cache through which the encoded payloads of images, ICC profiles and font
+     * subsets are shared with other documents.
+     *
+     * @return the encoded stream cache, or null if payloads are not shared
+     */
+    public EncodedStreamCache getEncodedStreamCache() {
+        return encodedStreamCache;
+    }
+
+    /**
+     * Sets the cache through which the encoded payloads of images, ICC profiles and font
+     * subsets are shared with other documents. Payloads are not shared while encryption is
+     * active, since encrypted streams differ for each document.
+     *
+     * @param cache the encoded stream cache, or null to not share payloads
+     */
+    public void setEncodedStreamCache(EncodedStreamCache cache) {
+        encodedStreamCache = cache;
+    }
+
+    /**
+     * Returns the encoded stream cache if payloads may be shared for this document.
+     *
+     * @return the encoded stream cache, or null
+     */
+    EncodedStreamCache getActiveEncodedStreamCache() {
+        if (encodedStreamCache == null || !encodedStreamCache.isEnabled() || isEncryptionActive()) {
+            return null;
+        }
+        return encodedStreamCache;
+    }
+
+    /**
+     * Indicates whether the objects that are not streams are packed into compressed object
+     * streams, with a cross-reference stream instead of a cross-reference table.
+     *
+     * @return true if object streams have been enabled
+     */
+    public boolean isObjectStreamsEnabled() {
+        return objectStreamsEnabled;
+    }
+
+    /**
+     * Enables packing the objects that are not streams into compressed object streams. Object
+     * streams require PDF 1.5: the version of the document is raised if it may be changed,
+     * otherwise the objects are not packed. They are not used either for linearized or
+     * encrypted documents, nor for profiles restricted to PDF 1.4 like PDF/A-1.
+     *
+     * @param b true to enable object streams
+     */
+    public void setObjectStreamsEnabled(boolean b) {
+        objectStreamsEnabled = b;
+    }
+
+    /**
+     * Returns the maximum number of objects packed into one object stream.
+     *
+     * @return the capacity of object streams
+     */
+    public int getObjectStreamCapacity() {
+        return objectStreamCapacity;
+    }
+
+    /**
+     * Sets the maximum number of objects packed into one object stream.
+     *
+     * @param capacity the capacity of object streams, between 1 and 65535
+     */
+    public void setObjectStreamCapacity(int capacity) {
+        if (capacity < 1 || capacity > ObjectStreamManager.MAX_OBJECT_STREAM_CAPACITY) {
+            throw new IllegalArgumentException("Object stream capacity must be between 1 and "
+                    + ObjectStreamManager.MAX_OBJECT_STREAM_CAPACITY + ": " + capacity);
+        }
+        objectStreamCapacity = capacity;
+    }
+
 }
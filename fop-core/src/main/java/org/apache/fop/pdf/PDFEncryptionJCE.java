@@ -19,19 +19,22 @@
 
 package org.apache.fop.pdf;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
-import javax.crypto.CipherOutputStream;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.spec.IvParameterSpec;
@@ -58,6 +61,12 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
 
     private static byte[] ivZero = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
 
+    /** Size of the chunks in which stream data is encrypted. */
+    private static final int CHUNK_SIZE = 32768;
+
+    /** Idle pipelines, so that streams encrypted on several threads don't share a cipher. */
+    private final Queue<CipherPipeline> pipelines = new ConcurrentLinkedQueue<CipherPipeline>();
+
     private class EncryptionInitializer {
 
         private final PDFEncryptionParams encryptionParams;
@@ -650,17 +659,169 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
 
         /** {@inheritDoc} */
         public OutputStream applyFilter(OutputStream out) throws IOException {
+            CipherPipeline pipeline = acquirePipeline();
             if (useAlgorithm31a) {
                 byte[] iv = new byte[16];
                 random.nextBytes(iv);
-                Cipher cipher = initCipher(encryptionKey, false, iv);
+                pipeline.init(encryptionKey, iv);
                 out.write(iv);
                 out.flush();
-                return new CipherOutputStream(out, cipher);
             } else {
-                byte[] key = createEncryptionKey(streamNumber.getNumber(), streamGeneration);
-                Cipher cipher = initCipher(key);
-                return new CipherOutputStream(out, cipher);
+                pipeline.init(pipeline.createEncryptionKey(streamNumber.getNumber(), streamGeneration), null);
+            }
+            return new EncryptionOutputStream(out, pipeline);
+        }
+
+    }
+
+    /**
+     * A cipher for stream and string data together with the buffers it encrypts into. Pipelines
+     * are reused for all the objects of the document, but are only used by one thread at a time.
+     */
+    private final class CipherPipeline {
+
+        private final Cipher cipher;
+
+        private final MessageDigest keyDigest;
+
+        private final byte[] chunk = new byte[CHUNK_SIZE];
+
+        /** Large enough for a chunk plus a pending block and padding. */
+        private final byte[] output = new byte[CHUNK_SIZE + 32];
+
+        CipherPipeline() {
+            try {
+                if (useAlgorithm31a) {
+                    cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+                    keyDigest = null;
+                } else {
+                    cipher = Cipher.getInstance("RC4");
+                    keyDigest = MessageDigest.getInstance(digest.getAlgorithm());
+                }
+            } catch (NoSuchAlgorithmException e) {
+                throw new UnsupportedOperationException(e);
+            } catch (NoSuchPaddingException e) {
+                throw new UnsupportedOperationException(e);
+            }
+        }
+
+        void init(byte[] key, byte[] iv) {
+            try {
+                if (useAlgorithm31a) {
+                    cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+                } else {
+                    cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "RC4"));
+                }
+            } catch (InvalidKeyException e) {
+                throw new IllegalStateException(e);
+            } catch (InvalidAlgorithmParameterException e) {
+                throw new UnsupportedOperationException(e);
+            }
+        }
+
+        /**
+         * Applies Algorithm 3.1 from the PDF 1.4 Reference.
+         *
+         * @param objectNumber the object number
+         * @param generationNumber the generation number
+         * @return the key to use for encryption
+         */
+        byte[] createEncryptionKey(int objectNumber, int generationNumber) {
+            // Step 1 passed in
+            // Step 2
+            byte[] md5Input = prepareMD5Input(objectNumber, generationNumber);
+            // Step 3
+            keyDigest.reset();
+            byte[] hash = keyDigest.digest(md5Input);
+            // Step 4
+            int keyLength = Math.min(16, md5Input.length);
+            byte[] key = new byte[keyLength];
+            System.arraycopy(hash, 0, key, 0, keyLength);
+            return key;
+        }
+
+    }
+
+    /**
+     * Encrypts stream data in chunks into the buffers of a pipeline, which is released once the
+     * stream is closed.
+     */
+    private final class EncryptionOutputStream extends FilterOutputStream {
+
+        private CipherPipeline pipeline;
+
+        private int count;
+
+        EncryptionOutputStream(OutputStream out, CipherPipeline pipeline) {
+            super(out);
+            this.pipeline = pipeline;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == CHUNK_SIZE) {
+                encryptChunk();
+            }
+            pipeline.chunk[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == 0 && len >= CHUNK_SIZE) {
+                    encrypt(b, off, CHUNK_SIZE);
+                    off += CHUNK_SIZE;
+                    len -= CHUNK_SIZE;
+                } else {
+                    int n = Math.min(len, CHUNK_SIZE - count);
+                    System.arraycopy(b, off, pipeline.chunk, count, n);
+                    count += n;
+                    off += n;
+                    len -= n;
+                    if (count == CHUNK_SIZE) {
+                        encryptChunk();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            encryptChunk();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (pipeline == null) {
+                return;
+            }
+            try {
+                encryptChunk();
+                int n = pipeline.cipher.doFinal(pipeline.output, 0);
+                out.write(pipeline.output, 0, n);
+            } catch (GeneralSecurityException e) {
+                throw new IOException(e);
+            } finally {
+                releasePipeline(pipeline);
+                pipeline = null;
+            }
+            out.close();
+        }
+
+        private void encryptChunk() throws IOException {
+            if (count > 0) {
+                encrypt(pipeline.chunk, 0, count);
+                count = 0;
+            }
+        }
+
+        private void encrypt(byte[] b, int off, int len) throws IOException {
+            try {
+                int n = pipeline.cipher.update(b, off, len, pipeline.output, 0);
+                out.write(pipeline.output, 0, n);
+            } catch (GeneralSecurityException e) {
+                throw new IOException(e);
             }
         }
 
@@ -705,20 +866,47 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
         if (o == null && !useAlgorithm31a) {
             throw new IllegalStateException("No object number could be obtained for a PDF object");
         }
-        if (useAlgorithm31a) {
-            byte[] iv = new byte[16];
-            random.nextBytes(iv);
-            byte[] encryptedData = encryptWithKey(encryptionKey, data, false, iv);
-            byte[] storedData = new byte[encryptedData.length + 16];
-            System.arraycopy(iv, 0, storedData, 0, 16);
-            System.arraycopy(encryptedData, 0, storedData, 16, encryptedData.length);
-            return storedData;
-        } else {
-            byte[] key = createEncryptionKey(o.getObjectNumber().getNumber(), o.getGeneration());
-            return encryptWithKey(key, data);
+        CipherPipeline pipeline = acquirePipeline();
+        try {
+            if (useAlgorithm31a) {
+                byte[] iv = new byte[16];
+                random.nextBytes(iv);
+                pipeline.init(encryptionKey, iv);
+                byte[] storedData = new byte[pipeline.cipher.getOutputSize(data.length) + 16];
+                System.arraycopy(iv, 0, storedData, 0, 16);
+                int length = pipeline.cipher.doFinal(data, 0, data.length, storedData, 16);
+                return length + 16 == storedData.length ? storedData : Arrays.copyOf(storedData, length + 16);
+            } else {
+                byte[] key = pipeline.createEncryptionKey(o.getObjectNumber().getNumber(), o.getGeneration());
+                pipeline.init(key, null);
+                return pipeline.cipher.doFinal(data);
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e.getMessage());
+        } finally {
+            releasePipeline(pipeline);
         }
     }
 
+    private CipherPipeline acquirePipeline() {
+        CipherPipeline pipeline = pipelines.poll();
+        return pipeline != null ? pipeline : new CipherPipeline();
+    }
+
+    private void releasePipeline(CipherPipeline pipeline) {
+        pipelines.offer(pipeline);
+    }
+
+    /**
+     * Indicates whether the objects are encrypted with keys derived from their object numbers,
+     * which is the case for all revisions before revision 5.
+     *
+     * @return true if the encryption key depends on the object number
+     */
+    boolean isKeyedByObject() {
+        return !useAlgorithm31a;
+    }
+
     /** {@inheritDoc} */
     public void applyFilter(AbstractPDFStream stream) {
         if (!encryptMetadata && stream instanceof PDFMetadata) {
@@ -799,27 +987,6 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
         }
     }
 
-    /**
-     * Applies Algorithm 3.1 from the PDF 1.4 Reference.
-     *
-     * @param objectNumber the object number
-     * @param generationNumber the generation number
-     * @return the key to use for encryption
-     */
-    private byte[] createEncryptionKey(int objectNumber, int generationNumber) {
-        // Step 1 passed in
-        // Step 2
-        byte[] md5Input = prepareMD5Input(objectNumber, generationNumber);
-        // Step 3
-        digest.reset();
-        byte[] hash = digest.digest(md5Input);
-        // Step 4
-        int keyLength = Math.min(16, md5Input.length);
-        byte[] key = new byte[keyLength];
-        System.arraycopy(hash, 0, key, 0, keyLength);
-        return key;
-    }
-
     private byte[] prepareMD5Input(int objectNumber, int generationNumber) {
         byte[] md5Input = new byte[encryptionKey.length + 5];
         System.arraycopy(encryptionKey, 0, md5Input, 0, encryptionKey.length);
@@ -25,8 +25,11 @@ import java.awt.geom.Rectangle2D;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -66,6 +69,7 @@ import org.apache.fop.fonts.truetype.TTFSubSetFile;
 import org.apache.fop.fonts.type1.PFBData;
 import org.apache.fop.fonts.type1.PFBParser;
 import org.apache.fop.fonts.type1.Type1SubsetFile;
+import org.apache.fop.util.EncodedStreamCache;
 
 /**
  * This class provides method to create and register PDF objects.
@@ -506,14 +510,14 @@ public class PDFFactory {
      * @return the new PDF link object
      */
     public PDFLink makeLink(Rectangle2D rect, String page, String dest) {
-        PDFLink link = new PDFLink(rect);
-        getDocument().registerObject(link);
-
         PDFGoTo gt = new PDFGoTo(page);
         gt.setDestination(dest);
         getDocument().registerObject(gt);
         PDFInternalLink internalLink = new PDFInternalLink(gt.referencePDF());
+
+        PDFLink link = new PDFLink(rect);
         link.setAction(internalLink);
+        getDocument().registerObject(link);
 
         return link;
     }
@@ -1368,21 +1372,18 @@ public class PDFFactory {
             AbstractPDFStream embeddedFont = null;
             if (desc.getFontType() == FontType.TYPE0) {
                 MultiByteFont mbfont = (MultiByteFont) font;
-                FontFileReader reader = new FontFileReader(in);
-                byte[] fontBytes;
-                String header = OFFontLoader.readHeader(reader);
                 boolean isCFF = mbfont.isOTFFile();
                 if (font.getEmbeddingMode() == EmbeddingMode.FULL) {
-                    fontBytes = reader.getAllBytes();
+                    FontFileReader reader = new FontFileReader(in);
+                    byte[] fontBytes = reader.getAllBytes();
                     if (isCFF) {
                         //Ensure version 1.6 for full OTF CFF embedding
                         document.setPDFVersion(Version.V1_6);
                     }
+                    embeddedFont = getFontStream(font, fontBytes, isCFF);
                 } else {
-                    fontBytes = getFontSubsetBytes(reader, mbfont, header, fontPrefix, desc,
-                            isCFF);
+                    embeddedFont = getFontSubsetStream(in, mbfont, fontPrefix, desc, isCFF);
                 }
-                embeddedFont = getFontStream(font, fontBytes, isCFF);
             } else if (desc.getFontType() == FontType.TYPE1) {
                 if (font.getEmbeddingMode() != EmbeddingMode.SUBSET) {
                     embeddedFont = fullyEmbedType1Font(in);
@@ -1399,10 +1400,7 @@ public class PDFFactory {
                 }
             } else if (desc.getFontType() == FontType.TYPE1C) {
                 if (font.getEmbeddingMode() == EmbeddingMode.SUBSET) {
-                    FontFileReader reader = new FontFileReader(in);
-                    String header = OFFontLoader.readHeader(reader);
-                    byte[] fontBytes = getFontSubsetBytes(reader, (MultiByteFont) font, header, fontPrefix, desc, true);
-                    embeddedFont = getFontStream(font, fontBytes, true);
+                    embeddedFont = getFontSubsetStream(in, (MultiByteFont) font, fontPrefix, desc, true);
                 } else {
                     byte[] file = IOUtils.toByteArray(in);
                     PDFCFFStream embeddedFont2 = new PDFCFFStream("Type1C");
@@ -1447,6 +1445,65 @@ public class PDFFactory {
         return embeddedFont;
     }
 
+    /**
+     * Creates the stream of a font subset. If the encoded stream cache of the document holds
+     * the same subset, the stream takes its encoded payload and the font isn't subset again.
+     */
+    private AbstractPDFStream getFontSubsetStream(InputStream in, MultiByteFont mbfont, String fontPrefix,
+            FontDescriptor desc, boolean isCFF) throws IOException {
+        EncodedStreamCache cache = getDocument().getActiveEncodedStreamCache();
+        String key = cache != null ? getFontSubsetKey(mbfont, fontPrefix, desc) : null;
+        EncodedStreamCache.Entry entry = null;
+        if (key != null) {
+            Class<? extends AbstractPDFStream> type = isCFF ? PDFCFFStreamType0C.class : PDFTTFStream.class;
+            entry = cache.get(AbstractPDFStream.createEncodedStreamKey(getDocument(), type,
+                    PDFFilterList.FONT_FILTER, key));
+        }
+        AbstractPDFStream embeddedFont;
+        if (entry != null) {
+            embeddedFont = isCFF ? new PDFCFFStreamType0C(mbfont) : new PDFTTFStream(entry.getRawLength());
+        } else {
+            FontFileReader reader = new FontFileReader(in);
+            String header = OFFontLoader.readHeader(reader);
+            byte[] fontBytes = getFontSubsetBytes(reader, mbfont, header, fontPrefix, desc, isCFF);
+            embeddedFont = getFontStream(mbfont, fontBytes, isCFF);
+        }
+        if (key != null) {
+            embeddedFont.setEncodedStreamKey(key);
+            embeddedFont.setSharedEncoding(entry);
+        }
+        return embeddedFont;
+    }
+
+    /**
+     * Returns a key that identifies a font subset across documents: the font file, the subset
+     * name and the glyphs in the subset.
+     */
+    private String getFontSubsetKey(MultiByteFont mbfont, String fontPrefix, FontDescriptor desc) {
+        if (mbfont.getEmbedFileURI() == null) {
+            return null;
+        }
+        StringBuilder glyphs = new StringBuilder();
+        for (Map.Entry<Integer, Integer> glyph : mbfont.getUsedGlyphs().entrySet()) {
+            glyphs.append(glyph.getKey()).append('>').append(glyph.getValue()).append(',');
+        }
+        StringBuilder key = new StringBuilder("font:").append(mbfont.getEmbedFileURI()).append(':')
+                .append(EncodedStreamCache.getSourceVersion(mbfont.getEmbedFileURI())).append(':')
+                .append(mbfont.getTTCName()).append(':').append(fontPrefix).append(desc.getEmbedFontName())
+                .append(':');
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(glyphs.toString().getBytes("US-ASCII"));
+            for (byte b : digest) {
+                key.append(String.format("%02x", b));
+            }
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        } catch (UnsupportedEncodingException e) {
+            return null;
+        }
+        return key.toString();
+    }
+
     private byte[] getFontSubsetBytes(FontFileReader reader, MultiByteFont mbfont, String header,
             String fontPrefix, FontDescriptor desc, boolean isCFF) throws IOException {
         if (isCFF) {
@@ -1594,32 +1651,23 @@ public class PDFFactory {
 
     /**
      * make an ExtGState for extra graphics options
-     * This tries to find a GState that will setup the correct values
-     * for the current context. If there is no suitable GState it will
-     * create a new one.
+     * This tries to find a GState that sets up exactly the same values.
+     * If there is no such GState it will create a new one.
      *
      * @param settings the settings required by the caller
-     * @param current the current GState of the current PDF context
+     * @param current the current GState of the current PDF context (not used, a GState
+     * with the same settings has the same effect in any context)
      * @return a PDF GState, either an existing GState or a new one
      */
     public PDFGState makeGState(Map settings, PDFGState current) {
+        PDFGState gstate = new PDFGState();
+        gstate.addValues(settings);
 
-        // try to locate a gstate that has all the settings
-        // or will inherit from the current gstate
-        // compare "DEFAULT + settings" with "current + each gstate"
-
-        PDFGState wanted = new PDFGState();
-        wanted.addValues(PDFGState.DEFAULT);
-        wanted.addValues(settings);
-
-
-        PDFGState existing = getDocument().findGState(wanted, current);
+        PDFGState existing = getDocument().findGState(gstate);
         if (existing != null) {
             return existing;
         }
 
-        PDFGState gstate = new PDFGState();
-        gstate.addValues(settings);
         getDocument().registerObject(gstate);
         return gstate;
     }
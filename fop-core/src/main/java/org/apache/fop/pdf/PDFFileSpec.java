@@ -77,4 +77,9 @@ public class PDFFileSpec extends PDFDictionary {
 
         return true;
     }
+
+    /** {@inheritDoc} */
+    protected int contentHashCode() {
+        return getFilename().hashCode();
+    }
 }
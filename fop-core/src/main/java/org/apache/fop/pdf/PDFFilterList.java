@@ -143,6 +143,19 @@ public class PDFFilterList {
         }
     }
 
+    /**
+     * Sets the compression level of all Flate filters in this list.
+     * @param level the compression level
+     * @see FlateFilter#setCompressionLevel(int)
+     */
+    public void setCompressionLevel(int level) {
+        for (PDFFilter filter : filters) {
+            if (filter instanceof FlateFilter) {
+                ((FlateFilter) filter).setCompressionLevel(level);
+            }
+        }
+    }
+
     /**
      * Checks the filter list for the filter and adds it in the correct
      * place if necessary.
@@ -360,13 +373,34 @@ public class PDFFilterList {
      * @throws IOException In case of an I/O problem
      */
     public OutputStream applyFilters(OutputStream stream) throws IOException {
+        return applyFilters(stream, 0, filters.size());
+    }
+
+    /**
+     * Applies a range of the registered filters as necessary, so that the filters at the end
+     * of the list can be applied to the output of the others later on.
+     * @param stream raw data output stream
+     * @param fromIndex the index of the first filter to apply
+     * @param toIndex the index after the last filter to apply
+     * @return OutputStream filtered output stream
+     * @throws IOException In case of an I/O problem
+     */
+    OutputStream applyFilters(OutputStream stream, int fromIndex, int toIndex) throws IOException {
         OutputStream out = stream;
         if (!isDisableAllFilters()) {
-            for (int count = filters.size() - 1; count >= 0; count--) {
+            for (int count = toIndex - 1; count >= fromIndex; count--) {
                 PDFFilter filter = filters.get(count);
                 out = filter.applyFilter(out);
             }
         }
         return out;
     }
+
+    /**
+     * Returns the number of registered filters.
+     * @return the number of filters
+     */
+    int size() {
+        return filters.size();
+    }
 }
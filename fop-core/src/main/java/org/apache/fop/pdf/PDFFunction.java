@@ -189,4 +189,19 @@ public class PDFFunction extends PDFObject {
         return true;
     }
 
+    /** {@inheritDoc} */
+    protected int contentHashCode() {
+        int hash = function.getFunctionType();
+        hash = 31 * hash + function.getBitsPerSample();
+        hash = 31 * hash + function.getOrder();
+        hash = 31 * hash + (function.getDomain() == null ? 0 : function.getDomain().hashCode());
+        hash = 31 * hash + (function.getRange() == null ? 0 : function.getRange().hashCode());
+        hash = 31 * hash + (function.getEncode() == null ? 0 : function.getEncode().hashCode());
+        hash = 31 * hash + Arrays.hashCode(function.getCZero());
+        hash = 31 * hash + Arrays.hashCode(function.getCOne());
+        hash = 31 * hash + pdfFunctions.hashCode();
+        hash = 31 * hash + (function.getBounds() == null ? 0 : function.getBounds().hashCode());
+        return hash;
+    }
+
 }
@@ -174,5 +174,18 @@ public class PDFGoTo extends PDFAction {
 
         return true;
     }
+
+    /** {@inheritDoc} */
+    protected int contentHashCode() {
+        int hash = pageReference == null ? 0 : pageReference.hashCode();
+        if (destination == null) {
+            //adding zero turns -0.0 into 0.0, the two compare equal but have different bits
+            hash = 31 * hash + Float.floatToIntBits(xPosition + 0.0f);
+            hash = 31 * hash + Float.floatToIntBits(yPosition + 0.0f);
+        } else {
+            hash = 31 * hash + destination.hashCode();
+        }
+        return hash;
+    }
 }
 
@@ -165,5 +165,11 @@ public class PDFGoToRemote extends PDFAction {
 
         return (this.newWindow == remote.newWindow);
     }
+
+    /** {@inheritDoc} */
+    protected int contentHashCode() {
+        //the destination and page are left out as they are not always compared
+        return 31 * pdfFileSpec.toString().hashCode() + (newWindow ? 1 : 0);
+    }
 }
 
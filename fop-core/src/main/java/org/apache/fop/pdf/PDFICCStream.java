@@ -71,6 +71,20 @@ public class PDFICCStream extends PDFStream {
         return length;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected boolean isParallelEncodingSupported() {
+        //The ICC profile is shared with the color handling of the renderer
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected String getEncodedStreamKey() throws IOException {
+        //The same profile always gives the same stream
+        return cp != null ? "icc:" + streamHashCode() : null;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected void outputRawStreamData(OutputStream out) throws IOException {
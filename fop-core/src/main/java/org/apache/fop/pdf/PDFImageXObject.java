@@ -153,6 +153,12 @@ public class PDFImageXObject extends PDFXObject {
         pdfimage.outputContents(out);
     }
 
+    /** {@inheritDoc} */
+    protected boolean isParallelEncodingSupported() {
+        //With PDF/VT, the image data is read once more for the GTS_XID entry during output
+        return !getDocumentSafely().getProfile().isPDFVTActive();
+    }
+
     /** {@inheritDoc} */
     protected int getSizeHint() throws IOException {
         return 0;
@@ -182,6 +188,10 @@ public class PDFImageXObject extends PDFXObject {
     @Override
     public void getChildren(Set<PDFObject> children) {
         super.getChildren(children);
+        if (pdfimage == null) {
+            //already written, the dictionary refers to the ICC stream
+            return;
+        }
         PDFICCStream pdfICCStream = pdfimage.getICCStream();
         if (pdfICCStream != null) {
             children.add(pdfICCStream);
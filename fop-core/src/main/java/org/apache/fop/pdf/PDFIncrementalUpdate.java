@@ -0,0 +1,312 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.fop.pdf.xref.CrossReferenceReader;
+
+/**
+ * An existing PDF file to which a document is appended as an incremental update, as described
+ * in Section 3.4.5 of the PDF 1.5 Reference. The update consists of the new objects, a /Pages
+ * object listing the previous and the new pages, and a cross-reference section for the new
+ * objects only.
+ * <p>
+ * In append mode, only the update is written, to a stream that appends to the file (see
+ * {@link #openAppendStream()}), so that the cost of the update depends on the size of the
+ * appended document rather than the size of the file. Otherwise the bytes of the file are
+ * first copied unchanged to the output, which then holds a complete new file.
+ * <p>
+ * The file is memory-mapped and its cross-reference data read with a
+ * {@link CrossReferenceReader}, which handles the files written by FOP. The document catalog
+ * and the document information dictionary of the file are kept, so outlines, named
+ * destinations, page labels and structure trees of the appended document are not added to
+ * them. Encrypted files cannot be updated.
+ */
+public class PDFIncrementalUpdate {
+
+    private final File file;
+
+    private final ByteBuffer pdf;
+
+    private final CrossReferenceReader xref;
+
+    private final Version version;
+
+    private final int rootNumber;
+
+    private final int infoNumber;
+
+    private final int pagesNumber;
+
+    private final List<Object> pages;
+
+    private final int pageCount;
+
+    private final byte[] originalFileID;
+
+    private boolean append;
+
+    /**
+     * Memory-maps the given file and reads its cross-reference data. The file must not be
+     * changed while the update is written.
+     *
+     * @param file the PDF file to update
+     * @throws IOException if the file cannot be read or is not supported
+     */
+    public PDFIncrementalUpdate(File file) throws IOException {
+        this(file, map(file));
+    }
+
+    /**
+     * Reads the cross-reference data of the given PDF file.
+     *
+     * @param pdf the content of the PDF file to update
+     * @throws IOException if the file is not supported
+     */
+    public PDFIncrementalUpdate(ByteBuffer pdf) throws IOException {
+        this(null, pdf);
+    }
+
+    private PDFIncrementalUpdate(File file, ByteBuffer pdf) throws IOException {
+        this.file = file;
+        this.pdf = pdf.duplicate();
+        this.version = readVersion();
+        this.xref = new CrossReferenceReader(this.pdf);
+        PDFDictionary trailer = xref.getTrailer();
+        if (trailer.get("Encrypt") != null) {
+            throw new IOException("Encrypted PDF files cannot be updated");
+        }
+        this.rootNumber = getObjectNumber(trailer, "Root");
+        this.infoNumber = trailer.get("Info") == null ? 0 : getObjectNumber(trailer, "Info");
+        PDFDictionary root = (PDFDictionary) xref.getObject(rootNumber);
+        this.pagesNumber = getObjectNumber(root, "Pages");
+        PDFDictionary pagesDictionary = (PDFDictionary) xref.getObject(pagesNumber);
+        PDFArray kids = (PDFArray) xref.resolve(pagesDictionary.get("Kids"));
+        List<Object> kidList = new ArrayList<Object>(kids.length());
+        for (int i = 0; i < kids.length(); i++) {
+            kidList.add(kids.get(i));
+        }
+        this.pages = Collections.unmodifiableList(kidList);
+        this.pageCount = ((Number) xref.resolve(pagesDictionary.get("Count"))).intValue();
+        Object fileID = trailer.get("ID");
+        if (fileID instanceof PDFArray && ((PDFArray) fileID).length() > 0) {
+            this.originalFileID = (byte[]) ((PDFArray) fileID).get(0);
+        } else {
+            this.originalFileID = null;
+        }
+    }
+
+    private static ByteBuffer map(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("PDF file too large to be updated: " + file);
+            }
+            //The mapping remains valid once the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            raf.close();
+        }
+    }
+
+    private Version readVersion() throws IOException {
+        String header = "%PDF-";
+        if (pdf.limit() < header.length() + 3) {
+            throw new IOException("Not a PDF file");
+        }
+        StringBuilder version = new StringBuilder();
+        for (int i = 0; i < header.length() + 3; i++) {
+            char c = (char) pdf.get(i);
+            if (i < header.length()) {
+                if (c != header.charAt(i)) {
+                    throw new IOException("Not a PDF file");
+                }
+            } else {
+                version.append(c);
+            }
+        }
+        try {
+            return Version.getValueOf(version.toString());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unsupported PDF version: " + version);
+        }
+    }
+
+    private static int getObjectNumber(PDFDictionary dictionary, String key) throws IOException {
+        Object value = dictionary.get(key);
+        if (!(value instanceof PDFReference)) {
+            throw new IOException("The " + key + " entry is not an indirect reference");
+        }
+        return ((PDFReference) value).getObjectNumber().getNumber();
+    }
+
+    /**
+     * Sets whether only the update is written. The stream the document is written to must then
+     * append to the file, for example a {@link FileOutputStream} opened in append mode.
+     *
+     * @param append true to write only the update, false to copy the file first
+     */
+    public void setAppend(boolean append) {
+        this.append = append;
+    }
+
+    /**
+     * Returns whether only the update is written.
+     *
+     * @return true in append mode
+     */
+    public boolean isAppend() {
+        return append;
+    }
+
+    /**
+     * Opens a stream appending to the file and switches to append mode. The update must have
+     * been created from a file, which must not have changed since it was read.
+     *
+     * @return a stream positioned at the end of the file
+     * @throws IOException if the file cannot be opened or has changed
+     */
+    public OutputStream openAppendStream() throws IOException {
+        if (file == null) {
+            throw new IllegalStateException("The update was not read from a file");
+        }
+        FileOutputStream out = new FileOutputStream(file, true);
+        try {
+            checkAppendPosition(out);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+        append = true;
+        return new BufferedOutputStream(out);
+    }
+
+    /**
+     * Checks that a file stream is positioned at the end of the file as it was read, so that the
+     * offsets of the update are right.
+     */
+    void checkAppendPosition(FileOutputStream out) throws IOException {
+        if (out.getChannel().position() != getLength()) {
+            throw new IOException("The output is not positioned at the end of the updated file");
+        }
+    }
+
+    /**
+     * Returns the length of the file to update.
+     *
+     * @return the length in bytes
+     */
+    public long getLength() {
+        return pdf.limit();
+    }
+
+    /**
+     * Returns the version given in the header of the file.
+     *
+     * @return the PDF version
+     */
+    public Version getPDFVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the number of pages in the file.
+     *
+     * @return the page count
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Returns the reader of the cross-reference data of the file, through which its objects
+     * can be read.
+     *
+     * @return the cross-reference reader
+     */
+    public CrossReferenceReader getCrossReferenceReader() {
+        return xref;
+    }
+
+    int getSize() {
+        return xref.getSize();
+    }
+
+    long getStartXRef() {
+        return xref.getStartXRef();
+    }
+
+    boolean isCrossReferenceStream() {
+        return xref.isCrossReferenceStream();
+    }
+
+    int getRootNumber() {
+        return rootNumber;
+    }
+
+    int getInfoNumber() {
+        return infoNumber;
+    }
+
+    int getPagesNumber() {
+        return pagesNumber;
+    }
+
+    List<Object> getPages() {
+        return pages;
+    }
+
+    byte[] getOriginalFileID() {
+        return originalFileID;
+    }
+
+    /**
+     * Writes the bytes of the file unchanged.
+     *
+     * @param out the stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    void writeTo(OutputStream out) throws IOException {
+        ByteBuffer data = pdf.duplicate();
+        data.rewind();
+        if (data.hasArray()) {
+            out.write(data.array(), data.arrayOffset(), data.limit());
+        } else {
+            WritableByteChannel channel = Channels.newChannel(out);
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+    }
+}
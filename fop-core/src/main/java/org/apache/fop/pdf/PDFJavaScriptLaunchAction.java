@@ -68,4 +68,9 @@ public class PDFJavaScriptLaunchAction extends PDFAction {
         return true;
     }
 
+    /** {@inheritDoc} */
+    protected int contentHashCode() {
+        return script.hashCode();
+    }
+
 }
@@ -18,13 +18,23 @@
 /* $Id$ */
 package org.apache.fop.pdf;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +48,15 @@ public class PDFLinearization {
     private PDFDictionary linearDict;
     private HintTable hintTable;
 
+    /** the objects needed by the first page when it was completed, only used when spooling */
+    private Set<PDFObject> spooledPage1Objects;
+    /** the object groups of the spooled pages, either a pending PDFObject or a SpooledObject */
+    private Map<PDFPage, List<Object>> spooledPages = new HashMap<PDFPage, List<Object>>();
+    /** the numbers of all objects grouped with a spooled page */
+    private BitSet spooledNumbers = new BitSet();
+    private int spooledObjectCount;
+    private Spool spool;
+
     public PDFLinearization(PDFDocument doc) {
         this.doc = doc;
     }
@@ -74,6 +93,11 @@ public class PDFLinearization {
             return new PDFFilterList(getDocument().isEncryptionActive());
         }
 
+        @Override
+        protected boolean isParallelEncodingSupported() {
+            return false;
+        }
+
         @Override
         protected void outputRawStreamData(OutputStream os) throws IOException {
             CountingOutputStream bos = new CountingOutputStream(os);
@@ -186,12 +210,183 @@ public class PDFLinearization {
     }
 
 
+    /** An object whose bytes have been written to the spool file. */
+    private static final class SpooledObject {
+        private final int number;
+        private final long offset;
+        private final int length;
+        private final boolean contentStream;
+
+        SpooledObject(int number, long offset, int length, boolean contentStream) {
+            this.number = number;
+            this.offset = offset;
+            this.length = length;
+            this.contentStream = contentStream;
+        }
+    }
+
+    /** The temporary file holding the streams of the pages completed so far. */
+    private static final class Spool {
+        private final File file;
+        private final CountingOutputStream out;
+        private FileChannel channel;
+
+        Spool() throws IOException {
+            file = File.createTempFile("org.apache.fop.pdf.PDFLinearization-", ".temp");
+            file.deleteOnExit();
+            out = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        }
+
+        SpooledObject write(PDFObject object) throws IOException {
+            long offset = out.getByteCount();
+            int length = PDFDocument.outputIndirectObject(object, out);
+            return new SpooledObject(object.getObjectNumber().getNumber(), offset, length,
+                    object instanceof PDFStream);
+        }
+
+        void transferTo(SpooledObject object, OutputStream stream) throws IOException {
+            if (channel == null) {
+                out.close();
+                channel = new RandomAccessFile(file, "r").getChannel();
+            }
+            WritableByteChannel target = Channels.newChannel(stream);
+            long position = object.offset;
+            long end = position + object.length;
+            while (position < end) {
+                position += channel.transferTo(position, end - position, target);
+            }
+        }
+
+        void close() throws IOException {
+            try {
+                out.close();
+                if (channel != null) {
+                    channel.close();
+                }
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Collects the bytes that follow the first-page cross-reference section. Spooled objects
+     * are only referred to, and copied from the spool file when the section is written.
+     */
+    private static final class OutputSection extends OutputStream {
+        private final List<Object> parts = new ArrayList<Object>();
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        @Override
+        public void write(int b) {
+            buffer.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer.write(b, off, len);
+        }
+
+        void addSpooled(SpooledObject object) {
+            parts.add(buffer);
+            parts.add(object);
+            buffer = new ByteArrayOutputStream();
+        }
+
+        void writeTo(OutputStream stream, Spool spool) throws IOException {
+            for (Object part : parts) {
+                if (part instanceof SpooledObject) {
+                    spool.transferTo((SpooledObject) part, stream);
+                } else {
+                    ((ByteArrayOutputStream) part).writeTo(stream);
+                }
+            }
+            buffer.writeTo(stream);
+        }
+    }
+
+    /**
+     * Spools the objects of a page that has been completed, so that the content streams and
+     * images of the pages after the first one don't have to be kept in memory until the end of
+     * the document. The objects a page uses for the first time are numbered as its object group
+     * right away, which gives the same page ordered numbering the final pass would assign. The
+     * streams among them are written to a temporary file, unless they refer to objects that
+     * have no number yet. The remaining objects, mostly small dictionaries such as the page
+     * itself, are kept and written in the final pass, when the first-page section is known.
+     * Objects needed by the first page are never spooled.
+     *
+     * @param page the completed page
+     * @throws IOException if the spool file cannot be written
+     */
+    public void spoolPage(PDFPage page) throws IOException {
+        if (page.pageIndex == 0) {
+            spooledPage1Objects = new HashSet<PDFObject>();
+            spooledPage1Objects.add(doc.getRoot());
+            spooledPage1Objects.add(page);
+            page.getChildren(spooledPage1Objects);
+            return;
+        }
+        if (spooledPage1Objects == null) {
+            //the first page isn't known yet, so this page is left to the final pass
+            return;
+        }
+        List<PDFObject> group = new ArrayList<PDFObject>();
+        for (PDFObject c : getChildren(page)) {
+            if (c.hasObjectNumber() && !spooledPage1Objects.contains(c) && !isSpooled(c)) {
+                spooledNumbers.set(c.getObjectNumber().getNumber());
+                group.add(c);
+            }
+        }
+        List<Object> entries = new ArrayList<Object>(group.size());
+        for (PDFObject c : group) {
+            if (c instanceof AbstractPDFStream && isNumbered(getChildren(c)) && doc.objects.remove(c)) {
+                if (spool == null) {
+                    spool = new Spool();
+                }
+                entries.add(spool.write(c));
+                spooledObjectCount++;
+            } else {
+                entries.add(c);
+            }
+        }
+        spooledPages.put(page, entries);
+    }
+
+    private boolean isSpooled(PDFObject o) {
+        PDFObjectNumber number = o.getObjectNumber();
+        return number.isAssigned() && spooledNumbers.get(number.getNumber());
+    }
+
+    private static boolean isNumbered(Set<PDFObject> objects) {
+        for (PDFObject o : objects) {
+            if (o.hasObjectNumber() && !o.getObjectNumber().isAssigned()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void removeSpooled(Set<PDFObject> objects) {
+        if (spooledPages.isEmpty()) {
+            return;
+        }
+        for (Iterator<PDFObject> iter = objects.iterator(); iter.hasNext();) {
+            if (isSpooled(iter.next())) {
+                iter.remove();
+            }
+        }
+    }
+
     private Set<PDFObject> assignNumbers() throws IOException {
         Set<PDFObject> page1Children = getPage1Children();
         if (!doc.pageObjs.isEmpty()) {
             for (int i = 1; i < doc.pageObjs.size(); i++) {
                 PDFPage page = doc.pageObjs.get(i);
                 Set<PDFObject> children = pageObjsMap.get(page);
+                if (children == null) {
+                    //already numbered when the page was spooled
+                    continue;
+                }
                 for (PDFObject c : children) {
                     if (!page1Children.contains(c) && c.hasObjectNumber()) {
                         c.getObjectNumber().getNumber();
@@ -238,6 +433,17 @@ public class PDFLinearization {
     }
 
     public void outputPages(OutputStream stream) throws IOException {
+        try {
+            outputLinearizedPages(stream);
+        } finally {
+            if (spool != null) {
+                spool.close();
+                spool = null;
+            }
+        }
+    }
+
+    private void outputLinearizedPages(OutputStream stream) throws IOException {
         Collections.sort(doc.pageObjs, new Comparator<PDFPage>() {
             public int compare(PDFPage o1, PDFPage o2) {
                 return ((Integer) o1.pageIndex).compareTo(o2.pageIndex);
@@ -249,7 +455,7 @@ public class PDFLinearization {
             doc.objects.addAll(doc.getStructureTreeElements());
             doc.structureTreeElements = null;
         }
-        for (int i = 0; i < doc.objects.size() * 2; i++) {
+        for (int i = 0; i < (doc.objects.size() + spooledObjectCount) * 2; i++) {
             doc.indirectObjectOffsets.add(0L);
         }
         Set<PDFObject> page1Children = assignNumbers();
@@ -257,7 +463,7 @@ public class PDFLinearization {
         for (PDFObject o : page1Children) {
             doc.objects.remove(o);
         }
-        int sizeOfRest = doc.objects.size();
+        int sizeOfRest = doc.objects.size() + spooledObjectCount;
 
         ByteArrayOutputStream fakeHeaderTrailerStream = new ByteArrayOutputStream();
         long topTrailer = doc.position;
@@ -265,7 +471,7 @@ public class PDFLinearization {
                 page1Children.size() + sizeOfRest + 1, Long.MAX_VALUE, 0);
         doc.position += fakeHeaderTrailerStream.size();
 
-        ByteArrayOutputStream pageStream = new ByteArrayOutputStream();
+        OutputSection pageStream = new OutputSection();
         writeObjects(page1Children, pageStream, sizeOfRest + 1);
         long trailerOffset = doc.position;
         ByteArrayOutputStream footerTrailerStream = new ByteArrayOutputStream();
@@ -285,7 +491,7 @@ public class PDFLinearization {
                 break;
             }
         }
-        stream.write(pageStream.toByteArray());
+        pageStream.writeTo(stream, spool);
         stream.write(footerTrailerStream.toByteArray());
     }
 
@@ -298,13 +504,16 @@ public class PDFLinearization {
             page1Children.add(hintTable);
             page1Children.add(page1);
             page1.getChildren(page1Children);
+            removeSpooled(page1Children);
             doc.objects.remove(doc.getPages());
             doc.objects.add(0, doc.getPages());
             pageObjsMap.put(page1, page1Children);
 
             for (int i = 1; i < doc.pageObjs.size(); i++) {
                 PDFPage page = doc.pageObjs.get(i);
-                pageObjsMap.put(page, getChildren(page));
+                if (!spooledPages.containsKey(page)) {
+                    pageObjsMap.put(page, getChildren(page));
+                }
             }
         }
         return page1Children;
@@ -316,7 +525,7 @@ public class PDFLinearization {
         }
     }
 
-    private void writeObjects(Set<PDFObject> children1, OutputStream pageStream, int sizeOfRest) throws IOException {
+    private void writeObjects(Set<PDFObject> children1, OutputSection pageStream, int sizeOfRest) throws IOException {
         writePage1(children1, pageStream);
         linearDict.put("/E", doc.position);
         for (PDFPage page : doc.pageObjs) {
@@ -395,13 +604,19 @@ public class PDFLinearization {
 
     private Set<PDFObject> getSharedObjects() {
         Set<PDFObject> pageSharedChildren = getChildren(doc.pageObjs.get(0));
+        removeSpooled(pageSharedChildren);
         for (int i = 0; i < pageSharedChildren.size(); i++) {
             hintTable.sharedLengths.add(0);
         }
         return pageSharedChildren;
     }
 
-    private void writePage(PDFPage page, OutputStream pageStream) throws IOException {
+    private void writePage(PDFPage page, OutputSection pageStream) throws IOException {
+        List<Object> entries = spooledPages.get(page);
+        if (entries != null) {
+            writeSpooledPage(page, entries, pageStream);
+            return;
+        }
         Set<PDFObject> children = pageObjsMap.get(page);
         int pageLen = 0;
         int objCount = 0;
@@ -419,4 +634,33 @@ public class PDFLinearization {
         hintTable.pageLengths.set(page.pageIndex, pageLen);
         hintTable.objCount.set(page.pageIndex, objCount);
     }
+
+    private void writeSpooledPage(PDFPage page, List<Object> entries, OutputSection pageStream)
+            throws IOException {
+        int pageLen = 0;
+        int objCount = 0;
+        for (Object entry : entries) {
+            int len;
+            boolean contentStream;
+            if (entry instanceof SpooledObject) {
+                SpooledObject o = (SpooledObject) entry;
+                doc.recordIndirectObject(o.number, o.length);
+                pageStream.addSpooled(o);
+                len = o.length;
+                contentStream = o.contentStream;
+            } else if (doc.objects.remove(entry)) {
+                len = doc.streamIndirectObject((PDFObject) entry, pageStream);
+                contentStream = entry instanceof PDFStream;
+            } else {
+                continue;
+            }
+            if (contentStream) {
+                hintTable.contentStreamLengths.set(page.pageIndex, len);
+            }
+            pageLen += len;
+            objCount++;
+        }
+        hintTable.pageLengths.set(page.pageIndex, pageLen);
+        hintTable.objCount.set(page.pageIndex, objCount);
+    }
 }
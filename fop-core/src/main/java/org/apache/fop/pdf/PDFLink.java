@@ -67,10 +67,25 @@ public class PDFLink extends PDFObject {
      * @param action the pdf action that is activated for this link
      */
     public void setAction(PDFAction action) {
+        //the link is indexed by its content in the document it is registered with
+        PDFDocument doc = getDocument();
+        boolean indexed = doc != null && doc.unindexLink(this);
         this.action = action;
+        if (indexed) {
+            doc.indexLink(this);
+        }
     }
 
 
+    /**
+     * Indicates whether the action of this link has been set. The content of a link, and so
+     * its content hash code, is only known once it has.
+     * @return true if the link has an action
+     */
+    boolean hasAction() {
+        return action != null;
+    }
+
     /**
      * Sets the value of the StructParent entry for this link.
      *
@@ -144,6 +159,17 @@ public class PDFLink extends PDFObject {
         return true;
     }
 
+    /** {@inheritDoc} */
+    protected int contentHashCode() {
+        //adding zero turns -0.0 into 0.0, the two compare equal but have different bits
+        int hash = Float.floatToIntBits(ulx + 0.0f);
+        hash = 31 * hash + Float.floatToIntBits(uly + 0.0f);
+        hash = 31 * hash + Float.floatToIntBits(brx + 0.0f);
+        hash = 31 * hash + Float.floatToIntBits(bry + 0.0f);
+        hash = 31 * hash + color.hashCode();
+        return 31 * hash + action.getAction().hashCode();
+    }
+
     @Override
     public void getChildren(Set<PDFObject> children) {
         super.getChildren(children);
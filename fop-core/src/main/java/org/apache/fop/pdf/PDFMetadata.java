@@ -95,6 +95,12 @@ public class PDFMetadata extends PDFStream {
         return length;
     }
 
+    /** {@inheritDoc} */
+    protected boolean isParallelEncodingSupported() {
+        //The XMP packet is serialized from a DOM that may still be in use elsewhere
+        return false;
+    }
+
     /** {@inheritDoc} */
     protected void outputRawStreamData(OutputStream out) throws IOException {
         try {
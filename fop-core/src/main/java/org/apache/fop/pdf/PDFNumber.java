@@ -27,6 +27,9 @@ import org.apache.xmlgraphics.util.DoubleFormatUtil;
  */
 public class PDFNumber extends PDFObject {
 
+    /** Whole numbers below this value are written without going through DoubleFormatUtil */
+    private static final double MAX_PLAIN_INTEGER = 1e15;
+
     private Number number;
 
     public PDFNumber() {
@@ -105,6 +108,12 @@ public class PDFNumber extends PDFObject {
         if (dec < 0 || dec > 16) {
             throw new IllegalArgumentException("Parameter dec must be between 1 and 16");
         }
+        if (doubleDown == (long) doubleDown && Math.abs(doubleDown) < MAX_PLAIN_INTEGER) {
+            //Whole numbers are frequent (coordinates, font sizes) and can be appended as they are
+            //whereas DoubleFormatUtil goes through Double.toString() for them
+            buf.append((long) doubleDown);
+            return buf;
+        }
         DoubleFormatUtil.formatDouble(doubleDown, dec, dec, buf);
         return buf;
     }
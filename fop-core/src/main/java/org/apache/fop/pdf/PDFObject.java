@@ -356,6 +356,18 @@ public abstract class PDFObject implements PDFWritable {
         return this.equals(o);
     }
 
+    /**
+     * Returns a hash code for the content of this object. Objects for which
+     * {@link #contentEquals(PDFObject)} returns true must return the same value, so
+     * subclasses overriding contentEquals must override this method as well. It is used to
+     * look up registered objects with the same content without comparing all of them.
+     *
+     * @return the hash code of the content
+     */
+    protected int contentHashCode() {
+        return this.hashCode();
+    }
+
     public void getChildren(Set<PDFObject> children) {
     }
 }
@@ -40,6 +40,15 @@ public class PDFObjectNumber {
         return num;
     }
 
+    /**
+     * Indicates whether a number has been given out, without assigning one.
+     *
+     * @return true if the number is known
+     */
+    boolean isAssigned() {
+        return num != 0;
+    }
+
     public String toString() {
         return String.valueOf(getNumber());
     }
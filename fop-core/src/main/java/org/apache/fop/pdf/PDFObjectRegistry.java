@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of registered PDF objects of one kind so that an object with the same content
+ * can be found without comparing it against every registered object. Objects are grouped by
+ * {@link PDFObject#contentHashCode()} and only the objects of one group are compared using
+ * {@link PDFObject#contentEquals(PDFObject)}.
+ *
+ * @param <T> the type of the registered objects
+ */
+final class PDFObjectRegistry<T extends PDFObject> {
+
+    private final Map<Integer, List<T>> objectsByHash = new HashMap<Integer, List<T>>();
+
+    private int size;
+
+    /**
+     * Adds an object to the registry.
+     *
+     * @param obj the object to add
+     */
+    void add(T obj) {
+        Integer hash = obj.contentHashCode();
+        List<T> objects = objectsByHash.get(hash);
+        if (objects == null) {
+            objects = new ArrayList<T>(1);
+            objectsByHash.put(hash, objects);
+        }
+        objects.add(obj);
+        size++;
+    }
+
+    /**
+     * Removes an object from the registry. The object must have the content it had when it
+     * was added.
+     *
+     * @param obj the object to remove
+     * @return true if the object was registered
+     */
+    boolean remove(T obj) {
+        List<T> objects = objectsByHash.get(obj.contentHashCode());
+        if (objects != null) {
+            for (int i = 0; i < objects.size(); i++) {
+                if (objects.get(i) == obj) {
+                    objects.remove(i);
+                    if (objects.isEmpty()) {
+                        objectsByHash.remove(obj.contentHashCode());
+                    }
+                    size--;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Looks for a registered object with the same content as the given one.
+     *
+     * @param compare the object to use as search template
+     * @return the first registered object with the same content, null if there is none
+     */
+    T find(PDFObject compare) {
+        List<T> objects = objectsByHash.get(compare.contentHashCode());
+        if (objects != null) {
+            for (T obj : objects) {
+                if (compare.contentEquals(obj)) {
+                    return obj;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes all objects from the registry.
+     */
+    void clear() {
+        objectsByHash.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the number of registered objects.
+     *
+     * @return the number of objects
+     */
+    int size() {
+        return size;
+    }
+}
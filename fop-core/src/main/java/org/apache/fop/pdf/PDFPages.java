@@ -41,6 +41,9 @@ public class PDFPages extends PDFObject {
      */
     protected int count;
 
+    /** the number of kids taken over from a previous revision of the file */
+    private int previousKidCount;
+
     // private PDFPages parent;
 
     /**
@@ -65,6 +68,23 @@ public class PDFPages extends PDFObject {
         this.incrementCount();
     }
 
+    /**
+     * Takes over the kids of the /Pages object of a previous revision of the file, for an
+     * incremental update which appends pages to them. Pages registered afterwards follow the
+     * previous kids.
+     *
+     * @param previousKids the references to the previous kids
+     * @param previousCount the number of pages below the previous kids
+     */
+    void setPreviousPages(List<?> previousKids, int previousCount) {
+        if (!this.kids.isEmpty()) {
+            throw new IllegalStateException("Pages have already been registered");
+        }
+        this.kids.addAll(previousKids);
+        this.previousKidCount = previousKids.size();
+        this.count += previousCount;
+    }
+
     /**
      * Use this method to notify the PDFPages object that a child page
      * @param page the child page
@@ -72,6 +92,7 @@ public class PDFPages extends PDFObject {
     public void notifyKidRegistered(PDFPage page) {
         int idx = page.getPageIndex();
         if (idx >= 0) {
+            idx += previousKidCount;
             while (idx > this.kids.size() - 1) {
                 this.kids.add(null);
             }
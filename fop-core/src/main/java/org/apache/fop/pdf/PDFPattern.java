@@ -420,4 +420,19 @@ public class PDFPattern extends PDFPathPaint {
         return true;
     }
 
+    /** {@inheritDoc} */
+    protected int contentHashCode() {
+        int hash = patternType;
+        hash = 31 * hash + paintType;
+        hash = 31 * hash + tilingType;
+        hash = 31 * hash + (bBox == null ? 0 : bBox.hashCode());
+        hash = 31 * hash + (xUID == null ? 0 : xUID.hashCode());
+        hash = 31 * hash + (extGState == null ? 0 : extGState.hashCode());
+        hash = 31 * hash + (matrix == null ? 0 : matrix.hashCode());
+        hash = 31 * hash + (resources == null ? 0 : resources.hashCode());
+        hash = 31 * hash + (shading == null ? 0 : shading.hashCode());
+        hash = 31 * hash + (patternDataStream == null ? 0 : patternDataStream.hashCode());
+        return hash;
+    }
+
 }
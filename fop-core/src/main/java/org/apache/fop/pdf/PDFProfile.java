@@ -307,6 +307,11 @@ public class PDFProfile {
         return getPDFXMode() != PDFXMode.DISABLED;
     }
 
+    /** @return true if object streams are allowed, which profiles bound to PDF 1.4 don't */
+    public boolean isObjectStreamAllowed() {
+        return !getPDFAMode().isPart1() && getPDFXMode() != PDFXMode.PDFX_3_2003;
+    }
+
     /** @return true if annotations are allowed */
     public boolean isAnnotationAllowed() {
         return !isPDFXActive();
@@ -66,6 +66,9 @@ public class PDFResources extends PDFDictionary {
 
     protected Set<PDFResourceContext> contexts = new LinkedHashSet<PDFResourceContext>();
 
+    /** Collects the resources of contexts that have been released, see {@link #releaseContext} */
+    private PDFResourceContext releasedContexts;
+
     /**
      * create a /Resources object.
      */
@@ -79,6 +82,34 @@ public class PDFResources extends PDFDictionary {
         contexts.add(c);
     }
 
+    /**
+     * Releases a resource context that has already been written to the output. The XObjects,
+     * patterns, shadings and graphics states it uses are kept so they still end up in this
+     * resource dictionary, but the context itself (usually a page) is no longer referenced.
+     *
+     * @param c the resource context to release
+     */
+    public void releaseContext(PDFResourceContext c) {
+        if (c == releasedContexts || !contexts.remove(c)) {
+            return;
+        }
+        if (releasedContexts == null) {
+            releasedContexts = new PDFResourceContext(this);
+        }
+        for (PDFXObject xObject : c.getXObjects()) {
+            releasedContexts.addXObject(xObject);
+        }
+        for (PDFPattern pattern : c.getPatterns()) {
+            releasedContexts.addPattern(pattern);
+        }
+        for (PDFShading shading : c.getShadings()) {
+            releasedContexts.addShading(shading);
+        }
+        for (PDFGState gstate : c.getGStates()) {
+            releasedContexts.addGState(gstate);
+        }
+    }
+
     public void setParentResources(PDFResources p) {
         parent = p;
     }
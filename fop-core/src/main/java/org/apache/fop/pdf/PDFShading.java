@@ -175,4 +175,19 @@ public class PDFShading extends PDFObject {
         return true;
     }
 
+    /** {@inheritDoc} */
+    protected int contentHashCode() {
+        int hash = shading.getShadingType();
+        hash = 31 * hash + (shading.isAntiAlias() ? 1 : 0);
+        hash = 31 * hash + shading.getBitsPerCoordinate();
+        hash = 31 * hash + shading.getBitsPerFlag();
+        hash = 31 * hash + shading.getBitsPerComponent();
+        hash = 31 * hash + shading.getVerticesPerRow();
+        hash = 31 * hash + (shading.getColorSpace() == null ? 0 : shading.getColorSpace().hashCode());
+        hash = 31 * hash + (shading.getCoords() == null ? 0 : shading.getCoords().hashCode());
+        hash = 31 * hash + (shading.getExtend() == null ? 0 : shading.getExtend().hashCode());
+        hash = 31 * hash + (shading.getFunction() == null ? 0 : shading.getFunction().hashCode());
+        return hash;
+    }
+
 }
@@ -22,7 +22,6 @@ package org.apache.fop.pdf;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -38,7 +37,8 @@ import java.security.NoSuchAlgorithmException;
 public class PDFStream extends AbstractPDFStream {
 
     /**
-     * The stream of PDF commands
+     * The stream of PDF commands, created once the stream is first written to so that it uses
+     * the spill threshold of the document the stream belongs to
      */
     protected StreamCache data;
 
@@ -49,34 +49,37 @@ public class PDFStream extends AbstractPDFStream {
      * Create an empty stream object
      */
     public PDFStream() {
-        setUp();
     }
 
     public PDFStream(PDFDictionary dictionary) {
         super(dictionary);
-        setUp();
     }
 
     public PDFStream(PDFDictionary dictionary, boolean encodeOnTheFly) {
         super(dictionary, encodeOnTheFly);
-        setUp();
     }
 
     public PDFStream(boolean encodeOnTheFly) {
         super(encodeOnTheFly);
-        setUp();
     }
 
-    private void setUp() {
-        try {
-            data = StreamCacheFactory.getInstance().createStreamCache();
-            this.streamWriter = new OutputStreamWriter(
-                    getBufferOutputStream(), PDFDocument.ENCODING);
-            //Buffer to minimize calls to the converter
-            this.streamWriter = new java.io.BufferedWriter(this.streamWriter);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    /**
+     * Returns the buffer holding the data of this stream, creating it if needed.
+     * @return the buffer
+     * @throws IOException In case of an I/O problem
+     */
+    protected StreamCache getStreamCache() throws IOException {
+        if (this.data == null) {
+            this.data = createStreamCache(0);
+        }
+        return this.data;
+    }
+
+    private Writer getStreamWriter() throws IOException {
+        if (this.streamWriter == null) {
+            this.streamWriter = new EncodingWriter(getStreamCache().getOutputStream());
         }
+        return this.streamWriter;
     }
 
     /**
@@ -86,7 +89,7 @@ public class PDFStream extends AbstractPDFStream {
      */
     public void add(String s) {
         try {
-            this.streamWriter.write(s);
+            getStreamWriter().write(s);
         } catch (IOException ex) {
             //TODO throw the exception and catch it elsewhere
             ex.printStackTrace();
@@ -114,7 +117,7 @@ public class PDFStream extends AbstractPDFStream {
                 }
             }
             sb.getChars(0, nHave, charBuffer, 0);
-            this.streamWriter.write(charBuffer, 0, nHave);
+            getStreamWriter().write(charBuffer, 0, nHave);
         } catch (IOException ex) {
             //TODO throw the exception and catch it elsewhere
             ex.printStackTrace();
@@ -122,7 +125,9 @@ public class PDFStream extends AbstractPDFStream {
     }
 
     private void flush() throws IOException {
-        this.streamWriter.flush();
+        if (this.streamWriter != null) {
+            this.streamWriter.flush();
+        }
     }
 
     /**
@@ -130,7 +135,11 @@ public class PDFStream extends AbstractPDFStream {
      * @return the Writer
      */
     public Writer getBufferWriter() {
-        return this.streamWriter;
+        try {
+            return getStreamWriter();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     /**
@@ -140,10 +149,8 @@ public class PDFStream extends AbstractPDFStream {
      * @throws IOException In case of an I/O problem
      */
     public OutputStream getBufferOutputStream() throws IOException {
-        if (this.streamWriter != null) {
-            flush(); //Just to be sure
-        }
-        return this.data.getOutputStream();
+        flush(); //Just to be sure
+        return getStreamCache().getOutputStream();
     }
 
     /**
@@ -152,8 +159,8 @@ public class PDFStream extends AbstractPDFStream {
      * @throws IOException in case of an I/O problem
      */
     public void setData(byte[] data) throws IOException {
-        this.data.clear();
-        this.data.write(data);
+        getStreamCache().clear();
+        getStreamCache().write(data);
     }
 
     /**
@@ -163,7 +170,7 @@ public class PDFStream extends AbstractPDFStream {
     public int getDataLength() {
         try {
             flush();
-            return data.getSize();
+            return data != null ? data.getSize() : 0;
         } catch (Exception e) {
             //TODO throw the exception and catch it elsewhere
             e.printStackTrace();
@@ -174,13 +181,20 @@ public class PDFStream extends AbstractPDFStream {
     /** {@inheritDoc} */
     protected int getSizeHint() throws IOException {
         flush();
-        return data.getSize();
+        return data != null ? data.getSize() : 0;
     }
 
     /** {@inheritDoc} */
     protected void outputRawStreamData(OutputStream out) throws IOException {
         flush();
-        data.outputContents(out);
+        if (data != null) {
+            data.outputContents(out);
+        }
+    }
+
+    /** {@inheritDoc} */
+    protected boolean isParallelEncodingSupported() {
+        return true;
     }
 
     /**
@@ -209,4 +223,77 @@ public class PDFStream extends AbstractPDFStream {
             throw new IOException(e);
         }
     }
+
+    /**
+     * Buffering Writer encoding characters in {@link PDFDocument#ENCODING} (ISO-8859-1). As
+     * every character maps to a single byte, the characters are stored straight into a byte
+     * buffer instead of going through a charset encoder. Characters that cannot be encoded are
+     * replaced by '?', a surrogate pair by a single '?'.
+     */
+    private static final class EncodingWriter extends Writer {
+
+        private final OutputStream out;
+        private final byte[] buf = new byte[8192];
+        private int count;
+        private boolean afterHighSurrogate;
+
+        EncodingWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        private void put(char c) throws IOException {
+            if (afterHighSurrogate) {
+                afterHighSurrogate = false;
+                if (Character.isLowSurrogate(c)) {
+                    return; //already replaced together with the high surrogate
+                }
+            }
+            if (count == buf.length) {
+                flushBuffer();
+            }
+            if (c < 256) {
+                buf[count++] = (byte) c;
+            } else {
+                buf[count++] = '?';
+                afterHighSurrogate = Character.isHighSurrogate(c);
+            }
+        }
+
+        private void flushBuffer() throws IOException {
+            if (count > 0) {
+                out.write(buf, 0, count);
+                count = 0;
+            }
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            put((char) c);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            for (int i = off, end = off + len; i < end; i++) {
+                put(cbuf[i]);
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            for (int i = off, end = off + len; i < end; i++) {
+                put(str.charAt(i));
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushBuffer();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
 }
@@ -21,8 +21,6 @@ package org.apache.fop.pdf;
 
 import java.io.ByteArrayOutputStream;
 
-import java.util.Locale;
-
 import org.apache.fop.util.CharUtilities;
 
 /**
@@ -218,10 +216,9 @@ public class PDFText extends PDFObject {
      * @param sb the string buffer to append output
      */
     public static final void toUnicodeHex(int c, StringBuffer sb) {
-        if (CharUtilities.isBmpCodePoint(c)) {
-            sb.append(Integer.toHexString(c + 0x10000).substring(1).toUpperCase(Locale.US));
-        } else {
-            sb.append(Integer.toHexString(c + 0x1000000).substring(1).toUpperCase(Locale.US));
+        int digits = CharUtilities.isBmpCodePoint(c) ? 4 : 6;
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            sb.append(DIGITS[(c >>> shift) & 0x0F]);
         }
     }
 
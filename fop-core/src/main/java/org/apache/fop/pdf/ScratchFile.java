@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A temporary file shared by all {@link SpillingStreamCache} instances to hold the streams that
+ * outgrew their heap buffer. The file is divided into blocks of {@link #BLOCK_SIZE} bytes which
+ * are handed out to the streams and recycled once a stream is cleared or garbage collected. The
+ * file is memory-mapped in segments, so writing a block doesn't go through stream I/O, and blocks
+ * are read back with {@link FileChannel#transferTo(long, long, WritableByteChannel)}.
+ */
+final class ScratchFile {
+
+    /** The size of a block */
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    private static final int BLOCKS_PER_SEGMENT = 256;
+
+    private static final long SEGMENT_SIZE = (long) BLOCK_SIZE * BLOCKS_PER_SEGMENT;
+
+    private final File file;
+
+    private final FileChannel channel;
+
+    private final List<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+
+    private int[] freeBlocks = new int[16];
+
+    private int freeBlockCount;
+
+    private int blockCount;
+
+    private int peakUsedBlocks;
+
+    private final ReferenceQueue<Object> collectedOwners = new ReferenceQueue<Object>();
+
+    private final Set<Blocks> ownedBlocks = new HashSet<Blocks>();
+
+    /**
+     * Creates a new scratch file in the default temporary directory.
+     * @throws IOException if the file cannot be created
+     */
+    ScratchFile() throws IOException {
+        file = File.createTempFile("org.apache.fop.pdf.ScratchFile-", ".temp");
+        //in case the file cannot be deleted on close while segments are still mapped
+        file.deleteOnExit();
+        channel = new RandomAccessFile(file, "rw").getChannel();
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Closes and deletes the file. The blocks handed out can no longer be written or read.
+     * @throws IOException if the file cannot be closed
+     */
+    synchronized void close() throws IOException {
+        segments.clear();
+        ownedBlocks.clear();
+        try {
+            channel.close();
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Creates an empty list of blocks owned by the given object. The blocks are returned to
+     * the scratch file when {@link Blocks#free()} is called or, at the latest, once the owner
+     * has been garbage collected.
+     * @param owner the object owning the blocks
+     * @return the list of blocks
+     */
+    synchronized Blocks createBlocks(Object owner) {
+        Blocks blocks = new Blocks(owner, collectedOwners);
+        ownedBlocks.add(blocks);
+        return blocks;
+    }
+
+    /**
+     * Returns the number of bytes currently held in blocks.
+     * @return the number of bytes in use
+     */
+    synchronized long getUsedBytes() {
+        return (long) (blockCount - freeBlockCount) * BLOCK_SIZE;
+    }
+
+    /**
+     * Returns the highest number of bytes held in blocks since the last call to
+     * {@link #resetPeakUsedBytes()}.
+     * @return the peak number of bytes in use
+     */
+    synchronized long getPeakUsedBytes() {
+        return (long) peakUsedBlocks * BLOCK_SIZE;
+    }
+
+    /**
+     * Resets the peak number of bytes to the number of bytes currently in use.
+     */
+    synchronized void resetPeakUsedBytes() {
+        peakUsedBlocks = blockCount - freeBlockCount;
+    }
+
+    /**
+     * Returns the size of the scratch file.
+     * @return the number of bytes allocated in the file
+     */
+    synchronized long getFileSize() {
+        return (long) blockCount * BLOCK_SIZE;
+    }
+
+    private synchronized int allocateBlock() {
+        freeCollectedBlocks();
+        int block = freeBlockCount > 0 ? freeBlocks[--freeBlockCount] : blockCount++;
+        peakUsedBlocks = Math.max(peakUsedBlocks, blockCount - freeBlockCount);
+        return block;
+    }
+
+    private synchronized void releaseBlocks(int[] blocks, int count) {
+        if (freeBlocks.length < freeBlockCount + count) {
+            freeBlocks = Arrays.copyOf(freeBlocks, Math.max(freeBlocks.length * 2, freeBlockCount + count));
+        }
+        System.arraycopy(blocks, 0, freeBlocks, freeBlockCount, count);
+        freeBlockCount += count;
+    }
+
+    private void freeCollectedBlocks() {
+        Reference<?> ref;
+        while ((ref = collectedOwners.poll()) != null) {
+            ((Blocks) ref).free();
+        }
+    }
+
+    private synchronized ByteBuffer getSegment(int index) throws IOException {
+        if (!channel.isOpen()) {
+            throw new IOException("Scratch file has been closed: " + file);
+        }
+        while (segments.size() <= index) {
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE,
+                    segments.size() * SEGMENT_SIZE, SEGMENT_SIZE));
+        }
+        return segments.get(index);
+    }
+
+    private ByteBuffer getBlockBuffer(int block) throws IOException {
+        ByteBuffer segment = getSegment(block / BLOCKS_PER_SEGMENT).duplicate();
+        int offset = (block % BLOCKS_PER_SEGMENT) * BLOCK_SIZE;
+        segment.position(offset);
+        segment.limit(offset + BLOCK_SIZE);
+        return segment.slice();
+    }
+
+    private void transferTo(int block, int length, WritableByteChannel target) throws IOException {
+        long position = (long) block * BLOCK_SIZE;
+        long end = position + length;
+        while (position < end) {
+            position += channel.transferTo(position, end - position, target);
+        }
+    }
+
+    /**
+     * The blocks holding the data of one stream. Bytes are appended to the last block, a new
+     * block being allocated whenever it is full.
+     */
+    final class Blocks extends PhantomReference<Object> {
+
+        private int[] blocks = new int[4];
+
+        private int count;
+
+        private ByteBuffer current;
+
+        private long size;
+
+        private Blocks(Object owner, ReferenceQueue<Object> queue) {
+            super(owner, queue);
+        }
+
+        /**
+         * Appends bytes to the blocks.
+         * @param b the bytes
+         * @param off the offset of the first byte to append
+         * @param len the number of bytes to append
+         * @throws IOException if a block cannot be mapped
+         */
+        void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (current == null || !current.hasRemaining()) {
+                    addBlock();
+                }
+                int chunk = Math.min(len, current.remaining());
+                current.put(b, off, chunk);
+                off += chunk;
+                len -= chunk;
+                size += chunk;
+            }
+        }
+
+        /**
+         * Appends a byte to the blocks.
+         * @param b the byte
+         * @throws IOException if a block cannot be mapped
+         */
+        void write(int b) throws IOException {
+            if (current == null || !current.hasRemaining()) {
+                addBlock();
+            }
+            current.put((byte) b);
+            size++;
+        }
+
+        private void addBlock() throws IOException {
+            if (count == blocks.length) {
+                blocks = Arrays.copyOf(blocks, count * 2);
+            }
+            int block = allocateBlock();
+            blocks[count++] = block;
+            current = getBlockBuffer(block);
+        }
+
+        /**
+         * Returns the number of bytes written.
+         * @return the size
+         */
+        long getSize() {
+            return size;
+        }
+
+        /**
+         * Transfers the written bytes to the given channel.
+         * @param target the channel to write to
+         * @throws IOException if an I/O error occurs
+         */
+        void transferTo(WritableByteChannel target) throws IOException {
+            long remaining = size;
+            for (int i = 0; i < count; i++) {
+                int length = (int) Math.min(remaining, BLOCK_SIZE);
+                ScratchFile.this.transferTo(blocks[i], length, target);
+                remaining -= length;
+            }
+        }
+
+        /**
+         * Returns the blocks to the scratch file.
+         */
+        void free() {
+            synchronized (ScratchFile.this) {
+                if (ownedBlocks.remove(this)) {
+                    releaseBlocks(blocks, count);
+                }
+            }
+            clear();
+            count = 0;
+            size = 0;
+            current = null;
+        }
+    }
+}
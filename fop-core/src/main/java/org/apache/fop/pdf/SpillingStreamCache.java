@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+/**
+ * StreamCache implementation that keeps the bytes on the heap until they exceed a threshold,
+ * and then moves them to a {@link ScratchFile} shared with other caches. This avoids both heap
+ * spikes for very large streams and one temporary file per stream.
+ */
+public class SpillingStreamCache implements StreamCache {
+
+    private final StreamCacheFactory factory;
+
+    private final ScratchFile scratchFile;
+
+    private final int threshold;
+
+    private final int initialSize;
+
+    private byte[] buffer;
+
+    private int count;
+
+    private ScratchFile.Blocks blocks;
+
+    /** Facade kept across spilling, as the output stream may be held on to by the callers */
+    private final OutputStream output = new OutputStream() {
+
+        public void write(int b) throws IOException {
+            if (blocks != null) {
+                blocks.write(b);
+            } else if (ensureHeapCapacity(1)) {
+                buffer[count++] = (byte) b;
+            } else {
+                spill().write(b);
+            }
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (blocks != null) {
+                blocks.write(b, off, len);
+            } else if (ensureHeapCapacity(len)) {
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+            } else {
+                spill().write(b, off, len);
+            }
+        }
+    };
+
+    /**
+     * Creates a new SpillingStreamCache.
+     * @param factory the factory collecting the memory usage of the cache
+     * @param scratchFile the file to move the bytes to once they exceed the threshold
+     * @param threshold the maximum number of bytes kept on the heap
+     * @param hintSize a hint about the approximate expected size of the buffer
+     */
+    SpillingStreamCache(StreamCacheFactory factory, ScratchFile scratchFile, int threshold,
+            int hintSize) {
+        this.factory = factory;
+        this.scratchFile = scratchFile;
+        this.threshold = threshold;
+        this.initialSize = hintSize <= 0 ? 512 : Math.min(hintSize, threshold);
+    }
+
+    private boolean ensureHeapCapacity(int len) {
+        int required = count + len;
+        if (required > threshold || required < 0) {
+            return false;
+        }
+        int capacity = buffer == null ? 0 : buffer.length;
+        if (required > capacity) {
+            int newCapacity = Math.min(Math.max(Math.max(capacity * 2, initialSize), required), threshold);
+            buffer = buffer == null ? new byte[newCapacity] : Arrays.copyOf(buffer, newCapacity);
+            factory.heapUsageChanged(newCapacity - capacity);
+        }
+        return true;
+    }
+
+    private ScratchFile.Blocks spill() throws IOException {
+        blocks = scratchFile.createBlocks(this);
+        if (count > 0) {
+            blocks.write(buffer, 0, count);
+        }
+        releaseBuffer();
+        factory.streamSpilled();
+        return blocks;
+    }
+
+    private void releaseBuffer() {
+        if (buffer != null) {
+            factory.heapUsageChanged(-buffer.length);
+            buffer = null;
+            count = 0;
+        }
+    }
+
+    /**
+     * Indicates whether the bytes have been moved to the scratch file.
+     * @return true if the bytes are held in the scratch file
+     */
+    public boolean isSpilled() {
+        return blocks != null;
+    }
+
+    /** {@inheritDoc} */
+    public OutputStream getOutputStream() throws IOException {
+        return output;
+    }
+
+    /** {@inheritDoc} */
+    public void write(byte[] data) throws IOException {
+        output.write(data, 0, data.length);
+    }
+
+    /** {@inheritDoc} */
+    public int outputContents(OutputStream out) throws IOException {
+        if (blocks != null) {
+            blocks.transferTo(Channels.newChannel(out));
+        } else if (count > 0) {
+            out.write(buffer, 0, count);
+        }
+        return getSize();
+    }
+
+    /** {@inheritDoc} */
+    public int getSize() throws IOException {
+        return blocks != null ? (int) blocks.getSize() : count;
+    }
+
+    /** {@inheritDoc} */
+    public void clear() throws IOException {
+        releaseBuffer();
+        if (blocks != null) {
+            blocks.free();
+            blocks = null;
+        }
+    }
+}
@@ -20,14 +20,39 @@
 package org.apache.fop.pdf;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class is serves as a factory from
  */
 public final class StreamCacheFactory {
 
+    /**
+     * System property holding the default spill threshold in bytes. Streams growing beyond
+     * the threshold are moved to a shared memory-mapped scratch file.
+     */
+    public static final String SPILL_THRESHOLD_PROPERTY
+            = "org.apache.fop.pdf.StreamCache.spillThreshold";
+
     private static StreamCacheFactory memoryInstance = new StreamCacheFactory();
 
+    private final int spillThreshold = Integer.getInteger(SPILL_THRESHOLD_PROPERTY, 0);
+
+    private ScratchFile scratchFile;
+
+    /** The documents being written, held weakly so that a document that failed is dropped */
+    private final Set<Object> documents = Collections.newSetFromMap(new WeakHashMap<Object, Boolean>());
+
+    private final AtomicLong heapUsage = new AtomicLong();
+
+    private final AtomicLong peakHeapUsage = new AtomicLong();
+
+    private final AtomicInteger spilledStreamCount = new AtomicInteger();
+
     /**
      * Returns an instance of a StreamCacheFactory with the requested features.
      * @return StreamCacheFactory the requested factory
@@ -38,9 +63,8 @@ public final class StreamCacheFactory {
 
     /**
      * Creates a new StreamCacheFactory.
-     * @param cacheToFile True if file shall be cached using a temporary file
      */
-    private StreamCacheFactory() {
+    StreamCacheFactory() {
     }
 
     /**
@@ -50,7 +74,7 @@ public final class StreamCacheFactory {
      * @return a new StreamCache for caching streams
      */
     public StreamCache createStreamCache() throws IOException {
-        return new InMemoryStreamCache();
+        return createStreamCache(0);
     }
 
     /**
@@ -61,6 +85,137 @@ public final class StreamCacheFactory {
      * @return a new StreamCache for caching streams
      */
     public StreamCache createStreamCache(int hintSize) throws IOException {
-        return new InMemoryStreamCache(hintSize);
+        return createStreamCache(hintSize, spillThreshold);
+    }
+
+    /**
+     * Creates a StreamCache that holds up to the given number of bytes on the heap before its
+     * content is moved to the memory-mapped scratch file shared by all stream caches.
+     * @param hintSize a hint about the approximate expected size of the buffer
+     * @param spillThreshold the threshold in bytes, 0 or less to keep the stream on the heap
+     * @throws IOException if there is an IO error
+     * @return a new StreamCache for caching streams
+     */
+    public StreamCache createStreamCache(int hintSize, int spillThreshold) throws IOException {
+        if (spillThreshold <= 0) {
+            return new InMemoryStreamCache(hintSize);
+        }
+        return new SpillingStreamCache(this, getScratchFile(), spillThreshold, hintSize);
+    }
+
+    private synchronized ScratchFile getScratchFile() throws IOException {
+        if (scratchFile == null) {
+            scratchFile = new ScratchFile();
+        }
+        return scratchFile;
+    }
+
+    /**
+     * Notifies the factory that a document has started to be written. The scratch file is kept
+     * until all the documents started have finished or have been garbage collected.
+     * @param document the document
+     */
+    public synchronized void documentStarted(Object document) {
+        documents.add(document);
+    }
+
+    /**
+     * Notifies the factory that a document has been written. Once no other document is being
+     * written, the scratch file is closed and deleted; a new one is created when a stream spills
+     * again.
+     * @param document the document
+     * @throws IOException if the scratch file cannot be closed
+     */
+    public synchronized void documentFinished(Object document) throws IOException {
+        documents.remove(document);
+        if (documents.isEmpty() && scratchFile != null) {
+            ScratchFile file = scratchFile;
+            scratchFile = null;
+            file.close();
+        }
+    }
+
+    /**
+     * Returns the default number of bytes a stream cache may hold on the heap before spilling,
+     * taken from the {@link #SPILL_THRESHOLD_PROPERTY} system property. A document may use
+     * another threshold, see {@link PDFDocument#setStreamSpillThreshold(int)}.
+     * @return the threshold in bytes, 0 or less if streams are never spilled
+     */
+    public int getSpillThreshold() {
+        return spillThreshold;
+    }
+
+    /**
+     * Returns the number of bytes currently held on the heap by spill-aware stream caches.
+     * @return the heap usage in bytes
+     */
+    public long getHeapUsage() {
+        return heapUsage.get();
+    }
+
+    /**
+     * Returns the highest number of bytes held on the heap by spill-aware stream caches.
+     * @return the peak heap usage in bytes
+     */
+    public long getPeakHeapUsage() {
+        return peakHeapUsage.get();
+    }
+
+    /**
+     * Returns the number of bytes currently held in the scratch file.
+     * @return the spill usage in bytes
+     */
+    public synchronized long getSpillUsage() {
+        return scratchFile != null ? scratchFile.getUsedBytes() : 0;
+    }
+
+    /**
+     * Returns the highest number of bytes held in the scratch file.
+     * @return the peak spill usage in bytes
+     */
+    public synchronized long getPeakSpillUsage() {
+        return scratchFile != null ? scratchFile.getPeakUsedBytes() : 0;
+    }
+
+    /**
+     * Returns the size of the scratch file the spilled streams are written to.
+     * @return the size of the scratch file in bytes
+     */
+    public synchronized long getScratchFileSize() {
+        return scratchFile != null ? scratchFile.getFileSize() : 0;
+    }
+
+    /**
+     * Returns the number of streams that were moved to the scratch file.
+     * @return the number of spilled streams
+     */
+    public int getSpilledStreamCount() {
+        return spilledStreamCount.get();
+    }
+
+    /**
+     * Resets the peak usage values and the spilled stream count.
+     */
+    public synchronized void resetStatistics() {
+        peakHeapUsage.set(heapUsage.get());
+        if (scratchFile != null) {
+            scratchFile.resetPeakUsedBytes();
+        }
+        spilledStreamCount.set(0);
+    }
+
+    void heapUsageChanged(long delta) {
+        updatePeak(peakHeapUsage, heapUsage.addAndGet(delta));
+    }
+
+    void streamSpilled() {
+        spilledStreamCount.incrementAndGet();
+    }
+
+    private static void updatePeak(AtomicLong peak, long value) {
+        long current = peak.get();
+        while (value > current && !peak.compareAndSet(current, value)) {
+            current = peak.get();
+        }
     }
 }
@@ -51,6 +51,14 @@ public abstract class VersionController {
 
     abstract void addTableHeaderScopeAttribute(PDFStructElem th, Scope scope);
 
+    /**
+     * Returns whether object streams may be used, which requires PDF 1.5. A dynamic controller
+     * raises the version if needed.
+     *
+     * @return true if the version of the document is at least 1.5
+     */
+    abstract boolean allowObjectStreams();
+
     @Override
     public String toString() {
         return version.toString();
@@ -80,6 +88,11 @@ public abstract class VersionController {
                 Scope.addScopeAttribute(th, scope);
             }
         }
+
+        @Override
+        boolean allowObjectStreams() {
+            return super.version.compareTo(Version.V1_5) >= 0;
+        }
     }
 
     /**
@@ -110,6 +123,12 @@ public abstract class VersionController {
             setPDFVersion(Version.V1_5);
             Scope.addScopeAttribute(th, scope);
         }
+
+        @Override
+        boolean allowObjectStreams() {
+            setPDFVersion(Version.V1_5);
+            return true;
+        }
     }
 
     /**
@@ -53,8 +53,7 @@ public class CompressedObjectReference implements ObjectReference {
     public void output(DataOutputStream out) throws IOException {
         out.write(2);
         out.writeLong(objectStreamNumber.getNumber());
-        out.write(0);
-        out.write(index);
+        out.writeShort(index);
     }
 
     public PDFObjectNumber getObjectNumber() {
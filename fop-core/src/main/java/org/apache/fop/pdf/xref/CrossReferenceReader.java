@@ -0,0 +1,668 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf.xref;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.apache.fop.pdf.PDFArray;
+import org.apache.fop.pdf.PDFDictionary;
+import org.apache.fop.pdf.PDFName;
+import org.apache.fop.pdf.PDFObjectNumber;
+import org.apache.fop.pdf.PDFReference;
+
+/**
+ * Reads the cross-reference data of an existing PDF file, as written by FOP, so that objects
+ * can be looked up and an incremental update can be appended to the file. Both cross-reference
+ * tables and cross-reference streams are supported, following the Prev entries of the trailers
+ * back to the first revision. Objects are read with a minimal parser which returns
+ * dictionaries as {@link PDFDictionary}, arrays as {@link PDFArray}, names as {@link PDFName},
+ * references as {@link PDFReference}, strings as byte arrays and numbers as {@link Integer},
+ * {@link Long} or {@link Double}. Stream data may only be encoded with FlateDecode.
+ */
+public class CrossReferenceReader {
+
+    private static final int TAIL_LENGTH = 1024;
+
+    private static final byte[] STARTXREF = {'s', 't', 'a', 'r', 't', 'x', 'r', 'e', 'f'};
+
+    private final ByteBuffer pdf;
+
+    private final long startxref;
+
+    private final boolean crossReferenceStream;
+
+    private final PDFDictionary trailer;
+
+    /** The newest entry of each object number, null for free entries */
+    private final Map<Integer, ObjectReference> entries = new HashMap<Integer, ObjectReference>();
+
+    /** The decoded data and object offsets of the object streams read so far */
+    private final Map<Integer, ObjectStreamData> objectStreams = new HashMap<Integer, ObjectStreamData>();
+
+    /**
+     * Reads the cross-reference data of the given file.
+     *
+     * @param pdf the complete PDF file
+     * @throws IOException if the cross-reference data cannot be read
+     */
+    public CrossReferenceReader(ByteBuffer pdf) throws IOException {
+        this.pdf = pdf.duplicate();
+        startxref = findStartXRef();
+        crossReferenceStream = !new Parser(this.pdf, (int) startxref).isKeyword("xref");
+        trailer = readSection(startxref);
+        Set<Long> visited = new HashSet<Long>();
+        visited.add(startxref);
+        PDFDictionary section = trailer;
+        while (section.get("Prev") instanceof Number) {
+            long prev = ((Number) section.get("Prev")).longValue();
+            if (!visited.add(prev)) {
+                throw new IOException("Cross-reference sections form a loop at offset " + prev);
+            }
+            section = readSection(prev);
+        }
+    }
+
+    /**
+     * Returns the offset of the newest cross-reference section, as given after the last
+     * startxref keyword of the file.
+     *
+     * @return the offset of the newest cross-reference section
+     */
+    public long getStartXRef() {
+        return startxref;
+    }
+
+    /**
+     * Indicates whether the newest cross-reference section is a cross-reference stream.
+     *
+     * @return true for a cross-reference stream, false for a cross-reference table
+     */
+    public boolean isCrossReferenceStream() {
+        return crossReferenceStream;
+    }
+
+    /**
+     * Returns the trailer dictionary of the newest revision. With a cross-reference stream,
+     * this is the stream dictionary.
+     *
+     * @return the trailer dictionary
+     */
+    public PDFDictionary getTrailer() {
+        return trailer;
+    }
+
+    /**
+     * Returns the number of entries of the cross-reference data, which is one more than the
+     * highest object number in use.
+     *
+     * @return the value of the Size entry of the trailer
+     */
+    public int getSize() {
+        return ((Number) trailer.get("Size")).intValue();
+    }
+
+    /**
+     * Indicates whether an object with the given number is in use.
+     *
+     * @param objectNumber the object number
+     * @return true if the object exists
+     */
+    public boolean containsObject(int objectNumber) {
+        return entries.get(objectNumber) != null;
+    }
+
+    /**
+     * Reads an object from the file.
+     *
+     * @param objectNumber the object number
+     * @return the object, or just the dictionary if the object is a stream
+     * @throws IOException if the object doesn't exist or cannot be read
+     */
+    public Object getObject(int objectNumber) throws IOException {
+        ObjectReference entry = entries.get(objectNumber);
+        if (entry instanceof UncompressedObjectReference) {
+            Parser parser = new Parser(pdf, toPosition(((UncompressedObjectReference) entry).offset));
+            parser.readObjectHeader(objectNumber);
+            return parser.readObject();
+        } else if (entry instanceof CompressedObjectReference) {
+            CompressedObjectReference compressed = (CompressedObjectReference) entry;
+            ObjectStreamData objectStream = getObjectStream(compressed.getObjectStreamNumber().getNumber());
+            return objectStream.getObject(objectNumber);
+        } else {
+            throw new IOException("Object " + objectNumber + " doesn't exist");
+        }
+    }
+
+    /**
+     * Reads an object from the file and follows references until a direct object is found.
+     *
+     * @param object an object, which may be a reference
+     * @return the referenced object
+     * @throws IOException if the object cannot be read
+     */
+    public Object resolve(Object object) throws IOException {
+        Set<Integer> visited = new HashSet<Integer>();
+        while (object instanceof PDFReference) {
+            int number = ((PDFReference) object).getObjectNumber().getNumber();
+            if (!visited.add(number)) {
+                throw new IOException("Object " + number + " refers to itself");
+            }
+            object = getObject(number);
+        }
+        return object;
+    }
+
+    private long findStartXRef() throws IOException {
+        int end = pdf.limit();
+        int start = Math.max(0, end - TAIL_LENGTH);
+        byte[] keyword = STARTXREF;
+        for (int i = end - keyword.length; i >= start; i--) {
+            int j = 0;
+            while (j < keyword.length && pdf.get(i + j) == keyword[j]) {
+                j++;
+            }
+            if (j == keyword.length) {
+                Parser parser = new Parser(pdf, i + keyword.length);
+                Object offset = parser.readObject();
+                if (!(offset instanceof Number)) {
+                    throw new IOException("Invalid startxref value: " + offset);
+                }
+                return ((Number) offset).longValue();
+            }
+        }
+        throw new IOException("No startxref keyword found at the end of the file");
+    }
+
+    private PDFDictionary readSection(long offset) throws IOException {
+        Parser parser = new Parser(pdf, toPosition(offset));
+        if (parser.isKeyword("xref")) {
+            parser.readKeyword("xref");
+            return readTable(parser);
+        } else {
+            return readStream(parser);
+        }
+    }
+
+    private PDFDictionary readTable(Parser parser) throws IOException {
+        while (!parser.isKeyword("trailer")) {
+            int first = parser.readInt();
+            int count = parser.readInt();
+            for (int i = 0; i < count; i++) {
+                long offset = parser.readLong();
+                parser.readInt();
+                String type = parser.readKeyword();
+                ObjectReference entry = "n".equals(type) ? new UncompressedObjectReference(offset) : null;
+                putEntry(first + i, entry);
+            }
+        }
+        parser.readKeyword("trailer");
+        return (PDFDictionary) parser.readObject();
+    }
+
+    private PDFDictionary readStream(Parser parser) throws IOException {
+        parser.readObjectHeader(-1);
+        PDFDictionary dictionary = (PDFDictionary) parser.readObject();
+        if (!new PDFName("XRef").equals(dictionary.get("Type"))) {
+            throw new IOException("No cross-reference table or stream at the startxref offset");
+        }
+        byte[] data = parser.readStreamData(dictionary);
+        PDFArray w = (PDFArray) dictionary.get("W");
+        int[] widths = new int[3];
+        for (int i = 0; i < 3; i++) {
+            widths[i] = ((Number) w.get(i)).intValue();
+        }
+        PDFArray index = (PDFArray) dictionary.get("Index");
+        if (index == null) {
+            index = new PDFArray(0, dictionary.get("Size"));
+        }
+        int position = 0;
+        for (int i = 0; i < index.length(); i += 2) {
+            int first = ((Number) index.get(i)).intValue();
+            int count = ((Number) index.get(i + 1)).intValue();
+            for (int j = 0; j < count; j++) {
+                long type = widths[0] == 0 ? 1 : readField(data, position, widths[0]);
+                position += widths[0];
+                long field2 = readField(data, position, widths[1]);
+                position += widths[1];
+                long field3 = readField(data, position, widths[2]);
+                position += widths[2];
+                ObjectReference entry = null;
+                if (type == 1) {
+                    entry = new UncompressedObjectReference(field2);
+                } else if (type == 2) {
+                    entry = new CompressedObjectReference(new PDFObjectNumber(first + j),
+                            new PDFObjectNumber((int) field2), (int) field3);
+                }
+                putEntry(first + j, entry);
+            }
+        }
+        return dictionary;
+    }
+
+    private static long readField(byte[] data, int position, int width) throws IOException {
+        if (position + width > data.length) {
+            throw new IOException("Cross-reference stream too short");
+        }
+        long value = 0;
+        for (int i = 0; i < width; i++) {
+            value = (value << 8) | (data[position + i] & 0xff);
+        }
+        return value;
+    }
+
+    private void putEntry(int objectNumber, ObjectReference entry) {
+        //The sections are read from the newest to the oldest
+        if (!entries.containsKey(objectNumber)) {
+            entries.put(objectNumber, entry);
+        }
+    }
+
+    private ObjectStreamData getObjectStream(int objectNumber) throws IOException {
+        ObjectStreamData objectStream = objectStreams.get(objectNumber);
+        if (objectStream == null) {
+            ObjectReference entry = entries.get(objectNumber);
+            if (!(entry instanceof UncompressedObjectReference)) {
+                throw new IOException("Object stream " + objectNumber + " doesn't exist");
+            }
+            Parser parser = new Parser(pdf, toPosition(((UncompressedObjectReference) entry).offset));
+            parser.readObjectHeader(objectNumber);
+            PDFDictionary dictionary = (PDFDictionary) parser.readObject();
+            objectStream = new ObjectStreamData(dictionary, parser.readStreamData(dictionary));
+            objectStreams.put(objectNumber, objectStream);
+        }
+        return objectStream;
+    }
+
+    private int toPosition(long offset) throws IOException {
+        if (offset < 0 || offset >= pdf.limit()) {
+            throw new IOException("Offset " + offset + " is outside of the file");
+        }
+        return (int) offset;
+    }
+
+    /** The decoded content of an object stream. */
+    private final class ObjectStreamData {
+
+        private final ByteBuffer data;
+
+        private final Map<Integer, Integer> positions = new HashMap<Integer, Integer>();
+
+        ObjectStreamData(PDFDictionary dictionary, byte[] data) throws IOException {
+            this.data = ByteBuffer.wrap(data);
+            int first = ((Number) dictionary.get("First")).intValue();
+            int count = ((Number) dictionary.get("N")).intValue();
+            Parser parser = new Parser(this.data, 0);
+            for (int i = 0; i < count; i++) {
+                int number = parser.readInt();
+                positions.put(number, first + parser.readInt());
+            }
+        }
+
+        Object getObject(int objectNumber) throws IOException {
+            Integer position = positions.get(objectNumber);
+            if (position == null) {
+                throw new IOException("Object " + objectNumber + " is not in its object stream");
+            }
+            return new Parser(data, position).readObject();
+        }
+    }
+
+    /** A minimal parser for the objects of a PDF file. */
+    private final class Parser {
+
+        private final ByteBuffer buffer;
+
+        private int position;
+
+        Parser(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        boolean isKeyword(String keyword) {
+            skipWhitespace();
+            int end = position + keyword.length();
+            if (end > buffer.limit()) {
+                return false;
+            }
+            for (int i = 0; i < keyword.length(); i++) {
+                if (buffer.get(position + i) != keyword.charAt(i)) {
+                    return false;
+                }
+            }
+            return end == buffer.limit() || isDelimiter(buffer.get(end));
+        }
+
+        void readKeyword(String keyword) throws IOException {
+            String found = readKeyword();
+            if (!keyword.equals(found)) {
+                throw new IOException("Expected '" + keyword + "' but found '" + found
+                        + "' at offset " + position);
+            }
+        }
+
+        String readKeyword() throws IOException {
+            skipWhitespace();
+            StringBuilder keyword = new StringBuilder();
+            while (position < buffer.limit() && !isDelimiter(buffer.get(position))) {
+                keyword.append((char) buffer.get(position++));
+            }
+            if (keyword.length() == 0) {
+                throw new IOException("Unexpected character at offset " + position);
+            }
+            return keyword.toString();
+        }
+
+        int readInt() throws IOException {
+            return (int) readLong();
+        }
+
+        long readLong() throws IOException {
+            String token = readKeyword();
+            try {
+                return Long.parseLong(token);
+            } catch (NumberFormatException e) {
+                throw new IOException("Expected an integer but found '" + token + "'");
+            }
+        }
+
+        void readObjectHeader(int objectNumber) throws IOException {
+            int number = readInt();
+            if (objectNumber >= 0 && number != objectNumber) {
+                throw new IOException("Expected object " + objectNumber + " but found " + number);
+            }
+            readInt();
+            readKeyword("obj");
+        }
+
+        Object readObject() throws IOException {
+            skipWhitespace();
+            if (position >= buffer.limit()) {
+                throw new IOException("Unexpected end of data");
+            }
+            byte c = buffer.get(position);
+            if (c == '<' && peek(1) == '<') {
+                position += 2;
+                return readDictionary();
+            } else if (c == '<') {
+                position++;
+                return readHexString();
+            } else if (c == '[') {
+                position++;
+                return readArray();
+            } else if (c == '(') {
+                position++;
+                return readLiteralString();
+            } else if (c == '/') {
+                position++;
+                return new PDFName(readName());
+            }
+            String token = readKeyword();
+            if ("true".equals(token) || "false".equals(token)) {
+                return Boolean.valueOf(token);
+            } else if ("null".equals(token)) {
+                return null;
+            }
+            return readNumberOrReference(token);
+        }
+
+        private Object readNumberOrReference(String token) throws IOException {
+            if (token.indexOf('.') >= 0) {
+                try {
+                    return Double.valueOf(token);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Unexpected token '" + token + "'");
+                }
+            }
+            long value;
+            try {
+                value = Long.parseLong(token);
+            } catch (NumberFormatException e) {
+                throw new IOException("Unexpected token '" + token + "'");
+            }
+            int mark = position;
+            if (value >= 0 && isNextInteger()) {
+                String generation = readKeyword();
+                if (isKeyword("R")) {
+                    readKeyword("R");
+                    return new PDFReference(value + " " + generation + " R");
+                }
+            }
+            position = mark;
+            if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                return Integer.valueOf((int) value);
+            }
+            return Long.valueOf(value);
+        }
+
+        private boolean isNextInteger() {
+            skipWhitespace();
+            int p = position;
+            while (p < buffer.limit() && buffer.get(p) >= '0' && buffer.get(p) <= '9') {
+                p++;
+            }
+            return p > position && (p == buffer.limit() || isDelimiter(buffer.get(p)));
+        }
+
+        private PDFDictionary readDictionary() throws IOException {
+            PDFDictionary dictionary = new PDFDictionary();
+            while (true) {
+                skipWhitespace();
+                if (peek(0) == '>' && peek(1) == '>') {
+                    position += 2;
+                    return dictionary;
+                }
+                Object key = readObject();
+                if (!(key instanceof PDFName)) {
+                    throw new IOException("Expected a name as dictionary key but found " + key);
+                }
+                dictionary.put(((PDFName) key).getName(), readObject());
+            }
+        }
+
+        private PDFArray readArray() throws IOException {
+            PDFArray array = new PDFArray();
+            while (true) {
+                skipWhitespace();
+                if (peek(0) == ']') {
+                    position++;
+                    return array;
+                }
+                array.add(readObject());
+            }
+        }
+
+        private String readName() throws IOException {
+            StringBuilder name = new StringBuilder();
+            while (position < buffer.limit() && !isDelimiter(buffer.get(position))) {
+                char c = (char) (buffer.get(position++) & 0xff);
+                if (c == '#' && position + 1 < buffer.limit()) {
+                    c = (char) Integer.parseInt(new String(new char[] {
+                            (char) buffer.get(position), (char) buffer.get(position + 1)}), 16);
+                    position += 2;
+                }
+                name.append(c);
+            }
+            return name.toString();
+        }
+
+        private byte[] readHexString() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            int high = -1;
+            while (true) {
+                if (position >= buffer.limit()) {
+                    throw new IOException("Unterminated hexadecimal string");
+                }
+                char c = (char) buffer.get(position++);
+                if (c == '>') {
+                    break;
+                }
+                int digit = Character.digit(c, 16);
+                if (digit < 0) {
+                    continue;
+                }
+                if (high < 0) {
+                    high = digit;
+                } else {
+                    bytes.write((high << 4) | digit);
+                    high = -1;
+                }
+            }
+            if (high >= 0) {
+                bytes.write(high << 4);
+            }
+            return bytes.toByteArray();
+        }
+
+        private byte[] readLiteralString() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            int depth = 1;
+            while (true) {
+                if (position >= buffer.limit()) {
+                    throw new IOException("Unterminated literal string");
+                }
+                int c = buffer.get(position++) & 0xff;
+                if (c == '\\') {
+                    readEscape(bytes);
+                } else {
+                    if (c == '(') {
+                        depth++;
+                    } else if (c == ')' && --depth == 0) {
+                        return bytes.toByteArray();
+                    }
+                    bytes.write(c);
+                }
+            }
+        }
+
+        private void readEscape(ByteArrayOutputStream bytes) {
+            int c = buffer.get(position++) & 0xff;
+            int index = "nrtbf".indexOf(c);
+            if (index >= 0) {
+                bytes.write("\n\r\t\b\f".charAt(index));
+            } else if (c == '\r' || c == '\n') {
+                //Line continuation
+                if (c == '\r' && peek(0) == '\n') {
+                    position++;
+                }
+            } else if (c >= '0' && c <= '7') {
+                int value = c - '0';
+                for (int i = 0; i < 2 && peek(0) >= '0' && peek(0) <= '7'; i++) {
+                    value = value * 8 + (buffer.get(position++) - '0');
+                }
+                bytes.write(value);
+            } else {
+                bytes.write(c);
+            }
+        }
+
+        byte[] readStreamData(PDFDictionary dictionary) throws IOException {
+            readKeyword("stream");
+            if (peek(0) == '\r') {
+                position++;
+            }
+            if (peek(0) == '\n') {
+                position++;
+            }
+            Object length = resolve(dictionary.get("Length"));
+            if (!(length instanceof Number)) {
+                throw new IOException("Stream without a valid length");
+            }
+            int start = position;
+            int end = start + ((Number) length).intValue();
+            if (end > buffer.limit()) {
+                throw new IOException("Stream data extends beyond the end of the file");
+            }
+            byte[] data = new byte[end - start];
+            ByteBuffer source = buffer.duplicate();
+            source.position(start);
+            source.get(data);
+            return decode(dictionary, data);
+        }
+
+        private byte[] decode(PDFDictionary dictionary, byte[] data) throws IOException {
+            Object filter = dictionary.get("Filter");
+            if (filter instanceof PDFArray && ((PDFArray) filter).length() == 1) {
+                filter = ((PDFArray) filter).get(0);
+            }
+            if (filter == null) {
+                return data;
+            } else if (!new PDFName("FlateDecode").equals(filter) || dictionary.get("DecodeParms") != null) {
+                throw new IOException("Unsupported stream encoding: " + filter);
+            }
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(data);
+                ByteArrayOutputStream decoded = new ByteArrayOutputStream(data.length * 4);
+                byte[] chunk = new byte[8192];
+                while (!inflater.finished()) {
+                    int n = inflater.inflate(chunk);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    decoded.write(chunk, 0, n);
+                }
+                return decoded.toByteArray();
+            } catch (DataFormatException e) {
+                throw new IOException("Invalid FlateDecode data: " + e.getMessage());
+            } finally {
+                inflater.end();
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < buffer.limit()) {
+                byte c = buffer.get(position);
+                if (c == '%') {
+                    while (position < buffer.limit() && buffer.get(position) != '\n'
+                            && buffer.get(position) != '\r') {
+                        position++;
+                    }
+                } else if (isWhitespace(c)) {
+                    position++;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private int peek(int offset) {
+            int p = position + offset;
+            return p < buffer.limit() ? buffer.get(p) & 0xff : -1;
+        }
+
+        private boolean isWhitespace(byte c) {
+            return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f' || c == 0;
+        }
+
+        private boolean isDelimiter(byte c) {
+            return isWhitespace(c) || c == '(' || c == ')' || c == '<' || c == '>' || c == '['
+                    || c == ']' || c == '{' || c == '}' || c == '/' || c == '%';
+        }
+    }
+}
@@ -47,13 +47,41 @@ public class CrossReferenceStream extends CrossReferenceObject {
 
     private final List<ObjectReference> objectReferences;
 
+    /** Whether only the objects written in an incremental update are listed */
+    private final boolean incremental;
+
     public CrossReferenceStream(PDFDocument document,
             int objectNumber,
             TrailerDictionary trailerDictionary,
             long startxref,
             List<Long> uncompressedObjectReferences,
             List<CompressedObjectReference> compressedObjectReferences) {
+        this(document, objectNumber, trailerDictionary, startxref, uncompressedObjectReferences,
+                compressedObjectReferences, false);
+    }
+
+    /**
+     * Creates a cross-reference stream.
+     *
+     * @param document the document
+     * @param objectNumber the object number of the stream
+     * @param trailerDictionary the trailer dictionary
+     * @param startxref the offset of the stream
+     * @param uncompressedObjectReferences the offsets of the objects, indexed by object
+     * number minus one
+     * @param compressedObjectReferences the objects stored in object streams
+     * @param incremental true if the stream belongs to an incremental update, in which case
+     * it lists the objects written in the update only, whose offsets are not null
+     */
+    public CrossReferenceStream(PDFDocument document,
+            int objectNumber,
+            TrailerDictionary trailerDictionary,
+            long startxref,
+            List<Long> uncompressedObjectReferences,
+            List<CompressedObjectReference> compressedObjectReferences,
+            boolean incremental) {
         super(trailerDictionary, startxref);
+        this.incremental = incremental;
         this.document = document;
         this.objectNumber = objectNumber;
         this.objectReferences = new ArrayList<ObjectReference>(uncompressedObjectReferences.size());
@@ -66,6 +94,11 @@ public class CrossReferenceStream extends CrossReferenceObject {
             }
             this.objectReferences.set(ref.getObjectNumber().getNumber() - 1, ref);
         }
+        if (incremental) {
+            while (objectReferences.size() < objectNumber - 1) {
+                objectReferences.add(null);
+            }
+        }
     }
 
     /** {@inheritDoc} */
@@ -85,10 +118,14 @@ public class CrossReferenceStream extends CrossReferenceObject {
         helperStream.setDocument(document);
         ByteArrayOutputStream byteArray = new ByteArrayOutputStream();
         DataOutputStream data = new DataOutputStream(byteArray);
-        addFreeEntryForObject0(data);
+        if (!incremental) {
+            addFreeEntryForObject0(data);
+        }
         for (ObjectReference objectReference : objectReferences) {
-            assert objectReference != null;
-            objectReference.output(data);
+            assert incremental || objectReference != null;
+            if (objectReference != null) {
+                objectReference.output(data);
+            }
         }
         new UncompressedObjectReference(startxref).output(data);
         data.close();
@@ -102,6 +139,32 @@ public class CrossReferenceStream extends CrossReferenceObject {
         dictionary.put("/Type", XREF);
         dictionary.put("/Size", objectCount + 1);
         dictionary.put("/W", new PDFArray(1, 8, 2));
+        if (incremental) {
+            dictionary.put("/Index", createIndex());
+        }
+    }
+
+    /**
+     * Returns the first object number and the number of entries of each subsection of
+     * consecutive objects, the stream itself being the last entry.
+     */
+    private PDFArray createIndex() {
+        PDFArray index = new PDFArray();
+        int count = objectReferences.size() + 1;
+        int i = 0;
+        while (i < count) {
+            if (i < objectReferences.size() && objectReferences.get(i) == null) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < count && (i == objectReferences.size() || objectReferences.get(i) != null)) {
+                i++;
+            }
+            index.add(start + 1);
+            index.add(i - start);
+        }
+        return index;
     }
 
     private void addFreeEntryForObject0(DataOutputStream data) throws IOException {
@@ -39,6 +39,9 @@ public class CrossReferenceTable extends CrossReferenceObject {
     private int first;
     private int size;
 
+    /** Whether only the objects written in an incremental update are listed */
+    private boolean incremental;
+
     public CrossReferenceTable(TrailerDictionary trailerDictionary, long startxref,
             List<Long> location, int first, int last, int size) {
         super(trailerDictionary, startxref);
@@ -48,11 +51,50 @@ public class CrossReferenceTable extends CrossReferenceObject {
         this.size = size;
     }
 
+    /**
+     * Creates the cross-reference table of an incremental update, which lists the objects
+     * written in the update in subsections of consecutive object numbers. The locations of
+     * the objects of previous revisions are null.
+     *
+     * @param trailerDictionary the trailer dictionary, including the Prev entry
+     * @param startxref the offset of the table
+     * @param location the offsets of the objects, indexed by object number minus one
+     * @param size the highest object number in use
+     */
+    public CrossReferenceTable(TrailerDictionary trailerDictionary, long startxref,
+            List<Long> location, int size) {
+        this(trailerDictionary, startxref, location, 0, location.size(), size);
+        this.incremental = true;
+    }
+
     public void output(OutputStream stream) throws IOException {
-        outputXref();
+        if (incremental) {
+            outputSubsections();
+        } else {
+            outputXref();
+        }
         writeTrailer(stream);
     }
 
+    private void outputSubsections() throws IOException {
+        pdf.append("xref\n");
+        int i = 0;
+        while (i < last) {
+            if (objectReferences.get(i) == null) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < last && objectReferences.get(i) != null) {
+                i++;
+            }
+            pdf.append(start + 1).append(' ').append(i - start).append('\n');
+            for (int j = start; j < i; j++) {
+                appendEntry(objectReferences.get(j));
+            }
+        }
+    }
+
     private void outputXref() throws IOException {
         if (first == 0) {
             pdf.append("xref\n0 ");
@@ -65,15 +107,19 @@ public class CrossReferenceTable extends CrossReferenceObject {
         for (int i = first; i < first + last; i++) {
             Long objectReference = objectReferences.get(i);
             assert objectReference != null;
-            final String padding = "0000000000";
-            String s = String.valueOf(objectReference);
-            if (s.length() > 10) {
-                throw new IOException("PDF file too large."
-                        + " PDF 1.4 cannot grow beyond approx. 9.3GB.");
-            }
-            String loc = padding.substring(s.length()) + s;
-            pdf.append(loc).append(" 00000 n \n");
+            appendEntry(objectReference);
+        }
+    }
+
+    private void appendEntry(Long objectReference) throws IOException {
+        final String padding = "0000000000";
+        String s = String.valueOf(objectReference);
+        if (s.length() > 10) {
+            throw new IOException("PDF file too large."
+                    + " PDF 1.4 cannot grow beyond approx. 9.3GB.");
         }
+        String loc = padding.substring(s.length()) + s;
+        pdf.append(loc).append(" 00000 n \n");
     }
 
     private void writeTrailer(OutputStream stream) throws IOException {
@@ -21,14 +21,17 @@ package org.apache.fop.render.pdf;
 
 import java.awt.Rectangle;
 import java.io.IOException;
+import java.net.URISyntaxException;
 
 import org.apache.xmlgraphics.image.loader.Image;
 
+import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.pdf.PDFImage;
 import org.apache.fop.pdf.PDFXObject;
 import org.apache.fop.render.ImageHandler;
 import org.apache.fop.render.RenderingContext;
 import org.apache.fop.render.pdf.PDFLogicalStructureHandler.MarkedContentInfo;
+import org.apache.fop.util.EncodedStreamCache;
 
 /**
  * A partial implementation of a PDF-specific image handler, containing the code that is
@@ -45,6 +48,9 @@ abstract class AbstractPDFImageHandler implements ImageHandler {
         PDFImage pdfimage = createPDFImage(image, image.getInfo().getOriginalURI());
         PDFXObject xobj = generator.getDocument().addImage(
                 generator.getResourceContext(), pdfimage);
+        String uri = image.getInfo().getOriginalURI();
+        xobj.setEncodedStreamKey("image:" + uri + ':' + getSourceVersion(context, uri) + ':' + image.getFlavor()
+                + ':' + image.getSize().getWidthPx() + 'x' + image.getSize().getHeightPx());
 
         float x = (float)pos.getX() / 1000f;
         float y = (float)pos.getY() / 1000f;
@@ -58,6 +64,19 @@ abstract class AbstractPDFImageHandler implements ImageHandler {
         }
     }
 
+    private static String getSourceVersion(RenderingContext context, String uri) {
+        if (uri == null) {
+            return "";
+        }
+        try {
+            InternalResourceResolver resolver = context.getUserAgent().getResourceResolver();
+            return EncodedStreamCache.getSourceVersion(
+                    resolver.resolveFromBase(InternalResourceResolver.cleanURI(uri)));
+        } catch (URISyntaxException e) {
+            return "";
+        }
+    }
+
     /**
      * Creates a PDF image object out of the given image.
      *
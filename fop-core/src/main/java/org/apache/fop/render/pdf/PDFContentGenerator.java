@@ -28,7 +28,6 @@ import java.io.OutputStream;
 import org.apache.fop.pdf.PDFColorHandler;
 import org.apache.fop.pdf.PDFDocument;
 import org.apache.fop.pdf.PDFFilterList;
-import org.apache.fop.pdf.PDFLinearization;
 import org.apache.fop.pdf.PDFNumber;
 import org.apache.fop.pdf.PDFPaintingState;
 import org.apache.fop.pdf.PDFReference;
@@ -150,7 +149,7 @@ public class PDFContentGenerator {
      */
     public void flushPDFDoc() throws IOException {
         if (document.isLinearizationEnabled()) {
-            new PDFLinearization(document).outputPages(outputStream);
+            document.getLinearization().outputPages(outputStream);
         }
         this.document.output(this.outputStream);
     }
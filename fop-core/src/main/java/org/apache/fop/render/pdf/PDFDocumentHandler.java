@@ -35,6 +35,7 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.xmlgraphics.xmp.Metadata;
 
 import org.apache.fop.accessibility.StructureTreeEventHandler;
+import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.MimeConstants;
 import org.apache.fop.fo.extensions.xmp.XMPMetadata;
 import org.apache.fop.pdf.PDFAnnotList;
@@ -128,7 +129,7 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         return this.documentNavigationHandler;
     }
 
-    void mergeRendererOptionsConfig(PDFRendererOptionsConfig config) {
+    void mergeRendererOptionsConfig(PDFRendererOptionsConfig config) throws FOPException {
         pdfUtil.mergeRendererOptionsConfig(config);
     }
 
@@ -299,6 +300,9 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
             if (!pdfDoc.isLinearizationEnabled()) {
                 this.generator.flushPDFDoc();
                 this.generator = null;
+                pdfDoc.releasePage(currentPage);
+            } else if (pdfDoc.isLinearizationSpoolingEnabled()) {
+                pdfDoc.getLinearization().spoolPage(currentPage);
             }
         } catch (IOException ioe) {
             throw new IFException("I/O error in endPage()", ioe);
@@ -56,15 +56,23 @@ import static org.apache.fop.render.pdf.PDFEncryptionOption.NO_PRINT;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.NO_PRINTHQ;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.OWNER_PASSWORD;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.USER_PASSWORD;
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION_LEVEL;
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION_THREADS;
 import static org.apache.fop.render.pdf.PDFRendererOption.DISABLE_SRGB_COLORSPACE;
 import static org.apache.fop.render.pdf.PDFRendererOption.FILTER_LIST;
+import static org.apache.fop.render.pdf.PDFRendererOption.INCREMENTAL_UPDATE;
+import static org.apache.fop.render.pdf.PDFRendererOption.INCREMENTAL_UPDATE_APPEND;
 import static org.apache.fop.render.pdf.PDFRendererOption.LINEARIZATION;
 import static org.apache.fop.render.pdf.PDFRendererOption.MERGE_FONTS;
+import static org.apache.fop.render.pdf.PDFRendererOption.OBJECT_STREAMS;
+import static org.apache.fop.render.pdf.PDFRendererOption.OBJECT_STREAM_CAPACITY;
 import static org.apache.fop.render.pdf.PDFRendererOption.OUTPUT_PROFILE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_A_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_UA_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_VT_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_X_MODE;
+import static org.apache.fop.render.pdf.PDFRendererOption.STREAMING;
+import static org.apache.fop.render.pdf.PDFRendererOption.STREAM_SPILL_THRESHOLD;
 import static org.apache.fop.render.pdf.PDFRendererOption.VERSION;
 
 /**
@@ -119,6 +127,7 @@ public final class PDFRendererConfig implements RendererConfig {
             if (cfg != null) {
                 configure(cfg, userAgent, strict);
             }
+            new PDFRendererOptionsConfig(configOptions, encryptionConfig).checkIncrementalUpdate();
             if (userAgent == null) {
                 pdfConfig = new PDFRendererConfig(new DefaultFontConfigParser().parse(cfg, strict),
                         new PDFRendererOptionsConfig(configOptions, encryptionConfig));
@@ -151,6 +160,14 @@ public final class PDFRendererConfig implements RendererConfig {
                 parseAndPut(DISABLE_SRGB_COLORSPACE, cfg);
                 parseAndPut(MERGE_FONTS, cfg);
                 parseAndPut(LINEARIZATION, cfg);
+                parseAndPut(STREAMING, cfg);
+                parseAndPut(COMPRESSION_LEVEL, cfg);
+                parseAndPut(COMPRESSION_THREADS, cfg);
+                parseAndPut(OBJECT_STREAMS, cfg);
+                parseAndPut(OBJECT_STREAM_CAPACITY, cfg);
+                parseAndPut(INCREMENTAL_UPDATE, cfg);
+                parseAndPut(INCREMENTAL_UPDATE_APPEND, cfg);
+                parseAndPut(STREAM_SPILL_THRESHOLD, cfg);
 
                 parseAndPut(VERSION, cfg);
             } catch (ConfigurationException e) {
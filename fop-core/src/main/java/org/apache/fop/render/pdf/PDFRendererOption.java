@@ -93,6 +93,67 @@ public enum PDFRendererOption implements RendererConfigOption {
             return Boolean.valueOf(value);
         }
     },
+    /**
+     * Rendering Options key for releasing each page once it has been written, or spooling it to
+     * a temporary file when linearization is enabled, default: false
+     */
+    STREAMING("streaming", false) {
+        @Override
+        Boolean deserialize(String value) {
+            return Boolean.valueOf(value);
+        }
+    },
+    /**
+     * Rendering Options key for the compression level (0-9) of Flate filters, default: -1 (the
+     * default level of the deflater)
+     */
+    COMPRESSION_LEVEL("compression-level", -1) {
+        @Override
+        Integer deserialize(String value) {
+            int level = Integer.parseInt(value);
+            if (level < -1 || level > 9) {
+                throw new IllegalArgumentException("Invalid compression-level: " + value
+                        + " (must be between 0 and 9, or -1 for the default level)");
+            }
+            return level;
+        }
+    },
+    /** Rendering Options key for the number of threads compressing streams, default: 1 */
+    COMPRESSION_THREADS("compression-threads", 1) {
+        @Override
+        Integer deserialize(String value) {
+            return Integer.valueOf(value);
+        }
+    },
+    /**
+     * Rendering Options key for packing the objects that are not streams into compressed object
+     * streams, default: false
+     */
+    OBJECT_STREAMS("object-streams", false) {
+        @Override
+        Boolean deserialize(String value) {
+            return Boolean.valueOf(value);
+        }
+    },
+    /** Rendering Options key for the maximum number of objects in an object stream, default: 100 */
+    OBJECT_STREAM_CAPACITY("object-stream-capacity", 100) {
+        @Override
+        Integer deserialize(String value) {
+            return Integer.valueOf(value);
+        }
+    },
+    /**
+     * Rendering Options key for the number of bytes a stream of the document may hold on the
+     * heap before it is moved to the scratch file shared by the stream caches of the JVM, 0 to keep
+     * all streams on the heap. If not set, the value of the system property
+     * {@link org.apache.fop.pdf.StreamCacheFactory#SPILL_THRESHOLD_PROPERTY} is used.
+     */
+    STREAM_SPILL_THRESHOLD("stream-spill-threshold") {
+        @Override
+        Integer deserialize(String value) {
+            return Integer.valueOf(value);
+        }
+    },
     /** Rendering Options key for the ICC profile for the output intent. */
     OUTPUT_PROFILE("output-profile") {
         @Override
@@ -103,6 +164,27 @@ public enum PDFRendererOption implements RendererConfigOption {
                 throw new RuntimeException(e);
             }
         }
+    },
+    /** Rendering Options key for an existing PDF file the document is appended to. */
+    INCREMENTAL_UPDATE("incremental-update") {
+        @Override
+        URI deserialize(String value) {
+            try {
+                return InternalResourceResolver.cleanURI(value);
+            } catch (URISyntaxException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    },
+    /**
+     * Rendering Options key for writing only the incremental update, the output stream appending
+     * to the updated file, default: false
+     */
+    INCREMENTAL_UPDATE_APPEND("incremental-update-append", false) {
+        @Override
+        Boolean deserialize(String value) {
+            return Boolean.valueOf(value);
+        }
     };
 
     private final String name;
@@ -24,6 +24,7 @@ import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.fop.apps.FOPException;
 import org.apache.fop.pdf.PDFAMode;
 import org.apache.fop.pdf.PDFEncryptionParams;
 import org.apache.fop.pdf.PDFUAMode;
@@ -31,15 +32,23 @@ import org.apache.fop.pdf.PDFVTMode;
 import org.apache.fop.pdf.PDFXMode;
 import org.apache.fop.pdf.Version;
 
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION_LEVEL;
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION_THREADS;
 import static org.apache.fop.render.pdf.PDFRendererOption.DISABLE_SRGB_COLORSPACE;
 import static org.apache.fop.render.pdf.PDFRendererOption.FILTER_LIST;
+import static org.apache.fop.render.pdf.PDFRendererOption.INCREMENTAL_UPDATE;
+import static org.apache.fop.render.pdf.PDFRendererOption.INCREMENTAL_UPDATE_APPEND;
 import static org.apache.fop.render.pdf.PDFRendererOption.LINEARIZATION;
 import static org.apache.fop.render.pdf.PDFRendererOption.MERGE_FONTS;
+import static org.apache.fop.render.pdf.PDFRendererOption.OBJECT_STREAMS;
+import static org.apache.fop.render.pdf.PDFRendererOption.OBJECT_STREAM_CAPACITY;
 import static org.apache.fop.render.pdf.PDFRendererOption.OUTPUT_PROFILE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_A_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_UA_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_VT_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_X_MODE;
+import static org.apache.fop.render.pdf.PDFRendererOption.STREAMING;
+import static org.apache.fop.render.pdf.PDFRendererOption.STREAM_SPILL_THRESHOLD;
 import static org.apache.fop.render.pdf.PDFRendererOption.VERSION;
 
 /**
@@ -142,4 +151,52 @@ public final class PDFRendererOptionsConfig {
     public Boolean getLinearizationEnabled() {
         return (Boolean)properties.get(LINEARIZATION);
     }
+
+    public Boolean getStreamingEnabled() {
+        return (Boolean)properties.get(STREAMING);
+    }
+
+    public Integer getCompressionLevel() {
+        return (Integer)properties.get(COMPRESSION_LEVEL);
+    }
+
+    public Integer getCompressionThreads() {
+        return (Integer)properties.get(COMPRESSION_THREADS);
+    }
+
+    public Boolean getObjectStreamsEnabled() {
+        return (Boolean)properties.get(OBJECT_STREAMS);
+    }
+
+    public Integer getObjectStreamCapacity() {
+        return (Integer)properties.get(OBJECT_STREAM_CAPACITY);
+    }
+
+    public URI getIncrementalUpdateURI() {
+        return (URI) properties.get(INCREMENTAL_UPDATE);
+    }
+
+    public Boolean getIncrementalUpdateAppend() {
+        return (Boolean) properties.get(INCREMENTAL_UPDATE_APPEND);
+    }
+
+    /**
+     * Checks that the options can be used together.
+     *
+     * @throws FOPException if an incremental update is combined with encryption or linearization
+     */
+    void checkIncrementalUpdate() throws FOPException {
+        if (getIncrementalUpdateURI() != null) {
+            if (encryptionConfig != null) {
+                throw new FOPException("Encryption cannot be used with an incremental update");
+            }
+            if (Boolean.TRUE.equals(getLinearizationEnabled())) {
+                throw new FOPException("Linearization cannot be used with an incremental update");
+            }
+        }
+    }
+
+    public Integer getStreamSpillThreshold() {
+        return (Integer) properties.get(STREAM_SPILL_THRESHOLD);
+    }
 }
@@ -20,12 +20,14 @@
 package org.apache.fop.render.pdf;
 
 import java.awt.color.ICC_Profile;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.EnumMap;
@@ -45,6 +47,7 @@ import org.apache.xmlgraphics.xmp.schemas.XMPBasicAdapter;
 import org.apache.xmlgraphics.xmp.schemas.XMPBasicSchema;
 
 import org.apache.fop.accessibility.Accessibility;
+import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.fo.extensions.xmp.XMPMetadata;
@@ -60,6 +63,7 @@ import org.apache.fop.pdf.PDFEncryptionParams;
 import org.apache.fop.pdf.PDFFileSpec;
 import org.apache.fop.pdf.PDFICCBasedColorSpace;
 import org.apache.fop.pdf.PDFICCStream;
+import org.apache.fop.pdf.PDFIncrementalUpdate;
 import org.apache.fop.pdf.PDFInfo;
 import org.apache.fop.pdf.PDFLayer;
 import org.apache.fop.pdf.PDFMetadata;
@@ -148,8 +152,9 @@ class PDFRenderingUtil {
         return new PDFRendererOptionsConfig(properties, encryptionConfig);
     }
 
-    void mergeRendererOptionsConfig(PDFRendererOptionsConfig config) {
+    void mergeRendererOptionsConfig(PDFRendererOptionsConfig config) throws FOPException {
         rendererConfig = rendererConfig.merge(config);
+        rendererConfig.checkIncrementalUpdate();
     }
 
     private void updateInfo() {
@@ -593,9 +598,17 @@ class PDFRenderingUtil {
                     = VersionController.getFixedVersionController(maxPDFVersion);
             this.pdfDoc = new PDFDocument(producer, controller);
         }
+        if (rendererConfig.getStreamSpillThreshold() != null) {
+            pdfDoc.setStreamSpillThreshold(rendererConfig.getStreamSpillThreshold());
+        }
         updateInfo();
         updatePDFProfiles();
         pdfDoc.setFilterMap(rendererConfig.getFilterMap());
+        if (rendererConfig.getIncrementalUpdateURI() != null) {
+            PDFIncrementalUpdate update = loadIncrementalUpdate(rendererConfig.getIncrementalUpdateURI());
+            update.setAppend(rendererConfig.getIncrementalUpdateAppend());
+            pdfDoc.setIncrementalUpdate(update);
+        }
         pdfDoc.outputHeader(out);
 
         //Setup encryption if necessary
@@ -621,10 +634,33 @@ class PDFRenderingUtil {
         this.pdfDoc.enableAccessibility(userAgent.isAccessibilityEnabled());
         pdfDoc.setMergeFontsEnabled(rendererConfig.getMergeFontsEnabled());
         pdfDoc.setLinearizationEnabled(rendererConfig.getLinearizationEnabled());
+        pdfDoc.setStreamingEnabled(rendererConfig.getStreamingEnabled());
+        pdfDoc.setCompressionLevel(rendererConfig.getCompressionLevel());
+        pdfDoc.setCompressionThreads(rendererConfig.getCompressionThreads());
+        pdfDoc.setObjectStreamsEnabled(rendererConfig.getObjectStreamsEnabled());
+        pdfDoc.setObjectStreamCapacity(rendererConfig.getObjectStreamCapacity());
+        pdfDoc.setEncodedStreamCache(userAgent.getEncodedStreamCache());
 
         return this.pdfDoc;
     }
 
+    /**
+     * Opens the PDF file the document is appended to. Local files are memory-mapped, other
+     * resources are read into memory.
+     */
+    private PDFIncrementalUpdate loadIncrementalUpdate(URI uri) throws IOException {
+        URI resolved = userAgent.getResourceResolver().resolveFromBase(uri);
+        if ("file".equals(resolved.getScheme())) {
+            return new PDFIncrementalUpdate(new File(resolved));
+        }
+        InputStream in = userAgent.getResourceResolver().getResource(uri);
+        try {
+            return new PDFIncrementalUpdate(ByteBuffer.wrap(IOUtils.toByteArray(in)));
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
     /**
      * Generates a page label in the PDF document.
      * @param pageIndex the index of the page
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A map from non-negative int keys to non-negative int values which may be read by any number
+ * of threads while it is written to. Reads take no lock: each entry is kept in a single
+ * atomic long, its key in the high and its value in the low 32 bits, so that a reader sees
+ * either a whole entry or none. Writes are synchronized. As with {@link IntIntHashMap}, the
+ * entries are kept in primitive arrays rather than boxed.
+ */
+public class ConcurrentIntIntHashMap {
+
+    /** The value returned for the keys which are not in the map. */
+    public static final int NO_VALUE = IntIntHashMap.NO_VALUE;
+
+    private static final long EMPTY = -1L;
+
+    /** replaced, never modified, once the map grows */
+    private volatile AtomicLongArray entries;
+
+    private int size;
+
+    /**
+     * Creates an empty map.
+     */
+    public ConcurrentIntIntHashMap() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty map for the given number of entries.
+     * @param expectedSize the number of entries the map holds without growing
+     */
+    public ConcurrentIntIntHashMap(int expectedSize) {
+        int capacity = 8;
+        while (capacity * 3 < expectedSize * 4) {
+            capacity <<= 1;
+        }
+        entries = createEntries(capacity);
+    }
+
+    private static AtomicLongArray createEntries(int capacity) {
+        AtomicLongArray entries = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            entries.set(i, EMPTY);
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the value of a key.
+     * @param key the key
+     * @return the value, or {@link #NO_VALUE} if the key is not in the map
+     */
+    public int get(int key) {
+        AtomicLongArray entries = this.entries;
+        int mask = entries.length() - 1;
+        for (int i = IntIntHashMap.hash(key) & mask;; i = (i + 1) & mask) {
+            long entry = entries.get(i);
+            if (entry == EMPTY) {
+                return NO_VALUE;
+            } else if ((int) (entry >>> 32) == key) {
+                return (int) entry;
+            }
+        }
+    }
+
+    /**
+     * Indicates whether the map has a value for a key.
+     * @param key the key
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(int key) {
+        return get(key) != NO_VALUE;
+    }
+
+    /**
+     * Sets the value of a key.
+     * @param key the key, which must not be negative
+     * @param value the value, which must not be negative
+     * @return the previous value, or {@link #NO_VALUE} if the key was not in the map
+     */
+    public synchronized int put(int key, int value) {
+        return put(key, value, true);
+    }
+
+    /**
+     * Sets the value of a key unless it is already in the map.
+     * @param key the key, which must not be negative
+     * @param value the value, which must not be negative
+     * @return the current value, or {@link #NO_VALUE} if the key was not in the map
+     */
+    public synchronized int putIfAbsent(int key, int value) {
+        return put(key, value, false);
+    }
+
+    private int put(int key, int value, boolean replace) {
+        if (key < 0 || value < 0) {
+            throw new IllegalArgumentException("Negative key or value: " + key + ", " + value);
+        }
+        long newEntry = ((long) key << 32) | value;
+        AtomicLongArray entries = this.entries;
+        int mask = entries.length() - 1;
+        int i = IntIntHashMap.hash(key) & mask;
+        for (long entry = entries.get(i); entry != EMPTY; entry = entries.get(i)) {
+            if ((int) (entry >>> 32) == key) {
+                if (replace) {
+                    entries.set(i, newEntry);
+                }
+                return (int) entry;
+            }
+            i = (i + 1) & mask;
+        }
+        if ((size + 1) * 4 > entries.length() * 3) {
+            //The new table is only visible to readers once it holds all the entries
+            AtomicLongArray grown = createEntries(entries.length() * 2);
+            for (int j = 0; j < entries.length(); j++) {
+                if (entries.get(j) != EMPTY) {
+                    insert(grown, entries.get(j));
+                }
+            }
+            insert(grown, newEntry);
+            this.entries = grown;
+        } else {
+            entries.set(i, newEntry);
+        }
+        size++;
+        return NO_VALUE;
+    }
+
+    private static void insert(AtomicLongArray entries, long entry) {
+        int mask = entries.length() - 1;
+        int i = IntIntHashMap.hash((int) (entry >>> 32)) & mask;
+        while (entries.get(i) != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        entries.set(i, entry);
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return the size of the map
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util;
+
+import java.io.File;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded cache of encoded stream payloads shared by the documents produced with the same
+ * FopFactory, so that images, ICC profiles and font subsets that occur in many documents are
+ * only compressed once. The least recently used payloads are evicted first once the maximum
+ * size is exceeded.
+ * <p>
+ * Images and fonts are identified by their URI together with the version returned by
+ * {@link #getSourceVersion(URI)}, so a changed file is encoded again. The content of URIs
+ * other than file URIs is assumed not to change while the cache is in use, which is why the
+ * cache of a FopFactory is disabled unless a size is configured.
+ * <p>
+ * Note: this class should not be considered as part of FOP's external API.
+ */
+public class EncodedStreamCache {
+
+    /** The default maximum size of the cached payloads: 16MB */
+    public static final long DEFAULT_MAXIMUM_SIZE = 16 * 1024 * 1024;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    private long maximumSize;
+    private long size;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Creates a new cache with the default maximum size.
+     */
+    public EncodedStreamCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Creates a new cache.
+     * @param maximumSize the maximum size in bytes, 0 to disable the cache
+     */
+    public EncodedStreamCache(long maximumSize) {
+        setMaximumSize(maximumSize);
+    }
+
+    /**
+     * Returns a token identifying the version of the content at the given URI, to be part of
+     * the key of the payloads encoded from it. For a file URI, it is made of the last
+     * modification time and the length of the file. For any other URI it is empty, the content
+     * being assumed not to change.
+     * @param uri the URI of the source of a payload, may be null
+     * @return the version token
+     */
+    public static String getSourceVersion(URI uri) {
+        if (uri != null && "file".equals(uri.getScheme())) {
+            try {
+                File file = new File(uri);
+                return file.lastModified() + "/" + file.length();
+            } catch (IllegalArgumentException e) {
+                //not a hierarchical file URI
+            }
+        }
+        return "";
+    }
+
+    /** An encoded stream payload. */
+    public static final class Entry {
+        private final byte[] data;
+        private final int rawLength;
+
+        /**
+         * Creates a new entry.
+         * @param data the encoded payload
+         * @param rawLength the length of the payload before encoding
+         */
+        public Entry(byte[] data, int rawLength) {
+            this.data = data;
+            this.rawLength = rawLength;
+        }
+
+        /**
+         * Returns the encoded payload. The array must not be modified.
+         * @return the encoded payload
+         */
+        public byte[] getData() {
+            return data;
+        }
+
+        /**
+         * Returns the length of the payload before encoding.
+         * @return the raw length
+         */
+        public int getRawLength() {
+            return rawLength;
+        }
+    }
+
+    /**
+     * Returns the payload cached under the given key and marks it as recently used.
+     * @param key the key
+     * @return the payload, or null if it isn't cached
+     */
+    public synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return entry;
+    }
+
+    /**
+     * Caches a payload, evicting the least recently used payloads if the maximum size is
+     * exceeded. Payloads larger than the maximum size are not cached.
+     * @param key the key
+     * @param entry the payload
+     */
+    public synchronized void put(String key, Entry entry) {
+        if (entry.data.length > maximumSize) {
+            return;
+        }
+        Entry old = entries.put(key, entry);
+        if (old != null) {
+            size -= old.data.length;
+        }
+        size += entry.data.length;
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Entry> iter = entries.values().iterator();
+        while (size > maximumSize && iter.hasNext()) {
+            size -= iter.next().data.length;
+            iter.remove();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Returns the maximum size of the cached payloads.
+     * @return the maximum size in bytes
+     */
+    public synchronized long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Sets the maximum size of the cached payloads. A size of 0 disables the cache.
+     * @param maximumSize the maximum size in bytes
+     */
+    public synchronized void setMaximumSize(long maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize must not be negative: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        evict();
+    }
+
+    /**
+     * Indicates whether payloads are cached at all.
+     * @return true if the maximum size is larger than 0
+     */
+    public synchronized boolean isEnabled() {
+        return maximumSize > 0;
+    }
+
+    /**
+     * Returns the size of the cached payloads.
+     * @return the size in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of cached payloads.
+     * @return the number of entries
+     */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups that found a payload.
+     * @return the number of hits
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups that didn't find a payload.
+     * @return the number of misses
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of payloads evicted to stay within the maximum size.
+     * @return the number of evictions
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /** Resets the hit, miss and eviction counters. */
+    public synchronized void resetStatistics() {
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+    }
+
+    /** Removes all cached payloads. */
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util;
+
+import java.util.Arrays;
+
+/**
+ * A map from non-negative int keys to non-negative int values, with open addressing in
+ * primitive arrays rather than boxed entries. It is not thread-safe; see
+ * {@link ConcurrentIntIntHashMap} for a map which may be read while it is written to.
+ */
+public class IntIntHashMap {
+
+    /** The value returned for the keys which are not in the map. */
+    public static final int NO_VALUE = -1;
+
+    private int[] keys;
+
+    private int[] values;
+
+    private int size;
+
+    /**
+     * Creates an empty map.
+     */
+    public IntIntHashMap() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty map for the given number of entries.
+     * @param expectedSize the number of entries the map holds without growing
+     */
+    public IntIntHashMap(int expectedSize) {
+        int capacity = 8;
+        while (capacity * 3 < expectedSize * 4) {
+            capacity <<= 1;
+        }
+        keys = new int[capacity];
+        Arrays.fill(keys, NO_VALUE);
+        values = new int[capacity];
+    }
+
+    static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the value of a key.
+     * @param key the key
+     * @return the value, or {@link #NO_VALUE} if the key is not in the map
+     */
+    public int get(int key) {
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; keys[i] != NO_VALUE; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * Indicates whether the map has a value for a key.
+     * @param key the key
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(int key) {
+        return get(key) != NO_VALUE;
+    }
+
+    /**
+     * Sets the value of a key.
+     * @param key the key, which must not be negative
+     * @param value the value, which must not be negative
+     * @return the previous value, or {@link #NO_VALUE} if the key was not in the map
+     */
+    public int put(int key, int value) {
+        if (key < 0 || value < 0) {
+            throw new IllegalArgumentException("Negative key or value: " + key + ", " + value);
+        }
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != NO_VALUE) {
+            if (keys[i] == key) {
+                int previous = values[i];
+                values[i] = value;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 4 > keys.length * 3) {
+            rehash();
+        }
+        return NO_VALUE;
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        Arrays.fill(keys, NO_VALUE);
+        values = new int[keys.length];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != NO_VALUE) {
+                int i = hash(oldKeys[j]) & mask;
+                while (keys[i] != NO_VALUE) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return the size of the map
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -25,12 +25,14 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import org.apache.fop.layoutmgr.BlockKnuthSequence;
 import org.apache.fop.layoutmgr.BreakingAlgorithm;
 import org.apache.fop.layoutmgr.ElementListObserver;
 import org.apache.fop.layoutmgr.KnuthBox;
 import org.apache.fop.layoutmgr.KnuthGlue;
+import org.apache.fop.layoutmgr.KnuthNodeStore;
 import org.apache.fop.layoutmgr.KnuthPenalty;
 import org.apache.fop.layoutmgr.KnuthSequence;
 
@@ -81,6 +83,28 @@ public class KnuthAlgorithmTestCase {
         assertEquals(5000, parts[1].difference);
     }
 
+    /**
+     * Tests that runs reusing the storage and the nodes of previous runs find the same breaks.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testNodeStore() throws Exception {
+        KnuthNodeStore store = new KnuthNodeStore();
+        for (int i = 0; i < 3; i++) {
+            MyBreakingAlgorithm algo = new MyBreakingAlgorithm(0, 0, true, true, 0);
+            algo.setNodeStore(store, true);
+            algo.setConstantLineWidth(30000);
+            algo.findBreakingPoints(getKnuthSequence1(), 1, true, BreakingAlgorithm.ALL_BREAKS);
+            Part[] parts = algo.getParts();
+            assertEquals("Sequence must produce 3 parts", 3, parts.length);
+            assertEquals(5000, parts[0].difference);
+            assertEquals(5000, parts[1].difference);
+        }
+        assertEquals(3, store.getRunCount());
+        assertTrue(store.getCreatedNodeCount() > 0);
+        assertEquals(2 * store.getCreatedNodeCount(), store.getRecycledNodeCount());
+    }
+
     private class Part {
         private int difference;
         private double ratio;
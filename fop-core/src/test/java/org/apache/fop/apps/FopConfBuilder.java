@@ -186,6 +186,16 @@ public class FopConfBuilder implements FontConfigurator<FopConfBuilder> {
         return createElement("prefer-renderer", String.valueOf(value));
     }
 
+    /**
+     * Set the &lt;encoded-stream-cache-size&gt; tag within the fop.xconf.
+     *
+     * @param size the maximum size of the cache in bytes
+     * @return <b>this</b>
+     */
+    public FopConfBuilder setEncodedStreamCacheSize(long size) {
+        return createElement("encoded-stream-cache-size", String.valueOf(size));
+    }
+
     /**
      * Set the &lt;default-page-settings&gt; tag within the fop.xconf.
      *
@@ -211,6 +221,16 @@ public class FopConfBuilder implements FontConfigurator<FopConfBuilder> {
         return createElement("use-cache", String.valueOf(enableFontCaching));
     }
 
+    /**
+     * Set the &lt;font-detection-threads&gt; tag within the fop.xconf.
+     *
+     * @param threadCount the number of threads on which the detected font files are parsed
+     * @return <b>this</b>
+     */
+    public FopConfBuilder setFontDetectionThreads(int threadCount) {
+        return createElement("font-detection-threads", String.valueOf(threadCount));
+    }
+
     /**
      * Starts a renderer specific config builder.
      *
@@ -129,6 +129,15 @@ public class FopConfParserTestCase {
         assertTrue(buildFactory().getRendererFactory().isRendererPreferred());
     }
 
+    @Test
+    public void testEncodedStreamCacheSize() {
+        assertFalse(buildFactory().getEncodedStreamCache().isEnabled());
+        builder.setEncodedStreamCacheSize(1024);
+        FopFactory factory = buildFactory();
+        assertTrue(factory.getEncodedStreamCache().isEnabled());
+        assertEquals(1024, factory.getEncodedStreamCache().getMaximumSize());
+    }
+
     @Test
     public void testRelativeURINoBaseNoFont() throws Exception {
         checkRelativeURIs("test/config/relative-uri/no-base_no-font.xconf",
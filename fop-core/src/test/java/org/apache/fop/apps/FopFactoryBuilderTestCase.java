@@ -279,6 +279,26 @@ public class FopFactoryBuilderTestCase {
         });
     }
 
+    @Test
+    public void testEncodedStreamCacheDisabledByDefault() {
+        assertFalse(buildFopFactory().getEncodedStreamCache().isEnabled());
+    }
+
+    @Test
+    public void testGetSetEncodedStreamCacheSize() {
+        runSetterTest(new Runnable() {
+            public void run() {
+                defaultBuilder.setEncodedStreamCacheSize(1024);
+                assertEquals(1024, buildFopFactory().getEncodedStreamCache().getMaximumSize());
+            }
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeEncodedStreamCacheSize() {
+        defaultBuilder.setEncodedStreamCacheSize(-1);
+    }
+
     private void runSetterTest(Runnable setterTest) {
         setterTest.run();
         try {
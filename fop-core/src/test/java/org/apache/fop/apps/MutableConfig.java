@@ -140,4 +140,8 @@ public final class MutableConfig implements FopFactoryConfig {
     public FallbackResolver getFallbackResolver() {
         return delegate.getFallbackResolver();
     }
+
+    public long getEncodedStreamCacheSize() {
+        return delegate.getEncodedStreamCacheSize();
+    }
 }
@@ -29,11 +29,19 @@ import static org.apache.fop.render.pdf.PDFEncryptionOption.ENCRYPTION_LENGTH;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.ENCRYPTION_PARAMS;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.OWNER_PASSWORD;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.USER_PASSWORD;
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION_LEVEL;
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION_THREADS;
 import static org.apache.fop.render.pdf.PDFRendererOption.DISABLE_SRGB_COLORSPACE;
 import static org.apache.fop.render.pdf.PDFRendererOption.FILTER_LIST;
+import static org.apache.fop.render.pdf.PDFRendererOption.INCREMENTAL_UPDATE;
+import static org.apache.fop.render.pdf.PDFRendererOption.INCREMENTAL_UPDATE_APPEND;
+import static org.apache.fop.render.pdf.PDFRendererOption.LINEARIZATION;
+import static org.apache.fop.render.pdf.PDFRendererOption.OBJECT_STREAMS;
+import static org.apache.fop.render.pdf.PDFRendererOption.OBJECT_STREAM_CAPACITY;
 import static org.apache.fop.render.pdf.PDFRendererOption.OUTPUT_PROFILE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_A_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_X_MODE;
+import static org.apache.fop.render.pdf.PDFRendererOption.STREAM_SPILL_THRESHOLD;
 import static org.apache.fop.render.pdf.PDFRendererOption.VERSION;
 
 /**
@@ -93,6 +101,46 @@ public final class PDFRendererConfBuilder extends RendererConfBuilder {
         return this;
     }
 
+    public PDFRendererConfBuilder setCompressionLevel(int level) {
+        createTextElement(COMPRESSION_LEVEL, String.valueOf(level));
+        return this;
+    }
+
+    public PDFRendererConfBuilder setCompressionThreads(int threads) {
+        createTextElement(COMPRESSION_THREADS, String.valueOf(threads));
+        return this;
+    }
+
+    public PDFRendererConfBuilder setObjectStreams(boolean enabled) {
+        createTextElement(OBJECT_STREAMS, String.valueOf(enabled));
+        return this;
+    }
+
+    public PDFRendererConfBuilder setObjectStreamCapacity(int capacity) {
+        createTextElement(OBJECT_STREAM_CAPACITY, String.valueOf(capacity));
+        return this;
+    }
+
+    public PDFRendererConfBuilder setIncrementalUpdate(String uri) {
+        createTextElement(INCREMENTAL_UPDATE, uri);
+        return this;
+    }
+
+    public PDFRendererConfBuilder setIncrementalUpdateAppend(boolean append) {
+        createTextElement(INCREMENTAL_UPDATE_APPEND, String.valueOf(append));
+        return this;
+    }
+
+    public PDFRendererConfBuilder setLinearization(boolean enabled) {
+        createTextElement(LINEARIZATION, String.valueOf(enabled));
+        return this;
+    }
+
+    public PDFRendererConfBuilder setStreamSpillThreshold(int threshold) {
+        createTextElement(STREAM_SPILL_THRESHOLD, String.valueOf(threshold));
+        return this;
+    }
+
     public final class EncryptionParamsBuilder {
         private final Element el;
 
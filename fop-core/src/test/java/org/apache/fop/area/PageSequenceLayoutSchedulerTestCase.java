@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Date;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.FormattingResults;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.intermediate.TestAssistant;
+import org.apache.fop.render.intermediate.IFContext;
+import org.apache.fop.render.intermediate.IFDocumentHandler;
+import org.apache.fop.render.intermediate.IFSerializer;
+
+/**
+ * Tests that page-sequences laid out on worker threads give the same result as page-sequences
+ * laid out in turn.
+ */
+public class PageSequenceLayoutSchedulerTestCase {
+
+    /** Letters, each in its own page-sequence, as a mail merge would create them. */
+    private static final String LETTERS = "page-sequence_mail-merge.xml";
+
+    private final FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+
+    private final TestAssistant testAssistant = new TestAssistant();
+
+    private FormattingResults results;
+
+    private String render(int layoutThreads) throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setCreationDate(new Date(0));
+        userAgent.setLayoutThreads(layoutThreads);
+        IFSerializer serializer = new IFSerializer(new IFContext(userAgent));
+        IFDocumentHandler targetHandler = userAgent.getRendererFactory().createDocumentHandler(
+                userAgent, MimeConstants.MIME_PDF);
+        serializer.mimicDocumentHandler(targetHandler);
+        userAgent.setDocumentHandlerOverride(serializer);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        results = testAssistant.render(LETTERS, userAgent, MimeConstants.MIME_FOP_IF, out).getResults();
+        //The metadata date is the time of rendering
+        return out.toString("UTF-8").replaceAll("<xmp:MetadataDate>[^<]*</xmp:MetadataDate>", "");
+    }
+
+    @Test
+    public void testSameOutput() throws Exception {
+        String expected = render(1);
+        int pageCount = results.getPageCount();
+        assertEquals(expected, render(4));
+        assertEquals(pageCount, results.getPageCount());
+        assertEquals(8, results.getPageSequences().size());
+    }
+
+    @Test
+    public void testFewerThreadsThanPageSequences() throws Exception {
+        //Citations of earlier page-sequences get their number when the page-sequence is handed
+        //to the area tree. Nothing follows them on their lines, so the output is the same.
+        assertEquals(render(1), render(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLayoutThreads() {
+        fopFactory.newFOUserAgent().setLayoutThreads(0);
+    }
+}
@@ -28,6 +28,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import org.apache.fop.apps.FOPException;
+import org.apache.fop.layoutmgr.inline.LineBreakCache;
 
 public class CommandLineOptionsTestCase {
 
@@ -70,4 +71,30 @@ public class CommandLineOptionsTestCase {
         CommandLineOptions clo3 = new CommandLineOptions();
         assertTrue(clo3.parse(cmd3));
     }
+
+    @Test
+    public void testLayoutThreads() throws FOPException, IOException {
+        assertEquals(1, clo.getFOUserAgent().getLayoutThreads());
+        CommandLineOptions clo1 = new CommandLineOptions();
+        assertTrue(clo1.parse(("-layoutthreads 4 " + commandLine).split(" ")));
+        assertEquals(4, clo1.getFOUserAgent().getLayoutThreads());
+    }
+
+    @Test(expected = FOPException.class)
+    public void testInvalidLayoutThreads() throws FOPException, IOException {
+        new CommandLineOptions().parse(("-layoutthreads 0 " + commandLine).split(" "));
+    }
+
+    @Test
+    public void testLayoutCache() throws FOPException, IOException {
+        assertEquals(LineBreakCache.DEFAULT_SIZE, clo.getFOUserAgent().getLineBreakCacheSize());
+        CommandLineOptions clo1 = new CommandLineOptions();
+        assertTrue(clo1.parse(("-layoutcache 0 " + commandLine).split(" ")));
+        assertEquals(0, clo1.getFOUserAgent().getLineBreakCacheSize());
+    }
+
+    @Test(expected = FOPException.class)
+    public void testInvalidLayoutCache() throws FOPException, IOException {
+        new CommandLineOptions().parse(("-layoutcache -1 " + commandLine).split(" "));
+    }
 }
@@ -20,12 +20,21 @@
 package org.apache.fop.fo.flow.table;
 
 import java.awt.Color;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import org.apache.fop.fo.Constants;
 import org.apache.fop.fo.FONode.FONodeIterator;
@@ -142,6 +151,9 @@ public class CollapsedConditionalBorderTestCase extends AbstractTableTest {
             Table table = (Table) tableIterator.next();
             TablePart part = (TablePart) table.getChildNodes().next();
             GridUnit gu = getGridUnit(part);
+            // The resolved borders of the body are checked on their shared instances
+            assertSame(gu.borderBefore, gu.borderBefore.intern());
+            assertSame(gu.borderAfter, gu.borderAfter.intern());
 
             String errorMsge = baseErrorMsge + "border-before";
             checkBorder(errorMsge, gu.borderBefore.normal, 8000, Color.black);
@@ -215,4 +227,129 @@ public class CollapsedConditionalBorderTestCase extends AbstractTableTest {
             tableNum++;
         } while (tableIterator.hasNext());
     }
+
+    /**
+     * Returns the grid units of the table-body elements of all the tables of the document.
+     */
+    private List<GridUnit> getBodyGridUnits() {
+        List<GridUnit> gridUnits = new ArrayList<GridUnit>();
+        for (Iterator tableIterator = getTableIterator(); tableIterator.hasNext();) {
+            Table table = (Table) tableIterator.next();
+            for (FONodeIterator children = table.getChildNodes(); children.hasNext();) {
+                Object child = children.next();
+                if (child instanceof TableBody) {
+                    for (Object rowGroup : ((TableBody) child).getRowGroups()) {
+                        for (Object row : (List) rowGroup) {
+                            gridUnits.addAll((List) row);
+                        }
+                    }
+                }
+            }
+        }
+        return gridUnits;
+    }
+
+    private static void addBorderSpecifications(ConditionalBorder border, List<BorderSpecification> specs) {
+        specs.add(border.normal);
+        specs.add(border.leadingTrailing);
+        specs.add(border.rest);
+    }
+
+    @Test
+    public void testBorderSpecificationInterning() throws Exception {
+        setUp("table/collapsed-conditional-borders.fo");
+        List<BorderSpecification> specs = new ArrayList<BorderSpecification>();
+        for (GridUnit gu : getBodyGridUnits()) {
+            addBorderSpecifications(gu.borderBefore, specs);
+            addBorderSpecifications(gu.borderAfter, specs);
+        }
+        for (BorderSpecification spec : specs) {
+            BorderInfo borderInfo = spec.getBorderInfo();
+            BorderSpecification canonical = BorderSpecification.getInstance(borderInfo, spec.getHolder());
+            assertEquals(spec, canonical);
+            assertSame(canonical, BorderSpecification.getInstance(borderInfo, spec.getHolder()));
+            // The same border declared on another element is a different specification
+            int otherHolder = spec.getHolder() == Constants.FO_TABLE_CELL
+                    ? Constants.FO_TABLE_ROW : Constants.FO_TABLE_CELL;
+            BorderSpecification other = BorderSpecification.getInstance(borderInfo, otherHolder);
+            assertNotSame(canonical, other);
+            assertFalse(canonical.equals(other));
+        }
+        boolean differentWidths = false;
+        for (BorderSpecification spec1 : specs) {
+            for (BorderSpecification spec2 : specs) {
+                BorderInfo info1 = spec1.getBorderInfo();
+                BorderInfo info2 = spec2.getBorderInfo();
+                if (info1.getRetainedWidth() != info2.getRetainedWidth()) {
+                    differentWidths = true;
+                    assertNotSame(BorderSpecification.getInstance(info1, Constants.FO_TABLE_CELL),
+                            BorderSpecification.getInstance(info2, Constants.FO_TABLE_CELL));
+                }
+            }
+        }
+        assertTrue(differentWidths);
+    }
+
+    @Test
+    public void testConditionalBorderInterning() throws Exception {
+        setUp("table/collapsed-conditional-borders.fo");
+        Set<ConditionalBorder> distinct = new HashSet<ConditionalBorder>();
+        Map<ConditionalBorder, Object> instances = new IdentityHashMap<ConditionalBorder, Object>();
+        for (GridUnit gu : getBodyGridUnits()) {
+            for (ConditionalBorder border : new ConditionalBorder[] {gu.borderBefore, gu.borderAfter}) {
+                assertSame(border, border.intern());
+                ConditionalBorder copy = border.copy();
+                assertNotSame(border, copy);
+                assertEquals(border, copy);
+                assertSame(border, copy.intern());
+                distinct.add(border);
+                instances.put(border, null);
+            }
+        }
+        // Grid units with equal borders share a single instance
+        assertEquals(distinct.size(), instances.size());
+        assertTrue(distinct.size() > 1);
+    }
+
+    private static List<GridUnit> getGridUnits(Table table) {
+        List<GridUnit> gridUnits = new ArrayList<GridUnit>();
+        for (FONodeIterator children = table.getChildNodes(); children.hasNext();) {
+            Object child = children.next();
+            if (child instanceof TablePart) {
+                for (Object rowGroup : ((TablePart) child).getRowGroups()) {
+                    for (Object row : (List) rowGroup) {
+                        gridUnits.addAll((List) row);
+                    }
+                }
+            }
+        }
+        return gridUnits;
+    }
+
+    /**
+     * Checks that the borders of a fixed-layout table, where the resolution of the rows
+     * specified as the rows around them is skipped, are those of the same table resolved row
+     * by row.
+     */
+    @Test
+    public void testSameRowsResolvedAlike() throws Exception {
+        setUp("table/collapsed-borders_same-rows.fo");
+        Iterator tableIterator = getTableIterator();
+        Table fixedTable = (Table) tableIterator.next();
+        Table autoTable = (Table) tableIterator.next();
+        assertFalse(fixedTable.isAutoLayout());
+        assertTrue(autoTable.isAutoLayout());
+        List<GridUnit> fixedGridUnits = getGridUnits(fixedTable);
+        List<GridUnit> autoGridUnits = getGridUnits(autoTable);
+        assertEquals(autoGridUnits.size(), fixedGridUnits.size());
+        for (int i = 0; i < fixedGridUnits.size(); i++) {
+            GridUnit fixed = fixedGridUnits.get(i);
+            GridUnit auto = autoGridUnits.get(i);
+            String errorMsge = "grid unit " + i;
+            assertEquals(errorMsge, auto.borderBefore, fixed.borderBefore);
+            assertEquals(errorMsge, auto.borderAfter, fixed.borderAfter);
+            assertEquals(errorMsge, auto.borderStart, fixed.borderStart);
+            assertEquals(errorMsge, auto.borderEnd, fixed.borderEnd);
+        }
+    }
 }
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+
+package org.apache.fop.fo.flow.table;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.fo.FODocumentParser;
+import org.apache.fop.fo.FODocumentParser.FOEventHandlerFactory;
+import org.apache.fop.fo.FOEventHandler;
+import org.apache.fop.fo.FONode;
+import org.apache.fop.fo.FONode.FONodeIterator;
+
+/**
+ * Debug tool measuring the memory needed by the border resolution of a large table in the
+ * collapsing-border model. A table where every cell has a border is parsed into an FO tree,
+ * which resolves the borders of its grid units, and the heap still in use once the table is
+ * complete is reported along with the number of distinct border objects referenced by the
+ * grid units. The allocation is taken from the thread allocation counter of the platform's
+ * ThreadMXBean, so it requires a HotSpot-based JVM.
+ * <p>
+ * The default 200 columns by 10000 rows need a heap of a few GB (-Xmx).
+ * <p>
+ * Usage: CollapsingBorderBenchmark [columns] [rows]
+ */
+public final class CollapsingBorderBenchmark {
+
+    private CollapsingBorderBenchmark() {
+    }
+
+    /** Generates the FO document row by row, so that it is never held in memory. */
+    private static class TableDocument extends InputStream {
+
+        private final int columns;
+
+        private final int rows;
+
+        private int row = -1;
+
+        private byte[] buffer = new byte[0];
+
+        private int position;
+
+        TableDocument(int columns, int rows) {
+            this.columns = columns;
+            this.rows = rows;
+        }
+
+        private boolean fill() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            if (row < 0) {
+                sb.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                        + "<fo:layout-master-set><fo:simple-page-master master-name=\"A4\""
+                        + " page-width=\"210mm\" page-height=\"297mm\">"
+                        + "<fo:region-body/></fo:simple-page-master></fo:layout-master-set>"
+                        + "<fo:page-sequence master-reference=\"A4\">"
+                        + "<fo:flow flow-name=\"xsl-region-body\">"
+                        + "<fo:table table-layout=\"fixed\" width=\"100%\" border-collapse=\"collapse\""
+                        + " border=\"1pt solid black\">");
+                for (int i = 0; i < columns; i++) {
+                    sb.append("<fo:table-column/>");
+                }
+                sb.append("<fo:table-header><fo:table-row>");
+                for (int i = 0; i < columns; i++) {
+                    sb.append("<fo:table-cell border=\"0.8pt solid black\"><fo:block>H</fo:block>"
+                            + "</fo:table-cell>");
+                }
+                sb.append("</fo:table-row></fo:table-header><fo:table-body>");
+            } else if (row < rows) {
+                sb.append("<fo:table-row>");
+                for (int i = 0; i < columns; i++) {
+                    //Alternate two kinds of cells to have a few competing borders
+                    sb.append(i % 2 == 0
+                            ? "<fo:table-cell border=\"0.5pt solid black\">"
+                            : "<fo:table-cell border=\"0.5pt dotted gray\">");
+                    sb.append("<fo:block>x</fo:block></fo:table-cell>");
+                }
+                sb.append("</fo:table-row>");
+            } else if (row == rows) {
+                sb.append("</fo:table-body></fo:table></fo:flow></fo:page-sequence></fo:root>");
+            } else {
+                return false;
+            }
+            row++;
+            buffer = sb.toString().getBytes("UTF-8");
+            position = 0;
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == buffer.length && !fill()) {
+                return -1;
+            }
+            return buffer[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position == buffer.length && !fill()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.length - position);
+            System.arraycopy(buffer, position, b, off, count);
+            position += count;
+            return count;
+        }
+    }
+
+    private static long usedHeap(MemoryMXBean memoryBean) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memoryBean.getHeapMemoryUsage().getUsed();
+    }
+
+    private static void countBorders(Table table) {
+        Map<Object, Object> borders = new IdentityHashMap<Object, Object>();
+        int gridUnits = 0;
+        for (FONodeIterator iter = table.getChildNodes(); iter.hasNext();) {
+            FONode node = iter.next();
+            if (node instanceof TablePart) {
+                for (Object rowGroup : ((TablePart) node).getRowGroups()) {
+                    for (Object row : (List) rowGroup) {
+                        for (Object o : (List) row) {
+                            GridUnit gu = (GridUnit) o;
+                            borders.put(gu.borderBefore, gu);
+                            borders.put(gu.borderAfter, gu);
+                            gridUnits++;
+                        }
+                    }
+                }
+            }
+        }
+        System.out.println(gridUnits + " grid units referencing " + borders.size()
+                + " distinct before/after border objects");
+    }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments
+     * @throws Exception if an error occurs
+     */
+    public static void main(String[] args) throws Exception {
+        int columns = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        com.sun.management.ThreadMXBean threadBean
+                = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        final TableHandler[] handler = new TableHandler[1];
+        FODocumentParser documentParser = FODocumentParser.newInstance(new FOEventHandlerFactory() {
+            public FOEventHandler newFOEventHandler(FOUserAgent foUserAgent) {
+                handler[0] = new TableHandler(foUserAgent);
+                return handler[0];
+            }
+        });
+        long heapBefore = usedHeap(memoryBean);
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        documentParser.parse(new TableDocument(columns, rows));
+        long time = System.nanoTime() - start;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        long heap = usedHeap(memoryBean) - heapBefore;
+        Table table = (Table) handler[0].getTables().get(0);
+        System.out.println(columns + " columns x " + rows + " rows: " + (time / 1000000) + " ms, "
+                + (allocated / 1024 / 1024) + " MB allocated, " + (heap / 1024 / 1024)
+                + " MB retained by the FO tree");
+        countBorders(table);
+    }
+}
@@ -187,6 +187,44 @@ public class CIDSubsetTestCase {
         assertEquals(bs, cidSub.getGlyphIndices());
     }
 
+    @Test
+    public void testConcurrentMapping() throws Exception {
+        final CIDSubset subset = new CIDSubset(mock(MultiByteFont.class));
+        final int glyphs = 5000;
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t * 1237;
+            threads[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < glyphs; i++) {
+                        int glyphIndex = 1 + (i + offset) % glyphs;
+                        int selector = subset.mapCodePoint(glyphIndex, 0x4E00 + glyphIndex);
+                        if (subset.getOriginalGlyphIndex(selector) != glyphIndex) {
+                            throw new IllegalStateException("Wrong selector for glyph " + glyphIndex);
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // Every glyph has exactly one selector
+        assertEquals(glyphs + 1, subset.getNumberOfGlyphs());
+        Map<Integer, Integer> usedGlyphs = subset.getGlyphs();
+        assertEquals(glyphs + 1, usedGlyphs.size());
+        int selector = 0;
+        for (Map.Entry<Integer, Integer> entry : usedGlyphs.entrySet()) {
+            assertEquals(selector++, entry.getValue().intValue());
+            assertEquals(entry.getKey().intValue(), subset.getOriginalGlyphIndex(entry.getValue()));
+            assertEquals(entry.getValue(), usedGlyphs.get(entry.getKey()));
+        }
+        for (int glyphIndex = 1; glyphIndex <= glyphs; glyphIndex++) {
+            assertEquals(0x4E00 + glyphIndex, subset.getUnicode(usedGlyphs.get(glyphIndex)));
+        }
+    }
+
     @Test
     public void testGetWidths() {
         Arrays.sort(widths);
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.io.FileUtils;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+
+/**
+ * Test case for {@link FontAdder}.
+ */
+public class FontAdderTestCase {
+
+    private static final String[] FONTS = {"DejaVuLGCSerif.ttf", "DroidSansMono.ttf", "Aegean600.ttf"};
+
+    private final InternalResourceResolver resourceResolver
+            = ResourceResolverFactory.createDefaultInternalResourceResolver(new File(".").toURI());
+
+    private File directory;
+
+    private List<URL> fontURLList = new ArrayList<URL>();
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("fop", "fontadder");
+        assertTrue(directory.delete());
+        for (int i = 0; i < 4; i++) {
+            for (String font : FONTS) {
+                File fontFile = new File(directory, i + font);
+                FileUtils.copyFile(new File("test/resources/fonts/ttf", font), fontFile);
+                fontURLList.add(fontFile.toURI().toURL());
+            }
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    private List<String> add(FontCacheManager fontCacheManager, int threadCount) throws Exception {
+        FontManager fontManager = new FontManager(resourceResolver, FontDetectorFactory.createDefault(),
+                fontCacheManager);
+        FontAdder fontAdder = new FontAdder(fontManager, resourceResolver, null);
+        fontAdder.setThreadCount(threadCount);
+        List<EmbedFontInfo> fontInfoList = new ArrayList<EmbedFontInfo>();
+        fontAdder.add(fontURLList, fontInfoList);
+        List<String> result = new ArrayList<String>();
+        for (EmbedFontInfo fontInfo : fontInfoList) {
+            result.add(fontInfo.toString());
+        }
+        return result;
+    }
+
+    @Test
+    public void testParallelDetection() throws Exception {
+        List<String> expected = add(FontCacheManagerFactory.createDisabled(), 1);
+        assertEquals(fontURLList.size(), expected.size());
+        assertEquals(expected, add(FontCacheManagerFactory.createDisabled(), 4));
+
+        FontCacheManager fontCacheManager = FontCacheManagerFactory.createDefault();
+        fontCacheManager.setCacheFile(new File(directory, "fop-fonts.cache").toURI());
+        assertEquals(expected, add(fontCacheManager, 4));
+        //All the fonts are found in the cache
+        assertEquals(expected, add(fontCacheManager, 4));
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.URI;
+import java.util.HashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.io.FileUtils;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+import org.apache.fop.fonts.autodetect.FontInfoFinder;
+
+/**
+ * Test case for {@link FontCache}.
+ */
+public class FontCacheTestCase {
+
+    private static final String[] FONTS = {"DejaVuLGCSerif.ttf", "DroidSansMono.ttf"};
+
+    private final InternalResourceResolver resourceResolver
+            = ResourceResolverFactory.createDefaultInternalResourceResolver(new File(".").toURI());
+
+    private File directory;
+
+    private File cacheFile;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("fop", "fontcache");
+        assertTrue(directory.delete());
+        for (String font : FONTS) {
+            FileUtils.copyFile(new File("test/resources/fonts/ttf", font), new File(directory, font));
+        }
+        cacheFile = new File(directory, "fop-fonts.cache");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    private URI getFontURI(String font) {
+        return new File(directory, font).toURI();
+    }
+
+    private FontCache createCache() {
+        FontCache fontCache = new FontCache();
+        FontInfoFinder finder = new FontInfoFinder();
+        for (String font : FONTS) {
+            assertNotNull(finder.find(getFontURI(font), resourceResolver, fontCache));
+        }
+        return fontCache;
+    }
+
+    private EmbedFontInfo[] getFontInfos(FontCache fontCache, String font) {
+        URI uri = getFontURI(font);
+        return fontCache.getFontInfos(uri.toASCIIString(), FontCache.getLastModified(uri),
+                FontCache.getLength(uri));
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        FontCache fontCache = createCache();
+        assertTrue(fontCache.hasChanged());
+        fontCache.saveTo(cacheFile);
+        assertFalse(fontCache.hasChanged());
+
+        FontCache loaded = FontCache.loadFrom(cacheFile);
+        assertNotNull(loaded);
+        assertFalse(loaded.hasChanged());
+        for (String font : FONTS) {
+            EmbedFontInfo[] expected = getFontInfos(fontCache, font);
+            EmbedFontInfo[] actual = getFontInfos(loaded, font);
+            assertEquals(1, actual.length);
+            assertEquals(expected[0].toString(), actual[0].toString());
+            assertEquals(expected[0].getPostScriptName(), actual[0].getPostScriptName());
+            assertEquals(expected[0].getFontTriplets(), actual[0].getFontTriplets());
+            for (int i = 0; i < expected[0].getFontTriplets().size(); i++) {
+                assertEquals(expected[0].getFontTriplets().get(i).getPriority(),
+                        actual[0].getFontTriplets().get(i).getPriority());
+            }
+        }
+    }
+
+    @Test
+    public void testChangedFontFile() throws Exception {
+        FontCache fontCache = createCache();
+        URI uri = getFontURI(FONTS[0]);
+        String embedUrl = uri.toASCIIString();
+        long lastModified = FontCache.getLastModified(uri);
+        long length = FontCache.getLength(uri);
+        assertEquals(new File(uri).length(), length);
+        assertNotNull(fontCache.getFontInfos(embedUrl, lastModified, length));
+        assertNull(fontCache.getFontInfos(embedUrl, lastModified, length + 1));
+        assertFalse(fontCache.containsFont(embedUrl));
+        assertNull(fontCache.getFontInfos(embedUrl, lastModified, length));
+    }
+
+    @Test
+    public void testRemovedFontFile() throws Exception {
+        FontCache fontCache = createCache();
+        assertTrue(new File(getFontURI(FONTS[1])).delete());
+        fontCache.saveTo(cacheFile);
+        FontCache loaded = FontCache.loadFrom(cacheFile);
+        assertTrue(loaded.containsFont(getFontURI(FONTS[0]).toASCIIString()));
+        assertFalse(loaded.containsFont(getFontURI(FONTS[1]).toASCIIString()));
+    }
+
+    @Test
+    public void testSerializedCacheFile() throws Exception {
+        //The cache files of former versions are serialized objects
+        ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(cacheFile));
+        try {
+            out.writeObject(new HashMap<String, Long>());
+        } finally {
+            out.close();
+        }
+        assertNull(FontCache.loadFrom(cacheFile));
+    }
+}
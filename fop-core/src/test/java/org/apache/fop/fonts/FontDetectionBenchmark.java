@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+import org.apache.fop.fonts.autodetect.FontFileFinder;
+
+/**
+ * Debug tool measuring the start-up time of font auto-detection over a large directory of
+ * fonts. The directory is filled with copies of the TrueType test fonts, then detected
+ * without a font cache on one thread and on all processors, with a cold font cache, with a
+ * warm font cache read from its file, and with a font cache after a few fonts changed.
+ * <p>
+ * Usage: FontDetectionBenchmark [files] [changed percent]
+ */
+public final class FontDetectionBenchmark {
+
+    private static final String[] FONTS = {"DejaVuLGCSerif.ttf", "DroidSansMono.ttf", "Aegean600.ttf",
+            "AndroidEmoji.ttf"};
+
+    private FontDetectionBenchmark() {
+    }
+
+    private static void detect(String label, File directory, FontCacheManager fontCacheManager,
+            int threadCount) throws Exception {
+        InternalResourceResolver resourceResolver
+                = ResourceResolverFactory.createDefaultInternalResourceResolver(directory.toURI());
+        long start = System.nanoTime();
+        FontManager fontManager = new FontManager(resourceResolver, FontDetectorFactory.createDefault(),
+                fontCacheManager);
+        List<URL> fontURLList = new FontFileFinder(null).find(directory.getAbsolutePath());
+        FontAdder fontAdder = new FontAdder(fontManager, resourceResolver, null);
+        fontAdder.setThreadCount(threadCount);
+        List<EmbedFontInfo> fontInfoList = new ArrayList<EmbedFontInfo>();
+        fontAdder.add(fontURLList, fontInfoList);
+        fontManager.saveCache();
+        long time = System.nanoTime() - start;
+        System.out.println(label + ": " + fontInfoList.size() + " fonts in " + (time / 1000000) + " ms");
+    }
+
+    private static FontCacheManager createCacheManager(File cacheFile) {
+        FontCacheManager fontCacheManager = FontCacheManagerFactory.createDefault();
+        fontCacheManager.setCacheFile(cacheFile.toURI());
+        return fontCacheManager;
+    }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments
+     * @throws Exception if an error occurs
+     */
+    public static void main(String[] args) throws Exception {
+        int files = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int changedPercent = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int processors = Runtime.getRuntime().availableProcessors();
+        File directory = File.createTempFile("fop", "fonts");
+        directory.delete();
+        File fontDirectory = new File(directory, "fonts");
+        File cacheFile = new File(directory, "fop-fonts.cache");
+        try {
+            List<File> fontFiles = new ArrayList<File>(files);
+            for (int i = 0; i < files; i++) {
+                String font = FONTS[i % FONTS.length];
+                File fontFile = new File(fontDirectory, i + font);
+                FileUtils.copyFile(new File("test/resources/fonts/ttf", font), fontFile);
+                fontFiles.add(fontFile);
+            }
+            //warm-up
+            detect("warm-up", fontDirectory, FontCacheManagerFactory.createDisabled(), processors);
+
+            detect("no cache, 1 thread", fontDirectory, FontCacheManagerFactory.createDisabled(), 1);
+            detect("no cache, " + processors + " threads", fontDirectory,
+                    FontCacheManagerFactory.createDisabled(), processors);
+            detect("cold cache", fontDirectory, createCacheManager(cacheFile), processors);
+            System.out.println("  cache file: " + cacheFile.length() + " bytes");
+            detect("warm cache", fontDirectory, createCacheManager(cacheFile), processors);
+            int changed = files * changedPercent / 100;
+            for (int i = 0; i < changed; i++) {
+                File fontFile = fontFiles.get(i * files / changed);
+                fontFile.setLastModified(fontFile.lastModified() - 60000);
+            }
+            detect("warm cache, " + changed + " changed files", fontDirectory, createCacheManager(cacheFile),
+                    processors);
+        } finally {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+}
@@ -114,4 +114,11 @@ public class FontManagerConfiguratorTestCase {
         FontManager fontManager = setBaseAndGetManager(absoluteBase);
         assertEquals(URI.create(absoluteBase), fontManager.getResourceResolver().getBaseURI());
     }
+
+    @Test
+    public void fontDetectionThreads() {
+        assertEquals(Runtime.getRuntime().availableProcessors(), getManager().getFontDetectionThreadCount());
+        builder.setFontDetectionThreads(3);
+        assertEquals(3, getManager().getFontDetectionThreadCount());
+    }
 }
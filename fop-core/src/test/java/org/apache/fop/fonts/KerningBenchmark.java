@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import org.apache.fop.fonts.base14.Helvetica;
+
+/**
+ * Debug tool measuring the time and the heap allocated by the measurement of kerned text. The
+ * allocation is taken from the thread allocation counter of the platform's ThreadMXBean, so it
+ * requires a HotSpot-based JVM.
+ * <p>
+ * The text is measured with Helvetica and its kerning pairs, the kerning being looked up both
+ * through the kerning map, as before the {@link KerningTable}, and through
+ * {@link Font#getKernValue(int, int)}. The width of the words is measured with
+ * {@link Font#getWordWidth(String)}.
+ * <p>
+ * Usage: KerningBenchmark [iterations]
+ */
+public final class KerningBenchmark {
+
+    private static final String TEXT = "AVAILABLE Toyota WAVE To You, yet Vowels were typed;"
+            + " LTA, PAY, Avoid Wyoming Yellow Tavern. The quick brown fox jumps over the lazy dog"
+            + " while Ava, Yves and Tom watch TV. Fly away, Paul; Valery voted yesterday.";
+
+    private KerningBenchmark() {
+    }
+
+    private static int kernWithMap(Font font, String text) {
+        Map<Integer, Map<Integer, Integer>> kerning = font.getKerning();
+        int total = 0;
+        for (int i = 1; i < text.length(); i++) {
+            Map<Integer, Integer> kernPair = kerning.get((int) text.charAt(i - 1));
+            if (kernPair != null) {
+                Integer width = kernPair.get((int) text.charAt(i));
+                if (width != null) {
+                    total += width * font.getFontSize() / 1000;
+                }
+            }
+        }
+        return total;
+    }
+
+    private static int kernWithTable(Font font, String text) {
+        int total = 0;
+        for (int i = 1; i < text.length(); i++) {
+            total += font.getKernValue(text.charAt(i - 1), text.charAt(i));
+        }
+        return total;
+    }
+
+    private static int measureWords(Font font, String[] words) {
+        int total = 0;
+        for (String word : words) {
+            total += font.getWordWidth(word);
+        }
+        return total;
+    }
+
+    private static void run(String name, Font font, int iterations, int mode, boolean report) {
+        String[] words = TEXT.split(" ");
+        com.sun.management.ThreadMXBean threadBean
+                = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long result = 0;
+        for (int i = 0; i < iterations; i++) {
+            if (mode == 0) {
+                result += kernWithMap(font, TEXT);
+            } else if (mode == 1) {
+                result += kernWithTable(font, TEXT);
+            } else {
+                result += measureWords(font, words);
+            }
+        }
+        long time = System.nanoTime() - start;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        if (report) {
+            System.out.println(name + iterations + " texts: " + (time / 1000000) + " ms, "
+                    + (allocated / iterations) + " bytes allocated per text (" + result + ")");
+        }
+    }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        Font font = new Font("F1", null, new Helvetica(true), 12000);
+        for (int pass = 0; pass < 2; pass++) {
+            //the first pass is a warm-up
+            boolean report = pass == 1;
+            run("kerning map:   ", font, iterations, 0, report);
+            run("kerning table: ", font, iterations, 1, report);
+            run("word widths:   ", font, iterations, 2, report);
+        }
+    }
+}
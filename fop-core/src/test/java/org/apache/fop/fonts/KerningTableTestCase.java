@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link KerningTable} and its use by the fonts.
+ */
+public class KerningTableTestCase {
+
+    private static Map<Integer, Map<Integer, Integer>> createKerning(int pairs, long seed) {
+        Random random = new Random(seed);
+        Map<Integer, Map<Integer, Integer>> kerning = new HashMap<Integer, Map<Integer, Integer>>();
+        for (int i = 0; i < pairs; i++) {
+            int ch1 = random.nextInt(0x20000);
+            Map<Integer, Integer> kernPairs = kerning.get(ch1);
+            if (kernPairs == null) {
+                kernPairs = new HashMap<Integer, Integer>();
+                kerning.put(ch1, kernPairs);
+            }
+            kernPairs.put(random.nextInt(0x20000), random.nextInt(400) - 200);
+        }
+        return kerning;
+    }
+
+    @Test
+    public void testSameValuesAsMap() {
+        Map<Integer, Map<Integer, Integer>> kerning = createKerning(5000, 1);
+        KerningTable table = KerningTable.valueOf(kerning);
+        int size = 0;
+        for (Map.Entry<Integer, Map<Integer, Integer>> first : kerning.entrySet()) {
+            for (Map.Entry<Integer, Integer> second : first.getValue().entrySet()) {
+                assertEquals(second.getValue().intValue(),
+                        table.getKerning(first.getKey(), second.getKey()));
+                size++;
+            }
+        }
+        assertEquals(size, table.size());
+        Random random = new Random(2);
+        for (int i = 0; i < 5000; i++) {
+            int ch1 = random.nextInt(0x20000);
+            int ch2 = random.nextInt(0x20000);
+            Map<Integer, Integer> kernPairs = kerning.get(ch1);
+            Integer expected = kernPairs == null ? null : kernPairs.get(ch2);
+            assertEquals(expected == null ? 0 : expected.intValue(), table.getKerning(ch1, ch2));
+        }
+    }
+
+    @Test
+    public void testPairsAreOrdered() {
+        Map<Integer, Map<Integer, Integer>> kerning = new HashMap<Integer, Map<Integer, Integer>>();
+        kerning.put((int) 'V', new HashMap<Integer, Integer>());
+        kerning.get((int) 'V').put((int) 'o', -80);
+        KerningTable table = KerningTable.valueOf(kerning);
+        assertEquals(-80, table.getKerning('V', 'o'));
+        assertEquals(0, table.getKerning('o', 'V'));
+        assertEquals(0, table.getKerning(-1, -1));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void testEmpty() {
+        assertSame(KerningTable.EMPTY, KerningTable.valueOf(null));
+        assertSame(KerningTable.EMPTY,
+                KerningTable.valueOf(new HashMap<Integer, Map<Integer, Integer>>()));
+        assertTrue(KerningTable.EMPTY.isEmpty());
+        assertEquals(0, KerningTable.EMPTY.getKerning('A', 'V'));
+        assertEquals(0, KerningTable.EMPTY.getKerning(-1, -1));
+    }
+
+    @Test
+    public void testFontKerning() {
+        SingleByteFont typeface = new SingleByteFont(null);
+        assertTrue(typeface.getKerningTable().isEmpty());
+        Map<Integer, Integer> kernPairs = new HashMap<Integer, Integer>();
+        kernPairs.put((int) 'o', -80);
+        typeface.putKerningEntry((int) 'V', kernPairs);
+        //the table follows the changes of the kerning map
+        assertEquals(-80, typeface.getKerningTable().getKerning('V', 'o'));
+        Font font = new Font("F1", null, typeface, 12000);
+        assertEquals(-80 * 12, font.getKernValue('V', 'o'));
+        assertEquals(0, font.getKernValue('o', 'V'));
+        typeface.setKerningEnabled(false);
+        assertEquals(0, font.getKernValue('V', 'o'));
+        assertTrue(font.getKerningTable().isEmpty());
+        assertTrue(font.getKerning().isEmpty());
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.text.CharacterIterator;
+import java.text.StringCharacterIterator;
+
+import org.apache.fop.apps.io.ResourceResolverFactory;
+import org.apache.fop.fonts.truetype.OFFontLoader;
+import org.apache.fop.traits.MinOptMax;
+
+/**
+ * Debug tool measuring the time taken by the glyph mapping of words in a font with glyph
+ * substitution and positioning tables, with and without a {@link ShapingCache}.
+ * <p>
+ * The words of a text are mapped in turn with DejaVu LGC Serif and its GSUB, GPOS and GDEF
+ * tables, as the text layout manager maps the words of a paragraph.
+ * <p>
+ * Usage: ShapingCacheBenchmark [iterations]
+ */
+public final class ShapingCacheBenchmark {
+
+    private static final File FONT_FILE = new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf");
+
+    private static final String TEXT = "The quick brown fox jumps over the lazy dog while the office"
+            + " staff file the final figures of the fiscal year; the dog was not amused by the fox"
+            + " and the staff were not amused by the figures of the year.";
+
+    private ShapingCacheBenchmark() {
+    }
+
+    private static final class Text implements TextFragment {
+
+        private final String text;
+
+        Text(String text) {
+            this.text = text;
+        }
+
+        public CharacterIterator getIterator() {
+            return new StringCharacterIterator(text);
+        }
+
+        public int getBeginIndex() {
+            return 0;
+        }
+
+        public int getEndIndex() {
+            return text.length();
+        }
+
+        public String getScript() {
+            return "latn";
+        }
+
+        public String getLanguage() {
+            return "en";
+        }
+
+        public int getBidiLevel() {
+            return -1;
+        }
+
+        public char charAt(int subSequenceIndex) {
+            return text.charAt(subSequenceIndex);
+        }
+
+        public CharSequence subSequence(int startIndex, int endIndex) {
+            return text.subSequence(startIndex, endIndex);
+        }
+    }
+
+    private static void run(Font font, Text text, int iterations, ShapingCache cache, boolean report) {
+        long start = System.nanoTime();
+        long result = 0;
+        for (int i = 0; i < iterations; i++) {
+            int wordStart = 0;
+            for (int j = 0; j <= TEXT.length(); j++) {
+                if (j == TEXT.length() || TEXT.charAt(j) == ' ') {
+                    GlyphMapping mapping = GlyphMapping.doGlyphMapping(text, wordStart, j, font,
+                            MinOptMax.ZERO, null, (char) 0, ' ', false, 0, false, false, false, cache);
+                    result += mapping.areaIPD.getOpt();
+                    wordStart = j + 1;
+                }
+            }
+        }
+        long time = System.nanoTime() - start;
+        if (report) {
+            System.out.println((cache != null ? "with shaping cache:    " : "without shaping cache: ")
+                    + iterations + " texts: " + (time / 1000000) + " ms (" + result + ")");
+            if (cache != null) {
+                System.out.println("  " + cache);
+            }
+        }
+    }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments
+     * @throws Exception if an error occurs
+     */
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        OFFontLoader loader = new OFFontLoader(FONT_FILE.toURI(), null, true, EmbeddingMode.AUTO,
+                EncodingMode.AUTO, true, true,
+                ResourceResolverFactory.createDefaultInternalResourceResolver(new File(".").toURI()),
+                false, false);
+        Font font = new Font("F1", null, loader.getFont(), 12000);
+        Text text = new Text(TEXT);
+        for (int pass = 0; pass < 2; pass++) {
+            //the first pass is a warm-up
+            boolean report = pass == 1;
+            run(font, text, iterations, null, report);
+            run(font, text, iterations, new ShapingCache(), report);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.text.CharacterIterator;
+import java.text.StringCharacterIterator;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.fop.traits.MinOptMax;
+
+public class ShapingCacheTestCase {
+
+    private static final String TEXT = "سلام عليكم سلام";
+
+    private FontMetrics metrics;
+
+    private ShapingCache cache;
+
+    @Before
+    public void setUp() {
+        metrics = mock(FontMetrics.class);
+        cache = new ShapingCache();
+    }
+
+    private Font createFont(int fontSize) {
+        Font font = mock(Font.class);
+        when(font.getFontMetrics()).thenReturn(metrics);
+        when(font.getFontSize()).thenReturn(fontSize);
+        when(font.performsSubstitution()).thenReturn(true);
+        when(font.performsPositioning()).thenReturn(true);
+        when(font.getCharWidth(anyInt())).thenReturn(500);
+        //Reverses the characters, and moves each glyph by its index
+        when(font.performSubstitution(any(CharSequence.class), anyString(), anyString(), any(List.class),
+                anyBoolean())).thenAnswer(new Answer<CharSequence>() {
+                    public CharSequence answer(InvocationOnMock invocation) {
+                        CharSequence cs = (CharSequence) invocation.getArguments()[0];
+                        return new StringBuilder(cs).reverse().toString();
+                    }
+                });
+        when(font.performPositioning(any(CharSequence.class), anyString(), anyString())).thenAnswer(
+                new Answer<int[][]>() {
+                    public int[][] answer(InvocationOnMock invocation) {
+                        CharSequence cs = (CharSequence) invocation.getArguments()[0];
+                        int[][] gpa = new int[cs.length()][4];
+                        for (int i = 0; i < gpa.length; i++) {
+                            gpa[i][0] = i;
+                        }
+                        return gpa;
+                    }
+                });
+        when(font.reorderCombiningMarks(any(CharSequence.class), any(int[][].class), anyString(), anyString(),
+                any(List.class))).thenAnswer(new Answer<CharSequence>() {
+                    public CharSequence answer(InvocationOnMock invocation) {
+                        return (CharSequence) invocation.getArguments()[0];
+                    }
+                });
+        return font;
+    }
+
+    private static TextFragment createText(final String text, final String language) {
+        return new TextFragment() {
+            public CharacterIterator getIterator() {
+                return new StringCharacterIterator(text);
+            }
+
+            public int getBeginIndex() {
+                return 0;
+            }
+
+            public int getEndIndex() {
+                return text.length();
+            }
+
+            public String getScript() {
+                return "arab";
+            }
+
+            public String getLanguage() {
+                return language;
+            }
+
+            public int getBidiLevel() {
+                return 1;
+            }
+
+            public char charAt(int subSequenceIndex) {
+                return text.charAt(subSequenceIndex);
+            }
+
+            public CharSequence subSequence(int startIndex, int endIndex) {
+                return text.subSequence(startIndex, endIndex);
+            }
+        };
+    }
+
+    private GlyphMapping map(TextFragment text, int start, int end, Font font, boolean retainAssociations) {
+        return GlyphMapping.doGlyphMapping(text, start, end, font, MinOptMax.ZERO, null, (char) 0, (char) 0,
+                false, 1, false, retainAssociations, false, cache);
+    }
+
+    @Test
+    public void testRepeatedWords() {
+        Font font = createFont(12000);
+        TextFragment text = createText(TEXT, "ar");
+        GlyphMapping first = map(text, 0, 4, font, false);
+        map(text, 5, 10, font, false);
+        GlyphMapping repeated = map(text, 11, 15, font, false);
+        verify(font, times(2)).performSubstitution(any(CharSequence.class), anyString(), anyString(),
+                any(List.class), anyBoolean());
+        verify(font, times(2)).performPositioning(any(CharSequence.class), anyString(), anyString());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1.0 / 3, cache.getHitRate(), 1e-9);
+        assertEquals(2, cache.size());
+
+        assertEquals("مالس", first.mapping);
+        assertEquals(first.mapping, repeated.mapping);
+        assertEquals(first.areaIPD, repeated.areaIPD);
+        assertEquals(11, repeated.startIndex);
+        assertEquals(15, repeated.endIndex);
+        assertNotSame(first.gposAdjustments, repeated.gposAdjustments);
+        for (int i = 0; i < 4; i++) {
+            assertArrayEquals(first.gposAdjustments[i], repeated.gposAdjustments[i]);
+        }
+    }
+
+    @Test
+    public void testEntriesCannotBeChanged() {
+        Font font = createFont(12000);
+        TextFragment text = createText(TEXT, "ar");
+        map(text, 0, 4, font, false).gposAdjustments[1][0] = 42;
+        assertEquals(1, map(text, 11, 15, font, false).gposAdjustments[1][0]);
+    }
+
+    @Test
+    public void testKeyIncludesFontSizeAndLanguage() {
+        Font font = createFont(12000);
+        map(createText(TEXT, "ar"), 0, 4, font, false);
+        map(createText(TEXT, "fa"), 0, 4, font, false);
+        map(createText(TEXT, "ar"), 0, 4, createFont(10000), false);
+        assertEquals(0, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void testRetainedAssociationsAreNotCached() {
+        Font font = createFont(12000);
+        TextFragment text = createText(TEXT, "ar");
+        map(text, 0, 4, font, true);
+        map(text, 11, 15, font, true);
+        assertEquals(0, cache.getHitCount() + cache.getMissCount());
+        verify(font, times(2)).performSubstitution(any(CharSequence.class), anyString(), anyString(),
+                any(List.class), anyBoolean());
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.net.URI;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import static org.mockito.Mockito.mock;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+
+/**
+ * Test case for {@link SingleByteFont}.
+ */
+public class SingleByteFontTestCase {
+
+    @Test
+    public void testConcurrentSubsetMapping() throws Exception {
+        final SingleByteFont font = new SingleByteFont(mock(InternalResourceResolver.class),
+                EmbeddingMode.SUBSET);
+        font.setEmbedURI(new URI("file:///font.ttf"));
+        final char first = 0x20;
+        final char last = 0x7E;
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t * 23;
+            threads[t] = new Thread() {
+                public void run() {
+                    int count = last - first + 1;
+                    for (int i = 0; i < count; i++) {
+                        char c = (char) (first + (i + offset) % count);
+                        if (font.mapChar(c) != c) {
+                            throw new IllegalStateException("Wrong code for character " + c);
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // Every glyph has exactly one selector
+        Map<Integer, Integer> usedGlyphs = font.getUsedGlyphs();
+        assertEquals(last - first + 2, usedGlyphs.size());
+        Set<Integer> selectors = new HashSet<Integer>(usedGlyphs.values());
+        assertEquals(usedGlyphs.size(), selectors.size());
+        for (char c = first; c <= last; c++) {
+            assertTrue(usedGlyphs.containsKey((int) c));
+            assertEquals(c, font.getUnicodeFromGID(c));
+            assertEquals(c, font.getGIDFromChar(c));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts.truetype;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.io.FileUtils;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+import org.apache.fop.fonts.EmbeddingMode;
+import org.apache.fop.fonts.EncodingMode;
+import org.apache.fop.fonts.MultiByteFont;
+
+/**
+ * Test case for {@link ParsedFontStore}.
+ */
+public class ParsedFontStoreTestCase {
+
+    private static final File FONT_FILE = new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf");
+
+    private final InternalResourceResolver resourceResolver
+            = ResourceResolverFactory.createDefaultInternalResourceResolver(new File(".").toURI());
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("fop", "fontstore");
+        assertTrue(directory.delete());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    private MultiByteFont loadFont(File fontFile, ParsedFontStore store) throws IOException {
+        OFFontLoader loader = new OFFontLoader(fontFile.toURI(), null, true, EmbeddingMode.AUTO,
+                EncodingMode.AUTO, true, true, resourceResolver, false, false);
+        loader.setParsedFontStore(store);
+        return (MultiByteFont) loader.getFont();
+    }
+
+    @Test
+    public void testStoredMetrics() throws IOException {
+        ParsedFontStore store = new ParsedFontStore(directory);
+        assertNull(store.get(FONT_FILE, null, true));
+        MultiByteFont parsed = loadFont(FONT_FILE, store);
+        assertEquals(1, directory.list().length);
+        assertNotNull(store.get(FONT_FILE, null, true));
+        assertNull(store.get(FONT_FILE, null, false));
+
+        //Another store of the directory, as in another font manager or JVM
+        MultiByteFont stored = loadFont(FONT_FILE, new ParsedFontStore(directory));
+        assertEquals(parsed.getFontName(), stored.getFontName());
+        assertEquals(parsed.getFullName(), stored.getFullName());
+        assertEquals(parsed.getFamilyNames(), stored.getFamilyNames());
+        assertEquals(parsed.getAscender(), stored.getAscender());
+        assertEquals(parsed.getDescender(), stored.getDescender());
+        assertEquals(parsed.getCapHeight(), stored.getCapHeight());
+        assertEquals(parsed.getXHeight(12000), stored.getXHeight(12000));
+        assertEquals(parsed.getUnderlinePosition(12000), stored.getUnderlinePosition(12000));
+        assertEquals(parsed.getFlags(), stored.getFlags());
+        assertEquals(parsed.getItalicAngle(), stored.getItalicAngle());
+        assertArrayEquals(parsed.getFontBBox(), stored.getFontBBox());
+        assertEquals(parsed.getCIDType(), stored.getCIDType());
+        assertEquals(parsed.getEmbedFileURI(), stored.getEmbedFileURI());
+        assertTrue(Arrays.equals(parsed.getCMap(), stored.getCMap()));
+        assertEquals(parsed.getKerningInfo(), stored.getKerningInfo());
+        for (char c = ' '; c < 0x250; c++) {
+            int glyph = parsed.mapChar(c);
+            assertEquals(glyph, stored.mapChar(c));
+            assertEquals(parsed.getWidth(glyph, 1), stored.getWidth(glyph, 1));
+            assertEquals(parsed.getBoundingBox(glyph, 1), stored.getBoundingBox(glyph, 1));
+        }
+        assertArrayEquals(parsed.getWidths(), stored.getWidths());
+        assertNotNull(stored.getGDEF());
+        assertNotNull(stored.getGSUB());
+        assertNotNull(stored.getGPOS());
+    }
+
+    @Test
+    public void testSharedMetrics() throws IOException {
+        ParsedFontStore store = new ParsedFontStore(directory);
+        loadFont(FONT_FILE, store);
+        ParsedFontStore.Record record = store.get(FONT_FILE, null, true);
+        assertSame(record, new ParsedFontStore(directory).get(FONT_FILE, null, true));
+
+        MultiByteFont first = loadFont(FONT_FILE, store);
+        MultiByteFont second = loadFont(FONT_FILE, new ParsedFontStore(directory));
+        assertSame(first.getKerningInfo(), second.getKerningInfo());
+        assertSame(first.getGDEF(), second.getGDEF());
+        assertSame(first.getGSUB(), second.getGSUB());
+        assertSame(first.getGPOS(), second.getGPOS());
+
+        int glyph = first.mapChar('A');
+        int width = first.getWidth(glyph, 1);
+        ParsedFontStore.clearCache();
+        assertNotSame(record, store.get(FONT_FILE, null, true));
+        //The fonts keep reading their metrics from the mapping of the released record
+        assertEquals(width, first.getWidth(glyph, 1));
+        assertEquals(glyph, second.mapChar('A'));
+        assertEquals(second.getBoundingBox(glyph, 1), first.getBoundingBox(glyph, 1));
+    }
+
+    @Test
+    public void testModifiedFontFile() throws IOException {
+        File fontFile = new File(directory, "font.ttf");
+        FileUtils.copyFile(FONT_FILE, fontFile);
+        ParsedFontStore store = new ParsedFontStore(directory);
+        loadFont(fontFile, store);
+        assertNotNull(store.get(fontFile, null, true));
+
+        assertTrue(fontFile.setLastModified(fontFile.lastModified() - 60000));
+        assertNull(store.get(fontFile, null, true));
+        loadFont(fontFile, store);
+        assertNotNull(store.get(fontFile, null, true));
+    }
+}
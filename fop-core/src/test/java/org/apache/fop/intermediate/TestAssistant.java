@@ -21,6 +21,7 @@ package org.apache.fop.intermediate;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -32,6 +33,7 @@ import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXResult;
 import javax.xml.transform.sax.SAXTransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
@@ -44,6 +46,9 @@ import org.apache.xpath.objects.XObject;
 
 import org.apache.fop.apps.EnvironmentProfile;
 import org.apache.fop.apps.EnvironmentalProfileFactory;
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
 import org.apache.fop.apps.FopFactory;
 import org.apache.fop.apps.FopFactoryBuilder;
 import org.apache.fop.apps.io.ResourceResolverFactory;
@@ -161,6 +166,26 @@ public class TestAssistant {
         }
     }
 
+    /**
+     * Lays out the XSL-FO document of a test case, for the tests that check the state of
+     * FOP's objects rather than the area tree.
+     * @param testCase the name of a file of the standard test cases
+     * @param userAgent the user agent
+     * @param outputFormat the MIME type of the output format
+     * @param out the output stream
+     * @return the Fop instance, which gives the formatting results
+     * @throws FOPException if FOP cannot be set up for the output format
+     * @throws TransformerException if an error occurs during the layout
+     */
+    public Fop render(String testCase, FOUserAgent userAgent, String outputFormat, OutputStream out)
+            throws FOPException, TransformerException {
+        Fop fop = userAgent.newFop(outputFormat, out);
+        Transformer transformer = getTestcase2FOStylesheet().newTransformer();
+        transformer.transform(new StreamSource(new File(testDir, testCase)),
+                new SAXResult(fop.getDefaultHandler()));
+        return fop;
+    }
+
     /**
      * Serialize the DOM for later inspection.
      * @param doc the DOM document
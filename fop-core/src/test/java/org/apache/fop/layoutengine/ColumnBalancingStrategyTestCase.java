@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutengine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.commons.io.FileUtils;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.intermediate.TestAssistant;
+import org.apache.fop.render.xml.XMLRenderer;
+
+/**
+ * Lays out the testcases of the layout engine test suite which balance columns with the
+ * linear-time balancing strategy and compares the area trees with those of the default
+ * strategy.
+ */
+@RunWith(Parameterized.class)
+public class ColumnBalancingStrategyTestCase {
+
+    /**
+     * Creates the parameters for this test.
+     *
+     * @return the list of file arrays populated with the test files spanning all columns
+     * @throws IOException if an I/O error occurs while reading the test file
+     */
+    @Parameters
+    public static Collection<File[]> getParameters() throws IOException {
+        Collection<File[]> testFiles = new ArrayList<File[]>();
+        for (File[] testFile : LayoutEngineTestUtils.getLayoutTestFiles()) {
+            if (FileUtils.readFileToString(testFile[0], "UTF-8").contains("span=\"all\"")) {
+                testFiles.add(testFile);
+            }
+        }
+        return testFiles;
+    }
+
+    private final TestAssistant testAssistant = new TestAssistant();
+
+    private final File testFile;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param testFile the test file
+     */
+    public ColumnBalancingStrategyTestCase(File testFile) {
+        this.testFile = testFile;
+    }
+
+    /**
+     * Compares the area trees obtained with both column balancing strategies.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testLinearColumnBalancing() throws Exception {
+        Document testDoc = testAssistant.loadTestCase(testFile);
+        assertEquals(testFile.getName(), layout(testDoc, false), layout(testDoc, true));
+    }
+
+    private String layout(Document testDoc, boolean linearColumnBalancing)
+            throws TransformerException, SAXException {
+        FopFactory fopFactory = testAssistant.getFopFactory(testDoc);
+        Transformer transformer = testAssistant.getTestcase2FOStylesheet().newTransformer();
+        Source src = new DOMSource(testDoc);
+
+        StringWriter writer = new StringWriter();
+        TransformerHandler athandler = testAssistant.getTransformerFactory().newTransformerHandler();
+        athandler.setResult(new StreamResult(writer));
+
+        FOUserAgent ua = fopFactory.newFOUserAgent();
+        ua.setLinearColumnBalancing(linearColumnBalancing);
+        XMLRenderer atrenderer = new XMLRenderer(ua);
+        atrenderer.setContentHandler(athandler);
+        ua.setRendererOverride(atrenderer);
+        Fop fop = fopFactory.newFop(ua);
+        transformer.transform(src, new SAXResult(fop.getDefaultHandler()));
+        return writer.toString();
+    }
+}
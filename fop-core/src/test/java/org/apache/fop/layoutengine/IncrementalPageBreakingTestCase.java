@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutengine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.intermediate.TestAssistant;
+import org.apache.fop.render.xml.XMLRenderer;
+
+/**
+ * Lays out the testcases of the layout engine test suite with incremental page breaking and
+ * checks that the area trees are the same as with optimal page breaking.
+ */
+@RunWith(Parameterized.class)
+public class IncrementalPageBreakingTestCase {
+
+    /** Number of pages of lookahead: small, so that breaks are decided in most multi-page tests. */
+    private static final int PAGE_WINDOW = 1;
+
+    /** Page viewport keys, which depend on the number of pages created to look ahead. */
+    private static final Pattern PAGE_KEY = Pattern.compile("(key=\"|\\()(P[0-9-]+)");
+
+    /** Footnote areas without content, whose offset is not relevant. */
+    private static final Pattern EMPTY_FOOTNOTE = Pattern.compile("<footnote top-offset=\"[0-9-]+\"/>");
+
+    /**
+     * Creates the parameters for this test.
+     *
+     * @return the list of file arrays populated with test files
+     * @throws IOException if an I/O error occurs while reading the test file
+     */
+    @Parameters
+    public static Collection<File[]> getParameters() throws IOException {
+        return LayoutEngineTestUtils.getLayoutTestFiles();
+    }
+
+    private final TestAssistant testAssistant = new TestAssistant();
+
+    private final File testFile;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param testFile the test file
+     */
+    public IncrementalPageBreakingTestCase(File testFile) {
+        this.testFile = testFile;
+    }
+
+    /**
+     * Compares the area trees obtained with and without incremental page breaking.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testIncrementalPageBreaking() throws Exception {
+        Document testDoc = testAssistant.loadTestCase(testFile);
+        String optimal = normalize(layout(testDoc, 0));
+        String incremental = normalize(layout(testDoc, PAGE_WINDOW));
+        assertEquals(testFile.getName(), optimal, incremental);
+    }
+
+    private static String normalize(String areaTree) {
+        Map<String, String> keys = new HashMap<String, String>();
+        Matcher matcher = PAGE_KEY.matcher(EMPTY_FOOTNOTE.matcher(areaTree).replaceAll("<footnote/>"));
+        StringBuffer sb = new StringBuffer();
+        while (matcher.find()) {
+            String key = keys.get(matcher.group(2));
+            if (key == null) {
+                key = "P" + (keys.size() + 1);
+                keys.put(matcher.group(2), key);
+            }
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(matcher.group(1) + key));
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
+    private String layout(Document testDoc, int pageWindow)
+            throws TransformerException, SAXException {
+        FopFactory fopFactory = testAssistant.getFopFactory(testDoc);
+        Transformer transformer = testAssistant.getTestcase2FOStylesheet().newTransformer();
+        Source src = new DOMSource(testDoc);
+
+        StringWriter writer = new StringWriter();
+        TransformerHandler athandler = testAssistant.getTransformerFactory().newTransformerHandler();
+        athandler.setResult(new StreamResult(writer));
+
+        FOUserAgent ua = fopFactory.newFOUserAgent();
+        ua.setPageBreakingWindow(pageWindow);
+        XMLRenderer atrenderer = new XMLRenderer(ua);
+        atrenderer.setContentHandler(athandler);
+        ua.setRendererOverride(atrenderer);
+        Fop fop = fopFactory.newFop(ua);
+        transformer.transform(src, new SAXResult(fop.getDefaultHandler()));
+        return writer.toString();
+    }
+}
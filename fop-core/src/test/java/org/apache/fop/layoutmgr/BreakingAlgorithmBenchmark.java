@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.fo.Constants;
+
+/**
+ * Debug tool measuring the time and the heap allocated by the breaking algorithms. The
+ * allocation is taken from the thread allocation counter of the platform's ThreadMXBean, so it
+ * requires a HotSpot-based JVM.
+ * <p>
+ * The "line" benchmark breaks synthetic paragraphs into lines with and without a
+ * {@link KnuthNodeStore}. The "page" benchmark formats a generated document with many
+ * paragraphs and pages, which exercises both the line and the page breaking algorithms.
+ * <p>
+ * Usage: BreakingAlgorithmBenchmark [line|page] [paragraphs] [words]
+ */
+public final class BreakingAlgorithmBenchmark {
+
+    private static final int LINE_WIDTH = 300000;
+
+    private BreakingAlgorithmBenchmark() {
+    }
+
+    private static class LineBreaker extends BreakingAlgorithm {
+
+        private int lines;
+
+        LineBreaker() {
+            super(Constants.EN_JUSTIFY, Constants.EN_START, true, false, 0);
+        }
+
+        @Override
+        public void updateData1(int total, double demerits) {
+            lines += total;
+        }
+
+        @Override
+        public void updateData2(KnuthNode bestActiveNode, KnuthSequence sequence, int total) {
+        }
+
+        @Override
+        protected int filterActiveNodes() {
+            KnuthNode bestActiveNode = null;
+            for (int i = startLine; i < endLine; i++) {
+                for (KnuthNode node = getNode(i); node != null; node = node.next) {
+                    bestActiveNode = compareNodes(bestActiveNode, node);
+                    if (node != bestActiveNode) {
+                        removeNode(i, node);
+                    }
+                }
+            }
+            return bestActiveNode.getLine();
+        }
+    }
+
+    private static KnuthSequence createParagraph(int words, int seed) {
+        KnuthSequence seq = new BlockKnuthSequence();
+        for (int i = 0; i < words; i++) {
+            seq.add(new KnuthBox(8000 + ((i * 7919 + seed) % 13) * 2500, null, false));
+            if (i % 5 == 3) {
+                seq.add(new KnuthPenalty(2000, KnuthPenalty.FLAGGED_PENALTY, true, null, false));
+                seq.add(new KnuthBox(6000, null, false));
+            }
+            seq.add(new KnuthGlue(3000, 1500, 1000, null, false));
+        }
+        seq.add(new KnuthPenalty(0, KnuthPenalty.INFINITE, false, null, false));
+        seq.add(new KnuthGlue(0, 10000000, 0, null, false));
+        seq.add(new KnuthPenalty(0, -KnuthPenalty.INFINITE, false, null, false));
+        return seq;
+    }
+
+    private static void runLines(int paragraphs, int words, boolean useStore, boolean report) {
+        KnuthSequence[] sequences = new KnuthSequence[16];
+        for (int i = 0; i < sequences.length; i++) {
+            sequences[i] = createParagraph(words, i);
+        }
+        KnuthNodeStore store = useStore ? new KnuthNodeStore() : null;
+        com.sun.management.ThreadMXBean threadBean
+                = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        int lines = 0;
+        for (int p = 0; p < paragraphs; p++) {
+            LineBreaker breaker = new LineBreaker();
+            breaker.setNodeStore(store, true);
+            breaker.setConstantLineWidth(LINE_WIDTH);
+            breaker.findBreakingPoints(sequences[p % sequences.length], 1, true,
+                    BreakingAlgorithm.ALL_BREAKS);
+            lines += breaker.lines;
+        }
+        long time = System.nanoTime() - start;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        if (report) {
+            System.out.println((useStore ? "with node store:    " : "without node store: ")
+                    + paragraphs + " paragraphs, " + lines + " lines: " + (time / 1000000) + " ms, "
+                    + (allocated / paragraphs) + " bytes allocated per paragraph");
+            if (store != null) {
+                System.out.println("  " + store);
+            }
+        }
+    }
+
+    private static String createDocument(int paragraphs, int words) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set><fo:simple-page-master master-name=\"A4\""
+                + " page-width=\"210mm\" page-height=\"297mm\" margin=\"20mm\">"
+                + "<fo:region-body/></fo:simple-page-master></fo:layout-master-set>"
+                + "<fo:page-sequence master-reference=\"A4\"><fo:flow flow-name=\"xsl-region-body\">");
+        for (int p = 0; p < paragraphs; p++) {
+            sb.append("<fo:block text-align=\"justify\" space-after=\"4pt\">");
+            for (int i = 0; i < words; i++) {
+                sb.append(i % 3 == 0 ? "layout " : i % 3 == 1 ? "paragraphs " : "of ");
+            }
+            sb.append("</fo:block>");
+        }
+        sb.append("</fo:flow></fo:page-sequence></fo:root>");
+        return sb.toString();
+    }
+
+    private static void runPages(byte[] document, boolean report) throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        com.sun.management.ThreadMXBean threadBean
+                = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_IF, new NullOutputStream());
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Source src = new StreamSource(new ByteArrayInputStream(document));
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+        long time = System.nanoTime() - start;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        if (report) {
+            System.out.println(fop.getResults().getPageCount() + " pages: " + (time / 1000000)
+                    + " ms, " + (allocated / 1024 / 1024) + " MB allocated");
+        }
+    }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments
+     * @throws Exception if an error occurs
+     */
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "line";
+        if ("page".equals(mode)) {
+            int paragraphs = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+            int words = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+            byte[] document = createDocument(paragraphs, words).getBytes("UTF-8");
+            //warm-up
+            runPages(document, false);
+            runPages(document, true);
+        } else {
+            int paragraphs = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+            int words = args.length > 2 ? Integer.parseInt(args[2]) : 80;
+            //warm-up
+            runLines(paragraphs, words, false, false);
+            runLines(paragraphs, words, true, false);
+            runLines(paragraphs, words, false, true);
+            runLines(paragraphs, words, true, true);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+
+package org.apache.fop.layoutmgr;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.layoutmgr.LayoutProfileListener.Activity;
+import org.apache.fop.layoutmgr.inline.LineLayoutManager;
+
+/**
+ * Debug tool measuring the cost of the restarts of layout caused by changes of
+ * inline-progression-dimension. A single flow is laid out on pages whose odd and even page
+ * masters have different widths, so that layout restarts on every page. The time and the heap
+ * allocated are reported along with the number of restarts and of paragraphs broken into
+ * lines, taken from a {@link LayoutProfiler}. The allocation is taken from the thread
+ * allocation counter of the platform's ThreadMXBean, so it requires a HotSpot-based JVM.
+ * <p>
+ * Usage: IPDRestartBenchmark [pages] [words]
+ */
+public final class IPDRestartBenchmark {
+
+    private IPDRestartBenchmark() {
+    }
+
+    private static String createDocument(int pages, int words) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set>"
+                + "<fo:simple-page-master master-name=\"odd\" page-width=\"360pt\""
+                + " page-height=\"200pt\" margin=\"20pt\" margin-right=\"60pt\">"
+                + "<fo:region-body/></fo:simple-page-master>"
+                + "<fo:simple-page-master master-name=\"even\" page-width=\"360pt\""
+                + " page-height=\"200pt\" margin=\"20pt\">"
+                + "<fo:region-body/></fo:simple-page-master>"
+                + "<fo:page-sequence-master master-name=\"alternating\">"
+                + "<fo:repeatable-page-master-alternatives>"
+                + "<fo:conditional-page-master-reference master-reference=\"odd\" odd-or-even=\"odd\"/>"
+                + "<fo:conditional-page-master-reference master-reference=\"even\" odd-or-even=\"even\"/>"
+                + "</fo:repeatable-page-master-alternatives></fo:page-sequence-master>"
+                + "</fo:layout-master-set>"
+                + "<fo:page-sequence master-reference=\"alternating\">"
+                + "<fo:flow flow-name=\"xsl-region-body\">");
+        //About nine paragraphs of 30 words fit on four pages
+        int paragraphs = pages * 270 / (4 * words);
+        for (int p = 0; p < paragraphs; p++) {
+            sb.append("<fo:block text-align=\"justify\" space-after=\"4pt\">");
+            for (int i = 0; i < words; i++) {
+                sb.append(i % 3 == 0 ? "layout " : i % 3 == 1 ? "paragraphs " : "of ");
+            }
+            sb.append(p).append("</fo:block>");
+        }
+        sb.append("</fo:flow></fo:page-sequence></fo:root>");
+        return sb.toString();
+    }
+
+    private static void run(FopFactory fopFactory, byte[] document, boolean report)
+            throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        LayoutProfiler profiler = new LayoutProfiler();
+        userAgent.setLayoutProfileListener(profiler);
+        com.sun.management.ThreadMXBean threadBean
+                = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_IF, userAgent, new NullOutputStream());
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Source src = new StreamSource(new ByteArrayInputStream(document));
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+        long time = System.nanoTime() - start;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        if (report) {
+            LayoutProfiler.Timing lineBreaking = profiler.getLayoutManagerTiming(
+                    LineLayoutManager.class, Activity.LINE_BREAKING);
+            LayoutProfiler.Timing elementLists = profiler.getLayoutManagerTiming(
+                    BlockLayoutManager.class, Activity.ELEMENT_LIST);
+            System.out.println(fop.getResults().getPageCount() + " pages: " + (time / 1000000)
+                    + " ms, " + (allocated / 1024 / 1024) + " MB allocated, "
+                    + profiler.getRestartCount() + " restarts, "
+                    + elementLists.getCount() + " block element lists, "
+                    + (lineBreaking != null ? lineBreaking.getCount() : 0) + " paragraphs broken ("
+                    + (lineBreaking != null ? lineBreaking.getTotalNanos() / 1000000 : 0) + " ms)");
+        }
+    }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments
+     * @throws Exception if an error occurs
+     */
+    public static void main(String[] args) throws Exception {
+        int pages = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int words = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        byte[] document = createDocument(pages, words).getBytes("UTF-8");
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        //warm-up
+        run(fopFactory, createDocument(Math.min(pages, 100), words).getBytes("UTF-8"), false);
+        run(fopFactory, document, true);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+
+package org.apache.fop.layoutmgr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.intermediate.TestAssistant;
+import org.apache.fop.layoutmgr.LayoutProfileListener.Activity;
+import org.apache.fop.layoutmgr.inline.LineLayoutManager;
+import org.apache.fop.layoutmgr.table.TableCellLayoutManager;
+
+/**
+ * Tests the notifications of the {@link LayoutProfileListener} and the figures of the
+ * {@link LayoutProfiler}, with the flow_changing-ipd_table.xml layout engine test case.
+ */
+public class LayoutProfilerTestCase {
+
+    /** The number of paragraphs of the test case, before its table. */
+    private static final int PARAGRAPH_COUNT = 8;
+
+    private final FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+
+    private LayoutProfiler profile() throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        LayoutProfiler profiler = new LayoutProfiler();
+        userAgent.setLayoutProfileListener(profiler);
+        new TestAssistant().render("flow_changing-ipd_table.xml", userAgent, MimeConstants.MIME_FOP_AREA_TREE,
+                new ByteArrayOutputStream());
+        return profiler;
+    }
+
+    @Test
+    public void testElementLists() throws Exception {
+        LayoutProfiler profiler = profile();
+        LayoutProfiler.Timing blocks = profiler.getLayoutManagerTiming(BlockLayoutManager.class,
+                Activity.ELEMENT_LIST);
+        assertNotNull(blocks);
+        //The paragraphs of the wide pages are laid out again after the change of IPD
+        assertTrue(blocks.getCount() > PARAGRAPH_COUNT + 2);
+        assertTrue(blocks.getElementCount() > 0);
+        assertTrue(blocks.getSelfNanos() <= blocks.getTotalNanos());
+        LayoutProfiler.Timing lines = profiler.getLayoutManagerTiming(LineLayoutManager.class,
+                Activity.ELEMENT_LIST);
+        assertTrue(lines.getTotalNanos() <= blocks.getTotalNanos());
+        //The line layout managers of a block belong to the block too
+        assertEquals(blocks.getCount() + lines.getCount(),
+                profiler.getFONodeTiming("fo:block", Activity.ELEMENT_LIST).getCount());
+        //The table may be laid out again after the change of IPD as well
+        assertTrue(profiler.getFONodeTiming("fo:table-cell", Activity.ELEMENT_LIST).getCount() >= 2);
+    }
+
+    @Test
+    public void testBreakingAndAreas() throws Exception {
+        LayoutProfiler profiler = profile();
+        LayoutProfiler.Timing lineBreaking = profiler.getLayoutManagerTiming(
+                LineLayoutManager.class, Activity.LINE_BREAKING);
+        assertTrue(lineBreaking.getCount() >= PARAGRAPH_COUNT + 2);
+        assertTrue(lineBreaking.getElementCount() > 0);
+        LayoutProfiler.Timing pageBreaking = profiler.getLayoutManagerTiming(
+                PageSequenceLayoutManager.class, Activity.PAGE_BREAKING);
+        assertTrue(pageBreaking.getCount() >= 2);
+        assertNotNull(profiler.getFONodeTiming("fo:page-sequence", Activity.PAGE_BREAKING));
+        assertEquals(2, profiler.getLayoutManagerTiming(TableCellLayoutManager.class,
+                Activity.ADD_AREAS).getCount());
+        assertNotNull(profiler.getLayoutManagerTiming(FlowLayoutManager.class, Activity.ADD_AREAS));
+        assertNull(profiler.getLayoutManagerTiming(FlowLayoutManager.class, Activity.LINE_BREAKING));
+    }
+
+    @Test
+    public void testRestarts() throws Exception {
+        LayoutProfiler profiler = profile();
+        assertTrue(profiler.getRestartCount() > 0);
+    }
+
+    @Test
+    public void testJSONReport() throws Exception {
+        LayoutProfiler profiler = profile();
+        StringWriter writer = new StringWriter();
+        profiler.writeJSON(writer);
+        String json = writer.toString();
+        assertTrue(json.startsWith("{\n  \"restarts\": " + profiler.getRestartCount() + ",\n"));
+        assertTrue(json.contains("\"layoutManagers\": {"));
+        assertTrue(json.contains("\"foNodes\": {"));
+        assertTrue(json.contains("    \"org.apache.fop.layoutmgr.BlockLayoutManager\": {\n"
+                + "      \"elementList\": {\"count\": "));
+        assertTrue(json.contains("    \"fo:table-cell\": {"));
+        assertTrue(json.contains("\"lineBreaking\": {"));
+        assertTrue(json.contains("\"pageBreaking\": {"));
+        assertTrue(json.contains("\"addAreas\": {"));
+        assertTrue(json.trim().endsWith("}"));
+    }
+
+    @Test
+    public void testEmptyReport() throws Exception {
+        StringWriter writer = new StringWriter();
+        new LayoutProfiler().writeJSON(writer);
+        assertEquals("{\n  \"restarts\": 0,\n  \"layoutManagers\": {},\n  \"foNodes\": {}\n}\n",
+                writer.toString());
+    }
+
+    @Test
+    public void testNestedActivities() throws Exception {
+        LayoutProfiler profiler = new LayoutProfiler();
+        LayoutManager outer = mock(BlockLayoutManager.class);
+        LayoutManager inner = mock(LineLayoutManager.class);
+        profiler.started(Activity.ELEMENT_LIST, outer);
+        profiler.started(Activity.ELEMENT_LIST, inner);
+        Thread.sleep(2);
+        profiler.finished(Activity.ELEMENT_LIST, inner, 3);
+        //Left unfinished, as if an exception had been thrown
+        profiler.started(Activity.LINE_BREAKING, inner);
+        profiler.finished(Activity.ELEMENT_LIST, outer, 5);
+
+        LayoutProfiler.Timing outerTiming = profiler.getLayoutManagerTiming(outer.getClass(),
+                Activity.ELEMENT_LIST);
+        LayoutProfiler.Timing innerTiming = profiler.getLayoutManagerTiming(inner.getClass(),
+                Activity.ELEMENT_LIST);
+        assertEquals(1, outerTiming.getCount());
+        assertEquals(5, outerTiming.getElementCount());
+        assertEquals(3, innerTiming.getElementCount());
+        assertTrue(innerTiming.getTotalNanos() >= 2000000);
+        assertEquals(innerTiming.getTotalNanos(), innerTiming.getSelfNanos());
+        assertEquals(outerTiming.getTotalNanos() - innerTiming.getTotalNanos(),
+                outerTiming.getSelfNanos());
+        assertNull(profiler.getLayoutManagerTiming(inner.getClass(), Activity.LINE_BREAKING));
+        assertEquals(2, profiler.getFONodeTiming("(none)", Activity.ELEMENT_LIST).getCount());
+    }
+}
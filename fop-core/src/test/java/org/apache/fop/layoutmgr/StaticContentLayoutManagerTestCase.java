@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+
+package org.apache.fop.layoutmgr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.area.Area;
+import org.apache.fop.area.AreaTreeHandler;
+import org.apache.fop.area.AreaTreeModel;
+import org.apache.fop.area.PageViewport;
+import org.apache.fop.fo.Constants;
+import org.apache.fop.intermediate.TestAssistant;
+
+/**
+ * Tests the reuse of the areas of page-independent static content. The area tree is checked
+ * by the static-content_reuse.xml layout engine test case, whose page-sequences are used here.
+ */
+public class StaticContentLayoutManagerTestCase {
+
+    private static final int PAGE_COUNT = 4;
+
+    /** The page-sequence with a footer that does not depend on the page. */
+    private static final int PAGE_INDEPENDENT = 1;
+
+    /** The page-sequence with a footer that shows the page number. */
+    private static final int PAGE_NUMBER = 2;
+
+    /** The page-sequence with a footer that holds an id. */
+    private static final int ID = 3;
+
+    /** The page-sequence with a footer in regions of two sizes. */
+    private static final int REGION_GEOMETRY = 4;
+
+    private final FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+
+    private AreaTreeModel model;
+
+    /** Keeps the pages in memory instead of rendering them. */
+    private static class PageKeepingHandler extends AreaTreeHandler {
+
+        PageKeepingHandler(FOUserAgent userAgent, OutputStream stream) throws Exception {
+            super(userAgent, MimeConstants.MIME_FOP_AREA_TREE, stream);
+        }
+
+        @Override
+        protected void setupModel(FOUserAgent userAgent, String outputFormat, OutputStream stream)
+                throws FOPException {
+            //Sets up the fonts of the renderer
+            super.setupModel(userAgent, outputFormat, stream);
+            this.model = new AreaTreeModel();
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        AreaTreeHandler handler = new PageKeepingHandler(userAgent, out);
+        userAgent.setFOEventHandlerOverride(handler);
+        new TestAssistant().render("static-content_reuse.xml", userAgent,
+                MimeConstants.MIME_FOP_AREA_TREE, out);
+        model = handler.getAreaTreeModel();
+    }
+
+    private Area getFooter(int pageSequence, int page) {
+        assertEquals(PAGE_COUNT, model.getPageCount(pageSequence));
+        PageViewport pageViewport = model.getPage(pageSequence, page);
+        List<Area> blocks = pageViewport.getPage().getRegionViewport(Constants.FO_REGION_AFTER)
+                .getRegionReference().getBlocks();
+        assertFalse(blocks.isEmpty());
+        return blocks.get(0);
+    }
+
+    @Test
+    public void testPageIndependentStaticContent() throws Exception {
+        Area footer = getFooter(PAGE_INDEPENDENT, 0);
+        for (int i = 1; i < PAGE_COUNT; i++) {
+            assertSame(footer, getFooter(PAGE_INDEPENDENT, i));
+        }
+    }
+
+    @Test
+    public void testPageNumber() throws Exception {
+        assertNotSame(getFooter(PAGE_NUMBER, 0), getFooter(PAGE_NUMBER, 1));
+    }
+
+    @Test
+    public void testId() throws Exception {
+        assertNotSame(getFooter(ID, 0), getFooter(ID, 1));
+    }
+
+    @Test
+    public void testRegionGeometry() throws Exception {
+        assertNotSame(getFooter(REGION_GEOMETRY, 0), getFooter(REGION_GEOMETRY, 1));
+        assertSame(getFooter(REGION_GEOMETRY, 0), getFooter(REGION_GEOMETRY, 2));
+        assertSame(getFooter(REGION_GEOMETRY, 1), getFooter(REGION_GEOMETRY, 3));
+    }
+}
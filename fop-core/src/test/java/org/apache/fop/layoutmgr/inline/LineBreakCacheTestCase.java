@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr.inline;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.area.AreaTreeHandler;
+import org.apache.fop.intermediate.TestAssistant;
+
+/**
+ * Tests the reuse of the line breaks of repeated paragraphs. The line areas are checked by
+ * the static-content_repeated-block_*.xml layout engine test cases.
+ */
+public class LineBreakCacheTestCase {
+
+    /** The number of pages of the test cases, each with the same static-content. */
+    private static final int PAGE_COUNT = 6;
+
+    private final FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+
+    private final TestAssistant testAssistant = new TestAssistant();
+
+    private LineBreakCache render(String testCase, ByteArrayOutputStream out, int cacheSize)
+            throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setLineBreakCacheSize(cacheSize);
+        AreaTreeHandler handler = new AreaTreeHandler(userAgent, MimeConstants.MIME_FOP_AREA_TREE, out);
+        userAgent.setFOEventHandlerOverride(handler);
+        testAssistant.render(testCase, userAgent, MimeConstants.MIME_FOP_AREA_TREE, out);
+        return handler.getLineBreakCache();
+    }
+
+    private void testStaticContent(String textAlign) throws Exception {
+        LineBreakCache cache = render("static-content_repeated-block_" + textAlign + ".xml",
+                new ByteArrayOutputStream(), LineBreakCache.DEFAULT_SIZE);
+        //The page number line and the legal text are broken on the first page only
+        assertEquals(2 * (PAGE_COUNT - 1), cache.getHitCount());
+        assertEquals(PAGE_COUNT + 2, cache.getMissCount());
+    }
+
+    @Test
+    public void testJustifiedStaticContent() throws Exception {
+        testStaticContent("justify");
+    }
+
+    @Test
+    public void testCenteredStaticContent() throws Exception {
+        testStaticContent("center");
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        String testCase = "static-content_repeated-block_justify.xml";
+        ByteArrayOutputStream cached = new ByteArrayOutputStream();
+        render(testCase, cached, LineBreakCache.DEFAULT_SIZE);
+        ByteArrayOutputStream uncached = new ByteArrayOutputStream();
+        LineBreakCache cache = render(testCase, uncached, 0);
+        assertFalse(cache.isEnabled());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+        //The cache does not change the line breaks
+        assertEquals(cached.toString("UTF-8"), uncached.toString("UTF-8"));
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr.inline;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.intermediate.TestAssistant;
+import org.apache.fop.layoutmgr.LayoutProfileListener.Activity;
+import org.apache.fop.layoutmgr.LayoutProfiler;
+
+/**
+ * Tests that, when the layout is restarted after a change of IPD, only the paragraphs that
+ * can be needed before the next change of IPD are broken into lines again. The lines are checked
+ * by the flow_changing-ipd_alternating.xml layout engine test case, which is laid out here.
+ */
+public class LineLayoutRestartTestCase {
+
+    /** The number of paragraphs of the test case. */
+    private static final int PARAGRAPH_COUNT = 40;
+
+    /** The number of paragraphs the three pages that follow a restart can take, at most. */
+    private static final int PARAGRAPHS_PER_RESTART = 10;
+
+    private final FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+
+    @Test
+    public void testParagraphsBrokenOnRestart() throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        LayoutProfiler profiler = new LayoutProfiler();
+        userAgent.setLayoutProfileListener(profiler);
+        Fop fop = new TestAssistant().render("flow_changing-ipd_alternating.xml", userAgent,
+                MimeConstants.MIME_FOP_AREA_TREE, new ByteArrayOutputStream());
+
+        int restarts = profiler.getRestartCount();
+        assertTrue(restarts > 4);
+        long paragraphsBroken = profiler.getLayoutManagerTiming(LineLayoutManager.class,
+                Activity.LINE_BREAKING).getCount();
+        //Each paragraph is broken once when the flow is first laid out, then only the
+        //paragraphs of the pages up to the next change of IPD are broken again on a restart
+        assertTrue(paragraphsBroken <= PARAGRAPH_COUNT + PARAGRAPHS_PER_RESTART * restarts);
+        assertEquals(restarts + 1, fop.getResults().getPageCount());
+    }
+}
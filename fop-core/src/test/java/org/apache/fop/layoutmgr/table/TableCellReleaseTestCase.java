@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr.table;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.FopFactoryBuilder;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.fo.FONode;
+import org.apache.fop.fo.FONode.FONodeIterator;
+import org.apache.fop.fo.flow.table.GridUnit;
+import org.apache.fop.fo.flow.table.PrimaryGridUnit;
+import org.apache.fop.fo.flow.table.Table;
+import org.apache.fop.fo.flow.table.TableBody;
+import org.apache.fop.fo.flow.table.TablePart;
+import org.apache.fop.intermediate.TestAssistant;
+import org.apache.fop.layoutmgr.LayoutManagerMapping;
+
+/**
+ * Tests that the layout of the cells of a table is released once their areas have been added.
+ * The area tree is checked by the table_header_row-span_pages.xml layout engine test case,
+ * whose table is used here.
+ */
+public class TableCellReleaseTestCase {
+
+    /** The number of rows of the table-bodies of the test case. */
+    private static final int ROW_COUNT = 40;
+
+    private final List<Table> tables = new ArrayList<Table>();
+
+    private void render() throws Exception {
+        FopFactoryBuilder builder = new FopFactoryBuilder(new File(".").toURI());
+        builder.setLayoutManagerMakerOverride(new LayoutManagerMapping() {
+            public void makeLayoutManagers(FONode node, List lms) {
+                if (node instanceof Table) {
+                    tables.add((Table) node);
+                }
+                super.makeLayoutManagers(node, lms);
+            }
+        });
+        FopFactory fopFactory = builder.build();
+        new TestAssistant().render("table_header_row-span_pages.xml", fopFactory.newFOUserAgent(),
+                MimeConstants.MIME_FOP_AREA_TREE, new NullOutputStream());
+    }
+
+    /**
+     * Returns the primary grid units of the given table part.
+     */
+    private static List<PrimaryGridUnit> getPrimaryGridUnits(TablePart part) {
+        List<PrimaryGridUnit> primaries = new ArrayList<PrimaryGridUnit>();
+        for (Object rowGroup : part.getRowGroups()) {
+            for (Object row : (List) rowGroup) {
+                for (Object gu : (List) row) {
+                    if (((GridUnit) gu).isPrimary()) {
+                        primaries.add((PrimaryGridUnit) gu);
+                    }
+                }
+            }
+        }
+        return primaries;
+    }
+
+    @Test
+    public void testBodyCellLayoutsReleased() throws Exception {
+        render();
+        assertEquals(1, tables.size());
+        Table table = tables.get(0);
+        int bodyCellCount = 0;
+        for (FONodeIterator children = table.getChildNodes(); children.hasNext();) {
+            FONode child = children.next();
+            if (child instanceof TableBody) {
+                for (PrimaryGridUnit pgu : getPrimaryGridUnits((TableBody) child)) {
+                    assertFalse(pgu.hasCellLM());
+                    assertNull(pgu.getElements());
+                    bodyCellCount++;
+                }
+            }
+        }
+        assertEquals(ROW_COUNT * 3 / 2, bodyCellCount);
+        //The areas of the header are added again on every page: its cells are kept
+        List<PrimaryGridUnit> headerCells = getPrimaryGridUnits(table.getTableHeader());
+        assertEquals(2, headerCells.size());
+        for (PrimaryGridUnit pgu : headerCells) {
+            assertTrue(pgu.hasCellLM());
+            assertNotNull(pgu.getElements());
+        }
+    }
+}
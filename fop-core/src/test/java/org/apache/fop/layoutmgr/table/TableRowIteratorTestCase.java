@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+
+package org.apache.fop.layoutmgr.table;
+
+import java.io.FileInputStream;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.fo.FODocumentParser;
+import org.apache.fop.fo.FODocumentParser.FOEventHandlerFactory;
+import org.apache.fop.fo.FOEventHandler;
+import org.apache.fop.fo.FONode;
+import org.apache.fop.fo.FONode.FONodeIterator;
+import org.apache.fop.fo.flow.table.EffRow;
+import org.apache.fop.fo.flow.table.Table;
+import org.apache.fop.fo.flow.table.TableBody;
+import org.apache.fop.util.ConsoleEventListenerForTests;
+
+/**
+ * Tests the iteration over the row groups of the table-body elements of a table.
+ */
+public class TableRowIteratorTestCase {
+
+    private TableHandler tableHandler;
+
+    private List parse(String filename) throws Exception {
+        FODocumentParser documentParser = FODocumentParser.newInstance(new FOEventHandlerFactory() {
+            public FOEventHandler newFOEventHandler(FOUserAgent foUserAgent) {
+                tableHandler = new TableHandler(foUserAgent);
+                return tableHandler;
+            }
+        });
+        documentParser.setEventListener(new ConsoleEventListenerForTests(filename));
+        documentParser.parse(new FileInputStream("test/fotree/unittests/" + filename));
+        return tableHandler.getTables();
+    }
+
+    private void checkBodies(String filename) throws Exception {
+        for (Object o : parse(filename)) {
+            Table table = (Table) o;
+            TableRowIterator iter = new TableRowIterator(table, TableRowIterator.BODY);
+            int rowIndex = 0;
+            for (FONodeIterator children = table.getChildNodes(); children.hasNext();) {
+                FONode child = children.next();
+                if (child instanceof TableBody) {
+                    for (Object rowGroup : ((TableBody) child).getRowGroups()) {
+                        EffRow[] effRows = iter.getNextRowGroup();
+                        assertEquals(((List) rowGroup).size(), effRows.length);
+                        for (int i = 0; i < effRows.length; i++) {
+                            assertSame(((List) rowGroup).get(i), effRows[i].getGridUnits());
+                            assertEquals(rowIndex++, effRows[i].getIndex());
+                            assertEquals(TableRowIterator.BODY, effRows[i].getBodyType());
+                        }
+                    }
+                }
+            }
+            assertNull(iter.getNextRowGroup());
+        }
+    }
+
+    @Test
+    public void testSimple() throws Exception {
+        checkBodies("table/RowGroupBuilder_simple.fo");
+    }
+
+    @Test
+    public void testSpans() throws Exception {
+        checkBodies("table/RowGroupBuilder_spans.fo");
+    }
+
+    @Test
+    public void testNoColNoRowSimple() throws Exception {
+        checkBodies("table/RowGroupBuilder_no-col_no-row_simple.fo");
+    }
+}
@@ -26,6 +26,7 @@ import java.util.List;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import org.apache.fop.pdf.xref.CompressedObjectReference;
@@ -49,12 +50,34 @@ public class ObjectStreamManagerTestCase {
         assertEquals(objectStreamNumber3, pdfDocument.previous.getObjectNumber().getNumber());
     }
 
+    @Test
+    public void addWithCapacity() {
+        final int capacity = 300;
+        pdfDocument = new MockPdfDocument();
+        int pendingObjects = pdfDocument.objects.size();
+        ObjectStreamManager sut = new ObjectStreamManager(pdfDocument, capacity, false);
+        for (int obNum = 1; obNum <= capacity + 1; obNum++) {
+            sut.add(createCompressedObject(obNum));
+        }
+        compressedObjectReferences = sut.getCompressedObjectReferences();
+        int objectStreamNumber1 = assertSameObjectStream(0, capacity);
+        assertTrue(objectStreamNumber1 != getObjectStreamNumber(capacity));
+        //The full stream has been handed over for output, the last one is still open
+        assertEquals(pendingObjects + 1, pdfDocument.objects.size());
+        assertEquals(objectStreamNumber1,
+                pdfDocument.objects.get(pendingObjects).getObjectNumber().getNumber());
+        assertTrue(sut.finish());
+        assertEquals(pendingObjects + 2, pdfDocument.objects.size());
+        assertFalse(sut.finish());
+    }
+
     private void createCompressObjectReferences(int numObjects) {
         pdfDocument = new MockPdfDocument();
         ObjectStreamManager sut = new ObjectStreamManager(pdfDocument);
         for (int obNum = 1; obNum <= numObjects; obNum++) {
             sut.add(createCompressedObject(obNum));
         }
+        sut.finish();
         compressedObjectReferences = sut.getCompressedObjectReferences();
     }
 
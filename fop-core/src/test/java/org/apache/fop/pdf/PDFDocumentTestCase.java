@@ -19,12 +19,25 @@
 
 package org.apache.fop.pdf;
 
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.zip.Deflater;
 
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
 
 /**
  * Test case for {@link PDFDocument}
@@ -59,4 +72,327 @@ public class PDFDocumentTestCase {
         PDFDocument.flushTextBuffer(textBuffer, out);
         assertEquals(fullString, out.toString());
     }
+
+    /**
+     * Tests that in streaming mode the document does not hold on to pages once they have been
+     * written, while the shared resources they used still end up in the /Resources dictionary.
+     * @throws IOException when an I/O error occurs
+     */
+    @Test
+    public void testStreamingReleasesPages() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PDFDocument doc = new PDFDocument("");
+        doc.setStreamingEnabled(true);
+        doc.outputHeader(out);
+        PDFResources resources = doc.getResources();
+        PDFGState gstate = doc.getFactory().makeGState(
+                Collections.singletonMap(PDFGState.GSTATE_ALPHA_NONSTROKE, 0.5f), PDFGState.DEFAULT);
+        int pageCount = 1000;
+        for (int i = 0; i < pageCount; i++) {
+            PDFPage page = doc.getFactory().makePage(resources, 595, 842, i);
+            page.addGState(gstate);
+            PDFStream content = doc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false);
+            content.add("/" + gstate.getName() + " gs\n");
+            doc.registerObject(content);
+            page.setContents(new PDFReference(content));
+            doc.addObject(page);
+            doc.output(out);
+            doc.releasePage(page);
+
+            assertTrue(doc.pageObjs.isEmpty());
+            assertEquals(1, resources.contexts.size());
+        }
+        doc.outputTrailer(out);
+
+        String pdf = out.toString("ISO-8859-1");
+        assertTrue(pdf.contains("/Count " + pageCount));
+        assertTrue(pdf.contains("/ExtGState << /" + gstate.getName() + " " + gstate.referencePDF() + " >>"));
+    }
+
+    /**
+     * Tests that the heap stays flat in streaming mode: every page made by the factory carries
+     * a payload of a fiftieth of the maximum heap, so that keeping the written pages would run out of memory
+     * long before the last page. The soft references the document keeps to its objects are
+     * cleared before the heap is exhausted.
+     * @throws IOException when an I/O error occurs
+     */
+    @Test
+    public void testStreamingHeapStaysFlat() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PDFDocument doc = new PDFDocument("");
+        doc.setStreamingEnabled(true);
+        doc.outputHeader(out);
+        final int payloadSize = (int) Math.min(Runtime.getRuntime().maxMemory() / 50, Integer.MAX_VALUE - 8);
+        int pageCount = 200;
+        for (int i = 0; i < pageCount; i++) {
+            PDFPage page = doc.getFactory().makePage(doc.getResources(), 595, 842, i);
+            page.put("PieceInfo", new PDFDictionary() {
+                private final byte[] payload = new byte[payloadSize];
+            });
+            PDFStream content = doc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false);
+            content.add("0 0 m\n");
+            doc.registerObject(content);
+            page.setContents(new PDFReference(content));
+            doc.addObject(page);
+            doc.output(out);
+            doc.releasePage(page);
+        }
+        doc.outputTrailer(out);
+        assertTrue(out.toString("ISO-8859-1").contains("/Count " + pageCount));
+    }
+
+    /**
+     * Tests that pages are kept when streaming is enabled together with linearization.
+     */
+    @Test
+    public void testStreamingDisabledByLinearization() {
+        PDFDocument doc = new PDFDocument("");
+        doc.setStreamingEnabled(true);
+        doc.setLinearizationEnabled(true);
+        assertTrue(!doc.isStreamingEnabled());
+    }
+
+    /**
+     * Tests that compressing streams on several threads produces the same bytes as compressing
+     * them while they are written.
+     * @throws IOException when an I/O error occurs
+     */
+    @Test
+    public void testParallelCompressionOutputIsIdentical() throws IOException {
+        byte[] expected = createDocumentWithStreams(Deflater.DEFAULT_COMPRESSION, 1);
+        assertEquals(withoutFileID(expected),
+                withoutFileID(createDocumentWithStreams(Deflater.DEFAULT_COMPRESSION, 4)));
+    }
+
+    /**
+     * Tests that the configured compression level is used by the Flate filters.
+     * @throws IOException when an I/O error occurs
+     */
+    @Test
+    public void testCompressionLevel() throws IOException {
+        byte[] defaultLevel = createDocumentWithStreams(Deflater.DEFAULT_COMPRESSION, 1);
+        byte[] noCompression = createDocumentWithStreams(Deflater.NO_COMPRESSION, 1);
+        assertTrue(noCompression.length > defaultLevel.length);
+        assertEquals(withoutFileID(noCompression),
+                withoutFileID(createDocumentWithStreams(Deflater.NO_COMPRESSION, 3)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompressionLevelOutOfRange() {
+        new PDFDocument("").setCompressionLevel(15);
+    }
+
+    /**
+     * Tests that streams encrypted on several threads can be decrypted and that with RC4,
+     * where the keys are derived from the object numbers, the written bytes are the same as
+     * when encrypting them while they are written.
+     * @throws IOException when an I/O error occurs
+     */
+    @Test
+    public void testParallelCompressionWithEncryption() throws IOException {
+        PDFEncryptionParams params = new PDFEncryptionParams("user", "owner", true, true, true, true, true);
+        params.setEncryptionLengthInBits(128);
+        byte[] expected = createEncryptedDocument(params, 1);
+        byte[] parallel = createEncryptedDocument(params, 4);
+        assertEquals(new String(expected, "ISO-8859-1"), new String(parallel, "ISO-8859-1"));
+        checkEncryptedDocument(parallel);
+
+        params.setEncryptionLengthInBits(256);
+        checkEncryptedDocument(createEncryptedDocument(params, 4));
+    }
+
+    private byte[] createEncryptedDocument(PDFEncryptionParams params, int compressionThreads)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PDFDocument doc = new PDFDocument("") {
+            private final FileIDGenerator fileIDGenerator = new FileIDGenerator() {
+                private final byte[] fileID = new byte[16];
+
+                byte[] getOriginalFileID() {
+                    return fileID;
+                }
+
+                byte[] getUpdatedFileID() {
+                    return fileID;
+                }
+            };
+
+            @Override
+            FileIDGenerator getFileIDGenerator() {
+                return fileIDGenerator;
+            }
+        };
+        doc.getInfo().setCreationDate(new Date(0));
+        doc.setCompressionThreads(compressionThreads);
+        doc.setEncryption(params);
+        doc.outputHeader(out);
+        PDFResources resources = doc.getResources();
+        for (int i = 0; i < 20; i++) {
+            PDFPage page = doc.getFactory().makePage(resources, 595, 842, i);
+            PDFStream content = doc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false);
+            for (int k = 0; k < 2000; k++) {
+                content.add("BT /F1 12 Tf 0 " + k + " Td (Page " + i + " line " + k + ") Tj ET\n");
+            }
+            doc.registerObject(content);
+            if (i % 2 == 0) {
+                //Gives out the object number ahead of output, as a written reference would
+                content.referencePDF();
+            }
+            page.setContents(new PDFReference(content));
+            doc.addObject(page);
+            doc.output(out);
+        }
+        doc.outputTrailer(out);
+        return out.toByteArray();
+    }
+
+    private void checkEncryptedDocument(byte[] pdf) throws IOException {
+        PDDocument doc = PDDocument.load(pdf, "user");
+        try {
+            assertEquals(20, doc.getNumberOfPages());
+            for (int i = 0; i < 20; i++) {
+                InputStream in = doc.getPage(i).getContents();
+                try {
+                    String content = IOUtils.toString(in, "ISO-8859-1");
+                    assertTrue(content.startsWith("BT /F1 12 Tf 0 0 Td (Page " + i + " line 0) Tj ET\n"));
+                    assertTrue(content.endsWith("(Page " + i + " line 1999) Tj ET\n"));
+                } finally {
+                    in.close();
+                }
+            }
+        } finally {
+            doc.close();
+        }
+    }
+
+    private String withoutFileID(byte[] pdf) throws IOException {
+        //The file identifier depends on the time the document is written
+        return new String(pdf, "ISO-8859-1").replaceAll("/ID \\[[^\\]]*\\]", "");
+    }
+
+    private byte[] createDocumentWithStreams(int compressionLevel, int compressionThreads)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PDFDocument doc = new PDFDocument("");
+        doc.getInfo().setCreationDate(new Date(0));
+        doc.setCompressionLevel(compressionLevel);
+        doc.setCompressionThreads(compressionThreads);
+        doc.outputHeader(out);
+        PDFResources resources = doc.getResources();
+        for (int i = 0; i < 20; i++) {
+            PDFPage page = doc.getFactory().makePage(resources, 595, 842, i);
+            for (int j = 0; j < 10; j++) {
+                PDFStream content = doc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false);
+                for (int k = 0; k < 100; k++) {
+                    content.add("BT /F1 12 Tf " + j + " " + k + " Td (Page " + i + " line " + k + ") Tj ET\n");
+                }
+                doc.registerObject(content);
+            }
+            PDFTTFStream font = new PDFTTFStream(1000);
+            byte[] fontData = new byte[1000];
+            Arrays.fill(fontData, (byte) i);
+            font.setData(fontData, fontData.length);
+            doc.registerObject(font);
+            doc.addObject(page);
+            doc.output(out);
+        }
+        doc.outputTrailer(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Tests that pages, annotations, actions and outlines are packed into object streams which
+     * a reader can resolve through the cross-reference stream.
+     * @throws IOException when an I/O error occurs
+     */
+    @Test
+    public void testObjectStreams() throws IOException {
+        byte[] unpacked = createDocumentWithAnnotations(false, 100, null);
+        byte[] packed = createDocumentWithAnnotations(true, 100, null);
+        assertTrue(packed.length < unpacked.length);
+
+        String pdf = new String(packed, "ISO-8859-1");
+        assertTrue(pdf.contains("/Type /XRef"));
+        assertFalse(pdf.contains("\nxref\n"));
+        assertFalse(pdf.contains("/Type /Page\n"));
+        assertEquals(2, countOccurrences(pdf, "/Type /ObjStm"));
+        assertEquals(7, countOccurrences(new String(createDocumentWithAnnotations(true, 20, null),
+                "ISO-8859-1"), "/Type /ObjStm"));
+
+        PDDocument doc = PDDocument.load(packed);
+        try {
+            assertTrue(doc.getDocument().isXRefStream());
+            assertEquals(20, doc.getNumberOfPages());
+            for (int i = 0; i < 20; i++) {
+                assertEquals(1, doc.getPage(i).getAnnotations().size());
+            }
+            int outlineCount = 0;
+            for (PDOutlineItem item : doc.getDocumentCatalog().getDocumentOutline().children()) {
+                assertEquals("Page " + outlineCount++, item.getTitle());
+            }
+            assertEquals(20, outlineCount);
+        } finally {
+            doc.close();
+        }
+    }
+
+    /**
+     * Tests that object streams are not used when the document is bound to PDF 1.4.
+     * @throws IOException when an I/O error occurs
+     */
+    @Test
+    public void testObjectStreamsRequirePDF15() throws IOException {
+        String pdf = new String(createDocumentWithAnnotations(true, 100,
+                VersionController.getFixedVersionController(Version.V1_4)), "ISO-8859-1");
+        assertFalse(pdf.contains("/Type /ObjStm"));
+        assertTrue(pdf.contains("\nxref\n"));
+
+        PDDocument doc = PDDocument.load(createDocumentWithAnnotations(true, 100, null));
+        try {
+            assertEquals(1.5f, doc.getVersion(), 0f);
+        } finally {
+            doc.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testObjectStreamCapacity() {
+        new PDFDocument("").setObjectStreamCapacity(0x10000);
+    }
+
+    private int countOccurrences(String s, String sub) {
+        int count = 0;
+        for (int i = s.indexOf(sub); i >= 0; i = s.indexOf(sub, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private byte[] createDocumentWithAnnotations(boolean objectStreams, int capacity,
+            VersionController versionController) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PDFDocument doc = versionController == null
+                ? new PDFDocument("")
+                : new PDFDocument("", versionController);
+        doc.getInfo().setCreationDate(new Date(0));
+        doc.setObjectStreamsEnabled(objectStreams);
+        doc.setObjectStreamCapacity(capacity);
+        doc.outputHeader(out);
+        PDFResources resources = doc.getResources();
+        for (int i = 0; i < 20; i++) {
+            PDFPage page = doc.getFactory().makePage(resources, 595, 842, i);
+            PDFStream content = doc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false);
+            content.add("0 0 m 100 100 l S\n");
+            doc.registerObject(content);
+            page.setContents(new PDFReference(content));
+            PDFGoTo goTo = doc.getFactory().getPDFGoTo(page.referencePDF(), new Point2D.Double(0, 842));
+            page.addAnnotation(doc.getFactory().makeLink(new Rectangle(0, 0, 100, 100), goTo));
+            doc.getFactory().makeOutline(doc.getOutlineRoot(), "Page " + i, goTo.makeReference(), false);
+            doc.addObject(page.getAnnotations());
+            doc.addObject(page);
+            doc.output(out);
+        }
+        doc.outputTrailer(out);
+        return out.toByteArray();
+    }
 }
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+
+/**
+ * Debug tool comparing the time spent writing a PDF document without encryption, with 128-bit
+ * RC4 encryption (revision 3) and with 256-bit AES encryption (revision 5), with the streams
+ * encoded while they are written and on several compression threads. Each page has a large
+ * content stream and an embedded font stream of incompressible data.
+ * <p>
+ * Usage: PDFEncryptionBenchmark [pages] [runs] [threads] [compression-level]
+ */
+public final class PDFEncryptionBenchmark {
+
+    private PDFEncryptionBenchmark() {
+    }
+
+    private static long write(int pages, int length, int threads, int level) throws IOException {
+        CountingOutputStream out = new CountingOutputStream(new NullOutputStream());
+        PDFDocument doc = new PDFDocument("");
+        doc.setCompressionLevel(level);
+        doc.setCompressionThreads(threads);
+        if (length > 0) {
+            PDFEncryptionParams params = new PDFEncryptionParams("user", "owner", true, true, true, true, true);
+            params.setEncryptionLengthInBits(length);
+            doc.setEncryption(params);
+        }
+        doc.outputHeader(out);
+        PDFResources resources = doc.getResources();
+        Random random = new Random(0);
+        for (int i = 0; i < pages; i++) {
+            PDFPage page = doc.getFactory().makePage(resources, 595, 842, i);
+            PDFStream content = doc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false);
+            for (int k = 0; k < 2000; k++) {
+                content.add("BT /F1 12 Tf 0 " + k + " Td (Page " + i + " line " + k + ") Tj ET\n");
+            }
+            doc.registerObject(content);
+            page.setContents(new PDFReference(content));
+            byte[] fontData = new byte[65536];
+            random.nextBytes(fontData);
+            PDFTTFStream font = new PDFTTFStream(fontData.length);
+            font.setData(fontData, fontData.length);
+            doc.registerObject(font);
+            doc.addObject(page);
+            doc.output(out);
+        }
+        doc.outputTrailer(out);
+        return out.getByteCount();
+    }
+
+    private static void run(int pages, int length, int threads, int level, int runs)
+            throws IOException {
+        long time = 0;
+        long size = 0;
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            size = write(pages, length, threads, level);
+            time += System.nanoTime() - start;
+        }
+        String encryption = length == 0 ? "no encryption"
+                : length == 256 ? "AES-256 (R5)" : "RC4-" + length + " (R3)";
+        System.out.println(encryption + ", " + threads + " thread(s): " + size
+                + " bytes, written in " + time / runs / 1000000 + " ms");
+    }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments
+     * @throws IOException if an I/O error occurs
+     */
+    public static void main(String[] args) throws IOException {
+        int pages = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int level = args.length > 3 ? Integer.parseInt(args[3]) : Deflater.DEFAULT_COMPRESSION;
+        int[] lengths = {0, 128, 256};
+        //Warm-up
+        for (int length : lengths) {
+            write(pages, length, 1, level);
+            write(pages, length, threads, level);
+        }
+        for (int length : lengths) {
+            run(pages, length, 1, level, runs);
+            run(pages, length, threads, level, runs);
+        }
+    }
+}
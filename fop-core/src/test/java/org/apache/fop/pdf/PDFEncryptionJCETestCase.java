@@ -21,6 +21,7 @@ package org.apache.fop.pdf;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
@@ -454,6 +455,39 @@ public class PDFEncryptionJCETestCase {
         runEncryptionTests();
     }
 
+    /**
+     * Tests that stream data written in pieces of all sizes is encrypted like the same data
+     * encrypted in one go.
+     * @throws IOException when an I/O error occurs
+     */
+    @Test
+    public void testStreamEncryptedInChunks() throws IOException {
+        test = new EncryptionTest().setObjectNumber(5).setEncryptionLength(128);
+        encryptionObject = createEncryptionObject(test.getEncryptionParameters());
+        byte[] data = new byte[100000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        PDFText text = new PDFText();
+        text.setObjectNumber(test.getObjectNumber());
+        byte[] expected = encryptionObject.encrypt(data, text);
+
+        PDFStream stream = new PDFStream();
+        stream.setDocument(encryptionObject.getDocumentSafely());
+        stream.setObjectNumber(test.getObjectNumber());
+        encryptionObject.applyFilter(stream);
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+        OutputStream out = stream.getFilterList().applyFilters(encrypted);
+        out.write(data[0]);
+        out.write(data, 1, 40000);
+        out.write(data, 40001, 7);
+        out.flush();
+        out.write(data, 40008, data.length - 40008);
+        out.close();
+        out.close();
+        assertArrayEquals(expected, encrypted.toByteArray());
+    }
+
     @Test
     public void testAES256() throws UnsupportedEncodingException, NoSuchAlgorithmException,
             NoSuchPaddingException, InvalidKeyException, InvalidAlgorithmParameterException,
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+package org.apache.fop.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import org.apache.fop.pdf.xref.CrossReferenceReader;
+
+/**
+ * Test case for {@link PDFIncrementalUpdate}.
+ */
+public class PDFIncrementalUpdateTestCase {
+
+    @Test
+    public void testAppendToCrossReferenceTable() throws IOException {
+        testAppend(false);
+    }
+
+    @Test
+    public void testAppendToCrossReferenceStream() throws IOException {
+        testAppend(true);
+    }
+
+    private void testAppend(boolean objectStreams) throws IOException {
+        byte[] original = createDocument("first", 3, objectStreams, null);
+        PDFIncrementalUpdate update = new PDFIncrementalUpdate(ByteBuffer.wrap(original));
+        assertEquals(3, update.getPageCount());
+        assertEquals(objectStreams, update.isCrossReferenceStream());
+        byte[] updated = createDocument("second", 2, objectStreams, update);
+
+        assertArrayEquals(original, Arrays.copyOf(updated, original.length));
+        String appended = new String(updated, original.length, updated.length - original.length,
+                "ISO-8859-1");
+        assertFalse(appended.startsWith("\n%PDF"));
+        assertEquals(objectStreams, appended.contains("/Type /XRef"));
+        assertTrue(appended.contains("/Prev " + update.getStartXRef()));
+        checkPages(updated, "first", 3, "second", 2);
+    }
+
+    /**
+     * Tests that a file which has already been updated can be updated again, the cross-reference
+     * sections being chained through their Prev entries.
+     * @throws IOException when an I/O error occurs
+     */
+    @Test
+    public void testAppendTwice() throws IOException {
+        byte[] original = createDocument("first", 2, false, null);
+        byte[] updated = createDocument("second", 1, false,
+                new PDFIncrementalUpdate(ByteBuffer.wrap(original)));
+        PDFIncrementalUpdate update = new PDFIncrementalUpdate(ByteBuffer.wrap(updated));
+        assertEquals(3, update.getPageCount());
+        byte[] twice = createDocument("third", 2, false, update);
+        checkPages(twice, "first", 2, "second", 1, "third", 2);
+    }
+
+    /**
+     * Tests that the file is memory-mapped and that its catalog and file identifier are kept.
+     * @throws IOException when an I/O error occurs
+     */
+    @Test
+    public void testMappedFile() throws IOException {
+        byte[] original = createDocument("first", 1, true, null);
+        File file = File.createTempFile("fop-incremental", ".pdf");
+        try {
+            OutputStream out = new FileOutputStream(file);
+            try {
+                out.write(original);
+            } finally {
+                out.close();
+            }
+            PDFIncrementalUpdate update = new PDFIncrementalUpdate(file);
+            assertEquals(original.length, update.getLength());
+            assertEquals(Version.V1_5, update.getPDFVersion());
+            CrossReferenceReader xref = update.getCrossReferenceReader();
+            PDFDictionary root = (PDFDictionary) xref.getObject(update.getRootNumber());
+            assertEquals("Catalog", ((PDFName) root.get("Type")).getName());
+            byte[] updated = createDocument("second", 1, true, update);
+            PDFIncrementalUpdate second = new PDFIncrementalUpdate(ByteBuffer.wrap(updated));
+            assertEquals(update.getRootNumber(), second.getRootNumber());
+            assertArrayEquals(update.getOriginalFileID(), second.getOriginalFileID());
+            checkPages(updated, "first", 1, "second", 1);
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Tests that only the update is written in append mode.
+     * @throws IOException when an I/O error occurs
+     */
+    @Test
+    public void testAppendMode() throws IOException {
+        byte[] original = createDocument("first", 2, false, null);
+        PDFIncrementalUpdate update = new PDFIncrementalUpdate(ByteBuffer.wrap(original));
+        update.setAppend(true);
+        byte[] appended = createDocument("second", 1, false, update);
+        String text = new String(appended, "ISO-8859-1");
+        assertFalse(text.contains("%PDF-"));
+        assertTrue(text.contains("/Prev " + update.getStartXRef()));
+
+        byte[] updated = Arrays.copyOf(original, original.length + appended.length);
+        System.arraycopy(appended, 0, updated, original.length, appended.length);
+        checkPages(updated, "first", 2, "second", 1);
+    }
+
+    /**
+     * Tests that a document is appended to the file through the stream opened by the update.
+     * @throws IOException when an I/O error occurs
+     */
+    @Test
+    public void testOpenAppendStream() throws IOException {
+        byte[] original = createDocument("first", 1, true, null);
+        File file = File.createTempFile("fop-incremental", ".pdf");
+        try {
+            FileUtils.writeByteArrayToFile(file, original);
+            PDFIncrementalUpdate update = new PDFIncrementalUpdate(file);
+            OutputStream out = update.openAppendStream();
+            try {
+                assertTrue(update.isAppend());
+                writeDocument(out, "second", 2, true, update);
+            } finally {
+                out.close();
+            }
+            byte[] updated = FileUtils.readFileToByteArray(file);
+            assertArrayEquals(original, Arrays.copyOf(updated, original.length));
+            checkPages(updated, "first", 1, "second", 2);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testAppendToChangedFile() throws IOException {
+        File file = File.createTempFile("fop-incremental", ".pdf");
+        try {
+            FileUtils.writeByteArrayToFile(file, createDocument("first", 1, false, null));
+            PDFIncrementalUpdate update = new PDFIncrementalUpdate(file);
+            FileUtils.writeByteArrayToFile(file, createDocument("other", 2, false, null));
+            update.openAppendStream().close();
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNoLinearization() throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        doc.setIncrementalUpdate(new PDFIncrementalUpdate(
+                ByteBuffer.wrap(createDocument("first", 1, false, null))));
+        doc.setLinearizationEnabled(true);
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAPDF() throws IOException {
+        new PDFIncrementalUpdate(ByteBuffer.wrap("Not a PDF file".getBytes("US-ASCII")));
+    }
+
+    private void checkPages(byte[] pdf, Object... revisions) throws IOException {
+        PDDocument doc = PDDocument.load(pdf);
+        try {
+            int index = 0;
+            for (int i = 0; i < revisions.length; i += 2) {
+                for (int j = 0; j < (Integer) revisions[i + 1]; j++) {
+                    InputStream in = doc.getPage(index++).getContents();
+                    try {
+                        assertEquals("(" + revisions[i] + " " + j + ") Tj\n", IOUtils.toString(in, "US-ASCII"));
+                    } finally {
+                        in.close();
+                    }
+                }
+            }
+            assertEquals(index, doc.getNumberOfPages());
+        } finally {
+            doc.close();
+        }
+    }
+
+    private byte[] createDocument(String name, int pageCount, boolean objectStreams,
+            PDFIncrementalUpdate update) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeDocument(out, name, pageCount, objectStreams, update);
+        return out.toByteArray();
+    }
+
+    private void writeDocument(OutputStream out, String name, int pageCount, boolean objectStreams,
+            PDFIncrementalUpdate update) throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        doc.getInfo().setCreationDate(new Date(0));
+        doc.setObjectStreamsEnabled(objectStreams);
+        if (objectStreams) {
+            doc.setPDFVersion(Version.V1_5);
+        }
+        if (update != null) {
+            doc.setIncrementalUpdate(update);
+        }
+        doc.outputHeader(out);
+        PDFResources resources = doc.getResources();
+        for (int i = 0; i < pageCount; i++) {
+            PDFPage page = doc.getFactory().makePage(resources, 595, 842, i);
+            PDFStream content = doc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false);
+            content.add("(" + name + " " + i + ") Tj\n");
+            doc.registerObject(content);
+            page.setContents(new PDFReference(content));
+            doc.addObject(page);
+            doc.output(out);
+        }
+        doc.outputTrailer(out);
+    }
+}
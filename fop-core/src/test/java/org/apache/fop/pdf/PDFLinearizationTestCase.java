@@ -36,6 +36,8 @@ import javax.xml.transform.stream.StreamResult;
 import org.junit.Assert;
 import org.junit.Test;
 
+import org.apache.pdfbox.pdmodel.PDDocument;
+
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.apps.FopFactory;
 import org.apache.fop.fonts.FontInfo;
@@ -47,6 +49,7 @@ import org.apache.fop.render.pdf.PDFPainter;
 public class PDFLinearizationTestCase {
     private int objectLeast;
     private int[] objects;
+    private int[] pageLengths;
 
     @Test
     public void testPDF() throws IOException {
@@ -69,6 +72,49 @@ public class PDFLinearizationTestCase {
         checkPDF(data);
     }
 
+    @Test
+    public void testSpooledPages() throws IOException {
+        int pageCount = 3000;
+        PDFDocument doc = new PDFDocument("");
+        doc.setLinearizationEnabled(true);
+        doc.setStreamingEnabled(true);
+        PDFResources resources = new PDFResources(doc);
+        PDFResourceContext context = new PDFResourceContext(resources);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.outputHeader(out);
+        PDFContentGenerator gen = null;
+        for (int i = 0; i < pageCount; i++) {
+            gen = new PDFContentGenerator(doc, out, context);
+            Rectangle2D.Float f = new Rectangle2D.Float(0, 0, 200, 200);
+            PDFPage page = new PDFPage(resources, i, f, f, f, f);
+            doc.registerObject(page);
+            doc.getPages().incrementCount();
+            doc.registerObject(gen.getStream());
+            gen.getStream().add("0 0 m " + i % 200 + " 200 l S\n");
+            page.setContents(new PDFReference(gen.getStream()));
+            doc.getLinearization().spoolPage(page);
+        }
+        int streams = 0;
+        for (PDFObject o : doc.objects) {
+            if (o instanceof AbstractPDFStream) {
+                streams++;
+            }
+        }
+        Assert.assertEquals("only the content of the first page is kept", 1, streams);
+        gen.flushPDFDoc();
+        byte[] data = out.toByteArray();
+        Assert.assertEquals(0, out.toString("ISO-8859-1").indexOf("%PDF-"));
+        checkPDF(data, doc.getPages().getObjectNumber().getNumber());
+        checkPageOffsets(data, pageCount);
+
+        PDDocument pdf = PDDocument.load(data);
+        try {
+            Assert.assertEquals(pageCount, pdf.getNumberOfPages());
+        } finally {
+            pdf.close();
+        }
+    }
+
     @Test
     public void testImage() throws Exception {
         String fopxconf = "<fop version=\"1.0\"><renderers>"
@@ -95,6 +141,10 @@ public class PDFLinearizationTestCase {
     }
 
     private void checkPDF(byte[] data) throws IOException {
+        checkPDF(data, 5);
+    }
+
+    private void checkPDF(byte[] data, int pagesObjNumber) throws IOException {
         checkHintTable(data);
         InputStream is = new ByteArrayInputStream(data);
         Map<String, StringBuilder> objs = readObjs(is);
@@ -120,7 +170,7 @@ public class PDFLinearizationTestCase {
         Assert.assertTrue(firstObj.endsWith("startxref0%%EOF"));
         int pageObjNumber = getValue("/O", firstObj);
         Assert.assertTrue(objs.get(pageObjNumber + " 0 obj").toString().contains("/Type /Page"));
-        Assert.assertTrue(objs.get("5 0 obj").toString().contains("/Type /Pages"));
+        Assert.assertTrue(objs.get(pagesObjNumber + " 0 obj").toString().contains("/Type /Pages"));
 
         int total = 0;
         for (int i : objects) {
@@ -129,6 +179,25 @@ public class PDFLinearizationTestCase {
         Assert.assertEquals(total, objs.size() - 6);
     }
 
+    /**
+     * Follows the page lengths of the hint table from the end of the first-page section,
+     * where the object group of the second page starts, and checks that each group starts
+     * with its page.
+     */
+    private void checkPageOffsets(byte[] data, int pageCount) throws IOException {
+        String text = new String(data, "ISO-8859-1");
+        int offset = getValue("/E", getFirstObj(data));
+        for (int i = 1; i < pageCount; i++) {
+            int objEnd = text.indexOf(" 0 obj\n", offset);
+            Assert.assertTrue(text.substring(offset, objEnd).matches("\\d+"));
+            int end = text.indexOf("endobj", objEnd);
+            Assert.assertTrue("page " + i, text.substring(objEnd, end).contains("/Type /Page\n"));
+            offset += pageLengths[i];
+        }
+        //the last group is followed by the objects that don't belong to a page
+        Assert.assertTrue(text.substring(offset, text.indexOf('\n', offset)).matches("\\d+ 0 obj"));
+    }
+
     private void checkFirstObj(byte[] data) throws IOException {
         int firstObjPos = getValue("/E", getFirstObj(data));
         InputStream is = new ByteArrayInputStream(data);
@@ -228,8 +297,9 @@ public class PDFLinearizationTestCase {
         for (int i = 0; i < pages; i++) {
             objects[i] = objectLeast + readBits(bitsDiffObjects, data);
         }
+        pageLengths = new int[pages];
         for (int i = 0; i < pages; i++) {
-            readBits(bitsDiffPageLength, data);
+            pageLengths[i] = readBits(bitsDiffPageLength, data);
         }
         for (int i = 0; i < pages; i++) {
             readBits(32, data);
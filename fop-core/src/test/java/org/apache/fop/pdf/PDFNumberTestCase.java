@@ -27,6 +27,8 @@ import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
+import org.apache.xmlgraphics.util.DoubleFormatUtil;
+
 /**
  * This test tests PDFNumber's doubleOut() methods.
  */
@@ -89,6 +91,20 @@ public class PDFNumberTestCase extends PDFObjectTestCase {
         assertEquals("-100", PDFNumber.doubleOut(-100.1234f, 0));
     }
 
+    /**
+     * Tests that whole numbers are written the same way as by DoubleFormatUtil.
+     */
+    @Test
+    public void testDoubleOutWholeNumbers() {
+        double[] values = {1, -1, 12, -595, 842, 65535, 1e7, -1e7, 123456789, 1e14 + 1, 99999999999999.0};
+        for (double value : values) {
+            StringBuffer expected = new StringBuffer();
+            DoubleFormatUtil.formatDouble(value, 8, 8, expected);
+            assertEquals(expected.toString(), PDFNumber.doubleOut(value, 8, new StringBuffer()).toString());
+        }
+        assertEquals("0", PDFNumber.doubleOut(-0.0, 8, new StringBuffer()).toString());
+    }
+
     /**
      * Tests PDFNumber.doubleOut(). Special cases (former bugs).
      * @throws Exception if the test fails
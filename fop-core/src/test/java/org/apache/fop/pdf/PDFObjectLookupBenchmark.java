@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Debug tool comparing the lookup of already registered links and gradient functions through a
+ * {@link PDFObjectRegistry} with the linear scan that was previously used by {@link PDFDocument}.
+ * Every object is looked up before it is added, as done by {@link PDFFactory}, and every second
+ * object is a duplicate of an earlier one.
+ * <p>
+ * Usage: PDFObjectLookupBenchmark [count] [skipLinearScan]
+ */
+public final class PDFObjectLookupBenchmark {
+
+    private PDFObjectLookupBenchmark() {
+    }
+
+    private static List<PDFObject> createLinks(int count) {
+        List<PDFObject> links = new ArrayList<PDFObject>(count);
+        for (int i = 0; i < count; i++) {
+            int n = i % 2 == 0 ? i : i / 2;
+            PDFLink link = new PDFLink(new Rectangle(n % 500, n / 500, 10, 10));
+            link.setAction(new PDFUri("http://xmlgraphics.apache.org/fop/" + (n % 100)));
+            links.add(link);
+        }
+        return links;
+    }
+
+    private static List<PDFObject> createFunctions(int count) {
+        List<PDFObject> functions = new ArrayList<PDFObject>(count);
+        List<Double> domain = Arrays.asList(0.0, 1.0);
+        for (int i = 0; i < count; i++) {
+            int n = i % 2 == 0 ? i : i / 2;
+            float[] cZero = {(n % 256) / 255f, ((n / 256) % 256) / 255f, 0f};
+            float[] cOne = {1f, 1f, ((n / 65536) % 256) / 255f};
+            functions.add(new PDFFunction(domain, null, cZero, cOne, 1.0));
+        }
+        return functions;
+    }
+
+    private static long runLinearScan(List<PDFObject> objects) {
+        List<PDFObject> registered = new ArrayList<PDFObject>();
+        long start = System.nanoTime();
+        for (PDFObject obj : objects) {
+            PDFObject found = null;
+            for (PDFObject candidate : registered) {
+                if (obj.contentEquals(candidate)) {
+                    found = candidate;
+                    break;
+                }
+            }
+            if (found == null) {
+                registered.add(obj);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long runRegistry(List<PDFObject> objects) {
+        PDFObjectRegistry<PDFObject> registered = new PDFObjectRegistry<PDFObject>();
+        long start = System.nanoTime();
+        for (PDFObject obj : objects) {
+            if (registered.find(obj) == null) {
+                registered.add(obj);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void run(String name, List<PDFObject> objects, boolean skipLinearScan) {
+        //warm-up
+        runRegistry(objects);
+        long registry = runRegistry(objects);
+        System.out.println(name + ": registry " + (registry / 1000000) + " ms");
+        if (!skipLinearScan) {
+            long linear = runLinearScan(objects);
+            System.out.println(name + ": linear scan " + (linear / 1000000) + " ms");
+        }
+    }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        boolean skipLinearScan = args.length > 1 && Boolean.parseBoolean(args[1]);
+        run(count + " links", createLinks(count), skipLinearScan);
+        run(count + " functions", createFunctions(count), skipLinearScan);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.awt.Rectangle;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Test case for {@link PDFObjectRegistry} and the lookups of {@link PDFDocument} built on it.
+ */
+public class PDFObjectRegistryTestCase {
+
+    @Test
+    public void testFind() {
+        PDFObjectRegistry<PDFFileSpec> registry = new PDFObjectRegistry<PDFFileSpec>();
+        PDFFileSpec a = new PDFFileSpec("a.pdf");
+        PDFFileSpec b = new PDFFileSpec("b.pdf");
+        registry.add(a);
+        registry.add(b);
+        assertEquals(2, registry.size());
+        assertSame(a, registry.find(new PDFFileSpec("a.pdf")));
+        assertSame(b, registry.find(new PDFFileSpec("b.pdf")));
+        assertNull(registry.find(new PDFFileSpec("c.pdf")));
+        registry.clear();
+        assertEquals(0, registry.size());
+        assertNull(registry.find(new PDFFileSpec("a.pdf")));
+    }
+
+    @Test
+    public void testFindWithSameHash() {
+        PDFObjectRegistry<PDFFileSpec> registry = new PDFObjectRegistry<PDFFileSpec>();
+        //"Aa" and "BB" have the same String hash code
+        PDFFileSpec a = new PDFFileSpec("Aa");
+        PDFFileSpec b = new PDFFileSpec("BB");
+        registry.add(a);
+        registry.add(b);
+        assertSame(a, registry.find(new PDFFileSpec("Aa")));
+        assertSame(b, registry.find(new PDFFileSpec("BB")));
+    }
+
+    @Test
+    public void testLinksAreReused() {
+        PDFDocument doc = new PDFDocument("");
+        PDFFactory factory = doc.getFactory();
+        PDFLink link = factory.makeLink(new Rectangle(0, 0, 10, 10), "http://xmlgraphics.apache.org",
+                PDFLink.EXTERNAL, 0);
+        assertSame(link, factory.makeLink(new Rectangle(0, 0, 10, 10), "http://xmlgraphics.apache.org",
+                PDFLink.EXTERNAL, 0));
+        assertNotSame(link, factory.makeLink(new Rectangle(0, 0, 20, 10), "http://xmlgraphics.apache.org",
+                PDFLink.EXTERNAL, 0));
+        assertNotSame(link, factory.makeLink(new Rectangle(0, 0, 10, 10), "http://www.apache.org",
+                PDFLink.EXTERNAL, 0));
+    }
+
+    @Test
+    public void testLinksWithActionSetAfterRegistration() {
+        PDFDocument doc = new PDFDocument("");
+        PDFFactory factory = doc.getFactory();
+        PDFLink first = new PDFLink(new Rectangle(0, 0, 10, 10));
+        PDFLink second = new PDFLink(new Rectangle(0, 0, 10, 10));
+        doc.registerObject(first);
+        doc.registerObject(second);
+        first.setAction(factory.getExternalAction("http://xmlgraphics.apache.org", false));
+        second.setAction(factory.getExternalAction("http://www.apache.org", false));
+        assertSame(first, factory.makeLink(new Rectangle(0, 0, 10, 10), "http://xmlgraphics.apache.org",
+                PDFLink.EXTERNAL, 0));
+        assertSame(second, factory.makeLink(new Rectangle(0, 0, 10, 10), "http://www.apache.org",
+                PDFLink.EXTERNAL, 0));
+    }
+
+    @Test
+    public void testLinksWithActionReplaced() {
+        PDFDocument doc = new PDFDocument("");
+        PDFFactory factory = doc.getFactory();
+        PDFLink link = factory.makeLink(new Rectangle(0, 0, 10, 10), "http://xmlgraphics.apache.org",
+                PDFLink.EXTERNAL, 0);
+        link.setAction(factory.getExternalAction("http://www.apache.org", false));
+        assertSame(link, factory.makeLink(new Rectangle(0, 0, 10, 10), "http://www.apache.org",
+                PDFLink.EXTERNAL, 0));
+        assertNotSame(link, factory.makeLink(new Rectangle(0, 0, 10, 10), "http://xmlgraphics.apache.org",
+                PDFLink.EXTERNAL, 0));
+    }
+
+    @Test
+    public void testGStatesAreReused() {
+        PDFDocument doc = new PDFDocument("");
+        PDFFactory factory = doc.getFactory();
+        Map<String, Float> half = Collections.singletonMap(PDFGState.GSTATE_ALPHA_NONSTROKE, 0.5f);
+        Map<String, Float> quarter = Collections.singletonMap(PDFGState.GSTATE_ALPHA_NONSTROKE, 0.25f);
+        PDFGState gstate = factory.makeGState(half, PDFGState.DEFAULT);
+        assertSame(gstate, factory.makeGState(half, PDFGState.DEFAULT));
+        assertNotSame(gstate, factory.makeGState(quarter, PDFGState.DEFAULT));
+    }
+}
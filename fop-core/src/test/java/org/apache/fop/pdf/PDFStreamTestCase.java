@@ -108,6 +108,15 @@ public class PDFStreamTestCase {
         assertArrayEquals(createSampleStreamData(), actual.toByteArray());
     }
 
+    @Test
+    public void testAddEncodesCharacters() throws IOException {
+        stream.add("BT (A\u00e9) Tj ET\n");
+        stream.add(new StringBuffer("\u20ac \uD83D\uDCA9 x"));
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        stream.outputRawStreamData(actual);
+        assertArrayEquals("BT (A\u00e9) Tj ET\n? ? x".getBytes(PDFDocument.ENCODING), actual.toByteArray());
+    }
+
     private byte[] createSampleData() {
         byte[] bytes = new byte[10];
         for (int i = 0; i < 10; i++) {
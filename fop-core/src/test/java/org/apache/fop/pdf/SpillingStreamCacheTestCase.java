@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test case for {@link SpillingStreamCache}.
+ */
+public class SpillingStreamCacheTestCase {
+
+    private static final int THRESHOLD = 1024;
+
+    private StreamCacheFactory factory;
+
+    @Before
+    public void setUp() {
+        factory = StreamCacheFactory.getInstance();
+        factory.resetStatistics();
+    }
+
+    private static byte[] createData(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31 + i / 7);
+        }
+        return data;
+    }
+
+    private static byte[] getContents(StreamCache cache) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(cache.getSize(), cache.outputContents(out));
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testDisabledWithoutThreshold() throws IOException {
+        assertTrue(factory.createStreamCache(0, 0) instanceof InMemoryStreamCache);
+    }
+
+    @Test
+    public void testSmallStreamStaysOnHeap() throws IOException {
+        SpillingStreamCache cache = (SpillingStreamCache) factory.createStreamCache(0, THRESHOLD);
+        byte[] data = createData(THRESHOLD);
+        cache.write(data);
+        assertFalse(cache.isSpilled());
+        assertEquals(THRESHOLD, cache.getSize());
+        assertArrayEquals(data, getContents(cache));
+        assertEquals(0, factory.getSpilledStreamCount());
+        assertTrue(factory.getHeapUsage() >= THRESHOLD);
+        cache.clear();
+    }
+
+    @Test
+    public void testLargeStreamSpills() throws IOException {
+        SpillingStreamCache cache = (SpillingStreamCache) factory.createStreamCache(16, THRESHOLD);
+        OutputStream out = cache.getOutputStream();
+        //spans several blocks of the scratch file, written both byte-wise and in chunks
+        byte[] data = createData(3 * ScratchFile.BLOCK_SIZE + 123);
+        for (int i = 0; i < 100; i++) {
+            out.write(data[i]);
+        }
+        out.write(data, 100, data.length - 100);
+        assertTrue(cache.isSpilled());
+        assertEquals(data.length, cache.getSize());
+        assertArrayEquals(data, getContents(cache));
+        assertEquals(1, factory.getSpilledStreamCount());
+        assertTrue(factory.getSpillUsage() >= 4 * ScratchFile.BLOCK_SIZE);
+        assertTrue(factory.getPeakHeapUsage() <= factory.getHeapUsage() + THRESHOLD);
+
+        long spillUsage = factory.getSpillUsage();
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertEquals(spillUsage - 4 * ScratchFile.BLOCK_SIZE, factory.getSpillUsage());
+        assertTrue(factory.getPeakSpillUsage() >= spillUsage);
+    }
+
+    @Test
+    public void testReuseAfterClear() throws IOException {
+        SpillingStreamCache cache = (SpillingStreamCache) factory.createStreamCache(0, THRESHOLD);
+        OutputStream out = cache.getOutputStream();
+        out.write(createData(THRESHOLD * 2));
+        assertTrue(cache.isSpilled());
+        cache.clear();
+        byte[] data = createData(10);
+        out.write(data);
+        assertFalse(cache.isSpilled());
+        assertArrayEquals(data, getContents(cache));
+        cache.clear();
+    }
+
+    @Test
+    public void testScratchFileDeletedWhenDocumentsFinish() throws IOException {
+        StreamCacheFactory factory = new StreamCacheFactory();
+        Object first = new Object();
+        Object second = new Object();
+        factory.documentStarted(first);
+        factory.documentStarted(second);
+        SpillingStreamCache cache = (SpillingStreamCache) factory.createStreamCache(0, THRESHOLD);
+        cache.write(createData(THRESHOLD * 2));
+        assertTrue(cache.isSpilled());
+        assertTrue(factory.getScratchFileSize() > 0);
+        factory.documentFinished(first);
+        assertTrue(factory.getScratchFileSize() > 0);
+        factory.documentFinished(second);
+        assertEquals(0, factory.getScratchFileSize());
+
+        //a new scratch file is created for the next spill
+        cache = (SpillingStreamCache) factory.createStreamCache(0, THRESHOLD);
+        byte[] data = createData(THRESHOLD * 2);
+        cache.write(data);
+        assertArrayEquals(data, getContents(cache));
+        cache.clear();
+    }
+
+    @Test
+    public void testCloseDeletesFile() throws IOException {
+        ScratchFile scratchFile = new ScratchFile();
+        ScratchFile.Blocks blocks = scratchFile.createBlocks(this);
+        blocks.write(createData(10), 0, 10);
+        File file = scratchFile.getFile();
+        assertTrue(file.exists());
+        scratchFile.close();
+        assertFalse(file.exists());
+        try {
+            blocks.write(createData(ScratchFile.BLOCK_SIZE), 0, ScratchFile.BLOCK_SIZE);
+            fail("The blocks of a closed scratch file cannot be written");
+        } catch (IOException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testSpilledStreamOutput() throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        doc.setStreamSpillThreshold(THRESHOLD);
+        PDFStream stream = new PDFStream();
+        stream.setDocument(doc);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < THRESHOLD; i++) {
+            text.append(i).append(' ');
+        }
+        stream.add(text.toString());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        stream.outputRawStreamData(out);
+        assertEquals(text.toString(), out.toString("ISO-8859-1"));
+        assertEquals(1, factory.getSpilledStreamCount());
+    }
+
+    @Test
+    public void testThresholdOfDocument() throws IOException {
+        PDFDocument spilling = new PDFDocument("");
+        spilling.setStreamSpillThreshold(THRESHOLD);
+        PDFDocument inMemory = new PDFDocument("");
+        inMemory.setStreamSpillThreshold(0);
+        PDFStream spillingStream = new PDFStream();
+        spillingStream.setDocument(spilling);
+        PDFStream inMemoryStream = new PDFStream();
+        inMemoryStream.setDocument(inMemory);
+        assertTrue(spillingStream.getStreamCache() instanceof SpillingStreamCache);
+        assertTrue(inMemoryStream.getStreamCache() instanceof InMemoryStreamCache);
+        spillingStream.getStreamCache().clear();
+    }
+}
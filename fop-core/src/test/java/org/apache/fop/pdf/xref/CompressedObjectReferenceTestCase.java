@@ -39,6 +39,7 @@ public class CompressedObjectReferenceTestCase extends ObjectReferenceTest {
         runTest(Arrays.asList(0, 0, 0, 0, 0, 0, 0x5, 0xf7), 128);
         runTest(Arrays.asList(0, 0, 0, 0, 0, 0x9, 0xfb, 0xd), 0xae);
         runTest(Arrays.asList(0, 0, 0, 0, 0x11, 0xff, 0x15, 0xe9), 0xff);
+        runTest(Arrays.asList(0, 0, 0, 0, 0, 0, 0, 0x7), 0x1234);
     }
 
     private void runTest(List<Integer> expectedObjectStreamBytes, int index) throws IOException {
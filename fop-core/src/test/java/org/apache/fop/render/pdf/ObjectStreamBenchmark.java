@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.render.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.events.Event;
+import org.apache.fop.events.EventListener;
+
+/**
+ * Debug tool comparing the size of a tagged PDF document, the time spent producing it and the
+ * time PDFBox spends loading it, with the objects written one by one and packed into object
+ * streams of various capacities. The document has one page per section, each with a bookmark,
+ * a link and a few tagged blocks.
+ * <p>
+ * Usage: ObjectStreamBenchmark [pages] [runs] [capacity...]
+ */
+public final class ObjectStreamBenchmark {
+
+    private ObjectStreamBenchmark() {
+    }
+
+    private static String createFO(int pages) {
+        StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\" xml:lang=\"en\">")
+                .append("<fo:layout-master-set><fo:simple-page-master master-name=\"page\"")
+                .append(" page-height=\"297mm\" page-width=\"210mm\" margin=\"20mm\">")
+                .append("<fo:region-body/></fo:simple-page-master></fo:layout-master-set>")
+                .append("<fo:bookmark-tree>");
+        for (int i = 0; i < pages; i++) {
+            fo.append("<fo:bookmark internal-destination=\"s").append(i)
+                    .append("\"><fo:bookmark-title>Section ").append(i)
+                    .append("</fo:bookmark-title></fo:bookmark>");
+        }
+        fo.append("</fo:bookmark-tree><fo:page-sequence master-reference=\"page\">")
+                .append("<fo:flow flow-name=\"xsl-region-body\">");
+        for (int i = 0; i < pages; i++) {
+            fo.append("<fo:block id=\"s").append(i).append("\" break-before=\"page\"")
+                    .append(" font-weight=\"bold\">Section ").append(i).append("</fo:block>");
+            for (int j = 0; j < 5; j++) {
+                fo.append("<fo:block>Paragraph ").append(j).append(" of section ").append(i)
+                        .append(", see <fo:basic-link internal-destination=\"s")
+                        .append((i + 1) % pages).append("\">the next section</fo:basic-link>.")
+                        .append("</fo:block>");
+            }
+        }
+        fo.append("</fo:flow></fo:page-sequence></fo:root>");
+        return fo.toString();
+    }
+
+    private static byte[] render(FopFactory fopFactory, String fo, int capacity) throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setAccessibility(true);
+        //Replaces the default listener logging every rendered page
+        userAgent.getEventBroadcaster().addEventListener(new EventListener() {
+            public void processEvent(Event event) {
+            }
+        });
+        userAgent.getRendererOptions().put(PDFRendererOption.VERSION.getName(), "1.5");
+        if (capacity > 0) {
+            userAgent.getRendererOptions().put(PDFRendererOption.OBJECT_STREAMS.getName(), "true");
+            userAgent.getRendererOptions().put(PDFRendererOption.OBJECT_STREAM_CAPACITY.getName(),
+                    String.valueOf(capacity));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Source src = new StreamSource(new StringReader(fo));
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+        return out.toByteArray();
+    }
+
+    private static int load(byte[] pdf) throws Exception {
+        PDDocument doc = PDDocument.load(pdf);
+        try {
+            int annotations = 0;
+            for (PDPage page : doc.getPages()) {
+                annotations += page.getAnnotations().size();
+            }
+            return annotations;
+        } finally {
+            doc.close();
+        }
+    }
+
+    private static void run(FopFactory fopFactory, String fo, int capacity, int runs) throws Exception {
+        long renderTime = 0;
+        long loadTime = 0;
+        byte[] pdf = null;
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            pdf = render(fopFactory, fo, capacity);
+            renderTime += System.nanoTime() - start;
+            start = System.nanoTime();
+            load(pdf);
+            loadTime += System.nanoTime() - start;
+        }
+        System.out.println((capacity > 0 ? "object streams of " + capacity : "no object streams")
+                + ": " + pdf.length + " bytes, rendered in " + renderTime / runs / 1000000
+                + " ms, loaded in " + loadTime / runs / 1000000 + " ms");
+    }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments
+     * @throws Exception if an error occurs
+     */
+    public static void main(String[] args) throws Exception {
+        int pages = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int[] capacities = {100, 1000};
+        if (args.length > 2) {
+            capacities = new int[args.length - 2];
+            for (int i = 0; i < capacities.length; i++) {
+                capacities[i] = Integer.parseInt(args[i + 2]);
+            }
+        }
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        String fo = createFO(pages);
+        //Warm-up
+        render(fopFactory, fo, 0);
+        render(fopFactory, fo, capacities[0]);
+        run(fopFactory, fo, 0, runs);
+        for (int capacity : capacities) {
+            run(fopFactory, fo, capacity, runs);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.util.Date;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopConfBuilder;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.apps.PDFRendererConfBuilder;
+import org.apache.fop.pdf.PDFEncryptionParams;
+import org.apache.fop.util.EncodedStreamCache;
+
+/**
+ * Tests that images, ICC profiles and font subsets are shared between the documents of a
+ * FopFactory through its encoded stream cache.
+ */
+public class PDFEncodedStreamCacheTestCase {
+
+    private static final String IMAGE = "test/resources/images/bgimg72dpi.png";
+
+    private static final String FO = "<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+            + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+            + " page-height=\"297mm\" page-width=\"210mm\">"
+            + "<fo:region-body/></fo:simple-page-master></fo:layout-master-set>"
+            + "<fo:page-sequence master-reference=\"page\"><fo:flow flow-name=\"xsl-region-body\">"
+            + "<fo:block font-family=\"DejaVu\">Invoice</fo:block>"
+            + "<fo:block><fo:external-graphic src=\"%s\"/></fo:block>"
+            + "</fo:flow></fo:page-sequence></fo:root>";
+
+    private FopFactory fopFactory;
+    private EncodedStreamCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        fopFactory = FopFactory.newInstance(new File(".").toURI(), new FopConfBuilder()
+                .setEncodedStreamCacheSize(16 * 1024 * 1024)
+                .startRendererConfig(PDFRendererConfBuilder.class)
+                    .startFontsConfig()
+                        .startFont(null, "test/resources/fonts/ttf/DejaVuLGCSerif.ttf")
+                            .addTriplet("DejaVu", "normal", "normal")
+                        .endFont()
+                    .endFontConfig()
+                .endRendererConfig().build());
+        cache = fopFactory.getEncodedStreamCache();
+    }
+
+    private FOUserAgent createUserAgent() {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setCreationDate(new Date(0));
+        return userAgent;
+    }
+
+    private byte[] render(FOUserAgent userAgent) throws Exception {
+        return render(userAgent, IMAGE);
+    }
+
+    private byte[] render(FOUserAgent userAgent, String image) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Source src = new StreamSource(new StringReader(String.format(FO, image)));
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+        return out.toByteArray();
+    }
+
+    private static String withoutTrailer(byte[] pdf) throws Exception {
+        String s = new String(pdf, "ISO-8859-1");
+        //the metadata date is the time of rendering
+        return s.substring(0, s.lastIndexOf("trailer"))
+                .replaceAll("<xmp:MetadataDate>[^<]*</xmp:MetadataDate>", "");
+    }
+
+    @Test
+    public void testPayloadsShared() throws Exception {
+        byte[] first = render(createUserAgent());
+        //the font subset, the image and the sRGB profile
+        assertEquals(3, cache.getEntryCount());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+
+        byte[] second = render(createUserAgent());
+        assertEquals(3, cache.getEntryCount());
+        assertEquals(3, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        //Only the metadata date and the file identifier in the trailer differ
+        assertEquals(withoutTrailer(first), withoutTrailer(second));
+
+        PDDocument pdf = PDDocument.load(second);
+        try {
+            assertEquals(1, pdf.getNumberOfPages());
+        } finally {
+            pdf.close();
+        }
+    }
+
+    @Test
+    public void testOtherCompressionNotShared() throws Exception {
+        render(createUserAgent());
+        FOUserAgent userAgent = createUserAgent();
+        userAgent.getRendererOptions().put(PDFRendererOption.COMPRESSION_LEVEL.getName(), "1");
+        render(userAgent);
+        assertEquals(0, cache.getHitCount());
+        assertEquals(6, cache.getEntryCount());
+    }
+
+    @Test
+    public void testEncryptedDocumentsNotShared() throws Exception {
+        render(createUserAgent());
+        FOUserAgent userAgent = createUserAgent();
+        userAgent.getRendererOptions().put(PDFEncryptionOption.ENCRYPTION_PARAMS,
+                new PDFEncryptionParams(null, "owner", true, true, true, true, true));
+        byte[] pdf = render(userAgent);
+        assertTrue(pdf.length > 0);
+        assertEquals(0, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void testChangedImageFileNotShared() throws Exception {
+        File image = File.createTempFile("fop", ".png");
+        try {
+            FileUtils.copyFile(new File(IMAGE), image);
+            image.setLastModified(1000000000000L);
+            String uri = image.toURI().toString();
+            render(createUserAgent(), uri);
+            render(createUserAgent(), uri);
+            assertEquals(3, cache.getHitCount());
+
+            image.setLastModified(2000000000000L);
+            //clear the image cache so that the changed file is loaded again
+            fopFactory.getImageManager().getCache().clearCache();
+            render(createUserAgent(), uri);
+            //the font subset and the sRGB profile are reused, the image is encoded again
+            assertEquals(5, cache.getHitCount());
+            assertEquals(4, cache.getMissCount());
+        } finally {
+            image.delete();
+        }
+    }
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        fopFactory = FopFactory.newInstance(new File(".").toURI());
+        cache = fopFactory.getEncodedStreamCache();
+        assertFalse(cache.isEnabled());
+        render(createUserAgent());
+        render(createUserAgent());
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+}
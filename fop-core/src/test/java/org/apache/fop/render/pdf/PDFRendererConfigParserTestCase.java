@@ -19,6 +19,8 @@
 
 package org.apache.fop.render.pdf;
 
+import java.net.URI;
+
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -26,6 +28,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import org.apache.fop.apps.AbstractRendererConfigParserTester;
+import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.PDFRendererConfBuilder;
 import org.apache.fop.pdf.PDFAMode;
 import org.apache.fop.pdf.PDFXMode;
@@ -124,6 +127,69 @@ public class PDFRendererConfigParserTestCase
         assertEquals("ascii-85", conf.getConfigOptions().getFilterMap().get("image").get(1));
     }
 
+    @Test
+    public void testCompression() throws Exception {
+        parseConfig(createRenderer());
+        assertEquals(null, conf.getConfigOptions().getCompressionLevel());
+        assertEquals(null, conf.getConfigOptions().getCompressionThreads());
+
+        parseConfig(createRenderer().setCompressionLevel(9).setCompressionThreads(4));
+        assertEquals(Integer.valueOf(9), conf.getConfigOptions().getCompressionLevel());
+        assertEquals(Integer.valueOf(4), conf.getConfigOptions().getCompressionThreads());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompressionLevelOutOfRange() throws Exception {
+        parseConfig(createRenderer().setCompressionLevel(15));
+    }
+
+    @Test
+    public void testObjectStreams() throws Exception {
+        parseConfig(createRenderer());
+        assertEquals(null, conf.getConfigOptions().getObjectStreamsEnabled());
+        assertEquals(null, conf.getConfigOptions().getObjectStreamCapacity());
+
+        parseConfig(createRenderer().setObjectStreams(true).setObjectStreamCapacity(500));
+        assertEquals(Boolean.TRUE, conf.getConfigOptions().getObjectStreamsEnabled());
+        assertEquals(Integer.valueOf(500), conf.getConfigOptions().getObjectStreamCapacity());
+    }
+
+    @Test
+    public void testIncrementalUpdate() throws Exception {
+        parseConfig(createRenderer());
+        assertEquals(null, conf.getConfigOptions().getIncrementalUpdateURI());
+
+        parseConfig(createRenderer().setIncrementalUpdate("previous.pdf"));
+        assertEquals(new URI("previous.pdf"), conf.getConfigOptions().getIncrementalUpdateURI());
+        assertEquals(null, conf.getConfigOptions().getIncrementalUpdateAppend());
+
+        parseConfig(createRenderer().setIncrementalUpdate("previous.pdf").setIncrementalUpdateAppend(true));
+        assertEquals(Boolean.TRUE, conf.getConfigOptions().getIncrementalUpdateAppend());
+    }
+
+    @Test(expected = FOPException.class)
+    public void testIncrementalUpdateWithEncryption() throws Exception {
+        parseConfig(createRenderer()
+                .setIncrementalUpdate("previous.pdf")
+                .startEncryptionParams()
+                    .setUserPassword("password")
+                .endEncryptionParams());
+    }
+
+    @Test(expected = FOPException.class)
+    public void testIncrementalUpdateWithLinearization() throws Exception {
+        parseConfig(createRenderer().setIncrementalUpdate("previous.pdf").setLinearization(true));
+    }
+
+    @Test
+    public void testStreamSpillThreshold() throws Exception {
+        parseConfig(createRenderer());
+        assertEquals(null, conf.getConfigOptions().getStreamSpillThreshold());
+
+        parseConfig(createRenderer().setStreamSpillThreshold(1048576));
+        assertEquals(Integer.valueOf(1048576), conf.getConfigOptions().getStreamSpillThreshold());
+    }
+
     @Test
     public void testPDFAMode() throws Exception {
         parseConfig(createRenderer().setPDFAMode(PDFAMode.PDFA_1A.getName()));
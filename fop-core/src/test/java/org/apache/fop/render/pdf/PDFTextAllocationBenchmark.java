@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.pdf;
+
+import java.awt.Dimension;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.fonts.FontInfo;
+import org.apache.fop.render.intermediate.IFContext;
+import org.apache.fop.render.intermediate.IFUtil;
+
+/**
+ * Debug tool measuring the time and the heap allocated by {@link PDFPainter#drawText} for a
+ * text-heavy page sequence. The allocation is taken from the thread allocation counter of the
+ * platform's ThreadMXBean, so it requires a HotSpot-based JVM.
+ * <p>
+ * Usage: PDFTextAllocationBenchmark [lines] [pages]
+ */
+public final class PDFTextAllocationBenchmark {
+
+    private static final String TEXT = "The quick brown fox jumps over the lazy dog (1234567890)";
+
+    private PDFTextAllocationBenchmark() {
+    }
+
+    private static void run(int lines, int pages, boolean report) throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        PDFDocumentHandler documentHandler = new PDFDocumentHandler(new IFContext(userAgent));
+        documentHandler.setResult(new StreamResult(new NullOutputStream()));
+        documentHandler.setDefaultFontInfo(new FontInfo());
+        int[] dx = new int[TEXT.length()];
+        for (int i = 0; i < dx.length; i += 3) {
+            dx[i] = -120;
+        }
+        int[][] dp = IFUtil.convertDXToDP(dx);
+
+        com.sun.management.ThreadMXBean threadBean
+                = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long drawTime = 0;
+        long drawAllocated = 0;
+
+        documentHandler.startDocument();
+        documentHandler.startPageSequence(null);
+        for (int p = 0; p < pages; p++) {
+            documentHandler.startPage(p, String.valueOf(p + 1), null, new Dimension(595000, 842000));
+            PDFPainter painter = (PDFPainter) documentHandler.startPageContent();
+            long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            for (int i = 0; i < lines; i++) {
+                painter.setFont(i % 2 == 0 ? "Helvetica" : "Times", "normal", 400, null, 11000, null);
+                painter.drawText(20000, 20000 + (i % 800) * 1000, 0, 500, i % 4 == 0 ? dp : null, TEXT);
+            }
+            drawTime += System.nanoTime() - start;
+            drawAllocated += threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            documentHandler.endPageContent();
+            documentHandler.endPage();
+        }
+        documentHandler.endPageSequence();
+        documentHandler.endDocument();
+
+        if (report) {
+            int calls = lines * pages;
+            System.out.println(calls + " drawText calls: " + (drawTime / 1000000) + " ms, "
+                    + (drawAllocated / calls) + " bytes allocated per call");
+        }
+    }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments
+     * @throws Exception if an error occurs
+     */
+    public static void main(String[] args) throws Exception {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int pages = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        //warm-up
+        run(lines, pages, false);
+        run(lines, pages, true);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class EncodedStreamCacheTestCase {
+
+    private static EncodedStreamCache.Entry entry(int length) {
+        return new EncodedStreamCache.Entry(new byte[length], length * 2);
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+        EncodedStreamCache cache = new EncodedStreamCache();
+        EncodedStreamCache.Entry a = entry(10);
+        assertNull(cache.get("a"));
+        cache.put("a", a);
+        assertSame(a, cache.get("a"));
+        assertSame(a, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(10, cache.getSize());
+        cache.resetStatistics();
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+        assertEquals(1, cache.getEntryCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        EncodedStreamCache cache = new EncodedStreamCache();
+        cache.setMaximumSize(30);
+        EncodedStreamCache.Entry a = entry(10);
+        EncodedStreamCache.Entry b = entry(10);
+        EncodedStreamCache.Entry c = entry(10);
+        cache.put("a", a);
+        cache.put("b", b);
+        cache.put("c", c);
+        assertSame(a, cache.get("a"));
+        cache.put("d", entry(10));
+        assertNull(cache.get("b"));
+        assertSame(a, cache.get("a"));
+        assertSame(c, cache.get("c"));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(30, cache.getSize());
+
+        cache.put("a", entry(20));
+        assertEquals(30, cache.getSize());
+        assertEquals(2, cache.getEntryCount());
+
+        cache.setMaximumSize(20);
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(3, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testOversizedEntryNotCached() {
+        EncodedStreamCache cache = new EncodedStreamCache();
+        cache.setMaximumSize(10);
+        cache.put("a", entry(11));
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getEvictionCount());
+        cache.setMaximumSize(0);
+        cache.put("b", entry(1));
+        assertEquals(0, cache.getEntryCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeMaximumSize() {
+        new EncodedStreamCache().setMaximumSize(-1);
+    }
+}
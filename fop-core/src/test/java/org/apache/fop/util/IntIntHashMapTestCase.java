@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link IntIntHashMap} and {@link ConcurrentIntIntHashMap}.
+ */
+public class IntIntHashMapTestCase {
+
+    @Test
+    public void testSameValuesAsMap() {
+        Random random = new Random(1);
+        Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+        IntIntHashMap map = new IntIntHashMap();
+        ConcurrentIntIntHashMap concurrentMap = new ConcurrentIntIntHashMap();
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(0x110000);
+            int value = random.nextInt(65536);
+            Integer previous = expected.put(key, value);
+            int noValue = IntIntHashMap.NO_VALUE;
+            assertEquals(previous != null ? previous : noValue, map.put(key, value));
+            assertEquals(previous != null ? previous : noValue, concurrentMap.put(key, value));
+        }
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected.size(), concurrentMap.size());
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue().intValue(), map.get(entry.getKey()));
+            assertEquals(entry.getValue().intValue(), concurrentMap.get(entry.getKey()));
+        }
+        for (int key = 0; key < 1000; key++) {
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+            assertEquals(expected.containsKey(key), concurrentMap.containsKey(key));
+        }
+    }
+
+    @Test
+    public void testPutIfAbsent() {
+        ConcurrentIntIntHashMap map = new ConcurrentIntIntHashMap();
+        assertEquals(ConcurrentIntIntHashMap.NO_VALUE, map.putIfAbsent(7, 1));
+        assertEquals(1, map.putIfAbsent(7, 2));
+        assertEquals(1, map.get(7));
+        assertFalse(map.containsKey(8));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeKey() {
+        new IntIntHashMap().put(-1, 0);
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        final ConcurrentIntIntHashMap map = new ConcurrentIntIntHashMap(4);
+        final int count = 50000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger errors = new AtomicInteger();
+        Thread[] readers = new Thread[3];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int key = 0; key < count; key++) {
+                        //A key is either missing or has its whole value while the map grows
+                        int value = map.get(key);
+                        if (value != ConcurrentIntIntHashMap.NO_VALUE && value != key * 2) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }
+            };
+            readers[t].start();
+        }
+        start.countDown();
+        for (int key = 0; key < count; key++) {
+            map.put(key, key * 2);
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertEquals(0, errors.get());
+        for (int key = 0; key < count; key++) {
+            assertTrue(map.get(key) == key * 2);
+        }
+    }
+}
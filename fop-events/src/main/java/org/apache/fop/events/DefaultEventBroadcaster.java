@@ -68,7 +68,7 @@ public class DefaultEventBroadcaster implements EventBroadcaster {
     }
 
     private static List<EventModel> eventModels = new java.util.ArrayList();
-    private Map proxies = new java.util.HashMap();
+    private Map proxies = new java.util.concurrent.ConcurrentHashMap();
 
     /**
      * Loads an event model and returns its instance.